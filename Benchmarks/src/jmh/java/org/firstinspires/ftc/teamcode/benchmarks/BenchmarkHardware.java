@@ -0,0 +1,95 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.DriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionHardware;
+
+import java.util.Random;
+
+/**
+ * Minimal hardware doubles for benchmarks
+ * They do as little work as possible so the measured cost is Robot and Vision, not the simulator
+ */
+final class BenchmarkHardware {
+
+    // Power of two so the input index can wrap with a mask
+    static final int INPUT_COUNT = 1024;
+    static final int INPUT_MASK = INPUT_COUNT - 1;
+
+    private BenchmarkHardware() {}
+
+    /**
+     * Random values in [-range, range] from a fixed seed
+     */
+    static double[] randomInputs(long seed, double range) {
+        Random random = new Random(seed);
+        double[] values = new double[INPUT_COUNT];
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            values[i] = (random.nextDouble() * 2.0 - 1.0) * range;
+        }
+        return values;
+    }
+
+    /**
+     * Drive motors that only remember the last commanded powers
+     */
+    static final class RecordingDrive implements DriveHardware {
+        private final double[] powers = new double[MOTOR_COUNT];
+
+        @Override
+        public void setPowers(double frontLeftPower, double frontRightPower,
+                              double backLeftPower, double backRightPower) {
+            powers[FRONT_LEFT] = frontLeftPower;
+            powers[FRONT_RIGHT] = frontRightPower;
+            powers[BACK_LEFT] = backLeftPower;
+            powers[BACK_RIGHT] = backRightPower;
+        }
+
+        @Override
+        public double getPower(int motor) {
+            return powers[motor];
+        }
+
+        @Override
+        public int getCurrentPosition(int motor) {
+            return 0;
+        }
+    }
+
+    /**
+     * Camera that cycles through a fixed set of random botposes, always valid
+     */
+    static final class CyclingVision implements VisionHardware {
+        private final double[] x = randomInputs(11, 1.0);
+        private final double[] y = randomInputs(12, 0.5);
+        private final double[] yaw = randomInputs(13, 30.0);
+        private int index = 0;
+        private int pipelineIndex = 0;
+
+        @Override
+        public void start() {}
+
+        @Override
+        public void stop() {}
+
+        @Override
+        public void pipelineSwitch(int index) {
+            pipelineIndex = index;
+        }
+
+        @Override
+        public boolean readLatest(VisionFrame frame) {
+            int i = index++ & INPUT_MASK;
+            frame.pipelineIndex = pipelineIndex;
+            frame.tx = yaw[i];
+            frame.ty = 0.0;
+            frame.ta = 1.0;
+            frame.hasBotPose = true;
+            frame.botPoseX = x[i];
+            frame.botPoseY = y[i];
+            frame.botPoseZ = 0.0;
+            frame.botPoseYaw = yaw[i];
+            return true;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import org.firstinspires.ftc.teamcode.classes.Robot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Mecanum mixing and normalization in Robot.drive and Robot.driveWithGamepad
+ */
+@State(Scope.Thread)
+public class DriveBenchmark {
+
+    private final Robot robot = new Robot();
+    // Range above 1 so roughly half the calls take the normalization branch
+    private final double[] axial = BenchmarkHardware.randomInputs(1, 1.2);
+    private final double[] lateral = BenchmarkHardware.randomInputs(2, 1.2);
+    private final double[] yaw = BenchmarkHardware.randomInputs(3, 1.2);
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        robot.init(new BenchmarkHardware.RecordingDrive());
+    }
+
+    @Benchmark
+    public void drive() {
+        int i = index++ & BenchmarkHardware.INPUT_MASK;
+        robot.drive(axial[i], lateral[i], yaw[i]);
+    }
+
+    @Benchmark
+    public void driveWithGamepad() {
+        int i = index++ & BenchmarkHardware.INPUT_MASK;
+        robot.driveWithGamepad(axial[i], lateral[i], yaw[i]);
+    }
+}
@@ -0,0 +1,60 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+import org.firstinspires.ftc.teamcode.classes.recording.MatchRecord;
+import org.firstinspires.ftc.teamcode.classes.recording.MatchRecorder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Cost of recording one loop cycle into the memory-mapped ring file
+ */
+@State(Scope.Thread)
+public class MatchRecorderBenchmark {
+
+    private static final long LOOP_NANOS = 10_000_000L;
+
+    private final MatchRecorder recorder = new MatchRecorder();
+    private final MatchRecord record = new MatchRecord();
+    private final VisionFrame frame = new VisionFrame();
+    private final double[] inputs = BenchmarkHardware.randomInputs(31, 1.0);
+    private File file;
+    private long now = 0;
+    private int index = 0;
+
+    @Setup
+    public void setup() throws IOException {
+        file = File.createTempFile("match", MatchRecorder.EXTENSION);
+        if (!recorder.tryOpen(file)) {
+            throw new IOException("Could not open " + file);
+        }
+        frame.hasBotPose = true;
+    }
+
+    @TearDown
+    public void tearDown() {
+        recorder.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public long recordCycle() {
+        int i = index++ & BenchmarkHardware.INPUT_MASK;
+        now += LOOP_NANOS;
+        frame.sequence = index;
+        frame.botPoseX = inputs[i];
+        record.begin(index, now, LOOP_NANOS / 1e9);
+        record.setGamepad(inputs[i], -inputs[i], 0.5 * inputs[i], 0);
+        record.setVisionFrame(frame);
+        record.setPose(inputs[i], 0.0, 0.0, true);
+        record.commandedPowers[0] = (float) inputs[i];
+        recorder.record(record);
+        return recorder.getWriteCount();
+    }
+}
@@ -0,0 +1,56 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import org.firstinspires.ftc.teamcode.classes.Robot;
+import org.firstinspires.ftc.teamcode.classes.Vision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Proportional approach control and status string building in Robot.moveToAprilTag
+ */
+@State(Scope.Thread)
+public class MoveToAprilTagBenchmark {
+
+    private final Robot robot = new Robot();
+    private final Robot.MovementResult reusedResult = new Robot.MovementResult();
+    private final Vision.TargetData[] targets = new Vision.TargetData[BenchmarkHardware.INPUT_COUNT];
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        robot.init(new BenchmarkHardware.RecordingDrive());
+
+        // Mostly far from the target with some samples inside every tolerance
+        double[] x = BenchmarkHardware.randomInputs(21, 1.0);
+        double[] y = BenchmarkHardware.randomInputs(22, 0.5);
+        double[] yaw = BenchmarkHardware.randomInputs(23, 30.0);
+        for (int i = 0; i < targets.length; i++) {
+            Vision.TargetData target = new Vision.TargetData();
+            target.isAcquired = true;
+            target.hasResult = true;
+            target.hasBotPose = true;
+            boolean settled = i % 8 == 0;
+            target.xPosition = settled ? 0.0 : x[i];
+            target.yPosition = settled ? 0.0 : y[i];
+            target.yaw = settled ? 0.0 : yaw[i];
+            targets[i] = target;
+        }
+    }
+
+    @Benchmark
+    public Robot.MovementResult moveToAprilTag() {
+        return robot.moveToAprilTag(targets[index++ & BenchmarkHardware.INPUT_MASK]);
+    }
+
+    @Benchmark
+    public Robot.MovementResult moveToAprilTagReused() {
+        return robot.moveToAprilTag(targets[index++ & BenchmarkHardware.INPUT_MASK], reusedResult);
+    }
+
+    @Benchmark
+    public String moveToAprilTagWithStatus() {
+        return robot.moveToAprilTag(targets[index++ & BenchmarkHardware.INPUT_MASK], reusedResult).getStatus();
+    }
+}
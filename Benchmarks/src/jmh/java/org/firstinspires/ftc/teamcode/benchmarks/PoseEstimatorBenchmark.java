@@ -0,0 +1,48 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import org.firstinspires.ftc.teamcode.classes.localization.PoseEstimator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * PoseEstimator odometry prediction and botpose correction
+ */
+@State(Scope.Thread)
+public class PoseEstimatorBenchmark {
+
+    private static final long LOOP_NANOS = 10_000_000L;
+    private static final long LATENCY_NANOS = 25_000_000L;
+
+    private final PoseEstimator estimator = new PoseEstimator();
+    private final double[] forward = BenchmarkHardware.randomInputs(21, 0.015);
+    private final double[] left = BenchmarkHardware.randomInputs(22, 0.015);
+    private final double[] turn = BenchmarkHardware.randomInputs(23, 0.05);
+    private final double[] noise = BenchmarkHardware.randomInputs(24, 0.02);
+    private long now = 0;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        estimator.resetTo(1.0, 0.0, 0.0, now);
+    }
+
+    @Benchmark
+    public double predict() {
+        int i = index++ & BenchmarkHardware.INPUT_MASK;
+        now += LOOP_NANOS;
+        estimator.predict(forward[i], left[i], turn[i], now);
+        return estimator.getX();
+    }
+
+    @Benchmark
+    public double predictAndCorrect() {
+        int i = index++ & BenchmarkHardware.INPUT_MASK;
+        now += LOOP_NANOS;
+        estimator.predict(forward[i], left[i], turn[i], now);
+        estimator.addVisionMeasurement(estimator.getX() + noise[i], estimator.getY() - noise[i],
+                estimator.getHeading(), now - LATENCY_NANOS);
+        return estimator.getX();
+    }
+}
@@ -0,0 +1,66 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import org.firstinspires.ftc.teamcode.classes.filter.ExponentialFilter;
+import org.firstinspires.ftc.teamcode.classes.filter.HampelFilter;
+import org.firstinspires.ftc.teamcode.classes.filter.MedianFilter;
+import org.firstinspires.ftc.teamcode.classes.filter.MovingAverageFilter;
+import org.firstinspires.ftc.teamcode.classes.filter.OneEuroFilter;
+import org.firstinspires.ftc.teamcode.classes.filter.PositionFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * One botpose through each of Vision's position filters, with a full window
+ */
+@State(Scope.Thread)
+public class PositionFilterBenchmark {
+
+    private static final double FRAME_SECONDS = 1.0 / 90.0;
+
+    @Param({"movingAverage", "median", "hampel", "exponential", "oneEuro", "hampelOneEuro"})
+    public String filterType;
+
+    private final double[] x = BenchmarkHardware.randomInputs(31, 1.0);
+    private final double[] y = BenchmarkHardware.randomInputs(32, 0.5);
+    private PositionFilter filter;
+    private double time = 0.0;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        filter = createFilter(filterType);
+        for (int i = 0; i < BenchmarkHardware.INPUT_COUNT; i++) {
+            add();
+        }
+    }
+
+    @Benchmark
+    public double add() {
+        int i = index++ & BenchmarkHardware.INPUT_MASK;
+        time += FRAME_SECONDS;
+        filter.add(x[i], y[i], 0.0, time);
+        return filter.getX();
+    }
+
+    private static PositionFilter createFilter(String type) {
+        switch (type) {
+            case "movingAverage":
+                return new MovingAverageFilter(90);
+            case "median":
+                return new MedianFilter(15);
+            case "hampel":
+                return new HampelFilter(15, 3.0, 0.01);
+            case "exponential":
+                return new ExponentialFilter(0.1);
+            case "oneEuro":
+                return new OneEuroFilter(1.0, 5.0, 1.0);
+            case "hampelOneEuro":
+                return new HampelFilter(15, 3.0, 0.01, new OneEuroFilter(1.0, 5.0, 1.0));
+            default:
+                throw new IllegalArgumentException("unknown filter " + type);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import org.firstinspires.ftc.teamcode.classes.sim.AprilTagApproachSimulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * One full LimelightMoveToAprilTag loop (vision, control, motor write, telemetry) plus simulator physics
+ * The robot is reset whenever it reaches the target so every call does the full amount of work
+ */
+@State(Scope.Thread)
+public class SimulationLoopBenchmark {
+
+    private AprilTagApproachSimulation simulation;
+
+    @Setup
+    public void setup() {
+        simulation = new AprilTagApproachSimulation(0, 0.01);
+        simulation.start(1.0, 0.3, 15.0);
+    }
+
+    @Benchmark
+    public long loop() {
+        if (simulation.isAtTarget() || simulation.getSteps() > 3000) {
+            simulation.start(1.0, 0.3, 15.0);
+        }
+        simulation.step();
+        return simulation.getSteps();
+    }
+}
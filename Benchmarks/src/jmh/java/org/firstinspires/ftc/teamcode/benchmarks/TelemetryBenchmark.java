@@ -0,0 +1,70 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import org.firstinspires.ftc.teamcode.classes.Robot;
+import org.firstinspires.ftc.teamcode.classes.Vision;
+import org.firstinspires.ftc.teamcode.classes.hardware.BatchedTelemetry;
+import org.firstinspires.ftc.teamcode.classes.sim.SimulatedTelemetry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Telemetry formatting done every loop by Robot.displayTelemetry and Vision.displayTelemetry
+ * The sink formats each line like the Driver Station would but never transmits it. The batched variants
+ * go through a BatchedTelemetry updated every 10 ms loop, so one call in 25 formats and sends.
+ */
+@State(Scope.Thread)
+public class TelemetryBenchmark {
+
+    private final Robot robot = new Robot();
+    private final Vision vision = new Vision();
+    private static final long LOOP_NANOS = 10_000_000L;
+
+    private final SimulatedTelemetry telemetry = new SimulatedTelemetry(false);
+    private final BatchedTelemetry batchedTelemetry = new BatchedTelemetry(telemetry,
+            BatchedTelemetry.DEFAULT_TRANSMISSION_INTERVAL_MILLIS);
+    private final double[] ages = BenchmarkHardware.randomInputs(41, 50.0);
+    private long now = 0;
+    private int index = 0;
+    private Vision.TargetData targetData;
+
+    @Setup
+    public void setup() {
+        robot.init(new BenchmarkHardware.RecordingDrive());
+        robot.driveWithGamepad(0.4, -0.2, 0.1);
+        vision.init(new BenchmarkHardware.CyclingVision(), Vision.Pipeline.APRIL_TAG);
+        vision.start();
+        targetData = vision.processFrame();
+    }
+
+    @Benchmark
+    public long robotTelemetry() {
+        robot.displayTelemetry(telemetry);
+        return telemetry.getLineCount();
+    }
+
+    @Benchmark
+    public long visionTelemetry() {
+        vision.displayTelemetry(telemetry, targetData);
+        return telemetry.getLineCount();
+    }
+
+    @Benchmark
+    public long robotTelemetryBatched() {
+        robot.displayTelemetry(batchedTelemetry);
+        now += LOOP_NANOS;
+        batchedTelemetry.update(now);
+        return telemetry.getLineCount();
+    }
+
+    @Benchmark
+    public long visionTelemetryBatched() {
+        // The frame age changes every loop, so that line is formatted again on every transmission
+        targetData.ageMillis = ages[index++ & BenchmarkHardware.INPUT_MASK];
+        vision.displayTelemetry(batchedTelemetry, targetData);
+        now += LOOP_NANOS;
+        batchedTelemetry.update(now);
+        return telemetry.getLineCount();
+    }
+}
@@ -0,0 +1,53 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import org.firstinspires.ftc.teamcode.classes.trajectory.Trajectory;
+import org.firstinspires.ftc.teamcode.classes.trajectory.TrajectoryBuilder;
+import org.firstinspires.ftc.teamcode.classes.trajectory.TrajectoryFollower;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-loop trajectory lookup and following
+ */
+@State(Scope.Thread)
+public class TrajectoryBenchmark {
+
+    private static final long LOOP_NANOS = 10_000_000L;
+
+    private final Trajectory.State reference = new Trajectory.State();
+    private final TrajectoryFollower follower = new TrajectoryFollower();
+    private final double[] noise = BenchmarkHardware.randomInputs(31, 0.02);
+    private Trajectory trajectory;
+    private long now = 0;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        trajectory = new TrajectoryBuilder(new TrajectoryBuilder.Constraints(1.0, 1.5, 10.0, 2.0, 1.5))
+                .addWaypoint(0.0, 0.0, 0.0)
+                .addWaypoint(1.0, 0.5, Math.PI / 2)
+                .addWaypoint(2.0, 0.0, Math.PI)
+                .build();
+    }
+
+    @Benchmark
+    public Trajectory.State sample() {
+        int i = index++ & BenchmarkHardware.INPUT_MASK;
+        return trajectory.sample(i * trajectory.getDuration() / BenchmarkHardware.INPUT_COUNT, reference);
+    }
+
+    @Benchmark
+    public double follow() {
+        int i = index++ & BenchmarkHardware.INPUT_MASK;
+        if (follower.isFinished() || i == 0) {
+            follower.start(trajectory, now);
+        }
+        now += LOOP_NANOS;
+        // Pretend the robot is near where the follower last wanted it
+        Trajectory.State previous = follower.getReference();
+        follower.update(previous.x + noise[i], previous.y - noise[i], previous.heading, now);
+        return follower.getForwardVelocity();
+    }
+}
@@ -0,0 +1,37 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import org.firstinspires.ftc.teamcode.classes.Vision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Frame polling and pose averaging in Vision.processFrame
+ */
+@State(Scope.Thread)
+public class VisionBenchmark {
+
+    private final Vision vision = new Vision();
+    private final Vision.TargetData reusedTargetData = new Vision.TargetData();
+
+    @Setup
+    public void setup() {
+        vision.init(new BenchmarkHardware.CyclingVision(), Vision.Pipeline.APRIL_TAG);
+        vision.start();
+        // Fill the averaging window so every measured call is in steady state
+        for (int i = 0; i < vision.getAverageFrameCount(); i++) {
+            vision.processFrame();
+        }
+    }
+
+    @Benchmark
+    public Vision.TargetData processFrame() {
+        return vision.processFrame();
+    }
+
+    @Benchmark
+    public Vision.TargetData processFrameReused() {
+        return vision.processFrame(reusedTargetData);
+    }
+}
@@ -0,0 +1,49 @@
+package org.firstinspires.ftc.teamcode.classes;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AnglesTest {
+
+    private static final double EPSILON = 1e-12;
+
+    @Test
+    public void radiansWrapIntoHalfOpenRange() {
+        assertEquals(0.5, Angles.normalizeRadians(0.5), EPSILON);
+        assertEquals(Math.PI, Angles.normalizeRadians(Math.PI), EPSILON);
+        assertEquals(Math.PI, Angles.normalizeRadians(-Math.PI), EPSILON);
+        assertEquals(-Math.PI / 2.0, Angles.normalizeRadians(1.5 * Math.PI), EPSILON);
+        assertEquals(0.25, Angles.normalizeRadians(0.25 + 6.0 * Math.PI), 1e-9);
+    }
+
+    @Test
+    public void degreesWrapIntoHalfOpenRange() {
+        assertEquals(90.0, Angles.normalizeDegrees(90.0), 0.0);
+        assertEquals(180.0, Angles.normalizeDegrees(180.0), 0.0);
+        assertEquals(180.0, Angles.normalizeDegrees(-180.0), 0.0);
+        assertEquals(-90.0, Angles.normalizeDegrees(270.0), 0.0);
+        assertEquals(10.0, Angles.normalizeDegrees(-710.0), 0.0);
+    }
+
+    @Test
+    public void hugeAnglesWrapWithoutLooping() {
+        double radians = Angles.normalizeRadians(1e300);
+        assertTrue(radians > -Math.PI && radians <= Math.PI);
+        double degrees = Angles.normalizeDegrees(-1e300);
+        assertTrue(degrees > -180.0 && degrees <= 180.0);
+        assertEquals(0.25, Angles.normalizeRadians(0.25 + 2e6 * Math.PI), 1e-6);
+        assertEquals(10.0, Angles.normalizeDegrees(10.0 - 360.0 * 1e6), 0.0);
+    }
+
+    @Test
+    public void nanAndInfinitiesPassThrough() {
+        assertTrue(Double.isNaN(Angles.normalizeRadians(Double.NaN)));
+        assertTrue(Double.isNaN(Angles.normalizeDegrees(Double.NaN)));
+        assertEquals(Double.POSITIVE_INFINITY, Angles.normalizeRadians(Double.POSITIVE_INFINITY), 0.0);
+        assertEquals(Double.NEGATIVE_INFINITY, Angles.normalizeRadians(Double.NEGATIVE_INFINITY), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, Angles.normalizeDegrees(Double.POSITIVE_INFINITY), 0.0);
+        assertEquals(Double.NEGATIVE_INFINITY, Angles.normalizeDegrees(Double.NEGATIVE_INFINITY), 0.0);
+    }
+}
@@ -0,0 +1,128 @@
+package org.firstinspires.ftc.teamcode.classes;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionHardware;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PipelineSchedulerTest {
+
+    private static final long LOOP_NANOS = 10_000_000L;
+
+    /**
+     * Camera that only remembers the switches it was sent
+     */
+    private static class SwitchLog implements VisionHardware {
+        int lastIndex = -1;
+        int switchCount = 0;
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void pipelineSwitch(int index) {
+            lastIndex = index;
+            switchCount++;
+        }
+
+        @Override
+        public boolean readLatest(VisionFrame frame) {
+            return false;
+        }
+    }
+
+    @Test
+    public void oldPipelineResultsAreDiscardedUntilSwitchLands() {
+        SwitchLog camera = new SwitchLog();
+        PipelineScheduler scheduler = new PipelineScheduler();
+        scheduler.init(camera, Vision.Pipeline.APRIL_TAG);
+        scheduler.update(0);
+        assertTrue(scheduler.accept(frame(1, Vision.Pipeline.APRIL_TAG), 0));
+        assertFalse(scheduler.isSwitching());
+
+        scheduler.request(Vision.Pipeline.YELLOW_DETECTION);
+        assertEquals(Vision.Pipeline.YELLOW_DETECTION.getIndex(), camera.lastIndex);
+        assertFalse(scheduler.accept(frame(2, Vision.Pipeline.APRIL_TAG), LOOP_NANOS));
+        assertTrue(scheduler.isSwitching());
+        assertTrue(scheduler.accept(frame(3, Vision.Pipeline.YELLOW_DETECTION), 2 * LOOP_NANOS));
+        assertFalse(scheduler.isSwitching());
+        assertEquals(1, scheduler.getDiscardedFrameCount());
+    }
+
+    @Test
+    public void requestReplacesUnconfirmedSwitch() {
+        SwitchLog camera = new SwitchLog();
+        PipelineScheduler scheduler = new PipelineScheduler();
+        scheduler.init(camera, Vision.Pipeline.APRIL_TAG);
+        scheduler.update(0);
+
+        // The AprilTag switch never lands, but the next request goes out straight away
+        scheduler.request(Vision.Pipeline.YELLOW_DETECTION);
+        assertEquals(Vision.Pipeline.YELLOW_DETECTION.getIndex(), camera.lastIndex);
+        assertEquals(Vision.Pipeline.YELLOW_DETECTION, scheduler.getTargetPipeline());
+        assertTrue(scheduler.accept(frame(1, Vision.Pipeline.YELLOW_DETECTION), LOOP_NANOS));
+        assertFalse(scheduler.isSwitching());
+    }
+
+    @Test
+    public void singlePipelineSeeingNothingStopsWaiting() {
+        SwitchLog camera = new SwitchLog();
+        PipelineScheduler scheduler = new PipelineScheduler();
+        scheduler.init(camera, Vision.Pipeline.APRIL_TAG);
+
+        long now = 0;
+        for (; now <= 2_000_000_000L; now += LOOP_NANOS) {
+            scheduler.update(now);
+        }
+        assertFalse(scheduler.isSwitching());
+        assertEquals(1, scheduler.getResentSwitchCount());
+        assertEquals(1, scheduler.getUnconfirmedSwitchCount());
+        assertEquals(2, camera.switchCount);
+
+        // Results from another pipeline are still turned away
+        assertFalse(scheduler.accept(frame(1, Vision.Pipeline.YELLOW_DETECTION), now));
+        assertTrue(scheduler.accept(frame(2, Vision.Pipeline.APRIL_TAG), now));
+    }
+
+    @Test
+    public void scheduleSkipsSlotThatNeverConfirms() {
+        SwitchLog camera = new SwitchLog();
+        PipelineScheduler scheduler = new PipelineScheduler();
+        scheduler.init(camera, Vision.Pipeline.APRIL_TAG);
+        scheduler.setSchedule(new Vision.Pipeline[] {Vision.Pipeline.APRIL_TAG, Vision.Pipeline.YELLOW_DETECTION},
+                new double[] {0.4, 0.1});
+        scheduler.update(0);
+        assertTrue(scheduler.accept(frame(1, Vision.Pipeline.APRIL_TAG), 0));
+
+        long now = 0;
+        while (scheduler.getTargetPipeline() == Vision.Pipeline.APRIL_TAG) {
+            now += LOOP_NANOS;
+            scheduler.update(now);
+        }
+        assertEquals(400_000_000L, now);
+
+        // Yellow sees nothing, so its slot is given up after its dwell plus the switch timeout
+        long switchedNanos = now;
+        while (scheduler.getTargetPipeline() == Vision.Pipeline.YELLOW_DETECTION) {
+            now += LOOP_NANOS;
+            scheduler.update(now);
+        }
+        assertTrue(now - switchedNanos <= 700_000_000L);
+        assertEquals(Vision.Pipeline.APRIL_TAG.getIndex(), camera.lastIndex);
+    }
+
+    private static VisionFrame frame(long sequence, Vision.Pipeline pipeline) {
+        VisionFrame frame = new VisionFrame();
+        frame.sequence = sequence;
+        frame.pipelineIndex = pipeline.getIndex();
+        return frame;
+    }
+}
@@ -0,0 +1,105 @@
+package org.firstinspires.ftc.teamcode.classes;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RollingWindowTest {
+
+    private static final double EPSILON = 1e-12;
+
+    @Test
+    public void emptyWindowReportsZero() {
+        RollingWindow window = new RollingWindow(4, true);
+        assertTrue(window.isEmpty());
+        assertEquals(0.0, window.mean(), 0.0);
+        assertEquals(0.0, window.variance(), 0.0);
+        assertEquals(0.0, window.latest(), 0.0);
+    }
+
+    @Test
+    public void meanAndVarianceOfPartialWindow() {
+        RollingWindow window = new RollingWindow(5, true);
+        window.add(1.0);
+        window.add(2.0);
+        window.add(3.0);
+        assertEquals(3, window.size());
+        assertFalse(window.isFull());
+        assertEquals(2.0, window.mean(), EPSILON);
+        assertEquals(2.0 / 3.0, window.variance(), EPSILON);
+        assertEquals(Math.sqrt(2.0 / 3.0), window.standardDeviation(), EPSILON);
+        assertEquals(3.0, window.latest(), 0.0);
+    }
+
+    @Test
+    public void evictsOldestOnceFull() {
+        RollingWindow window = new RollingWindow(3);
+        for (int i = 1; i <= 5; i++) {
+            window.add(i);
+        }
+        assertTrue(window.isFull());
+        assertEquals(3, window.size());
+        assertEquals(4.0, window.mean(), EPSILON);
+        assertEquals(5.0, window.get(0), 0.0);
+        assertEquals(4.0, window.get(1), 0.0);
+        assertEquals(3.0, window.get(2), 0.0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getBeyondSizeThrows() {
+        RollingWindow window = new RollingWindow(3);
+        window.add(1.0);
+        window.get(1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void varianceNeedsTracking() {
+        new RollingWindow(3).variance();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyCapacity() {
+        new RollingWindow(0);
+    }
+
+    @Test
+    public void resumKeepsRunningSumsExact() {
+        // Large offsets make the running sums drift without the periodic resum
+        RollingWindow window = new RollingWindow(8, true);
+        Random random = new Random(1);
+        double[] recent = new double[8];
+        for (int i = 0; i < 8 * 16 * 10 + 3; i++) {
+            double value = 1e6 + random.nextGaussian();
+            window.add(value);
+            recent[i % 8] = value;
+        }
+        double mean = 0.0;
+        for (double value : recent) {
+            mean += value / 8;
+        }
+        double variance = 0.0;
+        for (double value : recent) {
+            variance += (value - mean) * (value - mean) / 8;
+        }
+        assertEquals(mean, window.mean(), 1e-9);
+        assertEquals(variance, window.variance(), 1e-3);
+    }
+
+    @Test
+    public void clearEmptiesWindow() {
+        RollingWindow window = new RollingWindow(3, true);
+        window.add(5.0);
+        window.add(7.0);
+        window.clear();
+        assertTrue(window.isEmpty());
+        assertEquals(0.0, window.mean(), 0.0);
+        window.add(2.0);
+        assertEquals(2.0, window.mean(), 0.0);
+        assertEquals(0.0, window.variance(), EPSILON);
+        assertEquals(3, window.capacity());
+    }
+}
@@ -0,0 +1,59 @@
+package org.firstinspires.ftc.teamcode.classes;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionHardware;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class VisionTest {
+
+    /**
+     * Camera that keeps returning the same result until told otherwise
+     */
+    private static class FixedCamera implements VisionHardware {
+        final VisionFrame frame = new VisionFrame();
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void pipelineSwitch(int index) {
+            frame.pipelineIndex = index;
+        }
+
+        @Override
+        public boolean readLatest(VisionFrame frame) {
+            frame.copyFrom(this.frame);
+            return true;
+        }
+    }
+
+    @Test
+    public void staleResultReadEveryLoopCountsOnce() {
+        FixedCamera camera = new FixedCamera();
+        Vision vision = new Vision();
+        vision.init(camera, Vision.Pipeline.APRIL_TAG);
+        vision.start();
+        Vision.TargetData targetData = new Vision.TargetData();
+
+        camera.frame.sequence = 1;
+        camera.frame.captureTimeNanos = 1_000_000_000L;
+        for (long now = 2_000_000_000L; now < 2_100_000_000L; now += 10_000_000L) {
+            vision.processFrame(targetData, now);
+            assertFalse(targetData.hasResult);
+        }
+        assertEquals(1, vision.getStaleFrameCount());
+
+        camera.frame.sequence = 2;
+        vision.processFrame(targetData, 2_200_000_000L);
+        vision.processFrame(targetData, 2_210_000_000L);
+        assertEquals(2, vision.getStaleFrameCount());
+    }
+}
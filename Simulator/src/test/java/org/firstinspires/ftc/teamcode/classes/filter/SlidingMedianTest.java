@@ -0,0 +1,71 @@
+package org.firstinspires.ftc.teamcode.classes.filter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SlidingMedianTest {
+
+    @Test
+    public void emptyWindowReportsZero() {
+        SlidingMedian median = new SlidingMedian(5);
+        assertTrue(median.isEmpty());
+        assertEquals(0.0, median.median(), 0.0);
+    }
+
+    @Test
+    public void evenCountAveragesMiddleTwo() {
+        SlidingMedian median = new SlidingMedian(4);
+        median.add(4.0);
+        median.add(1.0);
+        median.add(3.0);
+        median.add(10.0);
+        assertEquals(3.5, median.median(), 0.0);
+    }
+
+    @Test
+    public void matchesSortedWindow() {
+        // Small value ranges give many ties, which is where the heap bookkeeping is easiest to get wrong
+        Random random = new Random(3);
+        for (int capacity = 1; capacity <= 9; capacity++) {
+            SlidingMedian median = new SlidingMedian(capacity);
+            double[] recent = new double[capacity];
+            for (int i = 0; i < 500; i++) {
+                double value = random.nextInt(capacity % 2 == 0 ? 5 : 1000) - 2.0;
+                median.add(value);
+                recent[i % capacity] = value;
+                int count = Math.min(i + 1, capacity);
+                assertEquals(count, median.size());
+                assertEquals("capacity " + capacity + ", sample " + i,
+                        bruteForceMedian(recent, count), median.median(), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void clearStartsOver() {
+        SlidingMedian median = new SlidingMedian(3);
+        median.add(5.0);
+        median.add(9.0);
+        median.clear();
+        assertTrue(median.isEmpty());
+        median.add(2.0);
+        assertEquals(2.0, median.median(), 0.0);
+        assertEquals(3, median.capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyCapacity() {
+        new SlidingMedian(0);
+    }
+
+    private static double bruteForceMedian(double[] recent, int count) {
+        double[] sorted = Arrays.copyOf(recent, count);
+        Arrays.sort(sorted);
+        return count % 2 == 1 ? sorted[count / 2] : (sorted[count / 2 - 1] + sorted[count / 2]) / 2.0;
+    }
+}
@@ -0,0 +1,116 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncVisionHardwareTest {
+
+    /**
+     * Camera whose reads can be held up, recording whether it was stopped during one
+     */
+    private static class SlowCamera implements VisionHardware {
+        final CountDownLatch readStarted = new CountDownLatch(1);
+        final CountDownLatch releaseRead = new CountDownLatch(1);
+        volatile boolean blockReads = false;
+        volatile boolean reading = false;
+        volatile boolean stoppedDuringRead = false;
+        volatile int stopCount = 0;
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+            stoppedDuringRead |= reading;
+            stopCount++;
+        }
+
+        @Override
+        public void pipelineSwitch(int index) {
+        }
+
+        @Override
+        public boolean readLatest(VisionFrame frame) {
+            reading = true;
+            if (blockReads) {
+                readStarted.countDown();
+                try {
+                    releaseRead.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            frame.tx = 1.0;
+            reading = false;
+            return true;
+        }
+    }
+
+    @Test
+    public void deliversNumberedFrames() throws InterruptedException {
+        SlowCamera camera = new SlowCamera();
+        AsyncVisionHardware async = new AsyncVisionHardware(camera);
+        async.start();
+        VisionFrame frame = new VisionFrame();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!async.readLatest(frame) && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        async.stop();
+        assertEquals(1.0, frame.tx, 0.0);
+        assertTrue(frame.sequence > 0);
+        assertEquals(1, camera.stopCount);
+    }
+
+    @Test
+    public void stampsUnnumberedFramesInIncreasingOrder() throws InterruptedException {
+        // SlowCamera leaves sequence alone, so every number comes from the poll thread
+        SlowCamera camera = new SlowCamera();
+        AsyncVisionHardware async = new AsyncVisionHardware(camera, 1000.0);
+        async.start();
+        VisionFrame frame = new VisionFrame();
+        long lastSequence = 0;
+        int newFrames = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (newFrames < 10 && System.nanoTime() < deadline) {
+            if (async.readLatest(frame) && frame.sequence != lastSequence) {
+                assertTrue("sequence went from " + lastSequence + " to " + frame.sequence,
+                        frame.sequence > lastSequence);
+                lastSequence = frame.sequence;
+                newFrames++;
+            }
+            Thread.sleep(2);
+        }
+        async.stop();
+        assertEquals(10, newFrames);
+    }
+
+    @Test
+    public void stopNeverStopsTheCameraDuringARead() throws InterruptedException {
+        SlowCamera camera = new SlowCamera();
+        camera.blockReads = true;
+        AsyncVisionHardware async = new AsyncVisionHardware(camera);
+        async.start();
+        assertTrue(camera.readStarted.await(2, TimeUnit.SECONDS));
+
+        async.stop();
+        assertFalse(async.isRunning());
+        assertEquals("camera stopped under a read in progress", 0, camera.stopCount);
+
+        // Once the read returns, the poll thread stops the camera itself
+        camera.releaseRead.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (camera.stopCount == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, camera.stopCount);
+        assertFalse(camera.stoppedDuringRead);
+    }
+}
@@ -0,0 +1,122 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchedTelemetryTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    /**
+     * Sink that keeps what the last update sent, as "caption: text" lines
+     */
+    private static class RecordingSink implements TelemetrySink {
+        final List<String> pending = new ArrayList<>();
+        List<String> sent = new ArrayList<>();
+        int updateCount = 0;
+
+        @Override
+        public void addData(String caption, String format, Object... args) {
+            pending.add(caption + ": " + String.format(Locale.US, format, args));
+        }
+
+        @Override
+        public void addData(String caption, Object value) {
+            pending.add(caption + ": " + value);
+        }
+
+        @Override
+        public void update() {
+            sent = new ArrayList<>(pending);
+            pending.clear();
+            updateCount++;
+        }
+    }
+
+    @Test
+    public void sendsOncePerInterval() {
+        RecordingSink sink = new RecordingSink();
+        BatchedTelemetry telemetry = new BatchedTelemetry(sink, 250);
+        long now = 0;
+        for (int loop = 0; loop < 100; loop++) {
+            telemetry.addData("Loop", "%d", loop);
+            telemetry.update(now);
+            now += 10 * MILLIS;
+        }
+        // First loop, then every 25 loops
+        assertEquals(4, sink.updateCount);
+        assertEquals(4, telemetry.getTransmissionCount());
+        assertEquals("Loop: 75", sink.sent.get(0));
+    }
+
+    @Test
+    public void formatsLinesLikeTheSdk() {
+        RecordingSink sink = new RecordingSink();
+        BatchedTelemetry telemetry = new BatchedTelemetry(sink, 250);
+        telemetry.addData("Pose", "%.2f, %.2f, %d deg", 1.234, -0.5, 89.6);
+        telemetry.addData("Status", "Tracking");
+        telemetry.addData("Tags", "%s seen", "two");
+        assertTrue(telemetry.update(0));
+        assertEquals(3, sink.sent.size());
+        assertEquals("Pose: 1.23, -0.50, 90 deg", sink.sent.get(0));
+        assertEquals("Status: Tracking", sink.sent.get(1));
+        assertEquals("Tags: two seen", sink.sent.get(2));
+    }
+
+    @Test
+    public void onlyChangedLinesAreFormattedAgain() {
+        RecordingSink sink = new RecordingSink();
+        BatchedTelemetry telemetry = new BatchedTelemetry(sink, 250);
+        telemetry.addData("Fixed", "%.1f", 1.0);
+        telemetry.addData("Moving", "%.1f", 1.0);
+        telemetry.update(0);
+        assertEquals(2, telemetry.getFormattedLineCount());
+
+        telemetry.addData("Fixed", "%.1f", 1.0);
+        telemetry.addData("Moving", "%.1f", 2.0);
+        telemetry.update(300 * MILLIS);
+        assertEquals(3, telemetry.getFormattedLineCount());
+        assertEquals(1, telemetry.getReusedLineCount());
+        assertEquals("Moving: 2.0", sink.sent.get(1));
+    }
+
+    @Test
+    public void onlyLinesAddedSinceLastUpdateAreSent() {
+        RecordingSink sink = new RecordingSink();
+        BatchedTelemetry telemetry = new BatchedTelemetry(sink, 250);
+        telemetry.addData("A", "first");
+        telemetry.addData("B", "second");
+        telemetry.update(0);
+
+        // B is skipped this time and a new line shows up before A
+        telemetry.addData("C", "third");
+        telemetry.addData("A", "first");
+        assertFalse(telemetry.update(100 * MILLIS));
+        telemetry.addData("C", "third");
+        telemetry.addData("A", "first");
+        assertTrue(telemetry.update(300 * MILLIS));
+        assertEquals(2, sink.sent.size());
+        assertEquals("C: third", sink.sent.get(0));
+        assertEquals("A: first", sink.sent.get(1));
+        assertEquals(3, telemetry.getLineCount());
+    }
+
+    @Test
+    public void repeatedCaptionsKeepSeparateLines() {
+        RecordingSink sink = new RecordingSink();
+        BatchedTelemetry telemetry = new BatchedTelemetry(sink, 250);
+        telemetry.addData("Tag", "%d", 1.0);
+        telemetry.addData("Tag", "%d", 2.0);
+        telemetry.update(0);
+        assertEquals("Tag: 1", sink.sent.get(0));
+        assertEquals("Tag: 2", sink.sent.get(1));
+        assertEquals(2, telemetry.getLineCount());
+    }
+}
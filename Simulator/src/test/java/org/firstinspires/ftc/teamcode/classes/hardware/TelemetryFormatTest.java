@@ -0,0 +1,42 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TelemetryFormatTest {
+
+    @Test
+    public void parseMarksIntegerConversions() {
+        boolean[] isInteger = new boolean[4];
+        assertEquals(4, TelemetryFormat.parse("%d cycles, %.2f m, %5x, %-8.3e", isInteger));
+        assertArrayEquals(new boolean[] {true, false, true, false}, isInteger);
+    }
+
+    @Test
+    public void parseSkipsLiteralsAndNewlines() {
+        boolean[] isInteger = new boolean[2];
+        assertEquals(2, TelemetryFormat.parse("100%% at %n%+,d and %s", isInteger));
+        assertArrayEquals(new boolean[] {true, false}, isInteger);
+    }
+
+    @Test
+    public void parseCountsBeyondTheArray() {
+        boolean[] isInteger = new boolean[1];
+        assertEquals(3, TelemetryFormat.parse("%d %d %d", isInteger));
+        assertEquals(0, TelemetryFormat.parse("no arguments", isInteger));
+        assertEquals(0, TelemetryFormat.parse("trailing %", isInteger));
+    }
+
+    @Test
+    public void boxedValuesFormatLikeTheirConversions() {
+        String format = "%d loops, %.1f ms, %03d";
+        Object[] args = TelemetryFormat.box(format, 41.6, 2.25, 7.0);
+        assertEquals(Long.valueOf(42), args[0]);
+        assertEquals(Double.valueOf(2.25), args[1]);
+        assertEquals("42 loops, 2.3 ms, 007", String.format(Locale.US, format, args));
+    }
+}
@@ -0,0 +1,74 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class TripleBufferTest {
+
+    @Test
+    public void readerSeesNothingNewUntilPublish() {
+        TripleBuffer<long[]> buffer = new TripleBuffer<>(new long[1], new long[1], new long[1]);
+        buffer.writeBuffer()[0] = 7;
+        assertFalse(buffer.update());
+        buffer.publish();
+        assertTrue(buffer.update());
+        assertEquals(7, buffer.readBuffer()[0]);
+        assertFalse(buffer.update());
+        assertEquals(7, buffer.readBuffer()[0]);
+    }
+
+    @Test
+    public void readerGetsLatestOfSeveralPublishes() {
+        TripleBuffer<long[]> buffer = new TripleBuffer<>(new long[1], new long[1], new long[1]);
+        for (int i = 1; i <= 5; i++) {
+            buffer.writeBuffer()[0] = i;
+            buffer.publish();
+        }
+        assertTrue(buffer.update());
+        assertEquals(5, buffer.readBuffer()[0]);
+    }
+
+    @Test
+    public void writerNeverWritesTheReadBuffer() {
+        TripleBuffer<long[]> buffer = new TripleBuffer<>(new long[1], new long[1], new long[1]);
+        for (int i = 0; i < 10; i++) {
+            buffer.writeBuffer()[0] = i;
+            buffer.publish();
+            buffer.update();
+            assertNotSame(buffer.readBuffer(), buffer.writeBuffer());
+        }
+    }
+
+    @Test
+    public void concurrentReaderNeverSeesTornValues() throws InterruptedException {
+        // Each value holds its sequence in both halves; a torn read would mix two sequences
+        final TripleBuffer<long[]> buffer = new TripleBuffer<>(new long[2], new long[2], new long[2]);
+        final long writes = 200_000;
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (long i = 1; i <= writes; i++) {
+                    long[] value = buffer.writeBuffer();
+                    value[0] = i;
+                    value[1] = i;
+                    buffer.publish();
+                }
+            }
+        });
+        writer.start();
+        long last = 0;
+        while (last < writes) {
+            if (buffer.update()) {
+                long[] value = buffer.readBuffer();
+                assertEquals(value[0], value[1]);
+                assertTrue("sequence went backwards", value[0] > last);
+                last = value[0];
+            }
+        }
+        writer.join();
+    }
+}
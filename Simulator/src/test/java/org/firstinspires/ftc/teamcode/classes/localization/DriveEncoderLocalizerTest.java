@@ -0,0 +1,140 @@
+package org.firstinspires.ftc.teamcode.classes.localization;
+
+import org.firstinspires.ftc.teamcode.classes.DriveGeometry;
+import org.firstinspires.ftc.teamcode.classes.hardware.DriveHardware;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DriveEncoderLocalizerTest {
+
+    private static final long LOOP_NANOS = 10_000_000L; // 100 Hz
+    private static final double TICKS_PER_METER = DriveGeometry.TICKS_PER_METER;
+    private static final double LEVER_ARM = DriveGeometry.WHEEL_LEVER_ARM;
+
+    // Positions are rounded to whole ticks, so poses match only to within a few ticks
+    private static final double POSITION_TOLERANCE = 5.0 / TICKS_PER_METER;
+    private static final double HEADING_TOLERANCE = 2.0 / TICKS_PER_METER / LEVER_ARM;
+
+    /**
+     * Drive encoders that follow wheel distances set by the test
+     */
+    private static class FakeDrive implements DriveHardware {
+        final double[] wheelDistances = new double[MOTOR_COUNT];
+
+        @Override
+        public void setPowers(double frontLeftPower, double frontRightPower,
+                              double backLeftPower, double backRightPower) {
+        }
+
+        @Override
+        public double getPower(int motor) {
+            return 0.0;
+        }
+
+        @Override
+        public int getCurrentPosition(int motor) {
+            return (int) Math.round(wheelDistances[motor] * TICKS_PER_METER);
+        }
+
+        /**
+         * Turn the wheels for robot-frame motion, the inverse of MecanumDriveOdometry
+         */
+        void move(double forward, double left, double heading) {
+            double turn = heading * LEVER_ARM;
+            wheelDistances[FRONT_LEFT] += forward - left - turn;
+            wheelDistances[FRONT_RIGHT] += forward + left + turn;
+            wheelDistances[BACK_LEFT] += forward + left - turn;
+            wheelDistances[BACK_RIGHT] += forward - left + turn;
+        }
+    }
+
+    private long now = 0;
+
+    @Test
+    public void followsStraightDrive() {
+        FakeDrive drive = new FakeDrive();
+        DriveEncoderLocalizer localizer = new DriveEncoderLocalizer(drive, TICKS_PER_METER, LEVER_ARM);
+        localizer.setPose(0.5, -0.5, Math.PI / 4.0);
+        update(localizer);
+        for (int i = 0; i < 100; i++) {
+            drive.move(0.01, 0.0, 0.0);
+            update(localizer);
+        }
+        double diagonal = Math.sqrt(0.5);
+        assertEquals(0.5 + diagonal, localizer.getX(), POSITION_TOLERANCE);
+        assertEquals(-0.5 + diagonal, localizer.getY(), POSITION_TOLERANCE);
+        assertEquals(Math.PI / 4.0, localizer.getHeading(), HEADING_TOLERANCE);
+        assertEquals(diagonal, localizer.getVelocityX(), 0.05);
+        assertEquals(diagonal, localizer.getVelocityY(), 0.05);
+    }
+
+    @Test
+    public void followsArc() {
+        // Half circle of radius 0.8 m to the left at 1 m/s
+        double radius = 0.8;
+        int steps = 250;
+        double stepHeading = Math.PI / steps;
+        FakeDrive drive = new FakeDrive();
+        DriveEncoderLocalizer localizer = new DriveEncoderLocalizer(drive, TICKS_PER_METER, LEVER_ARM);
+        update(localizer);
+        for (int i = 0; i < steps; i++) {
+            drive.move(radius * stepHeading, 0.0, stepHeading);
+            update(localizer);
+        }
+        assertEquals(0.0, localizer.getX(), POSITION_TOLERANCE);
+        assertEquals(2.0 * radius, localizer.getY(), POSITION_TOLERANCE);
+        assertEquals(Math.PI, Math.abs(localizer.getHeading()), HEADING_TOLERANCE);
+        assertEquals(stepHeading * 1e9 / LOOP_NANOS, localizer.getHeadingVelocity(), 0.05);
+    }
+
+    @Test
+    public void setPoseJumpsWithoutMotion() {
+        FakeDrive drive = new FakeDrive();
+        DriveEncoderLocalizer localizer = new DriveEncoderLocalizer(drive, TICKS_PER_METER, LEVER_ARM);
+        update(localizer);
+        for (int i = 0; i < 10; i++) {
+            drive.move(0.01, 0.0, 0.0);
+            update(localizer);
+        }
+
+        localizer.setPose(1.0, 2.0, Math.PI / 2.0);
+        assertEquals(0.0, localizer.getDeltaForward(), 0.0);
+        assertEquals(0.0, localizer.getDeltaLeft(), 0.0);
+        assertEquals(0.0, localizer.getDeltaHeading(), 0.0);
+        assertEquals(0.0, localizer.getVelocityX(), 0.0);
+
+        // Driving on continues from the new pose
+        for (int i = 0; i < 10; i++) {
+            drive.move(0.01, 0.0, 0.0);
+            update(localizer);
+        }
+        assertEquals(1.0, localizer.getX(), POSITION_TOLERANCE);
+        assertEquals(2.1, localizer.getY(), POSITION_TOLERANCE);
+        assertEquals(Math.PI / 2.0, localizer.getHeading(), HEADING_TOLERANCE);
+    }
+
+    @Test
+    public void resetEncodersKeepsPose() {
+        FakeDrive drive = new FakeDrive();
+        DriveEncoderLocalizer localizer = new DriveEncoderLocalizer(drive, TICKS_PER_METER, LEVER_ARM);
+        update(localizer);
+        drive.move(0.3, 0.0, 0.0);
+        update(localizer);
+        double x = localizer.getX();
+
+        // The encoders go back to zero, which must not read as driving backwards
+        for (int motor = 0; motor < DriveHardware.MOTOR_COUNT; motor++) {
+            drive.wheelDistances[motor] = 0.0;
+        }
+        localizer.resetEncoders();
+        update(localizer);
+        assertEquals(x, localizer.getX(), 0.0);
+        assertEquals(0.0, localizer.getDeltaForward(), 0.0);
+    }
+
+    private void update(DriveEncoderLocalizer localizer) {
+        now += LOOP_NANOS;
+        localizer.update(now);
+    }
+}
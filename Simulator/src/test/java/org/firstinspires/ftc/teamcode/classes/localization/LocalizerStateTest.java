@@ -0,0 +1,173 @@
+package org.firstinspires.ftc.teamcode.classes.localization;
+
+import org.firstinspires.ftc.teamcode.classes.sim.SimulatedDeadWheels;
+import org.firstinspires.ftc.teamcode.classes.sim.SimulatedMecanumChassis;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LocalizerStateTest {
+
+    private static final long LOOP_NANOS = 10_000_000L; // 100 Hz
+    private static final double LOOP_SECONDS = LOOP_NANOS / 1e9;
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void integratesStraightDrive() {
+        LocalizerState state = new LocalizerState();
+        state.reset(0.0, 0.0, Math.PI / 2.0);
+        long now = 0;
+        for (int i = 0; i < 100; i++) {
+            now += LOOP_NANOS;
+            state.integrate(0.01, 0.0, 0.0, now);
+        }
+        assertEquals(0.0, state.x, EPSILON);
+        assertEquals(1.0, state.y, EPSILON);
+        assertEquals(Math.PI / 2.0, state.heading, EPSILON);
+        assertEquals(1.0, state.getForwardVelocity(), 1e-6);
+        assertEquals(0.0, state.getLeftVelocity(), 1e-6);
+    }
+
+    @Test
+    public void integratesArcAlongMidpointHeading() {
+        // Quarter circle of radius 1 m to the left
+        double radius = 1.0;
+        int steps = 100;
+        double stepHeading = Math.PI / 2.0 / steps;
+        LocalizerState state = new LocalizerState();
+        long now = 0;
+        for (int i = 0; i < steps; i++) {
+            now += LOOP_NANOS;
+            state.integrate(radius * stepHeading, 0.0, stepHeading, now);
+        }
+        // Each step moves its arc length along its chord, so the end is the chord's endpoint scaled up by that ratio
+        double arcPerChord = stepHeading / (2.0 * Math.sin(stepHeading / 2.0));
+        assertEquals(radius * arcPerChord, state.x, EPSILON);
+        assertEquals(radius * arcPerChord, state.y, EPSILON);
+        assertEquals(Math.PI / 2.0, state.heading, EPSILON);
+        assertEquals(stepHeading / LOOP_SECONDS, state.headingVelocity, 1e-6);
+    }
+
+    @Test
+    public void velocityIsSmoothedFromTheSecondUpdate() {
+        LocalizerState state = new LocalizerState();
+        state.integrate(0.01, 0.0, 0.0, LOOP_NANOS);
+        assertEquals(0.0, state.velocityX, 0.0);
+
+        state.integrate(0.01, 0.0, 0.0, 2 * LOOP_NANOS);
+        // First order filter with a 0.025 s time constant, from 0 toward 1 m/s
+        assertEquals(LOOP_SECONDS / (0.025 + LOOP_SECONDS), state.velocityX, EPSILON);
+
+        state.reset(state.x, state.y, state.heading);
+        assertEquals(0.0, state.velocityX, 0.0);
+        // A long gap since the last update must not count as slow motion
+        state.integrate(0.01, 0.0, 0.0, 100 * LOOP_NANOS);
+        assertEquals(0.0, state.velocityX, 0.0);
+    }
+
+    @Test
+    public void reportedPosesGiveRobotFrameMotion() {
+        // Follow a circle of radius 1 m; every chord lies along the midpoint heading
+        double radius = 1.0;
+        double stepHeading = 0.02;
+        LocalizerState state = new LocalizerState();
+        state.set(0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        assertDeltas(state, 0.0, 0.0, 0.0);
+        for (int i = 1; i <= 50; i++) {
+            double heading = i * stepHeading;
+            state.set(radius * Math.sin(heading), radius * (1.0 - Math.cos(heading)), heading, 0.0, 0.0, 0.0);
+            assertDeltas(state, 2.0 * radius * Math.sin(stepHeading / 2.0), 0.0, stepHeading);
+        }
+    }
+
+    @Test
+    public void poseJumpAfterSetPoseGivesNoMotion() {
+        LocalizerState state = new LocalizerState();
+        state.set(0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        state.set(0.005, 0.0, 0.0, 0.5, 0.0, 0.0);
+        assertDeltas(state, 0.005, 0.0, 0.0);
+
+        // The source takes a setPose and reports the new pose on its next reading
+        state.set(2.0, 1.0, 0.0, 0.5, 0.0, 0.0);
+        assertDeltas(state, 0.0, 0.0, 0.0);
+        assertEquals(2.0, state.x, 0.0);
+        assertEquals(1.0, state.y, 0.0);
+
+        // Likewise a heading reset
+        state.set(2.0, 1.0, Math.toRadians(60), 0.5, 0.0, 0.0);
+        assertDeltas(state, 0.0, 0.0, 0.0);
+        assertEquals(Math.toRadians(60), state.heading, EPSILON);
+
+        state.set(2.0, 1.01, Math.toRadians(60), 0.5, 0.0, 0.0);
+        assertEquals(0.01 * Math.sin(Math.toRadians(60)), state.deltaForward, EPSILON);
+    }
+
+    @Test
+    public void holdClearsMotionButKeepsPose() {
+        LocalizerState state = new LocalizerState();
+        state.set(1.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        state.set(1.01, 0.0, 0.01, 1.0, 0.0, 1.0);
+        state.hold();
+        assertDeltas(state, 0.0, 0.0, 0.0);
+        assertEquals(1.01, state.x, 0.0);
+        assertEquals(0.01, state.heading, 0.0);
+        assertEquals(1.0, state.velocityX, 0.0);
+
+        // The next reading is compared with the last one, not the one before the hold
+        state.set(1.02, 0.0, 0.01, 1.0, 0.0, 0.0);
+        assertEquals(0.01 * Math.cos(0.01), state.deltaForward, EPSILON);
+    }
+
+    @Test
+    public void simulatedDeadWheelsFollowTheChassis() {
+        SimulatedMecanumChassis chassis = new SimulatedMecanumChassis();
+        SimulatedDeadWheels deadWheels = new SimulatedDeadWheels(chassis);
+        deadWheels.update(chassis.getTimeNanos());
+        // Forward and turning left, so the path curves
+        chassis.setPowers(0.2, 0.6, 0.2, 0.6);
+        for (int i = 0; i < 200; i++) {
+            chassis.step(LOOP_SECONDS);
+            deadWheels.update(chassis.getTimeNanos());
+        }
+        assertEquals(chassis.getX(), deadWheels.getX(), EPSILON);
+        assertEquals(chassis.getY(), deadWheels.getY(), EPSILON);
+        assertEquals(chassis.getHeading(), deadWheels.getHeading(), EPSILON);
+    }
+
+    @Test
+    public void simulatedDeadWheelsScaleDistance() {
+        SimulatedMecanumChassis chassis = new SimulatedMecanumChassis();
+        SimulatedDeadWheels deadWheels = new SimulatedDeadWheels(chassis, 0.02, 0.0);
+        deadWheels.update(chassis.getTimeNanos());
+        chassis.setPowers(0.5, 0.5, 0.5, 0.5);
+        for (int i = 0; i < 100; i++) {
+            chassis.step(LOOP_SECONDS);
+            deadWheels.update(chassis.getTimeNanos());
+        }
+        assertEquals(1.02 * chassis.getX(), deadWheels.getX(), EPSILON);
+        assertEquals(0.0, deadWheels.getY(), EPSILON);
+        assertEquals(0.0, deadWheels.getHeading(), EPSILON);
+    }
+
+    @Test
+    public void simulatedDeadWheelsDriftInHeading() {
+        SimulatedMecanumChassis chassis = new SimulatedMecanumChassis();
+        SimulatedDeadWheels deadWheels = new SimulatedDeadWheels(chassis, 0.0, 0.01);
+        long start = chassis.getTimeNanos();
+        deadWheels.update(start);
+        for (int i = 0; i < 200; i++) {
+            chassis.step(LOOP_SECONDS);
+            deadWheels.update(chassis.getTimeNanos());
+        }
+        // Standing still, the heading drifts by the rate times the time since the first update
+        assertEquals(0.01 * (chassis.getTimeNanos() - start) / 1e9, deadWheels.getHeading(), EPSILON);
+        assertEquals(0.0, chassis.getHeading(), 0.0);
+        assertEquals(0.0, deadWheels.getX(), EPSILON);
+    }
+
+    private static void assertDeltas(LocalizerState state, double forward, double left, double heading) {
+        assertEquals(forward, state.deltaForward, EPSILON);
+        assertEquals(left, state.deltaLeft, EPSILON);
+        assertEquals(heading, state.deltaHeading, EPSILON);
+    }
+}
@@ -0,0 +1,84 @@
+package org.firstinspires.ftc.teamcode.classes.localization;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PoseEstimatorTest {
+
+    private static final long LOOP_NANOS = 10_000_000L; // 100 Hz
+
+    @Test
+    public void firstMeasurementInitializes() {
+        PoseEstimator estimator = new PoseEstimator();
+        assertFalse(estimator.isInitialized());
+        estimator.predict(0.1, 0.0, 0.0, 0);
+        assertFalse(estimator.isInitialized());
+
+        assertTrue(estimator.addVisionMeasurement(1.0, 2.0, 0.5, 0));
+        assertTrue(estimator.isInitialized());
+        assertEquals(1.0, estimator.getX(), 0.0);
+        assertEquals(2.0, estimator.getY(), 0.0);
+        assertEquals(0.5, estimator.getHeading(), 0.0);
+    }
+
+    @Test
+    public void delayedMeasurementIsComparedWithPoseAtCapture() {
+        PoseEstimator estimator = new PoseEstimator();
+        estimator.addVisionMeasurement(0.0, 0.0, 0.0, 0);
+        long now = 0;
+        for (int i = 0; i < 50; i++) {
+            now += LOOP_NANOS;
+            estimator.predict(0.01, 0.0, 0.0, now);
+        }
+        assertEquals(0.5, estimator.getX(), 1e-9);
+
+        // Agrees with where the robot was 40 loops ago, so the current estimate should not move back
+        assertTrue(estimator.addVisionMeasurement(0.1, 0.0, 0.0, 10 * LOOP_NANOS));
+        assertEquals(0.5, estimator.getX(), 1e-9);
+        assertEquals(0.0, estimator.getY(), 1e-9);
+    }
+
+    @Test
+    public void correctionShiftsHistoryToo() {
+        PoseEstimator estimator = new PoseEstimator();
+        estimator.addVisionMeasurement(0.0, 0.0, 0.0, 0);
+        long now = 0;
+        for (int i = 0; i < 20; i++) {
+            now += LOOP_NANOS;
+            estimator.predict(0.01, 0.0, 0.0, now);
+        }
+        double[] before = new double[3];
+        estimator.getPoseAt(10 * LOOP_NANOS, before);
+
+        assertTrue(estimator.addVisionMeasurement(0.2, 0.05, 0.0, now));
+        double shiftY = estimator.getY();
+        assertTrue(shiftY > 0.0);
+
+        double[] after = new double[3];
+        estimator.getPoseAt(10 * LOOP_NANOS, after);
+        assertEquals(before[1] + shiftY, after[1], 1e-9);
+    }
+
+    @Test
+    public void outliersAreRejectedUntilTheyPersist() {
+        PoseEstimator estimator = new PoseEstimator();
+        estimator.addVisionMeasurement(0.0, 0.0, 0.0, 0);
+        long now = 0;
+        for (int i = 1; i < 10; i++) {
+            now += LOOP_NANOS;
+            estimator.predict(0.0, 0.0, 0.0, now);
+            assertFalse(estimator.addVisionMeasurement(2.0, 2.0, 0.0, now));
+        }
+        assertEquals(9, estimator.getRejectedCount());
+        assertEquals(0.0, estimator.getX(), 0.0);
+
+        // The tenth in a row means the estimate was wrong, not the camera
+        now += LOOP_NANOS;
+        assertTrue(estimator.addVisionMeasurement(2.0, 2.0, 0.0, now));
+        assertEquals(2.0, estimator.getX(), 0.0);
+        assertEquals(2.0, estimator.getY(), 0.0);
+    }
+}
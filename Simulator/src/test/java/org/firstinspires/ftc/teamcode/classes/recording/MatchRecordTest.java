@@ -0,0 +1,128 @@
+package org.firstinspires.ftc.teamcode.classes.recording;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MatchRecordTest {
+
+    @Test
+    public void limelightFrameRoundTripsExactly() {
+        VisionFrame frame = new VisionFrame();
+        frame.sequence = 42;
+        frame.captureTimeNanos = 123_456_789L;
+        frame.pipelineIndex = 3;
+        frame.tx = 1.25;
+        frame.hasBotPose = true;
+        frame.botPoseX = 1.0 / 3.0;
+        frame.botPoseY = -0.7;
+        frame.botPoseYaw = 12.5;
+        frame.botPoseTagCount = 2;
+        frame.botPoseTagDistance = 1.8;
+
+        MatchRecord record = new MatchRecord();
+        record.begin(1, 0, 0.0);
+        record.setVisionFrame(frame);
+        MatchRecord read = roundTrip(record);
+
+        VisionFrame restored = new VisionFrame();
+        assertTrue(read.copyVisionFrameTo(restored));
+        assertEquals(42, restored.sequence);
+        assertEquals(123_456_789L, restored.captureTimeNanos);
+        assertEquals(3, restored.pipelineIndex);
+        assertTrue(restored.hasBotPose);
+        assertEquals(1.0 / 3.0, restored.botPoseX, 0.0);
+        assertEquals(-0.7, restored.botPoseY, 0.0);
+        assertEquals(12.5, restored.botPoseYaw, 0.0);
+        assertEquals(2, restored.botPoseTagCount);
+        assertEquals(1.8, restored.botPoseTagDistance, 0.0);
+        assertEquals(0, restored.detectionCount);
+    }
+
+    @Test
+    public void webcamDetectionsRoundTripExactly() {
+        VisionFrame frame = new VisionFrame();
+        frame.sequence = 7;
+        frame.captureTimeNanos = 987_654_321L;
+        frame.detectionCount = 2;
+        for (int i = 0; i < 2; i++) {
+            frame.detectionIds[i] = 20 + i;
+            frame.detectionX[i] = 0.1 * i + 1.0 / 7.0;
+            frame.detectionY[i] = -0.2 * i;
+            frame.detectionYaw[i] = 30.0 + i;
+            frame.detectionRange[i] = 1.5 + i;
+            frame.detectionQuality[i] = 0.9 - 0.4 * i;
+        }
+
+        MatchRecord record = new MatchRecord();
+        record.begin(1, 0, 0.0);
+        record.setWebcamFrame(frame);
+        MatchRecord read = roundTrip(record);
+
+        VisionFrame restored = new VisionFrame();
+        assertTrue(read.copyWebcamFrameTo(restored));
+        assertFalse(restored.hasBotPose);
+        assertEquals(7, restored.sequence);
+        assertEquals(987_654_321L, restored.captureTimeNanos);
+        assertEquals(2, restored.detectionCount);
+        for (int i = 0; i < 2; i++) {
+            assertEquals(frame.detectionIds[i], restored.detectionIds[i]);
+            assertEquals(frame.detectionX[i], restored.detectionX[i], 0.0);
+            assertEquals(frame.detectionY[i], restored.detectionY[i], 0.0);
+            assertEquals(frame.detectionYaw[i], restored.detectionYaw[i], 0.0);
+            assertEquals(frame.detectionRange[i], restored.detectionRange[i], 0.0);
+            assertEquals(frame.detectionQuality[i], restored.detectionQuality[i], 0.0);
+        }
+    }
+
+    @Test
+    public void beginClearsCameraResults() {
+        VisionFrame frame = new VisionFrame();
+        frame.detectionCount = 1;
+        MatchRecord record = new MatchRecord();
+        record.begin(1, 0, 0.0);
+        record.setVisionFrame(frame);
+        record.setWebcamFrame(frame);
+        record.begin(2, 5_000_000L, 0.005);
+
+        MatchRecord read = roundTrip(record);
+        assertFalse(read.copyVisionFrameTo(new VisionFrame()));
+        assertFalse(read.copyWebcamFrameTo(new VisionFrame()));
+        assertEquals(0, read.webcamDetectionCount);
+    }
+
+    @Test
+    public void detectionIndexIsWhereReadersLookForIt() {
+        MatchRecord record = new MatchRecord();
+        record.begin(1, 0, 0.0);
+        record.webcamDetectionIndex = 0x0123456789ABCDEFL;
+        ByteBuffer buffer = ByteBuffer.allocate(MatchRecord.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        record.writeTo(buffer, 0);
+        assertEquals(0x0123456789ABCDEFL, buffer.getLong(MatchRecord.WEBCAM_DETECTION_INDEX_OFFSET));
+    }
+
+    /**
+     * Write the record and its webcam detections the way MatchRecorder lays them out, then read them back
+     */
+    private static MatchRecord roundTrip(MatchRecord record) {
+        int detectionsOffset = MatchRecord.BYTES * 2;
+        ByteBuffer buffer = ByteBuffer.allocate(detectionsOffset + VisionFrame.MAX_DETECTIONS
+                * MatchRecord.DETECTION_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        record.writeTo(buffer, MatchRecord.BYTES);
+        for (int i = 0; i < record.webcamDetectionCount; i++) {
+            record.writeWebcamDetection(i, buffer, detectionsOffset + i * MatchRecord.DETECTION_BYTES);
+        }
+        MatchRecord read = new MatchRecord();
+        read.readFrom(buffer, MatchRecord.BYTES);
+        for (int i = 0; i < read.webcamDetectionCount; i++) {
+            read.readWebcamDetection(i, buffer, detectionsOffset + i * MatchRecord.DETECTION_BYTES);
+        }
+        return read;
+    }
+}
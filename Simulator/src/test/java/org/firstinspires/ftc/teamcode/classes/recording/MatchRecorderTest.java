@@ -0,0 +1,264 @@
+package org.firstinspires.ftc.teamcode.classes.recording;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MatchRecorderTest {
+
+    private static final int CAPACITY = 16;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readerYieldsNewestCyclesOldestFirstAfterWrapping() throws IOException {
+        File file = new File(folder.getRoot(), "wrap" + MatchRecorder.EXTENSION);
+        record(file, 40, 1);
+
+        MatchLogReader reader = new MatchLogReader(file);
+        try {
+            assertEquals(40, reader.getWrittenCount());
+            assertEquals(CAPACITY, reader.getRecordCount());
+            assertTrue(reader.getWrittenCount() > reader.getRecordCount());
+            MatchRecord record = new MatchRecord();
+            for (int cycle = 40 - CAPACITY; cycle < 40; cycle++) {
+                assertTrue(reader.next(record));
+                assertEquals(cycle, record.cycle);
+                assertWebcamFrame(cycle, 1, record);
+            }
+            assertFalse(reader.next(record));
+
+            reader.rewind();
+            assertTrue(reader.next(record));
+            assertEquals(40 - CAPACITY, record.cycle);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void readerSkipsCyclesWhoseDetectionsWereOverwritten() throws IOException {
+        // Eight detections a cycle fill the detection ring every two cycles
+        File file = new File(folder.getRoot(), "detections" + MatchRecorder.EXTENSION);
+        record(file, 40, VisionFrame.MAX_DETECTIONS);
+
+        MatchLogReader reader = new MatchLogReader(file);
+        try {
+            assertEquals(40, reader.getWrittenCount());
+            assertEquals(CAPACITY / VisionFrame.MAX_DETECTIONS, reader.getRecordCount());
+            MatchRecord record = new MatchRecord();
+            for (long cycle = 40 - reader.getRecordCount(); cycle < 40; cycle++) {
+                assertTrue(reader.next(record));
+                assertEquals(cycle, record.cycle);
+                assertWebcamFrame(cycle, VisionFrame.MAX_DETECTIONS, record);
+            }
+            assertFalse(reader.next(record));
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void readerKeepsEveryCycleBeforeWrapping() throws IOException {
+        File file = new File(folder.getRoot(), "short" + MatchRecorder.EXTENSION);
+        record(file, 5, 1);
+
+        MatchLogReader reader = new MatchLogReader(file);
+        try {
+            assertEquals(5, reader.getWrittenCount());
+            assertEquals(5, reader.getRecordCount());
+            MatchRecord record = new MatchRecord();
+            assertTrue(reader.next(record));
+            assertEquals(0, record.cycle);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void rejectsWrongMagic() throws IOException {
+        File file = new File(folder.getRoot(), "magic" + MatchRecorder.EXTENSION);
+        record(file, 3, 0);
+        overwriteInt(file, 0, 0x12345678);
+        assertRejected(file);
+    }
+
+    @Test
+    public void rejectsOtherFormatVersion() throws IOException {
+        File file = new File(folder.getRoot(), "version" + MatchRecorder.EXTENSION);
+        record(file, 3, 0);
+        overwriteInt(file, 4, MatchRecorder.FORMAT_VERSION - 1);
+        assertRejected(file);
+    }
+
+    @Test
+    public void rejectsOtherRecordSize() throws IOException {
+        File file = new File(folder.getRoot(), "size" + MatchRecorder.EXTENSION);
+        record(file, 3, 0);
+        overwriteInt(file, MatchRecorder.RECORD_BYTES_OFFSET, MatchRecord.BYTES + 8);
+        assertRejected(file);
+    }
+
+    @Test
+    public void rejectsTruncatedFile() throws IOException {
+        File file = new File(folder.getRoot(), "truncated" + MatchRecorder.EXTENSION);
+        record(file, 3, 0);
+        RandomAccessFile raw = new RandomAccessFile(file, "rw");
+        try {
+            raw.setLength(raw.length() - 1);
+        } finally {
+            raw.close();
+        }
+        assertRejected(file);
+    }
+
+    @Test
+    public void rejectsFileShorterThanHeader() throws IOException {
+        File file = folder.newFile("empty" + MatchRecorder.EXTENSION);
+        assertRejected(file);
+    }
+
+    @Test
+    public void openingPrunesOldestRecordingsBeyondCount() throws IOException {
+        File directory = folder.newFolder("logs");
+        File[] old = createOldRecordings(directory, 4, 10);
+        File unrelated = new File(directory, "notes.txt");
+        assertTrue(unrelated.createNewFile());
+
+        MatchRecorder recorder = new MatchRecorder(CAPACITY, 3);
+        File file = new File(directory, "new" + MatchRecorder.EXTENSION);
+        assertTrue(recorder.tryOpen(file));
+        recorder.close();
+
+        // Two old recordings are kept alongside the new one
+        assertFalse(old[0].exists());
+        assertFalse(old[1].exists());
+        assertTrue(old[2].exists());
+        assertTrue(old[3].exists());
+        assertTrue(file.exists());
+        assertTrue(unrelated.exists());
+    }
+
+    @Test
+    public void openingPrunesOldestRecordingsBeyondTotalSize() throws IOException {
+        File directory = folder.newFolder("logs");
+        File[] old = createOldRecordings(directory, 4, 1000);
+        MatchRecorder probe = new MatchRecorder(CAPACITY, 20);
+        File probeFile = new File(folder.getRoot(), "probe" + MatchRecorder.EXTENSION);
+        assertTrue(probe.tryOpen(probeFile));
+        probe.close();
+
+        // Room for the new recording and two of the old ones
+        MatchRecorder recorder = new MatchRecorder(CAPACITY, 20, probeFile.length() + 2000);
+        File file = new File(directory, "new" + MatchRecorder.EXTENSION);
+        assertTrue(recorder.tryOpen(file));
+        recorder.close();
+
+        assertFalse(old[0].exists());
+        assertFalse(old[1].exists());
+        assertTrue(old[2].exists());
+        assertTrue(old[3].exists());
+        assertTrue(file.exists());
+    }
+
+    /**
+     * Record cycles 0 to count - 1, each with a webcam frame of the given number of detections
+     */
+    private static void record(File file, int count, int detections) {
+        MatchRecorder recorder = new MatchRecorder(CAPACITY, 20);
+        assertTrue(recorder.tryOpen(file));
+        MatchRecord record = new MatchRecord();
+        VisionFrame frame = new VisionFrame();
+        for (int cycle = 0; cycle < count; cycle++) {
+            record.begin(cycle, cycle * 5_000_000L, 0.005);
+            if (detections > 0) {
+                fillWebcamFrame(frame, cycle, detections);
+                record.setWebcamFrame(frame);
+            }
+            recorder.record(record);
+        }
+        assertEquals(count, recorder.getWriteCount());
+        recorder.close();
+    }
+
+    private static void fillWebcamFrame(VisionFrame frame, long cycle, int detections) {
+        frame.sequence = cycle + 1;
+        frame.captureTimeNanos = cycle * 5_000_000L;
+        frame.detectionCount = detections;
+        for (int i = 0; i < detections; i++) {
+            frame.detectionIds[i] = (int) cycle * 10 + i;
+            frame.detectionX[i] = cycle + i / 16.0;
+            frame.detectionY[i] = -cycle;
+            frame.detectionYaw[i] = i;
+            frame.detectionRange[i] = 1.0 + cycle;
+            frame.detectionQuality[i] = 1.0 / (i + 1);
+        }
+    }
+
+    private static void assertWebcamFrame(long cycle, int detections, MatchRecord record) {
+        VisionFrame expected = new VisionFrame();
+        fillWebcamFrame(expected, cycle, detections);
+        VisionFrame frame = new VisionFrame();
+        assertTrue(record.copyWebcamFrameTo(frame));
+        assertEquals(expected.sequence, frame.sequence);
+        assertEquals(detections, frame.detectionCount);
+        for (int i = 0; i < detections; i++) {
+            assertEquals(expected.detectionIds[i], frame.detectionIds[i]);
+            assertEquals(expected.detectionX[i], frame.detectionX[i], 0.0);
+            assertEquals(expected.detectionY[i], frame.detectionY[i], 0.0);
+            assertEquals(expected.detectionYaw[i], frame.detectionYaw[i], 0.0);
+            assertEquals(expected.detectionRange[i], frame.detectionRange[i], 0.0);
+            assertEquals(expected.detectionQuality[i], frame.detectionQuality[i], 0.0);
+        }
+    }
+
+    /**
+     * Recordings of the given size, oldest first
+     */
+    private static File[] createOldRecordings(File directory, int count, int bytes) throws IOException {
+        File[] files = new File[count];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            files[i] = new File(directory, "old" + i + MatchRecorder.EXTENSION);
+            RandomAccessFile raw = new RandomAccessFile(files[i], "rw");
+            try {
+                raw.setLength(bytes);
+            } finally {
+                raw.close();
+            }
+            assertTrue(files[i].setLastModified(now - (count - i) * 60_000L));
+        }
+        return files;
+    }
+
+    private static void overwriteInt(File file, int offset, int value) throws IOException {
+        RandomAccessFile raw = new RandomAccessFile(file, "rw");
+        try {
+            // The file is little-endian
+            raw.seek(offset);
+            raw.writeInt(Integer.reverseBytes(value));
+        } finally {
+            raw.close();
+        }
+    }
+
+    private static void assertRejected(File file) {
+        try {
+            new MatchLogReader(file).close();
+            fail(file.getName() + " was accepted");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.firstinspires.ftc.teamcode.classes.trajectory;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TrajectoryBuilderTest {
+
+    // Finite differences of the samples are a little noisier than the limits themselves
+    private static final double SLACK = 1.01;
+
+    private static final TrajectoryBuilder.Constraints CONSTRAINTS =
+            new TrajectoryBuilder.Constraints(1.5, 2.0, 10.0, 3.0, 2.0);
+
+    @Test
+    public void bendsKeepEveryLimitButJerk() {
+        Trajectory trajectory = new TrajectoryBuilder(CONSTRAINTS)
+                .addWaypoint(0.0, 0.0, 0.0)
+                .addWaypoint(1.0, 0.0, 0.0)
+                .addWaypoint(1.3, 0.5, Math.PI / 2.0)
+                .addWaypoint(1.0, 1.2, Math.PI)
+                .build();
+        double dt = trajectory.getTimeStep();
+        for (int i = 1; i < trajectory.getSampleCount(); i++) {
+            double speed = speed(trajectory, i);
+            assertTrue("speed at " + i, speed <= CONSTRAINTS.maxVelocity * SLACK);
+            assertTrue("turn rate at " + i,
+                    Math.abs(trajectory.getAngularVelocity(i)) <= CONSTRAINTS.maxAngularVelocity * SLACK);
+            double acceleration = (speed - speed(trajectory, i - 1)) / dt;
+            assertTrue("acceleration at " + i, Math.abs(acceleration) <= CONSTRAINTS.maxAcceleration * SLACK);
+
+            // Centripetal acceleration from the turn of the velocity between samples
+            double previousSpeed = speed(trajectory, i - 1);
+            if (speed > 0.05 && previousSpeed > 0.05) {
+                double turn = Math.atan2(
+                        trajectory.getVelocityX(i - 1) * trajectory.getVelocityY(i)
+                                - trajectory.getVelocityY(i - 1) * trajectory.getVelocityX(i),
+                        trajectory.getVelocityX(i - 1) * trajectory.getVelocityX(i)
+                                + trajectory.getVelocityY(i - 1) * trajectory.getVelocityY(i));
+                double centripetal = (speed + previousSpeed) / 2.0 * Math.abs(turn) / dt;
+                assertTrue("centripetal acceleration at " + i,
+                        centripetal <= CONSTRAINTS.maxCentripetalAcceleration * 1.02);
+            }
+        }
+        int last = trajectory.getSampleCount() - 1;
+        assertEquals(1.0, trajectory.getX(last), 1e-6);
+        assertEquals(1.2, trajectory.getY(last), 1e-6);
+        assertEquals(0.0, speed(trajectory, last), 0.0);
+    }
+
+    @Test
+    public void straightLineKeepsJerkLimit() {
+        Trajectory trajectory = new TrajectoryBuilder(CONSTRAINTS)
+                .addWaypoint(0.0, 0.0, 0.0)
+                .addWaypoint(2.0, 0.0, 0.0)
+                .build();
+        double dt = trajectory.getTimeStep();
+        double previousAcceleration = 0.0;
+        double maxSpeed = 0.0;
+        for (int i = 1; i < trajectory.getSampleCount(); i++) {
+            double speed = speed(trajectory, i);
+            maxSpeed = Math.max(maxSpeed, speed);
+            double acceleration = (speed - speed(trajectory, i - 1)) / dt;
+            assertTrue("acceleration at " + i, Math.abs(acceleration) <= CONSTRAINTS.maxAcceleration * SLACK);
+            double jerk = (acceleration - previousAcceleration) / dt;
+            assertTrue("jerk at " + i, Math.abs(jerk) <= CONSTRAINTS.maxJerk * SLACK);
+            previousAcceleration = acceleration;
+        }
+        assertEquals(CONSTRAINTS.maxVelocity, maxSpeed, 0.01);
+        assertEquals(2.0, trajectory.getX(trajectory.getSampleCount() - 1), 1e-6);
+    }
+
+    private static double speed(Trajectory trajectory, int index) {
+        return Math.hypot(trajectory.getVelocityX(index), trajectory.getVelocityY(index));
+    }
+}
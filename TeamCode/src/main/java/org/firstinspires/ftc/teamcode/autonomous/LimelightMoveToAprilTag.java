@@ -3,20 +3,96 @@ package org.firstinspires.ftc.teamcode.autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 
+import org.firstinspires.ftc.robotcore.external.hardware.camera.WebcamName;
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.Position;
+import org.firstinspires.ftc.robotcore.external.navigation.YawPitchRollAngles;
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.classes.DriveGeometry;
 import org.firstinspires.ftc.teamcode.classes.Robot;
 import org.firstinspires.ftc.teamcode.classes.Vision;
+import org.firstinspires.ftc.teamcode.classes.hardware.AsyncVisionHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.BatchedTelemetry;
+import org.firstinspires.ftc.teamcode.classes.hardware.CurrentLimitedDriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.HardwareCycle;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+import org.firstinspires.ftc.teamcode.classes.hardware.VoltageCompensatedDriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.VoltageMonitor;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.AprilTagWebcamHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.FtcBatteryVoltageSensor;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.FtcDriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.FtcTelemetrySink;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.LimelightVisionHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.LynxBulkCaching;
+import org.firstinspires.ftc.teamcode.classes.localization.DriveEncoderLocalizer;
+import org.firstinspires.ftc.teamcode.classes.localization.PoseEstimator;
+import org.firstinspires.ftc.teamcode.classes.localization.VisionFusion;
+import org.firstinspires.ftc.teamcode.classes.recording.MatchRecord;
+import org.firstinspires.ftc.teamcode.classes.recording.MatchRecorder;
+import org.firstinspires.ftc.teamcode.classes.timing.LoopTimer;
+import org.firstinspires.ftc.teamcode.classes.timing.TimedDriveHardware;
 
 @Autonomous(name="Limelight3A Move to April Tag", group="April Tag")
 public class LimelightMoveToAprilTag extends OpMode {
 
+    // Optional second camera; the OpMode runs on the Limelight alone if it isn't configured
+    private static final String WEBCAM_NAME = "Webcam 1";
+    // Where the webcam sits on the robot, as in ConceptAprilTagLocalization
+    private static final Position WEBCAM_POSITION = new Position(DistanceUnit.METER, 0, 0, 0, 0);
+    private static final YawPitchRollAngles WEBCAM_ORIENTATION =
+            new YawPitchRollAngles(AngleUnit.DEGREES, 0, -90, 0, 0);
+
     // Robot and vision systems
     private final Robot robot = new Robot();
     private final Vision vision = new Vision();
+    private final LoopTimer loopTimer = new LoopTimer();
+    private final PoseEstimator poseEstimator = new PoseEstimator();
+    private final VisionFusion visionFusion = new VisionFusion();
+    private final MatchRecorder matchRecorder = new MatchRecorder();
+    private FtcDriveHardware driveHardware;
+    private DriveEncoderLocalizer localizer;
+    private VoltageMonitor voltageMonitor;
+    private VoltageCompensatedDriveHardware compensatedDrive;
+    private CurrentLimitedDriveHardware currentLimiter;
+    private HardwareCycle hardwareCycle;
+    private BatchedTelemetry telemetrySink;
+    private AprilTagWebcamHardware webcam;
+
+    // Reused every loop so the control path does not allocate
+    private final Vision.TargetData targetData = new Vision.TargetData();
+    private final Robot.MovementResult movementResult = new Robot.MovementResult();
+    private final MatchRecord matchRecord = new MatchRecord();
+    private final VisionFrame webcamFrame = new VisionFrame();
+    private long lastWebcamSequence = 0;
 
     @Override
     public void init() {
-        robot.init(hardwareMap);
-        vision.init(hardwareMap, "limelight", Vision.Pipeline.APRIL_TAG);
+        hardwareCycle = LynxBulkCaching.createCycle(hardwareMap);
+        hardwareCycle.addListener(loopTimer);
+        driveHardware = new FtcDriveHardware(hardwareMap);
+        // On a robot with dead wheels, use a PinpointLocalizer or OctoQuadLocalizer instead
+        localizer = new DriveEncoderLocalizer(driveHardware, DriveGeometry.TICKS_PER_METER,
+                DriveGeometry.WHEEL_LEVER_ARM);
+        robot.setLocalizer(localizer);
+        // Scale powers to the nominal battery voltage so the tuned gains hold as the battery drains
+        voltageMonitor = new VoltageMonitor(new FtcBatteryVoltageSensor(hardwareMap));
+        voltageMonitor.start();
+        // Keep the drive inside its current budget so pushing can't brown out the hub
+        currentLimiter = new CurrentLimitedDriveHardware(driveHardware, voltageMonitor);
+        hardwareCycle.addListener(currentLimiter);
+        compensatedDrive = new VoltageCompensatedDriveHardware(currentLimiter, voltageMonitor);
+        robot.init(new TimedDriveHardware(compensatedDrive, loopTimer));
+        // Poll the Limelight on a background thread so loop() never waits on it
+        vision.init(new AsyncVisionHardware(new LimelightVisionHardware(hardwareMap, "limelight")),
+                Vision.Pipeline.APRIL_TAG);
+        if (hardwareMap.tryGet(WebcamName.class, WEBCAM_NAME) != null) {
+            webcam = new AprilTagWebcamHardware(hardwareMap, WEBCAM_NAME, WEBCAM_POSITION, WEBCAM_ORIENTATION);
+        }
+        // Lines are formatted only when the Driver Station is actually sent an update
+        telemetrySink = FtcTelemetrySink.batched(telemetry);
+        // Sizing the recording file takes a moment, so do it before the match starts
+        matchRecorder.tryOpen(MatchRecorder.recordingFile(AppUtil.ROOT_FOLDER, getClass().getSimpleName()));
 
         telemetry.addData("Status", "Initialized");
         telemetry.addData("Pipeline", vision.getCurrentPipeline().getDescription());
@@ -26,36 +102,108 @@ public class LimelightMoveToAprilTag extends OpMode {
     @Override
     public void start() {
         vision.start();
+        if (webcam != null) {
+            webcam.start();
+        }
         vision.clearPositionHistory();
+        localizer.resetEncoders();
+        poseEstimator.clear();
     }
 
     @Override
     public void loop() {
-        Vision.TargetData targetData = vision.processFrame();
+        hardwareCycle.startCycle();
+        long now = hardwareCycle.getCycleStartNanos();
+
+        loopTimer.begin(LoopTimer.Stage.VISION);
+        vision.processFrame(targetData, now);
+        boolean newWebcamFrame = webcam != null && webcam.readLatest(webcamFrame)
+                && webcamFrame.sequence != lastWebcamSequence;
+        if (newWebcamFrame) {
+            lastWebcamSequence = webcamFrame.sequence;
+        }
+        loopTimer.end(LoopTimer.Stage.VISION);
+
+        // Predict from the encoders every loop, correct with one pose fused from every camera's new results
+        loopTimer.begin(LoopTimer.Stage.CONTROL);
+        robot.updateLocalizer(now);
+        poseEstimator.predict(localizer.getDeltaForward(), localizer.getDeltaLeft(), localizer.getDeltaHeading(), now);
+        visionFusion.clear();
+        if (targetData.hasBotPose && targetData.isNewFrame) {
+            visionFusion.addFrame(vision.getLastFrame());
+        }
+        if (newWebcamFrame) {
+            visionFusion.addFrame(webcamFrame);
+        }
+        if (visionFusion.fuse(poseEstimator)) {
+            poseEstimator.addVisionMeasurement(visionFusion.getX(), visionFusion.getY(), visionFusion.getHeading(),
+                    visionFusion.getCaptureTimeNanos(), visionFusion.getPositionStd(), visionFusion.getHeadingStd());
+        }
+
+        // Use robot's movement logic, carrying on through short vision dropouts
+        boolean tracking = poseEstimator.isTracking(now);
+        if (tracking) {
+            robot.moveToPose(poseEstimator.getX(), poseEstimator.getY(), poseEstimator.getHeadingDegrees(),
+                    now, movementResult);
+        } else {
+            robot.stopMovement();
+        }
+        // Remember what was commanded so the next vision frames can be brought up to date
+        vision.recordCommandedMotion(now, robot.getCommandedForwardVelocity(),
+                robot.getCommandedLeftVelocity(), robot.getCommandedTurnRate());
+        loopTimer.end(LoopTimer.Stage.CONTROL);
+
+        loopTimer.begin(LoopTimer.Stage.RECORDING);
+        matchRecord.begin(hardwareCycle.getCycleCount(), now, hardwareCycle.getLastCycleSeconds());
+        matchRecord.setVisionFrame(vision.getLastFrame());
+        matchRecord.setWebcamFrame(newWebcamFrame ? webcamFrame : null);
+        matchRecord.setTarget(targetData);
+        matchRecord.setPose(poseEstimator.getX(), poseEstimator.getY(), poseEstimator.getHeading(), tracking);
+        matchRecord.setAtTarget(tracking && movementResult.atTarget);
+        matchRecord.setDrive(robot, driveHardware);
+        matchRecorder.record(matchRecord);
+        loopTimer.end(LoopTimer.Stage.RECORDING);
+
+        loopTimer.begin(LoopTimer.Stage.TELEMETRY);
 
         // Display vision telemetry
-        vision.displayTelemetry(telemetry, targetData);
+        vision.displayTelemetry(telemetrySink, targetData);
+        poseEstimator.displayTelemetry(telemetrySink);
+        visionFusion.displayTelemetry(telemetrySink);
 
-        // Use robot's movement logic
-        if (targetData.isAcquired) {
-            Robot.MovementResult movementResult = robot.moveToAprilTag(targetData);
-            telemetry.addData("Action", movementResult.status);
-            telemetry.addData("Powers", "Axial: %.2f, Lateral: %.2f, Yaw: %.2f",
+        if (tracking) {
+            // Passing the result itself defers building the status string until telemetry is sent
+            telemetrySink.addData("Action", movementResult);
+            telemetrySink.addData("Powers", "Axial: %.2f, Lateral: %.2f, Yaw: %.2f",
                     movementResult.axialPower, movementResult.lateralPower, movementResult.yawPower);
         } else {
-            robot.stopMovement();
-            telemetry.addData("Action", "Stopped - No target detected");
+            telemetrySink.addData("Action", "Stopped - No pose estimate");
         }
 
         // Display robot telemetry
-        robot.displayTelemetry(telemetry);
+        robot.displayTelemetry(telemetrySink);
+        compensatedDrive.displayTelemetry(telemetrySink);
+        currentLimiter.displayTelemetry(telemetrySink);
+        matchRecorder.displayTelemetry(telemetrySink);
+        telemetrySink.addData("Motor Writes", "%d issued, %d skipped",
+                driveHardware.getPowerCache().getIssuedWrites(), driveHardware.getPowerCache().getSkippedWrites());
+        loopTimer.displayTelemetry(telemetrySink);
 
-        telemetry.update();
+        telemetrySink.update(now);
+        loopTimer.end(LoopTimer.Stage.TELEMETRY);
     }
 
     @Override
     public void stop() {
         vision.stop();
+        if (webcam != null) {
+            webcam.stop();
+        }
         robot.stopMovement();
+        matchRecorder.close();
+        voltageMonitor.stop();
+        String opModeName = getClass().getSimpleName();
+        loopTimer.tryWriteReport(LoopTimer.reportFile(AppUtil.ROOT_FOLDER, opModeName));
+        currentLimiter.tryWriteReport(CurrentLimitedDriveHardware.reportFile(AppUtil.ROOT_FOLDER, opModeName));
     }
 }
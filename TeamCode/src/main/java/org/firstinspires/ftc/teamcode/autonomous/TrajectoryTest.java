@@ -0,0 +1,132 @@
+package org.firstinspires.ftc.teamcode.autonomous;
+
+import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
+import com.qualcomm.robotcore.eventloop.opmode.OpMode;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.classes.DriveGeometry;
+import org.firstinspires.ftc.teamcode.classes.Robot;
+import org.firstinspires.ftc.teamcode.classes.hardware.BatchedTelemetry;
+import org.firstinspires.ftc.teamcode.classes.hardware.CurrentLimitedDriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.HardwareCycle;
+import org.firstinspires.ftc.teamcode.classes.hardware.VoltageCompensatedDriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.VoltageMonitor;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.FtcBatteryVoltageSensor;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.FtcDriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.FtcTelemetrySink;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.LynxBulkCaching;
+import org.firstinspires.ftc.teamcode.classes.localization.DriveEncoderLocalizer;
+import org.firstinspires.ftc.teamcode.classes.localization.PoseEstimator;
+import org.firstinspires.ftc.teamcode.classes.timing.LoopTimer;
+import org.firstinspires.ftc.teamcode.classes.timing.TimedDriveHardware;
+import org.firstinspires.ftc.teamcode.classes.trajectory.Trajectory;
+import org.firstinspires.ftc.teamcode.classes.trajectory.TrajectoryBuilder;
+import org.firstinspires.ftc.teamcode.classes.trajectory.TrajectoryCache;
+import org.firstinspires.ftc.teamcode.classes.trajectory.TrajectoryFollower;
+
+import java.io.File;
+
+@Autonomous(name="Trajectory Test", group="Trajectory")
+public class TrajectoryTest extends OpMode {
+    // Profile limits, kept below the chassis' ~1.5 m/s so translation and rotation can share the wheels
+    private static final TrajectoryBuilder.Constraints CONSTRAINTS =
+            new TrajectoryBuilder.Constraints(1.0, 1.5, 10.0, Math.toRadians(120), 1.5);
+
+    // Robot and localization
+    private final Robot robot = new Robot();
+    private final LoopTimer loopTimer = new LoopTimer();
+    private final PoseEstimator poseEstimator = new PoseEstimator();
+    private final TrajectoryFollower follower = new TrajectoryFollower();
+    private FtcDriveHardware driveHardware;
+    private DriveEncoderLocalizer localizer;
+    private VoltageMonitor voltageMonitor;
+    private VoltageCompensatedDriveHardware compensatedDrive;
+    private CurrentLimitedDriveHardware currentLimiter;
+    private HardwareCycle hardwareCycle;
+    private BatchedTelemetry telemetrySink;
+    private Trajectory trajectory;
+
+    @Override
+    public void init() {
+        hardwareCycle = LynxBulkCaching.createCycle(hardwareMap);
+        hardwareCycle.addListener(loopTimer);
+        driveHardware = new FtcDriveHardware(hardwareMap);
+        // On a robot with dead wheels, use a PinpointLocalizer or OctoQuadLocalizer instead
+        localizer = new DriveEncoderLocalizer(driveHardware, DriveGeometry.TICKS_PER_METER,
+                DriveGeometry.WHEEL_LEVER_ARM);
+        robot.setLocalizer(localizer);
+        // Scale powers to the nominal battery voltage so the tuned gains hold as the battery drains
+        voltageMonitor = new VoltageMonitor(new FtcBatteryVoltageSensor(hardwareMap));
+        voltageMonitor.start();
+        // Keep the drive inside its current budget so pushing can't brown out the hub
+        currentLimiter = new CurrentLimitedDriveHardware(driveHardware, voltageMonitor);
+        hardwareCycle.addListener(currentLimiter);
+        compensatedDrive = new VoltageCompensatedDriveHardware(currentLimiter, voltageMonitor);
+        robot.init(new TimedDriveHardware(compensatedDrive, loopTimer));
+        // Lines are formatted only when the Driver Station is actually sent an update
+        telemetrySink = FtcTelemetrySink.batched(telemetry);
+
+        // Precompute the path now so loop() only looks samples up; after the first run it comes from the cache
+        // S-curve from the start pose, 1 m forward and 0.5 m left, turning to face back the way it came
+        TrajectoryCache trajectoryCache = new TrajectoryCache(new File(AppUtil.ROOT_FOLDER, "Trajectories"));
+        trajectory = trajectoryCache.load(new TrajectoryBuilder(CONSTRAINTS)
+                .addWaypoint(0.0, 0.0, 0.0)
+                .addWaypoint(0.5, 0.25, Math.toRadians(90))
+                .addWaypoint(1.0, 0.5, Math.toRadians(180)));
+
+        telemetry.addData("Status", "Initialized");
+        telemetry.addData("Trajectory", "%.2f m in %.2f s (%d samples)",
+                trajectory.getLength(), trajectory.getDuration(), trajectory.getSampleCount());
+        telemetry.addData("Trajectory Load", "%.1f ms (%s)", trajectoryCache.getLastLoadMillis(),
+                trajectoryCache.wasLastLoadHit() ? "cached" : "generated");
+        telemetry.update();
+    }
+
+    @Override
+    public void start() {
+        hardwareCycle.startCycle();
+        long now = hardwareCycle.getCycleStartNanos();
+        localizer.resetEncoders();
+        robot.updateLocalizer(now);
+        // Waypoints are relative to where the robot starts
+        localizer.setPose(0.0, 0.0, 0.0);
+        poseEstimator.resetTo(0.0, 0.0, 0.0, now);
+        follower.start(trajectory, now);
+    }
+
+    @Override
+    public void loop() {
+        hardwareCycle.startCycle();
+        long now = hardwareCycle.getCycleStartNanos();
+
+        loopTimer.begin(LoopTimer.Stage.CONTROL);
+        robot.updateLocalizer(now);
+        poseEstimator.predict(localizer.getDeltaForward(), localizer.getDeltaLeft(), localizer.getDeltaHeading(), now);
+        if (follower.update(poseEstimator.getX(), poseEstimator.getY(), poseEstimator.getHeading(), now)) {
+            robot.driveVelocity(follower.getForwardVelocity(), follower.getLeftVelocity(), follower.getTurnRate());
+        } else {
+            robot.stopMovement();
+        }
+        loopTimer.end(LoopTimer.Stage.CONTROL);
+
+        loopTimer.begin(LoopTimer.Stage.TELEMETRY);
+        follower.displayTelemetry(telemetrySink);
+        poseEstimator.displayTelemetry(telemetrySink);
+        robot.displayTelemetry(telemetrySink);
+        compensatedDrive.displayTelemetry(telemetrySink);
+        currentLimiter.displayTelemetry(telemetrySink);
+        loopTimer.displayTelemetry(telemetrySink);
+        telemetrySink.update(now);
+        loopTimer.end(LoopTimer.Stage.TELEMETRY);
+    }
+
+    @Override
+    public void stop() {
+        follower.cancel();
+        robot.stopMovement();
+        voltageMonitor.stop();
+        String opModeName = getClass().getSimpleName();
+        loopTimer.tryWriteReport(LoopTimer.reportFile(AppUtil.ROOT_FOLDER, opModeName));
+        currentLimiter.tryWriteReport(CurrentLimitedDriveHardware.reportFile(AppUtil.ROOT_FOLDER, opModeName));
+    }
+}
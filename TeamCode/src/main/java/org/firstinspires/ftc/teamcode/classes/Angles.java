@@ -0,0 +1,43 @@
+package org.firstinspires.ftc.teamcode.classes;
+
+/**
+ * Angle wrapping shared by the localization, trajectory and simulation code
+ */
+public final class Angles {
+
+    private Angles() {
+    }
+
+    /**
+     * Wrap an angle into (-pi, pi]
+     * Closed form, so a huge reading costs no more than a small one; NaN and infinities are returned as they are.
+     */
+    public static double normalizeRadians(double angle) {
+        return wrap(angle, Math.PI);
+    }
+
+    /**
+     * Wrap an angle into (-180, 180], like normalizeRadians
+     */
+    public static double normalizeDegrees(double degrees) {
+        return wrap(degrees, 180.0);
+    }
+
+    private static double wrap(double angle, double halfTurn) {
+        if (angle > -halfTurn && angle <= halfTurn) {
+            return angle;
+        }
+        if (Double.isNaN(angle) || Double.isInfinite(angle)) {
+            return angle;
+        }
+        double turn = 2.0 * halfTurn;
+        double wrapped = angle - turn * Math.ceil((angle - halfTurn) / turn);
+        // Rounding can land a huge angle just outside the range
+        if (wrapped <= -halfTurn) {
+            wrapped += turn;
+        } else if (wrapped > halfTurn) {
+            wrapped -= turn;
+        }
+        return wrapped;
+    }
+}
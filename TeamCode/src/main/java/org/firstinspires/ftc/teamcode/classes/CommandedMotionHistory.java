@@ -0,0 +1,157 @@
+package org.firstinspires.ftc.teamcode.classes;
+
+/**
+ * Short, timestamped history of the chassis motion the robot has commanded
+ * The commands are dead-reckoned into a private pose so the motion between any two recent times can be
+ * looked up in O(log n), which is what latency compensation needs to move an old vision measurement
+ * forward to the present. Nothing here allocates after construction.
+ */
+public class CommandedMotionHistory {
+
+    private final long[] times;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] headings;
+    // Velocity commanded from each sample until the next (robot frame: forward, left, counter-clockwise)
+    private final double[] forwardVelocities;
+    private final double[] leftVelocities;
+    private final double[] turnRates;
+
+    private int head = 0; // Index of the newest sample
+    private int size = 0;
+
+    // Result of the last successful computeDelta call, in the robot frame at the start time
+    private double deltaForward = 0.0;
+    private double deltaLeft = 0.0;
+    private double deltaHeading = 0.0;
+
+    public CommandedMotionHistory(int capacity) {
+        times = new long[capacity];
+        xs = new double[capacity];
+        ys = new double[capacity];
+        headings = new double[capacity];
+        forwardVelocities = new double[capacity];
+        leftVelocities = new double[capacity];
+        turnRates = new double[capacity];
+    }
+
+    /**
+     * Record the velocity commanded at the given time
+     * Velocities are meters/second forward and left, and radians/second counter-clockwise
+     */
+    public void record(long nowNanos, double forwardVelocity, double leftVelocity, double turnRate) {
+        double x = 0.0;
+        double y = 0.0;
+        double heading = 0.0;
+        if (size > 0) {
+            if (nowNanos < times[head]) {
+                // Clock went backwards (e.g. a restarted simulation); start over
+                clear();
+            } else {
+                x = poseX(head, nowNanos);
+                y = poseY(head, nowNanos);
+                heading = poseHeading(head, nowNanos);
+            }
+        }
+
+        head = size == 0 ? 0 : (head + 1) % times.length;
+        if (size < times.length) {
+            size++;
+        }
+        times[head] = nowNanos;
+        xs[head] = x;
+        ys[head] = y;
+        headings[head] = heading;
+        forwardVelocities[head] = forwardVelocity;
+        leftVelocities[head] = leftVelocity;
+        turnRates[head] = turnRate;
+    }
+
+    /**
+     * Compute how far the robot moved between fromNanos and toNanos according to the commands
+     * Times after the newest sample are extrapolated with the newest command.
+     * Returns false when fromNanos is older than the history covers.
+     */
+    public boolean computeDelta(long fromNanos, long toNanos) {
+        if (size == 0) {
+            return false;
+        }
+        int from = indexAtOrBefore(fromNanos);
+        int to = indexAtOrBefore(toNanos);
+        if (from < 0 || to < 0) {
+            return false;
+        }
+
+        double fromX = poseX(from, fromNanos);
+        double fromY = poseY(from, fromNanos);
+        double fromHeading = poseHeading(from, fromNanos);
+        double dx = poseX(to, toNanos) - fromX;
+        double dy = poseY(to, toNanos) - fromY;
+
+        // Express the displacement in the robot frame at the start time
+        double cos = Math.cos(fromHeading);
+        double sin = Math.sin(fromHeading);
+        deltaForward = dx * cos + dy * sin;
+        deltaLeft = -dx * sin + dy * cos;
+        deltaHeading = poseHeading(to, toNanos) - fromHeading;
+        return true;
+    }
+
+    public double getDeltaForward() { return deltaForward; }
+    public double getDeltaLeft() { return deltaLeft; }
+    public double getDeltaHeading() { return deltaHeading; }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Newest sample at or before the given time, or -1 if the time is older than the history
+     */
+    private int indexAtOrBefore(long timeNanos) {
+        int oldest = (head - size + 1 + times.length) % times.length;
+        if (timeNanos < times[oldest]) {
+            return -1;
+        }
+        // Binary search over ages 0 (newest) .. size - 1 (oldest)
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[indexOfAge(mid)] <= timeNanos) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return indexOfAge(low);
+    }
+
+    private int indexOfAge(int age) {
+        int index = head - age;
+        return index < 0 ? index + times.length : index;
+    }
+
+    // Pose at timeNanos, integrating the command held from sample i with a midpoint heading
+
+    private double poseHeading(int i, long timeNanos) {
+        return headings[i] + turnRates[i] * (timeNanos - times[i]) / 1e9;
+    }
+
+    private double poseX(int i, long timeNanos) {
+        double dt = (timeNanos - times[i]) / 1e9;
+        double midHeading = headings[i] + turnRates[i] * dt / 2.0;
+        return xs[i] + (forwardVelocities[i] * Math.cos(midHeading) - leftVelocities[i] * Math.sin(midHeading)) * dt;
+    }
+
+    private double poseY(int i, long timeNanos) {
+        double dt = (timeNanos - times[i]) / 1e9;
+        double midHeading = headings[i] + turnRates[i] * dt / 2.0;
+        return ys[i] + (forwardVelocities[i] * Math.sin(midHeading) + leftVelocities[i] * Math.cos(midHeading)) * dt;
+    }
+}
@@ -0,0 +1,13 @@
+package org.firstinspires.ftc.teamcode.classes;
+
+/**
+ * Geometry of the competition drivetrain, shared by the OpModes and the offline tools that replay them
+ */
+public final class DriveGeometry {
+
+    public static final double TICKS_PER_METER = 537.7 / (Math.PI * 0.104); // 312 RPM motor, 104 mm wheel
+    public static final double WHEEL_LEVER_ARM = 0.33; // meters - (track width + wheel base) / 2
+
+    private DriveGeometry() {
+    }
+}
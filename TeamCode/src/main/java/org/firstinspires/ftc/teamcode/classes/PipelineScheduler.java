@@ -0,0 +1,215 @@
+package org.firstinspires.ftc.teamcode.classes;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.TelemetrySink;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionHardware;
+
+/**
+ * Switches Limelight pipelines and tells Vision which results belong to the pipeline it asked for
+ * A switch takes a few frames to land, and until then the camera keeps returning the old pipeline's
+ * results; those are discarded until a result reports the new pipeline index. A request made while a
+ * switch is still landing replaces it. A schedule can also cycle through several pipelines, each
+ * held for its dwell time once its first result arrives, so warm-up doesn't eat into the slot.
+ * Effective frame rates (accepted new results per second) are kept per pipeline.
+ */
+public class PipelineScheduler {
+
+    // A switch not confirmed within this long is sent again, in case the command was lost
+    private static final long SWITCH_TIMEOUT_NANOS = 500_000_000L;
+    private static final long RATE_PERIOD_NANOS = 1_000_000_000L;
+    private static final int MAX_SCHEDULE_SLOTS = 8;
+
+    private static final Vision.Pipeline[] PIPELINES = Vision.Pipeline.values();
+
+    private VisionHardware camera = null;
+
+    // The pipeline results are accepted from, and whether the camera has confirmed it yet
+    private Vision.Pipeline target = Vision.Pipeline.APRIL_TAG;
+    private boolean switching = false;
+    private boolean switchTimed = false; // False until the first update after a switch was sent
+    private long switchStartNanos = 0;
+    private long lastSendNanos = 0;
+    private long confirmedNanos = 0;
+
+    // Time-multiplexing schedule, empty unless setSchedule was called
+    private final Vision.Pipeline[] schedule = new Vision.Pipeline[MAX_SCHEDULE_SLOTS];
+    private final long[] dwellNanos = new long[MAX_SCHEDULE_SLOTS];
+    private final String[] rateCaptions = new String[MAX_SCHEDULE_SLOTS];
+    private int scheduleLength = 0;
+    private int scheduleSlot = 0;
+
+    // Frame counting, by pipeline ordinal
+    private long lastSequence = 0;
+    private final int[] framesThisPeriod = new int[PIPELINES.length];
+    private final double[] frameRates = new double[PIPELINES.length];
+    private long periodStartNanos = 0;
+    private boolean periodStarted = false;
+    private int discardedFrameCount = 0;
+    private int switchCount = 0;
+    private int resentSwitchCount = 0;
+    private int unconfirmedSwitchCount = 0; // Switches given up on without a result from the new pipeline
+
+    /**
+     * Switch the camera to the initial pipeline straight away, before the OpMode starts
+     */
+    public void init(VisionHardware camera, Vision.Pipeline initialPipeline) {
+        this.camera = camera;
+        scheduleLength = 0;
+        target = initialPipeline;
+        camera.pipelineSwitch(target.getIndex());
+        switching = true;
+        switchTimed = false;
+    }
+
+    /**
+     * Switch to one pipeline and stay there, cancelling any schedule
+     * A switch still landing is replaced straight away; its results would be discarded anyway.
+     */
+    public void request(Vision.Pipeline pipeline) {
+        scheduleLength = 0;
+        if (pipeline != target) {
+            beginSwitch(pipeline);
+        }
+    }
+
+    /**
+     * Cycle through the given pipelines, holding each for its dwell time after its first result
+     * E.g. {APRIL_TAG, YELLOW_DETECTION} with {0.4, 0.1} spends about 80% of the time on AprilTags.
+     */
+    public void setSchedule(Vision.Pipeline[] pipelines, double[] dwellSeconds) {
+        if (pipelines.length == 0 || pipelines.length > MAX_SCHEDULE_SLOTS
+                || pipelines.length != dwellSeconds.length) {
+            throw new IllegalArgumentException("schedule needs 1 to " + MAX_SCHEDULE_SLOTS
+                    + " pipelines, each with a dwell time");
+        }
+        for (int i = 0; i < pipelines.length; i++) {
+            schedule[i] = pipelines[i];
+            dwellNanos[i] = Math.round(dwellSeconds[i] * 1e9);
+            rateCaptions[i] = pipelines[i].name() + " FPS";
+        }
+        scheduleLength = pipelines.length;
+        scheduleSlot = 0;
+        // Even if the camera is already there, so the first slot's dwell starts at its next result
+        beginSwitch(schedule[0]);
+    }
+
+    /**
+     * Advance the schedule and send or resend switches; call once per loop before reading the camera
+     */
+    public void update(long nowNanos) {
+        if (!periodStarted) {
+            periodStartNanos = nowNanos;
+            periodStarted = true;
+        } else if (nowNanos - periodStartNanos >= RATE_PERIOD_NANOS) {
+            double seconds = (nowNanos - periodStartNanos) / 1e9;
+            for (int i = 0; i < frameRates.length; i++) {
+                frameRates[i] = framesThisPeriod[i] / seconds;
+                framesThisPeriod[i] = 0;
+            }
+            periodStartNanos = nowNanos;
+        }
+
+        if (switching) {
+            if (!switchTimed) {
+                switchTimed = true;
+                switchStartNanos = nowNanos;
+                lastSendNanos = nowNanos;
+            } else if (scheduleLength > 1
+                    && nowNanos - switchStartNanos >= dwellNanos[scheduleSlot] + SWITCH_TIMEOUT_NANOS) {
+                // A Limelight only returns results with a target, so a pipeline seeing nothing never
+                // confirms; give up on its slot rather than stall the schedule
+                nextSlot();
+            } else if (nowNanos - lastSendNanos > SWITCH_TIMEOUT_NANOS) {
+                resendSwitch(nowNanos);
+                if (scheduleLength <= 1) {
+                    // Likewise a lone pipeline seeing nothing never confirms; after one resend in case the
+                    // command was lost, stop waiting. Other pipelines' results are still discarded.
+                    switching = false;
+                    confirmedNanos = nowNanos;
+                    unconfirmedSwitchCount++;
+                }
+            }
+            return;
+        }
+
+        if (scheduleLength > 1 && nowNanos - confirmedNanos >= dwellNanos[scheduleSlot]) {
+            nextSlot();
+        }
+    }
+
+    /**
+     * True if the frame comes from the target pipeline; a matching frame completes a pending switch
+     * New frames that match count toward that pipeline's frame rate, the rest are counted as discarded.
+     */
+    public boolean accept(VisionFrame frame, long nowNanos) {
+        boolean isNewFrame = frame.sequence == 0 || frame.sequence != lastSequence;
+        lastSequence = frame.sequence;
+        if (frame.pipelineIndex != target.getIndex()) {
+            if (isNewFrame) {
+                discardedFrameCount++;
+            }
+            return false;
+        }
+        if (switching) {
+            // A slot's dwell starts at its first result
+            switching = false;
+            confirmedNanos = nowNanos;
+        }
+        if (isNewFrame) {
+            framesThisPeriod[target.ordinal()]++;
+        }
+        return true;
+    }
+
+    private void nextSlot() {
+        scheduleSlot = (scheduleSlot + 1) % scheduleLength;
+        beginSwitch(schedule[scheduleSlot]);
+    }
+
+    private void resendSwitch(long nowNanos) {
+        camera.pipelineSwitch(target.getIndex());
+        lastSendNanos = nowNanos;
+        resentSwitchCount++;
+    }
+
+    private void beginSwitch(Vision.Pipeline pipeline) {
+        target = pipeline;
+        camera.pipelineSwitch(pipeline.getIndex());
+        switching = true;
+        switchTimed = false;
+        switchCount++;
+    }
+
+    /**
+     * Pipeline whose results are currently accepted (or awaited, while switching)
+     */
+    public Vision.Pipeline getTargetPipeline() { return target; }
+    public boolean isSwitching() { return switching; }
+    public boolean isMultiplexing() { return scheduleLength > 1; }
+    public int getDiscardedFrameCount() { return discardedFrameCount; }
+    public int getSwitchCount() { return switchCount; }
+    public int getResentSwitchCount() { return resentSwitchCount; }
+    public int getUnconfirmedSwitchCount() { return unconfirmedSwitchCount; }
+
+    /**
+     * New results accepted from the pipeline per second, over the last full second
+     */
+    public double getFrameRate(Vision.Pipeline pipeline) {
+        return frameRates[pipeline.ordinal()];
+    }
+
+    /**
+     * Display whether the switch to the current pipeline has landed and the frame rate of every scheduled pipeline
+     */
+    public void displayTelemetry(TelemetrySink telemetry) {
+        telemetry.addData("Pipeline Switching", switching ? "Waiting, %d switches, %d frames discarded"
+                : "Done, %d switches, %d frames discarded", switchCount, discardedFrameCount);
+        if (scheduleLength > 1) {
+            for (int i = 0; i < scheduleLength; i++) {
+                telemetry.addData(rateCaptions[i], "%.1f", getFrameRate(schedule[i]));
+            }
+        } else {
+            telemetry.addData("Pipeline FPS", "%.1f", getFrameRate(target));
+        }
+    }
+}
@@ -1,17 +1,19 @@
 package org.firstinspires.ftc.teamcode.classes;
 
-import android.annotation.SuppressLint;
+import org.firstinspires.ftc.teamcode.classes.control.PidfController;
+import org.firstinspires.ftc.teamcode.classes.hardware.DriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.TelemetrySink;
+import org.firstinspires.ftc.teamcode.classes.localization.Localizer;
 
-import com.qualcomm.robotcore.hardware.DcMotor;
-import com.qualcomm.robotcore.hardware.HardwareMap;
-import org.firstinspires.ftc.robotcore.external.Telemetry;
+import java.util.Locale;
 
 /**
  * Robot class to handle all hardware operations and movement logic
+ * Talks to the motors through DriveHardware so it can also run against the simulator
  */
 public class Robot {
 
-    // Constants for movement
+    // Tolerances of the legacy controllers
     private static final double TARGET_DISTANCE_THRESHOLD = 0.15; // meters - stop when this close
     private static final double LATERAL_TOLERANCE = 0.05; // meters - center tolerance
     private static final double YAW_TOLERANCE = 5.0; // degrees - rotation tolerance
@@ -29,11 +31,37 @@ public class Robot {
     // Minimum power to overcome friction
     private static final double MIN_POWER = 0.15;
 
+    // Original proportional controllers with a hard MIN_POWER kick, kept to compare against in the simulator
+    public static final PidfController.Gains LEGACY_AXIAL_GAINS = PidfController.Gains.pid(AXIAL_GAIN, 0.0, 0.0)
+            .withTolerance(TARGET_DISTANCE_THRESHOLD).withOutputLimits(MIN_POWER, MAX_AXIAL_POWER);
+    public static final PidfController.Gains LEGACY_LATERAL_GAINS = PidfController.Gains.pid(LATERAL_GAIN, 0.0, 0.0)
+            .withTolerance(LATERAL_TOLERANCE).withOutputLimits(MIN_POWER, MAX_LATERAL_POWER);
+    public static final PidfController.Gains LEGACY_YAW_GAINS = PidfController.Gains.pid(YAW_GAIN, 0.0, 0.0)
+            .withTolerance(YAW_TOLERANCE).withOutputLimits(MIN_POWER, MAX_YAW_POWER);
+
+    // Approach controllers: PID plus static friction feedforward (errors in meters and degrees)
+    public static final PidfController.Gains AXIAL_GAINS = PidfController.Gains.pid(3.0, 0.3, 0.3)
+            .withFeedforward(0.04, 0.0).withTolerance(0.02).withOutputLimits(0.0, MAX_AXIAL_POWER)
+            .withIntegralLimit(0.1).withDerivativeFilter(0.03);
+    public static final PidfController.Gains LATERAL_GAINS = PidfController.Gains.pid(3.0, 0.3, 0.3)
+            .withFeedforward(0.04, 0.0).withTolerance(0.02).withOutputLimits(0.0, MAX_LATERAL_POWER)
+            .withIntegralLimit(0.1).withDerivativeFilter(0.03);
+    public static final PidfController.Gains YAW_GAINS = PidfController.Gains.pid(0.02, 0.005, 0.001)
+            .withFeedforward(0.04, 0.0).withTolerance(1.0).withOutputLimits(0.0, MAX_YAW_POWER)
+            .withIntegralLimit(0.1).withDerivativeFilter(0.03);
+
+    // Approximate chassis speed at full power, used to turn drive commands into expected motion
+    private static final double MAX_FORWARD_SPEED = 1.5; // meters/second
+    private static final double MAX_TURN_RATE = Math.toRadians(300); // radians/second
+
     // Drive motors
-    private DcMotor frontLeftDrive = null;
-    private DcMotor backLeftDrive = null;
-    private DcMotor frontRightDrive = null;
-    private DcMotor backRightDrive = null;
+    private DriveHardware driveHardware = null;
+
+    // Approach controllers, one per axis
+    private final PidfController axialController = new PidfController(AXIAL_GAINS);
+    private final PidfController lateralController = new PidfController(LATERAL_GAINS);
+    private final PidfController yawController = new PidfController(YAW_GAINS);
+    private long lastControlNanos = 0;
 
     // Telemetry tracking for drive powers
     private double lastFrontLeftPower = 0;
@@ -46,34 +74,52 @@ public class Robot {
     private double lastLateral = 0;
     private double lastYaw = 0;
 
+    // Chassis command actually sent after normalization
+    private double commandedAxial = 0;
+    private double commandedLateral = 0;
+    private double commandedYaw = 0;
+
+    // Wheel powers from the last drive command, indexed like DriveHardware motors
+    private final double[] commandedPowers = new double[DriveHardware.MOTOR_COUNT];
+
+    // Position sense, if the OpMode gave the robot one
+    private Localizer localizer = null;
+
     /**
      * Initialize robot hardware
+     * On the robot pass an FtcDriveHardware, off-robot pass a SimulatedMecanumChassis
      */
-    public void init(HardwareMap hardwareMap) {
-        // Initialize drive motors
-        frontLeftDrive = hardwareMap.get(DcMotor.class, "fL");
-        backLeftDrive = hardwareMap.get(DcMotor.class, "bL");
-        frontRightDrive = hardwareMap.get(DcMotor.class, "fR");
-        backRightDrive = hardwareMap.get(DcMotor.class, "bR");
+    public void init(DriveHardware driveHardware) {
+        this.driveHardware = driveHardware;
 
         // Validate motor configuration
         validateMotors();
+    }
 
-        // Set motor directions
-        frontLeftDrive.setDirection(DcMotor.Direction.REVERSE);
-        backLeftDrive.setDirection(DcMotor.Direction.REVERSE);
-        frontRightDrive.setDirection(DcMotor.Direction.FORWARD);
-        backRightDrive.setDirection(DcMotor.Direction.FORWARD);
+    /**
+     * Give the robot a position sense: drive encoders, a Pinpoint or an OctoQuad
+     * Call updateLocalizer once per loop, after HardwareCycle.startCycle()
+     */
+    public void setLocalizer(Localizer localizer) {
+        this.localizer = localizer;
     }
 
     /**
-     * Validate that all motors are properly configured
+     * Read the localizer for this cycle; does nothing without one
+     */
+    public void updateLocalizer(long nowNanos) {
+        if (localizer != null) {
+            localizer.update(nowNanos);
+        }
+    }
+
+    public Localizer getLocalizer() { return localizer; }
+
+    /**
+     * Validate that the drive hardware is configured
      */
     private void validateMotors() {
-        assert frontLeftDrive != null : "frontLeftDrive is null - check robot config name 'fL'";
-        assert backLeftDrive != null : "backLeftDrive is null - check robot config name 'bL'";
-        assert frontRightDrive != null : "frontRightDrive is null - check robot config name 'fR'";
-        assert backRightDrive != null : "backRightDrive is null - check robot config name 'bR'";
+        assert driveHardware != null : "driveHardware is null - call init() first";
     }
 
     /**
@@ -91,13 +137,23 @@ public class Robot {
         maxPower = Math.max(maxPower, Math.abs(backLeftPower));
         maxPower = Math.max(maxPower, Math.abs(backRightPower));
 
+        double scale = 1.0;
         if (maxPower > 1.0) {
             frontLeftPower  /= maxPower;
             frontRightPower /= maxPower;
             backLeftPower   /= maxPower;
             backRightPower  /= maxPower;
+            scale = 1.0 / maxPower;
         }
 
+        commandedAxial = axial * scale;
+        commandedLateral = lateral * scale;
+        commandedYaw = yaw * scale;
+        commandedPowers[DriveHardware.FRONT_LEFT] = frontLeftPower;
+        commandedPowers[DriveHardware.FRONT_RIGHT] = frontRightPower;
+        commandedPowers[DriveHardware.BACK_LEFT] = backLeftPower;
+        commandedPowers[DriveHardware.BACK_RIGHT] = backRightPower;
+
         setMotorPowers(frontLeftPower, frontRightPower, backLeftPower, backRightPower);
     }
 
@@ -117,6 +173,29 @@ public class Robot {
         updateTelemetryPowers();
     }
 
+    /**
+     * Field-centric gamepad drive: axial pushes away from the driver and lateral to the driver's right,
+     * whichever way the robot faces
+     * heading is the robot's heading in radians, counter-clockwise positive, from where it faced
+     * when the heading was last reset (see HeadingTracker)
+     */
+    public void driveFieldCentric(double axial, double lateral, double yaw, double heading) {
+        // Store requested inputs for telemetry
+        lastAxial = axial;
+        lastLateral = lateral;
+        lastYaw = yaw;
+
+        // Rotate the driver's (axial, lateral) vector into the robot frame by -heading
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        double robotAxial = axial * cos - lateral * sin;
+        double robotLateral = axial * sin + lateral * cos;
+
+        drive(robotAxial, robotLateral, yaw);
+
+        updateTelemetryPowers();
+    }
+
     /**
      * Drive method for autonomous control
      */
@@ -124,115 +203,75 @@ public class Robot {
         drive(axial, lateral, yaw);
     }
 
+    /**
+     * Drive at a robot-frame velocity (meters/second forward and left, radians/second counter-clockwise)
+     * The inverse of getCommandedForwardVelocity and friends, e.g. for TrajectoryFollower
+     */
+    public void driveVelocity(double forwardVelocity, double leftVelocity, double turnRate) {
+        drive(forwardVelocity / MAX_FORWARD_SPEED, -leftVelocity / MAX_FORWARD_SPEED, -turnRate / MAX_TURN_RATE);
+    }
+
     /**
      * Move towards an April Tag target automatically
      * BotPose coordinates: X = forward/back, Y = left/right, Z = up/down
      * Yaw = rotation angle to face the tag
      */
     public MovementResult moveToAprilTag(Vision.TargetData targetData) {
-        if (!targetData.isAcquired) {
-            stopMovement();
-            return new MovementResult(false, "No target acquired", 0.0, 0.0, 0.0);
-        }
-
-        // Calculate power for each axis using proportional control
-        double axialPower = calculateAxialPower(targetData.xPosition);
-        double lateralPower = calculateLateralPower(targetData.yPosition);
-        double yawPower = calculateYawPower(targetData.botPose.getOrientation().getYaw());
-
-        drive(-axialPower, -lateralPower, yawPower);
-
-        boolean atTarget = isAtTarget(targetData.xPosition, targetData.yPosition, 
-                                      targetData.botPose.getOrientation().getYaw());
-        @SuppressLint("DefaultLocale") String status = atTarget ?
-            String.format("Target reached! X: %.2fm, Y: %.2fm, Yaw: %.1f°",
-                targetData.xPosition, targetData.yPosition, targetData.botPose.getOrientation().getYaw()) :
-            String.format("Moving - X: %.2fm, Y: %.2fm, Yaw: %.1f°", 
-                targetData.xPosition, targetData.yPosition, targetData.botPose.getOrientation().getYaw());
-
-        return new MovementResult(atTarget, status, axialPower, lateralPower, yawPower);
+        return moveToAprilTag(targetData, new MovementResult());
     }
 
     /**
-     * Calculate forward/backward power based on X position (distance)
-     * Positive X means target is ahead, negative means behind
+     * Move towards an April Tag target, writing the outcome into a caller-owned result
+     * Reusing the same result every loop keeps this method allocation-free; the status
+     * string is only built if something asks for it
      */
-    private double calculateAxialPower(double xPosition) {
-        // If we're close enough, stop
-        if (Math.abs(xPosition) <= TARGET_DISTANCE_THRESHOLD) {
-            return 0.0;
+    public MovementResult moveToAprilTag(Vision.TargetData targetData, MovementResult result) {
+        if (!targetData.isAcquired) {
+            stopMovement();
+            result.set(false, false, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+            return result;
         }
 
-        // Proportional control: power proportional to distance
-        double power = xPosition * AXIAL_GAIN;
-        
-        // Clamp to max power
-        power = Math.max(-MAX_AXIAL_POWER, Math.min(MAX_AXIAL_POWER, power));
-        
-        // Apply minimum power to overcome friction
-        if (Math.abs(power) > 0 && Math.abs(power) < MIN_POWER) {
-            power = Math.signum(power) * MIN_POWER;
-        }
-        
-        return power;
+        return moveToPose(targetData.xPosition, targetData.yPosition, targetData.yaw, result);
     }
 
     /**
-     * Calculate lateral (strafe) power for centering on target
-     * Positive Y means target is to the right, negative means left
+     * Move towards the target from a pose in the same frame as BotPose (e.g. a PoseEstimator estimate)
+     * Yaw is in degrees
      */
-    private double calculateLateralPower(double yPosition) {
-        // If centered enough, stop strafing
-        if (Math.abs(yPosition) <= LATERAL_TOLERANCE) {
-            return 0.0;
-        }
-
-        // Proportional control with negative sign (strafe opposite direction to center)
-        double power = -yPosition * LATERAL_GAIN;
-        
-        // Clamp to max power
-        power = Math.max(-MAX_LATERAL_POWER, Math.min(MAX_LATERAL_POWER, power));
-        
-        // Apply minimum power to overcome friction
-        if (Math.abs(power) > 0 && Math.abs(power) < MIN_POWER) {
-            power = Math.signum(power) * MIN_POWER;
-        }
-        
-        return power;
+    public MovementResult moveToPose(double xPosition, double yPosition, double yaw, MovementResult result) {
+        return moveToPose(xPosition, yPosition, yaw, System.nanoTime(), result);
     }
 
     /**
-     * Calculate yaw (rotation) power to face the target
-     * Yaw is in degrees - positive means target is to the left, negative means right
+     * Move towards the target as of nowNanos (normally the HardwareCycle start time)
      */
-    private double calculateYawPower(double yaw) {
-        // If facing the target, stop rotating
-        if (Math.abs(yaw) <= YAW_TOLERANCE) {
-            return 0.0;
-        }
-
-        // Proportional control: power proportional to angle error
+    public MovementResult moveToPose(double xPosition, double yPosition, double yaw, long nowNanos,
+                                     MovementResult result) {
+        double dt = (nowNanos - lastControlNanos) / 1e9;
+        lastControlNanos = nowNanos;
+
+        // Positive X means target is ahead; strafe opposite to Y to center
+        double axialPower = axialController.update(xPosition, dt);
+        double lateralPower = lateralController.update(-yPosition, dt);
         // Positive yaw = target is left, so turn left (positive power)
-        double power = yaw * YAW_GAIN;
-        
-        // Clamp to max power
-        power = Math.max(-MAX_YAW_POWER, Math.min(MAX_YAW_POWER, power));
-        
-        // Apply minimum power to overcome friction
-        if (Math.abs(power) > 0 && Math.abs(power) < MIN_POWER) {
-            power = Math.signum(power) * MIN_POWER;
-        }
-        
-        return power;
+        double yawPower = yawController.update(yaw, dt);
+
+        drive(-axialPower, -lateralPower, yawPower);
+
+        boolean atTarget = isAtTarget(xPosition, yPosition, yaw);
+        result.set(true, atTarget, axialPower, lateralPower, yawPower, xPosition, yPosition, yaw);
+        return result;
     }
 
     /**
      * Check if robot is at the target position and orientation
+     * Uses the active controllers' tolerances, the band in which they stop driving
      */
     private boolean isAtTarget(double xPosition, double yPosition, double yaw) {
-        return Math.abs(xPosition) <= TARGET_DISTANCE_THRESHOLD &&
-               Math.abs(yPosition) <= LATERAL_TOLERANCE &&
-               Math.abs(yaw) <= YAW_TOLERANCE;
+        return Math.abs(xPosition) <= axialController.getGains().tolerance &&
+               Math.abs(yPosition) <= lateralController.getGains().tolerance &&
+               Math.abs(yaw) <= yawController.getGains().tolerance;
     }
 
     /**
@@ -240,6 +279,27 @@ public class Robot {
      */
     public void stopMovement() {
         drive(0.0, 0.0, 0.0);
+        resetControllers();
+    }
+
+    /**
+     * Replace the approach controller gains, e.g. with the LEGACY_* gains to compare in the simulator
+     */
+    public void setApproachGains(PidfController.Gains axial, PidfController.Gains lateral,
+                                 PidfController.Gains yaw) {
+        axialController.setGains(axial);
+        lateralController.setGains(lateral);
+        yawController.setGains(yaw);
+        resetControllers();
+    }
+
+    /**
+     * Forget the approach controllers' integral and derivative state
+     */
+    private void resetControllers() {
+        axialController.reset();
+        lateralController.reset();
+        yawController.reset();
     }
 
     /**
@@ -249,30 +309,32 @@ public class Robot {
                                double backLeftPower, double backRightPower) {
         validateMotors();
 
-        frontLeftDrive.setPower(frontLeftPower);
-        frontRightDrive.setPower(frontRightPower);
-        backLeftDrive.setPower(backLeftPower);
-        backRightDrive.setPower(backRightPower);
+        driveHardware.setPowers(frontLeftPower, frontRightPower, backLeftPower, backRightPower);
     }
 
     /**
      * Update telemetry power values
      */
     private void updateTelemetryPowers() {
-        lastFrontLeftPower = frontLeftDrive.getPower();
-        lastFrontRightPower = frontRightDrive.getPower();
-        lastBackLeftPower = backLeftDrive.getPower();
-        lastBackRightPower = backRightDrive.getPower();
+        lastFrontLeftPower = driveHardware.getPower(DriveHardware.FRONT_LEFT);
+        lastFrontRightPower = driveHardware.getPower(DriveHardware.FRONT_RIGHT);
+        lastBackLeftPower = driveHardware.getPower(DriveHardware.BACK_LEFT);
+        lastBackRightPower = driveHardware.getPower(DriveHardware.BACK_RIGHT);
     }
 
     /**
      * Display robot telemetry
      */
-    public void displayTelemetry(Telemetry telemetry) {
+    public void displayTelemetry(TelemetrySink telemetry) {
         telemetry.addData("Drive Powers", "FL: %.2f, FR: %.2f, BL: %.2f, BR: %.2f",
                 lastFrontLeftPower, lastFrontRightPower, lastBackLeftPower, lastBackRightPower);
         telemetry.addData("Drive Inputs", "Axial: %.2f, Lateral: %.2f, Yaw: %.2f",
                 lastAxial, lastLateral, lastYaw);
+        if (localizer != null) {
+            telemetry.addData("Odometry", localizer.isReady() ? "X: %.2f, Y: %.2f, Heading: %.1f"
+                            : "X: %.2f, Y: %.2f, Heading: %.1f (not ready)",
+                    localizer.getX(), localizer.getY(), Math.toDegrees(localizer.getHeading()));
+        }
     }
 
     // Getters for telemetry
@@ -284,23 +346,73 @@ public class Robot {
     public double getLastLateral() { return lastLateral; }
     public double getLastYaw() { return lastYaw; }
 
+    // Expected chassis motion from the last drive command (robot frame: forward, left, counter-clockwise)
+    public double getCommandedForwardVelocity() { return commandedAxial * MAX_FORWARD_SPEED; }
+    public double getCommandedLeftVelocity() { return -commandedLateral * MAX_FORWARD_SPEED; }
+    public double getCommandedTurnRate() { return -commandedYaw * MAX_TURN_RATE; }
+
+    /**
+     * Power the last drive command asked of the given motor, before any DriveHardware decorator scaled it
+     */
+    public double getCommandedPower(int motor) { return commandedPowers[motor]; }
+
     /**
      * Data class to hold movement result information
+     * Instances are mutable so a single one can be reused every loop
      */
     public static class MovementResult {
-        public final boolean atTarget;
-        public final String status;
-        public final double axialPower;
-        public final double lateralPower;
-        public final double yawPower;
-
-        public MovementResult(boolean atTarget, String status, double axialPower, 
-                            double lateralPower, double yawPower) {
+        public boolean hasTarget = false;
+        public boolean atTarget = false;
+        public double axialPower = 0.0;
+        public double lateralPower = 0.0;
+        public double yawPower = 0.0;
+
+        // Pose the movement was computed from, used to build the status
+        public double xPosition = 0.0;
+        public double yPosition = 0.0;
+        public double yaw = 0.0;
+
+        // Built on first request and dropped whenever the result changes
+        private String status = null;
+
+        void set(boolean hasTarget, boolean atTarget, double axialPower, double lateralPower,
+                 double yawPower, double xPosition, double yPosition, double yaw) {
+            this.hasTarget = hasTarget;
             this.atTarget = atTarget;
-            this.status = status;
             this.axialPower = axialPower;
             this.lateralPower = lateralPower;
             this.yawPower = yawPower;
+            this.xPosition = xPosition;
+            this.yPosition = yPosition;
+            this.yaw = yaw;
+            this.status = null;
+        }
+
+        /**
+         * Human-readable status, formatted lazily
+         */
+        public String getStatus() {
+            if (status == null) {
+                if (!hasTarget) {
+                    status = "No target acquired";
+                } else if (atTarget) {
+                    status = String.format(Locale.US, "Target reached! X: %.2fm, Y: %.2fm, Yaw: %.1f°",
+                            xPosition, yPosition, yaw);
+                } else {
+                    status = String.format(Locale.US, "Moving - X: %.2fm, Y: %.2fm, Yaw: %.1f°",
+                            xPosition, yPosition, yaw);
+                }
+            }
+            return status;
+        }
+
+        /**
+         * Same as getStatus, so the result itself can be handed to telemetry and is only
+         * formatted when the line is actually composed
+         */
+        @Override
+        public String toString() {
+            return getStatus();
         }
     }
 }
@@ -0,0 +1,168 @@
+package org.firstinspires.ftc.teamcode.classes;
+
+/**
+ * Fixed-capacity moving window over primitive doubles
+ * Keeps running sums so the mean (and optionally variance) is O(1) and adding a sample never allocates
+ */
+public class RollingWindow {
+
+    // Recompute the running sums from scratch after this many evictions to bound floating point drift
+    private static final int RESUM_INTERVAL_MULTIPLIER = 16;
+
+    private final double[] samples;
+    private final boolean trackVariance;
+    private final int resumInterval;
+
+    private int head = 0; // Index the next sample will be written to
+    private int size = 0;
+    private int evictionsSinceResum = 0;
+    private double sum = 0.0;
+    private double sumOfSquares = 0.0;
+
+    /**
+     * Create a window that only tracks the mean
+     */
+    public RollingWindow(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Create a window, optionally tracking the running variance as well
+     */
+    public RollingWindow(int capacity, boolean trackVariance) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive, got " + capacity);
+        }
+        this.samples = new double[capacity];
+        this.trackVariance = trackVariance;
+        this.resumInterval = capacity * RESUM_INTERVAL_MULTIPLIER;
+    }
+
+    /**
+     * Add a sample, evicting the oldest one once the window is full
+     */
+    public void add(double value) {
+        if (size == samples.length) {
+            double evicted = samples[head];
+            sum -= evicted;
+            if (trackVariance) {
+                sumOfSquares -= evicted * evicted;
+            }
+            evictionsSinceResum++;
+        } else {
+            size++;
+        }
+
+        samples[head] = value;
+        sum += value;
+        if (trackVariance) {
+            sumOfSquares += value * value;
+        }
+
+        head++;
+        if (head == samples.length) {
+            head = 0;
+        }
+
+        if (evictionsSinceResum >= resumInterval) {
+            resum();
+        }
+    }
+
+    /**
+     * Mean of the samples currently in the window, or 0 if empty
+     */
+    public double mean() {
+        return size == 0 ? 0.0 : sum / size;
+    }
+
+    /**
+     * Population variance of the samples currently in the window
+     * Only available when the window was created with variance tracking enabled
+     */
+    public double variance() {
+        if (!trackVariance) {
+            throw new IllegalStateException("variance tracking is disabled for this window");
+        }
+        if (size == 0) {
+            return 0.0;
+        }
+        double mean = sum / size;
+        // Clamp tiny negative values caused by cancellation
+        return Math.max(0.0, sumOfSquares / size - mean * mean);
+    }
+
+    /**
+     * Population standard deviation of the samples currently in the window
+     */
+    public double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+
+    /**
+     * Most recently added sample, or 0 if empty
+     */
+    public double latest() {
+        if (size == 0) {
+            return 0.0;
+        }
+        return samples[head == 0 ? samples.length - 1 : head - 1];
+    }
+
+    /**
+     * Sample at the given age, where 0 is the newest and size() - 1 is the oldest
+     */
+    public double get(int age) {
+        if (age < 0 || age >= size) {
+            throw new IndexOutOfBoundsException("age " + age + " outside window of size " + size);
+        }
+        int index = head - 1 - age;
+        if (index < 0) {
+            index += samples.length;
+        }
+        return samples[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return samples.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == samples.length;
+    }
+
+    /**
+     * Drop all samples without releasing the backing array
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+        evictionsSinceResum = 0;
+        sum = 0.0;
+        sumOfSquares = 0.0;
+    }
+
+    /**
+     * Rebuild the running sums from the stored samples
+     */
+    private void resum() {
+        double newSum = 0.0;
+        double newSumOfSquares = 0.0;
+        for (int i = 0; i < size; i++) {
+            double value = samples[i];
+            newSum += value;
+            newSumOfSquares += value * value;
+        }
+        sum = newSum;
+        sumOfSquares = trackVariance ? newSumOfSquares : 0.0;
+        evictionsSinceResum = 0;
+    }
+}
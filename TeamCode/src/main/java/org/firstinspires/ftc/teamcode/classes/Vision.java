@@ -1,16 +1,15 @@
 package org.firstinspires.ftc.teamcode.classes;
 
-import com.qualcomm.hardware.limelightvision.LLResult;
-import com.qualcomm.hardware.limelightvision.Limelight3A;
-import com.qualcomm.robotcore.hardware.HardwareMap;
-import org.firstinspires.ftc.robotcore.external.Telemetry;
-import org.firstinspires.ftc.robotcore.external.navigation.Pose3D;
-
-import java.util.ArrayList;
-import java.util.List;
+import org.firstinspires.ftc.teamcode.classes.filter.HampelFilter;
+import org.firstinspires.ftc.teamcode.classes.filter.OneEuroFilter;
+import org.firstinspires.ftc.teamcode.classes.filter.PositionFilter;
+import org.firstinspires.ftc.teamcode.classes.hardware.TelemetrySink;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionHardware;
 
 /**
  * Vision class to handle all Limelight operations and target tracking
+ * Talks to the camera through VisionHardware so it can also run against the simulator
  */
 public class Vision {
 
@@ -31,10 +30,12 @@ public class Vision {
 
         private final int index;
         private final String description;
+        private final String label; // Description and index, as shown in telemetry
 
         Pipeline(int index, String description) {
             this.index = index;
             this.description = description;
+            label = description + " (" + index + ")";
         }
 
         public int getIndex() {
@@ -56,26 +57,51 @@ public class Vision {
     }
 
     // Constants
-    private static final int AVERAGE_FRAME_COUNT = 90; // Number of frames to average
+    private static final int AVERAGE_FRAME_COUNT = 90; // Frames without a target before the filters are reset
+    private static final long MAX_FRAME_AGE_NANOS = 250_000_000L; // Ignore results older than this
+    // A pipeline's filter starts over when its previous result is older than this, e.g. after switching back
+    private static final long MAX_FILTER_GAP_NANOS = 1_000_000_000L;
+    private static final int MOTION_HISTORY_SIZE = 512; // Drive commands kept for latency compensation
+
+    // Default botpose filter
+    private static final int HAMPEL_WINDOW = 15; // frames
+    private static final double HAMPEL_THRESHOLD_SIGMAS = 3.0;
+    private static final double HAMPEL_MIN_DEVIATION = 0.01; // meters
+    private static final double ONE_EURO_MIN_CUTOFF_HZ = 1.0;
+    private static final double ONE_EURO_BETA = 5.0; // Hz per m/s
+    private static final double ONE_EURO_DERIVATIVE_CUTOFF_HZ = 1.0;
 
     // Hardware and tracking variables
-    private Limelight3A limelight = null;
-    private Pipeline currentPipeline = Pipeline.APRIL_TAG;
+    private VisionHardware limelight = null;
+    private final PipelineScheduler pipelineScheduler = new PipelineScheduler();
     private int consecutiveNoTargetFrames = 0;
 
-    // Position history for averaging
-    private final List<Double> xPositionHistory = new ArrayList<>();
-    private final List<Double> yPositionHistory = new ArrayList<>();
-    private final List<Double> zPositionHistory = new ArrayList<>();
+    // Reused for every read so polling the camera does not allocate
+    private final VisionFrame latestFrame = new VisionFrame();
+    private boolean latestFrameValid = false;
+
+    // Botpose smoothing, one filter per pipeline (by ordinal); fed capture times in seconds since
+    // captureTimeBaseNanos so the filtered position has a timestamp too
+    private final PositionFilter[] positionFilters = createDefaultFilters();
+    private final long[] captureTimeBaseNanos = new long[positionFilters.length];
+    private final long[] lastFilteredCaptureNanos = new long[positionFilters.length];
     private int validFrameCount = 0;
 
+    // Latency compensation and frame rejection
+    private final CommandedMotionHistory motionHistory = new CommandedMotionHistory(MOTION_HISTORY_SIZE);
+    private boolean latencyCompensation = true;
+    private long lastFrameSequence = 0;
+    private int staleFrameCount = 0;
+    private long lastStaleSequence = 0; // So a stale result re-read every loop is counted once
+    private int repeatedFrameCount = 0;
+
     /**
      * Initialize the Limelight hardware
+     * On the robot pass a LimelightVisionHardware, off-robot pass a SimulatedLimelight
      */
-    public void init(HardwareMap hardwareMap, String limelightName, Pipeline initialPipeline) {
-        limelight = hardwareMap.get(Limelight3A.class, limelightName);
-        currentPipeline = initialPipeline;
-        limelight.pipelineSwitch(currentPipeline.getIndex());
+    public void init(VisionHardware limelight, Pipeline initialPipeline) {
+        this.limelight = limelight;
+        pipelineScheduler.init(limelight, initialPipeline);
     }
 
     /**
@@ -97,63 +123,141 @@ public class Vision {
     }
 
     /**
-     * Get the current pipeline
+     * Get the current pipeline: the one results are accepted from, or are awaited from while switching
      */
     public Pipeline getCurrentPipeline() {
-        return currentPipeline;
+        return pipelineScheduler.getTargetPipeline();
     }
 
     /**
-     * Set the pipeline
+     * Set the pipeline, cancelling any schedule
+     * The switch is sent on the next processFrame, or once a switch still landing has, and results from
+     * the old pipeline are discarded until the camera reports the new one
      */
     public void setPipeline(Pipeline pipeline) {
-        currentPipeline = pipeline;
         if (limelight != null) {
-            limelight.pipelineSwitch(currentPipeline.getIndex());
+            pipelineScheduler.request(pipeline);
         }
     }
 
     /**
-     * Get the latest Limelight result
+     * Time-multiplex the camera between pipelines, holding each for its dwell time (seconds) once its
+     * results arrive, e.g. APRIL_TAG and YELLOW_DETECTION; TargetData.pipeline tells the results apart
      */
-    public LLResult getLatestResult() {
+    public void setPipelineSchedule(Pipeline[] pipelines, double[] dwellSeconds) {
         if (limelight != null) {
-            LLResult result = limelight.getLatestResult();
-            if (result != null && result.isValid()) {
-                return result;
-            }
+            pipelineScheduler.setSchedule(pipelines, dwellSeconds);
         }
-        return null;
+    }
+
+    /**
+     * Switch state and per-pipeline effective frame rates
+     */
+    public PipelineScheduler getPipelineScheduler() {
+        return pipelineScheduler;
+    }
+
+    /**
+     * Get the latest valid Limelight result, or null if there is none
+     * The returned frame is reused and overwritten by the next call
+     */
+    public VisionFrame getLatestFrame() {
+        latestFrameValid = limelight != null && limelight.readLatest(latestFrame);
+        return latestFrameValid ? latestFrame : null;
+    }
+
+    /**
+     * The frame read by the last getLatestFrame or processFrame, or null if that read found no valid result
+     * Unlike processFrame's view, stale frames are included, so this is exactly what the camera returned
+     */
+    public VisionFrame getLastFrame() {
+        return latestFrameValid ? latestFrame : null;
     }
 
     /**
      * Process the current frame and update target tracking
      */
     public TargetData processFrame() {
-        LLResult result = getLatestResult();
-        TargetData targetData = new TargetData();
+        return processFrame(new TargetData());
+    }
 
-        if (result != null) {
-            consecutiveNoTargetFrames = 0;
-            targetData.result = result;
-            targetData.botPose = result.getBotpose();
+    /**
+     * Process the current frame into a caller-owned TargetData
+     * Reusing the same TargetData every loop keeps this method allocation-free
+     */
+    public TargetData processFrame(TargetData targetData) {
+        return processFrame(targetData, System.nanoTime());
+    }
+
+    /**
+     * Process the current frame as of nowNanos (normally the HardwareCycle start time)
+     * Results older than MAX_FRAME_AGE_NANOS or from a pipeline being switched away from are ignored,
+     * repeated results do not enter the pipeline's filter, and the pose is moved forward to nowNanos
+     * using the recorded drive commands
+     */
+    public TargetData processFrame(TargetData targetData, long nowNanos) {
+        pipelineScheduler.update(nowNanos);
+        VisionFrame frame = getLatestFrame();
+        targetData.reset();
+
+        long captureTimeNanos = nowNanos;
+        if (frame != null && frame.captureTimeNanos != 0) {
+            captureTimeNanos = frame.captureTimeNanos;
+            if (nowNanos - captureTimeNanos > MAX_FRAME_AGE_NANOS) {
+                if (frame.sequence == 0 || frame.sequence != lastStaleSequence) {
+                    staleFrameCount++;
+                    lastStaleSequence = frame.sequence;
+                }
+                frame = null;
+            }
+        }
+        if (frame != null && !pipelineScheduler.accept(frame, nowNanos)) {
+            frame = null;
+        }
 
-            if (targetData.botPose != null) {
+        if (frame != null) {
+            Pipeline pipeline = pipelineScheduler.getTargetPipeline();
+            PositionFilter positionFilter = positionFilters[pipeline.ordinal()];
+            consecutiveNoTargetFrames = 0;
+            boolean isNewFrame = frame.sequence == 0 || frame.sequence != lastFrameSequence;
+            lastFrameSequence = frame.sequence;
+
+            targetData.hasResult = true;
+            targetData.pipeline = pipeline;
+            targetData.isNewFrame = isNewFrame;
+            targetData.frameSequence = frame.sequence;
+            targetData.captureTimeNanos = captureTimeNanos;
+            targetData.ageMillis = (nowNanos - captureTimeNanos) / 1e6;
+            targetData.tx = frame.tx;
+            targetData.ty = frame.ty;
+            targetData.ta = frame.ta;
+            targetData.hasBotPose = frame.hasBotPose;
+
+            if (frame.hasBotPose) {
                 // Store raw position data
-                targetData.rawX = targetData.botPose.getPosition().x;
-                targetData.rawY = targetData.botPose.getPosition().y;
-                targetData.rawZ = targetData.botPose.getPosition().z;
-
-                // Update position history for averaging
-                updatePositionHistory(targetData.rawX, targetData.rawY, targetData.rawZ);
-
-                // Calculate averaged positions
-                double[] averagedPosition = getAveragedPosition();
-                if (averagedPosition != null) {
-                    targetData.xPosition = averagedPosition[0];
-                    targetData.yPosition = averagedPosition[1];
-                    targetData.zPosition = averagedPosition[2];
+                targetData.rawX = frame.botPoseX;
+                targetData.rawY = frame.botPoseY;
+                targetData.rawZ = frame.botPoseZ;
+                targetData.rawYaw = frame.botPoseYaw;
+                targetData.yaw = frame.botPoseYaw;
+
+                // Filter the position, once per camera result
+                if (isNewFrame) {
+                    updatePositionHistory(pipeline, targetData.rawX, targetData.rawY, targetData.rawZ,
+                            captureTimeNanos);
+                } else {
+                    repeatedFrameCount++;
+                }
+
+                if (!positionFilter.isEmpty()) {
+                    targetData.xPosition = positionFilter.getX();
+                    targetData.yPosition = positionFilter.getY();
+                    targetData.zPosition = positionFilter.getZ();
                     targetData.isAcquired = true;
+
+                    if (latencyCompensation) {
+                        compensateLatency(targetData, pipeline, nowNanos);
+                    }
                 }
             }
         } else {
@@ -169,45 +273,82 @@ public class Vision {
     }
 
     /**
-     * Update position history with new values
+     * Feed a new position to the filter of the pipeline it came from
      */
-    private void updatePositionHistory(double x, double y, double z) {
-        xPositionHistory.add(x);
-        yPositionHistory.add(y);
-        zPositionHistory.add(z);
-
-        // Keep only the last AVERAGE_FRAME_COUNT entries
-        if (xPositionHistory.size() > AVERAGE_FRAME_COUNT) {
-            xPositionHistory.remove(0);
-            yPositionHistory.remove(0);
-            zPositionHistory.remove(0);
+    private void updatePositionHistory(Pipeline pipeline, double x, double y, double z, long captureTimeNanos) {
+        int slot = pipeline.ordinal();
+        PositionFilter positionFilter = positionFilters[slot];
+        if (!positionFilter.isEmpty() && captureTimeNanos - lastFilteredCaptureNanos[slot] > MAX_FILTER_GAP_NANOS) {
+            positionFilter.reset();
         }
+        if (positionFilter.isEmpty()) {
+            captureTimeBaseNanos[slot] = captureTimeNanos;
+        }
+        positionFilter.add(x, y, z, (captureTimeNanos - captureTimeBaseNanos[slot]) / 1e9);
+        lastFilteredCaptureNanos[slot] = captureTimeNanos;
 
         validFrameCount++;
     }
 
     /**
-     * Get averaged position from history
+     * Move the measured pose forward to nowNanos by the motion commanded since it was captured
+     * The filtered position describes the robot at the filter's own (lagging) time, the yaw at the
+     * capture time of the latest frame
      */
-    private double[] getAveragedPosition() {
-        if (xPositionHistory.isEmpty()) {
-            return null;
+    private void compensateLatency(TargetData targetData, Pipeline pipeline, long nowNanos) {
+        int slot = pipeline.ordinal();
+        long filterTimeNanos = captureTimeBaseNanos[slot] + Math.round(positionFilters[slot].getTime() * 1e9);
+        if (motionHistory.computeDelta(filterTimeNanos, nowNanos)) {
+            double heading = Math.toRadians(targetData.yaw);
+            double cos = Math.cos(heading);
+            double sin = Math.sin(heading);
+            double forward = motionHistory.getDeltaForward();
+            double left = motionHistory.getDeltaLeft();
+            targetData.xPosition += forward * cos - left * sin;
+            targetData.yPosition += forward * sin + left * cos;
+        }
+        if (motionHistory.computeDelta(targetData.captureTimeNanos, nowNanos)) {
+            targetData.yaw += Math.toDegrees(motionHistory.getDeltaHeading());
         }
+    }
+
+    /**
+     * Record the chassis motion commanded this loop, used to compensate for camera latency
+     * Velocities are meters/second forward and left, and radians/second counter-clockwise
+     * (see Robot.getCommandedForwardVelocity and friends)
+     */
+    public void recordCommandedMotion(long nowNanos, double forwardVelocity, double leftVelocity, double turnRate) {
+        motionHistory.record(nowNanos, forwardVelocity, leftVelocity, turnRate);
+    }
+
+    /**
+     * Enable or disable forward projection of measurements (on by default)
+     */
+    public void setLatencyCompensation(boolean enabled) {
+        latencyCompensation = enabled;
+    }
 
-        double avgX = xPositionHistory.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        double avgY = yPositionHistory.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        double avgZ = zPositionHistory.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+    /**
+     * Number of results ignored because they were older than MAX_FRAME_AGE_NANOS
+     */
+    public int getStaleFrameCount() {
+        return staleFrameCount;
+    }
 
-        return new double[]{avgX, avgY, avgZ};
+    /**
+     * Number of times the camera returned a result that had already been averaged
+     */
+    public int getRepeatedFrameCount() {
+        return repeatedFrameCount;
     }
 
     /**
-     * Clear position history
+     * Clear position history, resetting every pipeline's filter
      */
     public void clearPositionHistory() {
-        xPositionHistory.clear();
-        yPositionHistory.clear();
-        zPositionHistory.clear();
+        for (PositionFilter filter : positionFilters) {
+            filter.reset();
+        }
         validFrameCount = 0;
         consecutiveNoTargetFrames = 0;
     }
@@ -220,40 +361,70 @@ public class Vision {
     }
 
     /**
-     * Get the maximum number of frames used for averaging
+     * Get the number of frames without a target after which the filters are reset
      */
     public int getAverageFrameCount() {
         return AVERAGE_FRAME_COUNT;
     }
 
+    /**
+     * Smooth one pipeline's botposes with the given filter instead of the default, e.g. a MedianFilter or,
+     * for the old behavior, a MovingAverageFilter over 90 frames
+     */
+    public void setFilter(Pipeline pipeline, PositionFilter filter) {
+        positionFilters[pipeline.ordinal()] = filter;
+    }
+
+    public PositionFilter getFilter(Pipeline pipeline) {
+        return positionFilters[pipeline.ordinal()];
+    }
+
+    /**
+     * Default for every pipeline: Hampel outlier rejection in front of a 1-euro filter, quiet when the
+     * robot is still and quick to follow when it moves
+     */
+    private static PositionFilter[] createDefaultFilters() {
+        PositionFilter[] filters = new PositionFilter[Pipeline.values().length];
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = new HampelFilter(HAMPEL_WINDOW, HAMPEL_THRESHOLD_SIGMAS, HAMPEL_MIN_DEVIATION,
+                    new OneEuroFilter(ONE_EURO_MIN_CUTOFF_HZ, ONE_EURO_BETA, ONE_EURO_DERIVATIVE_CUTOFF_HZ));
+        }
+        return filters;
+    }
+
     /**
      * Display vision telemetry data
      */
-    public void displayTelemetry(Telemetry telemetry, TargetData targetData) {
-        if (targetData.result != null) {
-            telemetry.addData("Target X Offset (tx)", "%.2f", targetData.result.getTx());
-            telemetry.addData("Target Y Offset (ty)", "%.2f", targetData.result.getTy());
-            telemetry.addData("Target Area Offset (ta)", "%.2f", targetData.result.getTa());
+    public void displayTelemetry(TelemetrySink telemetry, TargetData targetData) {
+        if (targetData.hasResult) {
+            telemetry.addData("Target X Offset (tx)", "%.2f", targetData.tx);
+            telemetry.addData("Target Y Offset (ty)", "%.2f", targetData.ty);
+            telemetry.addData("Target Area Offset (ta)", "%.2f", targetData.ta);
 
             // Only display bot pose for April Tag pipeline
-            if (targetData.botPose != null && currentPipeline == Pipeline.APRIL_TAG) {
-                telemetry.addData("BotPose", targetData.botPose.toString());
-                telemetry.addData("Yaw", "%.2f", targetData.botPose.getOrientation().getYaw());
+            if (targetData.hasBotPose && targetData.pipeline == Pipeline.APRIL_TAG) {
+                telemetry.addData("BotPose", "X: %.3f, Y: %.3f, Z: %.3f",
+                        targetData.rawX, targetData.rawY, targetData.rawZ);
+                telemetry.addData("Yaw", "%.2f", targetData.yaw);
                 telemetry.addData("X (Raw)", "%.2f", targetData.rawX);
-                telemetry.addData("X (Averaged)", "%.2f", targetData.xPosition);
+                telemetry.addData("X (Filtered)", "%.2f", targetData.xPosition);
                 telemetry.addData("Y (Raw)", "%.2f", targetData.rawY);
-                telemetry.addData("Y (Averaged)", "%.2f", targetData.yPosition);
+                telemetry.addData("Y (Filtered)", "%.2f", targetData.yPosition);
                 telemetry.addData("Z (Raw)", "%.2f", targetData.rawZ);
-                telemetry.addData("Z (Averaged)", "%.2f", targetData.zPosition);
+                telemetry.addData("Z (Filtered)", "%.2f", targetData.zPosition);
             }
 
-            telemetry.addData("Valid Frames", validFrameCount);
+            telemetry.addData("Valid Frames", "%d (%d outliers)", validFrameCount,
+                    positionFilters[targetData.pipeline.ordinal()].getRejectedCount());
+            telemetry.addData("Frame Age", "%.0f ms (%d stale, %d repeated)",
+                    targetData.ageMillis, staleFrameCount, repeatedFrameCount);
         } else {
             telemetry.addData("DEBUG", "No valid target detected");
-            telemetry.addData("No Target Frames", targetData.consecutiveNoTargetFrames);
+            telemetry.addData("No Target Frames", "%d", targetData.consecutiveNoTargetFrames);
         }
 
-        telemetry.addData("Pipeline", "%s (%d)", currentPipeline.getDescription(), currentPipeline.getIndex());
+        telemetry.addData("Pipeline", pipelineScheduler.getTargetPipeline().label);
+        pipelineScheduler.displayTelemetry(telemetry);
     }
 
     /**
@@ -261,7 +432,7 @@ public class Vision {
      */
     public void handlePipelineSwitching(boolean incrementPressed, boolean decrementPressed) {
         Pipeline[] pipelines = Pipeline.values();
-        int currentIndex = currentPipeline.ordinal();
+        int currentIndex = getCurrentPipeline().ordinal();
 
         if (incrementPressed && currentIndex < pipelines.length - 1) {
             setPipeline(pipelines[currentIndex + 1]);
@@ -281,8 +452,44 @@ public class Vision {
         public double rawX = 0.0;
         public double rawY = 0.0;
         public double rawZ = 0.0;
-        public Pose3D botPose = null;
-        public LLResult result = null;
+        public double rawYaw = 0.0; // Bot pose yaw in degrees, as measured
+        public double yaw = 0.0; // Bot pose yaw in degrees
+        public double tx = 0.0;
+        public double ty = 0.0;
+        public double ta = 0.0;
+        public boolean hasResult = false;
+        public Pipeline pipeline = null; // Pipeline the result came from, null without a result
+        public boolean hasBotPose = false;
+        public long frameSequence = 0; // Sequence of the VisionFrame this was built from
+        public boolean isNewFrame = false; // False when the camera repeated the previous result
+        public long captureTimeNanos = 0;
+        public double ageMillis = 0.0; // How old the result was when processed
         public int consecutiveNoTargetFrames = 0;
+
+        /**
+         * Restore every field to its default so the instance can be reused
+         */
+        public void reset() {
+            isAcquired = false;
+            xPosition = 0.0;
+            yPosition = 0.0;
+            zPosition = 0.0;
+            rawX = 0.0;
+            rawY = 0.0;
+            rawZ = 0.0;
+            rawYaw = 0.0;
+            yaw = 0.0;
+            tx = 0.0;
+            ty = 0.0;
+            ta = 0.0;
+            hasResult = false;
+            pipeline = null;
+            hasBotPose = false;
+            frameSequence = 0;
+            isNewFrame = false;
+            captureTimeNanos = 0;
+            ageMillis = 0.0;
+            consecutiveNoTargetFrames = 0;
+        }
     }
 }
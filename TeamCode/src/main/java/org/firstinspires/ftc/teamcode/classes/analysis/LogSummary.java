@@ -0,0 +1,225 @@
+package org.firstinspires.ftc.teamcode.classes.analysis;
+
+import org.firstinspires.ftc.teamcode.classes.Angles;
+import org.firstinspires.ftc.teamcode.classes.recording.MatchRecord;
+import org.firstinspires.ftc.teamcode.classes.timing.LatencyHistogram;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Statistics over one match log, built one record at a time so a log never has to be held in memory
+ * Summaries of several logs can be merged into a season summary. Tracking error is the pose the robot drove
+ * on relative to the approach goal (the pose is tag-relative, so the goal is 0, 0, 0), counted on the cycles
+ * where the pose estimate was tracking.
+ */
+public class LogSummary {
+
+    public static final String CSV_HEADER = "log,logs,records,wrapped,duration_s,"
+            + "loop_mean_ms,loop_p50_ms,loop_p95_ms,loop_p99_ms,loop_max_ms,loop_jitter_ms,"
+            + "frame_cycles_pct,camera_fps,stale_mean_ms,stale_p50_ms,stale_p95_ms,stale_max_ms,"
+            + "tracking_pct,approaches,reached,time_to_target_s,"
+            + "x_mean_m,x_rms_m,x_max_m,x_final_m,y_mean_m,y_rms_m,y_max_m,y_final_m,"
+            + "yaw_mean_deg,yaw_rms_deg,yaw_max_deg,yaw_final_deg";
+
+    /**
+     * Absolute error on one axis
+     */
+    public static class AxisError {
+        public long count = 0;
+        public double maxAbs = 0.0;
+        private double sumAbs = 0.0;
+        private double sumSquares = 0.0;
+        private double last = 0.0;
+        // Error at the end of each log, summed over the merged logs
+        private double finalAbsSum = 0.0;
+        private long finals = 0;
+
+        void add(double error) {
+            double abs = Math.abs(error);
+            count++;
+            sumAbs += abs;
+            sumSquares += error * error;
+            maxAbs = Math.max(maxAbs, abs);
+            last = error;
+        }
+
+        void finish() {
+            if (count > 0) {
+                finalAbsSum += Math.abs(last);
+                finals++;
+            }
+        }
+
+        void merge(AxisError other) {
+            count += other.count;
+            sumAbs += other.sumAbs;
+            sumSquares += other.sumSquares;
+            maxAbs = Math.max(maxAbs, other.maxAbs);
+            finalAbsSum += other.finalAbsSum;
+            finals += other.finals;
+        }
+
+        public double getMeanAbs() { return count == 0 ? 0.0 : sumAbs / count; }
+        public double getRms() { return count == 0 ? 0.0 : Math.sqrt(sumSquares / count); }
+
+        /**
+         * Error on the last tracking cycle, averaged over the merged logs
+         */
+        public double getFinalAbs() { return finals == 0 ? 0.0 : finalAbsSum / finals; }
+    }
+
+    public final String name;
+
+    // Counts
+    public long logs = 0;
+    public long records = 0;
+    public long wrappedLogs = 0; // The ring had wrapped, so the start of the match is missing
+    public double durationSeconds = 0.0;
+
+    // Loop time and camera
+    public final LatencyHistogram loopTime = new LatencyHistogram("loop_time");
+    public final LatencyHistogram visionStaleness = new LatencyHistogram("vision_staleness");
+    public long frameCycles = 0; // Cycles with a camera result
+    public long newFrames = 0;
+
+    // Approach
+    public long trackingCycles = 0;
+    public long approaches = 0;
+    public long approachesReached = 0;
+    private double timeToTargetSum = 0.0;
+    public final AxisError xError = new AxisError();
+    public final AxisError yError = new AxisError();
+    public final AxisError yawError = new AxisError(); // degrees
+
+    // Per-log streaming state
+    private long firstCycleNanos = 0;
+    private long lastCycleNanos = 0;
+    private long lastFrameSequence = 0;
+    private long approachStartNanos = -1;
+    private boolean reached = false;
+
+    public LogSummary(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Start a log, noting whether the ring wrapped
+     */
+    public void begin(boolean wrapped) {
+        logs = 1;
+        wrappedLogs = wrapped ? 1 : 0;
+    }
+
+    /**
+     * Add the next record of the log
+     */
+    public void add(MatchRecord record) {
+        long now = record.cycleStartNanos;
+        if (records == 0) {
+            firstCycleNanos = now;
+        }
+        lastCycleNanos = now;
+        records++;
+
+        // The first cycle of a run has no previous cycle to time against
+        if (record.loopTimeMillis > 0.0f) {
+            loopTime.recordMicros(Math.round(record.loopTimeMillis * 1e3));
+        }
+
+        if (record.hasFlag(MatchRecord.FLAG_FRAME_VALID)) {
+            frameCycles++;
+            visionStaleness.recordNanos(now - record.frameCaptureNanos);
+            if (record.frameSequence != lastFrameSequence) {
+                lastFrameSequence = record.frameSequence;
+                newFrames++;
+            }
+        }
+
+        if (record.hasFlag(MatchRecord.FLAG_TRACKING)) {
+            trackingCycles++;
+            if (approachStartNanos < 0) {
+                approachStartNanos = now;
+                approaches = 1;
+            }
+            xError.add(record.poseX);
+            yError.add(record.poseY);
+            yawError.add(Angles.normalizeDegrees(Math.toDegrees(record.poseHeading)));
+        }
+        if (record.hasFlag(MatchRecord.FLAG_AT_TARGET) && !reached && approachStartNanos >= 0) {
+            reached = true;
+            approachesReached = 1;
+            timeToTargetSum = (now - approachStartNanos) / 1e9;
+        }
+    }
+
+    /**
+     * Finish the log once its last record has been added
+     */
+    public void finish() {
+        durationSeconds = (lastCycleNanos - firstCycleNanos) / 1e9;
+        xError.finish();
+        yError.finish();
+        yawError.finish();
+    }
+
+    /**
+     * Add a finished summary's statistics to this one
+     */
+    public void merge(LogSummary other) {
+        logs += other.logs;
+        records += other.records;
+        wrappedLogs += other.wrappedLogs;
+        durationSeconds += other.durationSeconds;
+        loopTime.add(other.loopTime);
+        visionStaleness.add(other.visionStaleness);
+        frameCycles += other.frameCycles;
+        newFrames += other.newFrames;
+        trackingCycles += other.trackingCycles;
+        approaches += other.approaches;
+        approachesReached += other.approachesReached;
+        timeToTargetSum += other.timeToTargetSum;
+        xError.merge(other.xError);
+        yError.merge(other.yError);
+        yawError.merge(other.yawError);
+    }
+
+    /**
+     * Time from the first tracking cycle to the first cycle at the target, averaged over the approaches that
+     * reached it; -1 if none did
+     */
+    public double getTimeToTargetSeconds() {
+        return approachesReached == 0 ? -1.0 : timeToTargetSum / approachesReached;
+    }
+
+    /**
+     * New camera results per second
+     */
+    public double getCameraFps() {
+        return durationSeconds <= 0.0 ? 0.0 : newFrames / durationSeconds;
+    }
+
+    /**
+     * Write this summary as a row under CSV_HEADER
+     */
+    public void writeCsvRow(PrintWriter writer) {
+        writer.println(String.format(Locale.US,
+                "%s,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.1f,%.1f,%.2f,%.3f,%.3f,%.3f,%.1f,%d,%d,%.3f,"
+                        + "%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.2f,%.2f,%.2f,%.2f",
+                name, logs, records, wrappedLogs, durationSeconds,
+                loopTime.getMeanMicros() / 1e3, loopTime.percentileMicros(50) / 1e3,
+                loopTime.percentileMicros(95) / 1e3, loopTime.percentileMicros(99) / 1e3,
+                loopTime.getMaxMicros() / 1e3, loopTime.getStdDevMicros() / 1e3,
+                percent(frameCycles, records), getCameraFps(),
+                visionStaleness.getMeanMicros() / 1e3, visionStaleness.percentileMicros(50) / 1e3,
+                visionStaleness.percentileMicros(95) / 1e3, visionStaleness.getMaxMicros() / 1e3,
+                percent(trackingCycles, records), approaches, approachesReached, getTimeToTargetSeconds(),
+                xError.getMeanAbs(), xError.getRms(), xError.maxAbs, xError.getFinalAbs(),
+                yError.getMeanAbs(), yError.getRms(), yError.maxAbs, yError.getFinalAbs(),
+                yawError.getMeanAbs(), yawError.getRms(), yawError.maxAbs, yawError.getFinalAbs()));
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0.0 : 100.0 * part / whole;
+    }
+}
@@ -0,0 +1,179 @@
+package org.firstinspires.ftc.teamcode.classes.analysis;
+
+import org.firstinspires.ftc.teamcode.classes.recording.MatchLogReader;
+import org.firstinspires.ftc.teamcode.classes.recording.MatchRecord;
+import org.firstinspires.ftc.teamcode.classes.recording.MatchRecorder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Command-line summary of match logs: loop time distribution, vision staleness, time to target and
+ * per-axis tracking error
+ * Each log is streamed through its memory mapping into a LogSummary, and the logs are analyzed in parallel,
+ * so a season of logs takes seconds. Writes summary.csv (one row per log plus an "all" row) and
+ * histograms.csv (the combined loop time and staleness histograms) to the output directory.
+ *
+ * Usage: MatchLogAnalyzer [--out directory] log|directory...
+ * Directories are searched recursively for recordings.
+ */
+public class MatchLogAnalyzer {
+
+    public static final String DEFAULT_OUTPUT_DIRECTORY = "LogAnalysis";
+
+    /**
+     * Summarize one log, returning null if it could not be read
+     */
+    public static LogSummary analyze(File recordingFile) {
+        LogSummary summary = new LogSummary(recordingFile.getName());
+        MatchRecord record = new MatchRecord();
+        try {
+            MatchLogReader reader = new MatchLogReader(recordingFile);
+            try {
+                summary.begin(reader.getWrittenCount() > reader.getRecordCount());
+                while (reader.next(record)) {
+                    summary.add(record);
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            System.err.println(recordingFile.getName() + ": " + e.getMessage());
+            return null;
+        }
+        summary.finish();
+        return summary;
+    }
+
+    /**
+     * Summarize the logs in parallel, one per thread, keeping their order
+     */
+    public static List<LogSummary> analyzeAll(List<File> recordings) {
+        List<LogSummary> summaries = recordings.parallelStream().map(new Function<File, LogSummary>() {
+            @Override
+            public LogSummary apply(File recording) {
+                return analyze(recording);
+            }
+        }).collect(Collectors.<LogSummary>toList());
+
+        List<LogSummary> readable = new ArrayList<>();
+        for (LogSummary summary : summaries) {
+            if (summary != null) {
+                readable.add(summary);
+            }
+        }
+        return readable;
+    }
+
+    /**
+     * Write summary.csv and histograms.csv into directory
+     */
+    public static void writeReport(File directory, List<LogSummary> summaries, LogSummary total)
+            throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        File summaryFile = new File(directory, "summary.csv");
+        PrintWriter writer = new PrintWriter(new FileWriter(summaryFile));
+        try {
+            writer.println(LogSummary.CSV_HEADER);
+            for (LogSummary summary : summaries) {
+                summary.writeCsvRow(writer);
+            }
+            total.writeCsvRow(writer);
+        } finally {
+            writer.close();
+        }
+        if (writer.checkError()) {
+            throw new IOException("Error writing " + summaryFile);
+        }
+
+        File histogramFile = new File(directory, "histograms.csv");
+        writer = new PrintWriter(new FileWriter(histogramFile));
+        try {
+            writer.println("histogram,bucket_low_us,bucket_high_us,count");
+            total.loopTime.writeBuckets(writer);
+            total.visionStaleness.writeBuckets(writer);
+        } finally {
+            writer.close();
+        }
+        if (writer.checkError()) {
+            throw new IOException("Error writing " + histogramFile);
+        }
+    }
+
+    /**
+     * Recordings named on the command line, searching directories recursively
+     */
+    private static void collectRecordings(File file, List<File> recordings) {
+        if (!file.isDirectory()) {
+            recordings.add(file);
+            return;
+        }
+        File[] children = file.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory() || child.getName().endsWith(MatchRecorder.EXTENSION)) {
+                collectRecordings(child, recordings);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        File outputDirectory = new File(DEFAULT_OUTPUT_DIRECTORY);
+        List<File> recordings = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--out")) {
+                outputDirectory = new File(args[++i]);
+            } else {
+                collectRecordings(new File(args[i]), recordings);
+            }
+        }
+        if (recordings.isEmpty()) {
+            System.err.println("Usage: MatchLogAnalyzer [--out directory] log|directory...");
+            System.exit(2);
+        }
+
+        long startNanos = System.nanoTime();
+        List<LogSummary> summaries = analyzeAll(recordings);
+        LogSummary total = new LogSummary("all");
+        for (LogSummary summary : summaries) {
+            total.merge(summary);
+        }
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        writeReport(outputDirectory, summaries, total);
+        System.out.println(String.format(Locale.US,
+                "%d of %d logs, %d cycles (%.0f s of matches) analyzed in %.2f s",
+                summaries.size(), recordings.size(), total.records, total.durationSeconds, elapsedSeconds));
+        System.out.println(String.format(Locale.US,
+                "Loop time: mean %.2f ms, p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, max %.2f ms",
+                total.loopTime.getMeanMicros() / 1e3, total.loopTime.percentileMicros(50) / 1e3,
+                total.loopTime.percentileMicros(95) / 1e3, total.loopTime.percentileMicros(99) / 1e3,
+                total.loopTime.getMaxMicros() / 1e3));
+        System.out.println(String.format(Locale.US,
+                "Vision staleness: mean %.1f ms, p95 %.1f ms, max %.1f ms, camera %.1f fps",
+                total.visionStaleness.getMeanMicros() / 1e3, total.visionStaleness.percentileMicros(95) / 1e3,
+                total.visionStaleness.getMaxMicros() / 1e3, total.getCameraFps()));
+        if (total.approaches > 0) {
+            System.out.println(String.format(Locale.US,
+                    "Approaches: %d of %d reached the target, mean %.2f s; rms error x %.3f m, y %.3f m, yaw %.1f deg",
+                    total.approachesReached, total.approaches, total.getTimeToTargetSeconds(),
+                    total.xError.getRms(), total.yError.getRms(), total.yawError.getRms()));
+        }
+        System.out.println("Wrote " + new File(outputDirectory, "summary.csv") + " and "
+                + new File(outputDirectory, "histograms.csv"));
+    }
+}
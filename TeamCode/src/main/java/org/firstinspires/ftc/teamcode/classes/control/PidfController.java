@@ -0,0 +1,161 @@
+package org.firstinspires.ftc.teamcode.classes.control;
+
+/**
+ * Single-axis PID controller with static-friction and velocity feedforward
+ * The integral only accumulates while the output is not saturated (and is clamped on top of that),
+ * the derivative is taken on the error through a first order low-pass filter, and inside the
+ * tolerance the output is zero so the robot actually comes to rest.
+ */
+public class PidfController {
+
+    // Gaps longer than this (e.g. the first update or a paused loop) restart the derivative and integral
+    private static final double MAX_DT = 0.5; // seconds
+
+    /**
+     * Immutable controller gains; the with* methods return a modified copy
+     */
+    public static final class Gains {
+        public final double kP;
+        public final double kI;
+        public final double kD;
+        public final double kS; // Power added in the direction of travel to overcome static friction
+        public final double kV; // Power per unit of target velocity
+        public final double tolerance; // Output is zero while |error| is within this
+        public final double maxOutput;
+        public final double minOutput; // Outputs smaller than this are raised to it (0 disables)
+        public final double integralLimit; // Largest power the integral term may contribute
+        public final double derivativeFilterTime; // Low-pass time constant for the derivative, seconds
+
+        private Gains(double kP, double kI, double kD, double kS, double kV, double tolerance,
+                      double maxOutput, double minOutput, double integralLimit, double derivativeFilterTime) {
+            this.kP = kP;
+            this.kI = kI;
+            this.kD = kD;
+            this.kS = kS;
+            this.kV = kV;
+            this.tolerance = tolerance;
+            this.maxOutput = maxOutput;
+            this.minOutput = minOutput;
+            this.integralLimit = integralLimit;
+            this.derivativeFilterTime = derivativeFilterTime;
+        }
+
+        /**
+         * PID gains with no feedforward, no tolerance and an output limit of 1
+         */
+        public static Gains pid(double kP, double kI, double kD) {
+            return new Gains(kP, kI, kD, 0.0, 0.0, 0.0, 1.0, 0.0, 1.0, 0.0);
+        }
+
+        public Gains withFeedforward(double kS, double kV) {
+            return new Gains(kP, kI, kD, kS, kV, tolerance, maxOutput, minOutput, integralLimit, derivativeFilterTime);
+        }
+
+        public Gains withTolerance(double tolerance) {
+            return new Gains(kP, kI, kD, kS, kV, tolerance, maxOutput, minOutput, integralLimit, derivativeFilterTime);
+        }
+
+        public Gains withOutputLimits(double minOutput, double maxOutput) {
+            return new Gains(kP, kI, kD, kS, kV, tolerance, maxOutput, minOutput, integralLimit, derivativeFilterTime);
+        }
+
+        public Gains withIntegralLimit(double integralLimit) {
+            return new Gains(kP, kI, kD, kS, kV, tolerance, maxOutput, minOutput, integralLimit, derivativeFilterTime);
+        }
+
+        public Gains withDerivativeFilter(double derivativeFilterTime) {
+            return new Gains(kP, kI, kD, kS, kV, tolerance, maxOutput, minOutput, integralLimit, derivativeFilterTime);
+        }
+    }
+
+    private Gains gains;
+
+    private boolean hasPrevious = false;
+    private double previousError = 0.0;
+    private double integral = 0.0;
+    private double filteredDerivative = 0.0;
+    private double lastOutput = 0.0;
+
+    public PidfController(Gains gains) {
+        this.gains = gains;
+    }
+
+    /**
+     * Compute the output for the current error (setpoint minus measurement)
+     * targetVelocity is the rate the setpoint is moving at, for the velocity feedforward
+     */
+    public double update(double error, double targetVelocity, double dtSeconds) {
+        boolean continuous = hasPrevious && dtSeconds > 0.0 && dtSeconds <= MAX_DT;
+        if (!continuous) {
+            integral = 0.0;
+            filteredDerivative = 0.0;
+        }
+
+        double derivative = 0.0;
+        if (continuous) {
+            double rawDerivative = (error - previousError) / dtSeconds;
+            double alpha = gains.derivativeFilterTime <= 0.0
+                    ? 1.0 : dtSeconds / (gains.derivativeFilterTime + dtSeconds);
+            filteredDerivative += alpha * (rawDerivative - filteredDerivative);
+            derivative = filteredDerivative;
+        }
+        previousError = error;
+        hasPrevious = true;
+
+        if (Math.abs(error) <= gains.tolerance && targetVelocity == 0.0) {
+            integral = 0.0;
+            lastOutput = 0.0;
+            return lastOutput;
+        }
+
+        double unsaturated = gains.kP * error + gains.kI * integral + gains.kD * derivative
+                + gains.kV * targetVelocity + gains.kS * Math.signum(error);
+
+        // Conditional integration: stop winding up while saturated in the direction of the error
+        if (continuous && gains.kI != 0.0) {
+            boolean saturated = Math.abs(unsaturated) >= gains.maxOutput;
+            if (!saturated || Math.signum(unsaturated) != Math.signum(error)) {
+                integral += error * dtSeconds;
+                double integralBound = gains.integralLimit / Math.abs(gains.kI);
+                integral = Math.max(-integralBound, Math.min(integralBound, integral));
+            }
+        }
+
+        double output = Math.max(-gains.maxOutput, Math.min(gains.maxOutput, unsaturated));
+        if (output != 0.0 && Math.abs(output) < gains.minOutput) {
+            output = Math.signum(output) * gains.minOutput;
+        }
+        lastOutput = output;
+        return output;
+    }
+
+    /**
+     * Compute the output for a stationary setpoint
+     */
+    public double update(double error, double dtSeconds) {
+        return update(error, 0.0, dtSeconds);
+    }
+
+    /**
+     * Forget the integral and derivative history
+     */
+    public void reset() {
+        hasPrevious = false;
+        previousError = 0.0;
+        integral = 0.0;
+        filteredDerivative = 0.0;
+        lastOutput = 0.0;
+    }
+
+    /**
+     * Replace the gains, keeping the controller state
+     */
+    public void setGains(Gains gains) {
+        this.gains = gains;
+    }
+
+    public Gains getGains() { return gains; }
+    public double getIntegral() { return integral; }
+    public double getDerivative() { return filteredDerivative; }
+    public double getLastOutput() { return lastOutput; }
+}
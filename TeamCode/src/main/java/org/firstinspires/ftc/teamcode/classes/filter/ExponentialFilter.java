@@ -0,0 +1,57 @@
+package org.firstinspires.ftc.teamcode.classes.filter;
+
+/**
+ * First-order low-pass filter with a fixed time constant
+ * The smoothing factor comes from the time between samples, so a dropped frame doesn't change the
+ * response. O(1) per sample with no history at all.
+ */
+public class ExponentialFilter implements PositionFilter {
+
+    private final double timeConstant; // seconds
+
+    private boolean empty = true;
+    private double x = 0.0;
+    private double y = 0.0;
+    private double z = 0.0;
+    private double time = 0.0;
+    private double lastSampleTime = 0.0;
+
+    public ExponentialFilter(double timeConstantSeconds) {
+        if (timeConstantSeconds <= 0.0) {
+            throw new IllegalArgumentException("time constant must be positive, got " + timeConstantSeconds);
+        }
+        this.timeConstant = timeConstantSeconds;
+    }
+
+    @Override
+    public void add(double x, double y, double z, double timeSeconds) {
+        if (empty) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            time = timeSeconds;
+            lastSampleTime = timeSeconds;
+            empty = false;
+            return;
+        }
+        double dt = Math.max(0.0, timeSeconds - lastSampleTime);
+        lastSampleTime = timeSeconds;
+        double alpha = 1.0 - Math.exp(-dt / timeConstant);
+        this.x += alpha * (x - this.x);
+        this.y += alpha * (y - this.y);
+        this.z += alpha * (z - this.z);
+        time += alpha * (timeSeconds - time);
+    }
+
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public double getZ() { return z; }
+    public double getTime() { return time; }
+    public boolean isEmpty() { return empty; }
+    public int getRejectedCount() { return 0; }
+
+    @Override
+    public void reset() {
+        empty = true;
+    }
+}
@@ -0,0 +1,124 @@
+package org.firstinspires.ftc.teamcode.classes.filter;
+
+/**
+ * Hampel outlier rejection: a sample further than k scaled median absolute deviations from the window
+ * median on any axis is replaced by the median, then passed on to a smoothing filter
+ * The MAD is tracked as the running median of each sample's deviation from the median it arrived to,
+ * which is close to the exact MAD of the window but O(log n) per sample instead of a full sort.
+ * A floor on the deviation keeps a very steady signal from turning ordinary noise into outliers.
+ */
+public class HampelFilter implements PositionFilter {
+
+    // Scales a MAD to a standard deviation for normally distributed noise
+    private static final double MAD_TO_STD = 1.4826;
+    // Too few samples for a meaningful median; pass them through
+    private static final int MIN_SAMPLES = 3;
+
+    private final double thresholdSigmas;
+    private final double minDeviation; // meters
+    private final PositionFilter smoother; // null to output the corrected samples directly
+
+    private final SlidingMedian xs;
+    private final SlidingMedian ys;
+    private final SlidingMedian zs;
+    private final SlidingMedian xDeviations;
+    private final SlidingMedian yDeviations;
+    private final SlidingMedian zDeviations;
+
+    private double x = 0.0;
+    private double y = 0.0;
+    private double z = 0.0;
+    private double time = 0.0;
+    private int rejectedCount = 0;
+
+    public HampelFilter(int windowSize, double thresholdSigmas, double minDeviation) {
+        this(windowSize, thresholdSigmas, minDeviation, null);
+    }
+
+    public HampelFilter(int windowSize, double thresholdSigmas, double minDeviation, PositionFilter smoother) {
+        this.thresholdSigmas = thresholdSigmas;
+        this.minDeviation = minDeviation;
+        this.smoother = smoother;
+        xs = new SlidingMedian(windowSize);
+        ys = new SlidingMedian(windowSize);
+        zs = new SlidingMedian(windowSize);
+        xDeviations = new SlidingMedian(windowSize);
+        yDeviations = new SlidingMedian(windowSize);
+        zDeviations = new SlidingMedian(windowSize);
+    }
+
+    @Override
+    public void add(double x, double y, double z, double timeSeconds) {
+        boolean enoughSamples = xs.size() >= MIN_SAMPLES;
+        double medianX = xs.isEmpty() ? x : xs.median();
+        double medianY = ys.isEmpty() ? y : ys.median();
+        double medianZ = zs.isEmpty() ? z : zs.median();
+        boolean outlier = enoughSamples && (isOutlier(x, medianX, xDeviations)
+                || isOutlier(y, medianY, yDeviations) || isOutlier(z, medianZ, zDeviations));
+
+        // The raw sample still enters the window, so a real jump becomes the median after half a window
+        xs.add(x);
+        ys.add(y);
+        zs.add(z);
+        xDeviations.add(Math.abs(x - medianX));
+        yDeviations.add(Math.abs(y - medianY));
+        zDeviations.add(Math.abs(z - medianZ));
+
+        if (outlier) {
+            rejectedCount++;
+            x = medianX;
+            y = medianY;
+            z = medianZ;
+        }
+        if (smoother != null) {
+            smoother.add(x, y, z, timeSeconds);
+        } else {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            time = timeSeconds;
+        }
+    }
+
+    private boolean isOutlier(double value, double median, SlidingMedian deviations) {
+        double scale = Math.max(MAD_TO_STD * deviations.median(), minDeviation);
+        return Math.abs(value - median) > thresholdSigmas * scale;
+    }
+
+    @Override
+    public double getX() {
+        return smoother != null ? smoother.getX() : x;
+    }
+
+    @Override
+    public double getY() {
+        return smoother != null ? smoother.getY() : y;
+    }
+
+    @Override
+    public double getZ() {
+        return smoother != null ? smoother.getZ() : z;
+    }
+
+    @Override
+    public double getTime() {
+        return smoother != null ? smoother.getTime() : time;
+    }
+
+    public boolean isEmpty() { return xs.isEmpty(); }
+    public int getRejectedCount() { return rejectedCount; }
+
+    @Override
+    public void reset() {
+        xs.clear();
+        ys.clear();
+        zs.clear();
+        xDeviations.clear();
+        yDeviations.clear();
+        zDeviations.clear();
+        rejectedCount = 0;
+        if (smoother != null) {
+            smoother.reset();
+        }
+    }
+}
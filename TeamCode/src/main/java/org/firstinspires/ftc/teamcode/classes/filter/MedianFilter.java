@@ -0,0 +1,56 @@
+package org.firstinspires.ftc.teamcode.classes.filter;
+
+import org.firstinspires.ftc.teamcode.classes.RollingWindow;
+
+/**
+ * Per-axis median of the last n samples
+ * Ignores up to half the window being outliers and follows a step after n / 2 frames, at the cost of
+ * a little more noise than the mean. O(log n) per sample through SlidingMedian.
+ */
+public class MedianFilter implements PositionFilter {
+
+    private final SlidingMedian xs;
+    private final SlidingMedian ys;
+    private final SlidingMedian zs;
+    // Capture times are increasing, so their median is simply the middle of the window
+    private final RollingWindow times;
+
+    public MedianFilter(int windowSize) {
+        xs = new SlidingMedian(windowSize);
+        ys = new SlidingMedian(windowSize);
+        zs = new SlidingMedian(windowSize);
+        times = new RollingWindow(windowSize);
+    }
+
+    @Override
+    public void add(double x, double y, double z, double timeSeconds) {
+        xs.add(x);
+        ys.add(y);
+        zs.add(z);
+        times.add(timeSeconds);
+    }
+
+    @Override
+    public double getTime() {
+        int size = times.size();
+        if (size == 0) {
+            return 0.0;
+        }
+        int middle = size / 2;
+        return size % 2 == 1 ? times.get(middle) : (times.get(middle - 1) + times.get(middle)) / 2.0;
+    }
+
+    public double getX() { return xs.median(); }
+    public double getY() { return ys.median(); }
+    public double getZ() { return zs.median(); }
+    public boolean isEmpty() { return xs.isEmpty(); }
+    public int getRejectedCount() { return 0; }
+
+    @Override
+    public void reset() {
+        xs.clear();
+        ys.clear();
+        zs.clear();
+        times.clear();
+    }
+}
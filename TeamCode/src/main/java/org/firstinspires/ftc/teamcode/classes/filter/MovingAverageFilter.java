@@ -0,0 +1,46 @@
+package org.firstinspires.ftc.teamcode.classes.filter;
+
+import org.firstinspires.ftc.teamcode.classes.RollingWindow;
+
+/**
+ * Mean of the last n samples, Vision's original smoothing
+ * Very quiet once the window is full, but one bad sample shifts the output for n frames and a real move
+ * takes n frames to show up completely. O(1) per sample through RollingWindow's running sums.
+ */
+public class MovingAverageFilter implements PositionFilter {
+
+    private final RollingWindow xs;
+    private final RollingWindow ys;
+    private final RollingWindow zs;
+    private final RollingWindow times;
+
+    public MovingAverageFilter(int windowSize) {
+        xs = new RollingWindow(windowSize);
+        ys = new RollingWindow(windowSize);
+        zs = new RollingWindow(windowSize);
+        times = new RollingWindow(windowSize);
+    }
+
+    @Override
+    public void add(double x, double y, double z, double timeSeconds) {
+        xs.add(x);
+        ys.add(y);
+        zs.add(z);
+        times.add(timeSeconds);
+    }
+
+    public double getX() { return xs.mean(); }
+    public double getY() { return ys.mean(); }
+    public double getZ() { return zs.mean(); }
+    public double getTime() { return times.mean(); }
+    public boolean isEmpty() { return xs.isEmpty(); }
+    public int getRejectedCount() { return 0; }
+
+    @Override
+    public void reset() {
+        xs.clear();
+        ys.clear();
+        zs.clear();
+        times.clear();
+    }
+}
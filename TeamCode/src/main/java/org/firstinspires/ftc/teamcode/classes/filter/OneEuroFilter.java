@@ -0,0 +1,88 @@
+package org.firstinspires.ftc.teamcode.classes.filter;
+
+/**
+ * 1€ filter (Casiez et al.): a low-pass filter whose cutoff rises with the speed of the signal
+ * Standing still the cutoff sits at minCutoff and the position is heavily smoothed; moving at v m/s it
+ * rises to minCutoff + beta * v, so the lag shrinks exactly when it would matter. The speed is the
+ * magnitude of the smoothed velocity across all three axes, so the axes share one cutoff.
+ * O(1) per sample with no history.
+ */
+public class OneEuroFilter implements PositionFilter {
+
+    private final double minCutoff; // Hz
+    private final double beta; // Hz per m/s
+    private final double derivativeCutoff; // Hz
+
+    private boolean empty = true;
+    private double x = 0.0;
+    private double y = 0.0;
+    private double z = 0.0;
+    private double time = 0.0;
+    private double lastSampleTime = 0.0;
+    // Smoothed velocity, m/s
+    private double velocityX = 0.0;
+    private double velocityY = 0.0;
+    private double velocityZ = 0.0;
+
+    public OneEuroFilter(double minCutoffHz, double beta, double derivativeCutoffHz) {
+        if (minCutoffHz <= 0.0 || derivativeCutoffHz <= 0.0 || beta < 0.0) {
+            throw new IllegalArgumentException("cutoffs must be positive and beta non-negative");
+        }
+        this.minCutoff = minCutoffHz;
+        this.beta = beta;
+        this.derivativeCutoff = derivativeCutoffHz;
+    }
+
+    @Override
+    public void add(double x, double y, double z, double timeSeconds) {
+        if (empty) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            time = timeSeconds;
+            lastSampleTime = timeSeconds;
+            velocityX = 0.0;
+            velocityY = 0.0;
+            velocityZ = 0.0;
+            empty = false;
+            return;
+        }
+        double dt = timeSeconds - lastSampleTime;
+        if (dt <= 0.0) {
+            return;
+        }
+        lastSampleTime = timeSeconds;
+
+        double derivativeAlpha = alpha(derivativeCutoff, dt);
+        velocityX += derivativeAlpha * ((x - this.x) / dt - velocityX);
+        velocityY += derivativeAlpha * ((y - this.y) / dt - velocityY);
+        velocityZ += derivativeAlpha * ((z - this.z) / dt - velocityZ);
+        double speed = Math.sqrt(velocityX * velocityX + velocityY * velocityY + velocityZ * velocityZ);
+
+        double alpha = alpha(minCutoff + beta * speed, dt);
+        this.x += alpha * (x - this.x);
+        this.y += alpha * (y - this.y);
+        this.z += alpha * (z - this.z);
+        time += alpha * (timeSeconds - time);
+    }
+
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public double getZ() { return z; }
+    public double getTime() { return time; }
+    public boolean isEmpty() { return empty; }
+    public int getRejectedCount() { return 0; }
+
+    @Override
+    public void reset() {
+        empty = true;
+    }
+
+    /**
+     * Smoothing factor of a first-order low-pass at cutoffHz sampled every dt seconds
+     */
+    private static double alpha(double cutoffHz, double dt) {
+        double tau = 1.0 / (2.0 * Math.PI * cutoffHz);
+        return 1.0 / (1.0 + tau / dt);
+    }
+}
@@ -0,0 +1,40 @@
+package org.firstinspires.ftc.teamcode.classes.filter;
+
+/**
+ * Smooths a stream of measured positions, e.g. Limelight botposes, one sample per camera frame
+ * Implementations keep their history in primitive buffers and must not allocate in add.
+ */
+public interface PositionFilter {
+
+    /**
+     * Add a position captured at timeSeconds (any clock, increasing from sample to sample)
+     */
+    void add(double x, double y, double z, double timeSeconds);
+
+    double getX();
+
+    double getY();
+
+    double getZ();
+
+    /**
+     * When the filtered position was true, in the clock passed to add
+     * A smoothing filter lags the newest sample; this is how far, so the lag can be compensated.
+     */
+    double getTime();
+
+    /**
+     * True until the first sample after construction or reset
+     */
+    boolean isEmpty();
+
+    /**
+     * Samples treated as outliers since the last reset
+     */
+    int getRejectedCount();
+
+    /**
+     * Forget every sample, e.g. when the target has been lost for a while
+     */
+    void reset();
+}
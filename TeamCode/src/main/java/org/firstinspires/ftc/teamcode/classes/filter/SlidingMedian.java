@@ -0,0 +1,185 @@
+package org.firstinspires.ftc.teamcode.classes.filter;
+
+/**
+ * Median of the last n samples, updated in O(log n) per sample
+ * A max-heap holds the lower half of the window and a min-heap the upper half. Every sample remembers
+ * where it sits in its heap, so the one leaving the window is removed directly rather than searched for.
+ * The heaps store ring buffer slots in int arrays; nothing allocates after construction.
+ */
+public class SlidingMedian {
+
+    private final double[] values; // Ring buffer of samples, by slot
+    private final int[] lowHeap; // Slots of the lower half, largest value on top
+    private final int[] highHeap; // Slots of the upper half, smallest value on top
+    private final int[] heapPosition; // Where each slot sits in its heap
+    private final boolean[] inLowHeap;
+
+    private int lowSize = 0;
+    private int highSize = 0;
+    private int head = 0; // Slot the next sample will be written to
+
+    public SlidingMedian(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive, got " + capacity);
+        }
+        values = new double[capacity];
+        lowHeap = new int[capacity];
+        highHeap = new int[capacity];
+        heapPosition = new int[capacity];
+        inLowHeap = new boolean[capacity];
+    }
+
+    /**
+     * Add a sample, evicting the oldest one once the window is full
+     */
+    public void add(double value) {
+        if (size() == values.length) {
+            remove(head);
+        }
+        values[head] = value;
+        if (lowSize == 0 || value <= values[lowHeap[0]]) {
+            inLowHeap[head] = true;
+            heapPosition[head] = lowSize;
+            lowHeap[lowSize++] = head;
+            siftUp(lowHeap, true, lowSize - 1);
+        } else {
+            inLowHeap[head] = false;
+            heapPosition[head] = highSize;
+            highHeap[highSize++] = head;
+            siftUp(highHeap, false, highSize - 1);
+        }
+        rebalance();
+
+        head++;
+        if (head == values.length) {
+            head = 0;
+        }
+    }
+
+    /**
+     * Median of the samples in the window, the mean of the middle two for an even count, or 0 if empty
+     */
+    public double median() {
+        if (lowSize == 0) {
+            return 0.0;
+        }
+        if (lowSize > highSize) {
+            return values[lowHeap[0]];
+        }
+        return (values[lowHeap[0]] + values[highHeap[0]]) / 2.0;
+    }
+
+    public int size() {
+        return lowSize + highSize;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return lowSize == 0;
+    }
+
+    /**
+     * Drop all samples without releasing the backing arrays
+     */
+    public void clear() {
+        lowSize = 0;
+        highSize = 0;
+        head = 0;
+    }
+
+    private void remove(int slot) {
+        int position = heapPosition[slot];
+        if (inLowHeap[slot]) {
+            lowSize--;
+            if (position < lowSize) {
+                int moved = lowHeap[lowSize];
+                move(lowHeap, moved, position);
+                siftUp(lowHeap, true, position);
+                siftDown(lowHeap, true, lowSize, heapPosition[moved]);
+            }
+        } else {
+            highSize--;
+            if (position < highSize) {
+                int moved = highHeap[highSize];
+                move(highHeap, moved, position);
+                siftUp(highHeap, false, position);
+                siftDown(highHeap, false, highSize, heapPosition[moved]);
+            }
+        }
+        rebalance();
+    }
+
+    /**
+     * Keep the lower half the same size as the upper half, or one larger
+     */
+    private void rebalance() {
+        if (lowSize > highSize + 1) {
+            int slot = lowHeap[0];
+            lowSize--;
+            if (lowSize > 0) {
+                move(lowHeap, lowHeap[lowSize], 0);
+                siftDown(lowHeap, true, lowSize, 0);
+            }
+            inLowHeap[slot] = false;
+            move(highHeap, slot, highSize++);
+            siftUp(highHeap, false, highSize - 1);
+        } else if (highSize > lowSize) {
+            int slot = highHeap[0];
+            highSize--;
+            if (highSize > 0) {
+                move(highHeap, highHeap[highSize], 0);
+                siftDown(highHeap, false, highSize, 0);
+            }
+            inLowHeap[slot] = true;
+            move(lowHeap, slot, lowSize++);
+            siftUp(lowHeap, true, lowSize - 1);
+        }
+    }
+
+    /**
+     * True if slot a belongs above slot b: the larger value in the low heap, the smaller in the high heap
+     */
+    private boolean above(int a, int b, boolean low) {
+        return low ? values[a] > values[b] : values[a] < values[b];
+    }
+
+    private void siftUp(int[] heap, boolean low, int position) {
+        int slot = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!above(slot, heap[parent], low)) {
+                break;
+            }
+            move(heap, heap[parent], position);
+            position = parent;
+        }
+        move(heap, slot, position);
+    }
+
+    private void siftDown(int[] heap, boolean low, int size, int position) {
+        int slot = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && above(heap[child + 1], heap[child], low)) {
+                child++;
+            }
+            if (!above(heap[child], slot, low)) {
+                break;
+            }
+            move(heap, heap[child], position);
+            position = child;
+        }
+        move(heap, slot, position);
+    }
+
+    private void move(int[] heap, int slot, int position) {
+        heap[position] = slot;
+        heapPosition[slot] = position;
+    }
+}
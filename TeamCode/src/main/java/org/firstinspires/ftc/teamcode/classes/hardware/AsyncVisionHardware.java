@@ -0,0 +1,175 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Polls another VisionHardware on a background thread so the OpMode loop never waits on camera I/O
+ * Results are handed over through a TripleBuffer and stamped with an increasing sequence number,
+ * so readers can tell a new frame from one they have already seen.
+ */
+public class AsyncVisionHardware implements VisionHardware {
+
+    // The Limelight 3A produces results at up to ~90 Hz
+    public static final double DEFAULT_POLL_RATE_HZ = 100.0;
+    // How long stop() waits for a poll in progress to finish before leaving the camera to the poll thread
+    private static final long STOP_TIMEOUT_MILLIS = 500;
+
+    /**
+     * Latest poll outcome; valid is false when the camera had no usable result
+     */
+    private static class Slot {
+        final VisionFrame frame = new VisionFrame();
+        boolean valid = false;
+    }
+
+    private final VisionHardware delegate;
+    private final long pollPeriodNanos;
+    private final TripleBuffer<Slot> slots = new TripleBuffer<>(new Slot(), new Slot(), new Slot());
+
+    // The thread that should be polling, null when stopped; an older thread exits once it sees it was replaced
+    private volatile Thread pollThread = null;
+    // Set when stop() timed out waiting for a poll; whoever clears it stops the camera
+    private final AtomicBoolean delegateStopPending = new AtomicBoolean(false);
+    private Thread stoppingThread = null; // A poll thread stop() gave up waiting for
+
+    // Written by the poll thread only
+    private long nextSequence = 1; // Used when the delegate does not number its frames
+    private volatile long pollCount = 0;
+
+    public AsyncVisionHardware(VisionHardware delegate) {
+        this(delegate, DEFAULT_POLL_RATE_HZ);
+    }
+
+    public AsyncVisionHardware(VisionHardware delegate, double pollRateHz) {
+        this.delegate = delegate;
+        this.pollPeriodNanos = (long) (1e9 / pollRateHz);
+    }
+
+    /**
+     * Start the camera and the background poll thread
+     */
+    @Override
+    public synchronized void start() {
+        if (pollThread != null) {
+            delegate.start();
+            return;
+        }
+        // A poll thread left over from a timed-out stop must not stop the camera again, nor poll alongside
+        // the new one
+        delegateStopPending.set(false);
+        if (stoppingThread != null) {
+            try {
+                stoppingThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            stoppingThread = null;
+        }
+        delegate.start();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                pollLoop();
+            }
+        }, "AsyncVisionPoller");
+        thread.setDaemon(true);
+        pollThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Stop the poll thread, waiting for it to exit, then stop the camera
+     * If a poll is still inside the camera's read after STOP_TIMEOUT_MILLIS, the poll thread stops the camera
+     * itself once that read returns, so the camera is never stopped under a read in progress.
+     */
+    @Override
+    public synchronized void stop() {
+        Thread thread = pollThread;
+        pollThread = null;
+        if (thread == null) {
+            delegate.stop();
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!thread.isAlive()) {
+            delegate.stop();
+            return;
+        }
+        stoppingThread = thread;
+        delegateStopPending.set(true);
+        // The thread may have exited between the check and the handoff
+        if (!thread.isAlive() && delegateStopPending.compareAndSet(true, false)) {
+            delegate.stop();
+        }
+    }
+
+    @Override
+    public void pipelineSwitch(int index) {
+        delegate.pipelineSwitch(index);
+    }
+
+    /**
+     * Copy the newest polled frame without blocking
+     * The frame's sequence is unchanged from the previous call when no new result has arrived
+     */
+    @Override
+    public boolean readLatest(VisionFrame frame) {
+        slots.update();
+        Slot slot = slots.readBuffer();
+        if (!slot.valid) {
+            return false;
+        }
+        frame.copyFrom(slot.frame);
+        return true;
+    }
+
+    /**
+     * Number of polls the background thread has made
+     */
+    public long getPollCount() {
+        return pollCount;
+    }
+
+    public boolean isRunning() {
+        return pollThread != null;
+    }
+
+    private void pollLoop() {
+        Thread self = Thread.currentThread();
+        long nextPollNanos = System.nanoTime();
+        while (pollThread == self) {
+            Slot slot = slots.writeBuffer();
+            // The slot still holds the stamp of a frame three polls back, so clear it to see whether the
+            // delegate numbers its frames
+            slot.frame.sequence = 0;
+            slot.valid = delegate.readLatest(slot.frame);
+            if (pollThread != self) {
+                break; // Stopped during the read
+            }
+            if (slot.valid && slot.frame.sequence == 0) {
+                // The source cannot tell results apart, so treat every poll as a new one
+                slot.frame.sequence = nextSequence++;
+            }
+            slots.publish();
+            pollCount++;
+
+            // Fixed-rate schedule; skip ahead instead of bursting if a poll overran
+            nextPollNanos += pollPeriodNanos;
+            long now = System.nanoTime();
+            if (nextPollNanos < now) {
+                nextPollNanos = now;
+            } else {
+                LockSupport.parkNanos(nextPollNanos - now);
+            }
+        }
+        if (delegateStopPending.compareAndSet(true, false)) {
+            delegate.stop();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * TelemetrySink that keeps every line's values and only formats and sends them once per transmission interval
+ * The Driver Station shows a few updates a second, so formatting 20 lines on every loop mostly goes to waste.
+ * A line gets a slot the first time its caption is added, numbers are stored there as primitives, and on a
+ * transmission only the lines whose values changed are formatted again; the rest are sent with their last
+ * text. Like the SDK's auto-clear, only the lines added since the previous update are sent, in that order.
+ * Captions should come from a fixed set, since every new one takes a slot for good.
+ */
+public class BatchedTelemetry implements TelemetrySink {
+
+    public static final int DEFAULT_TRANSMISSION_INTERVAL_MILLIS = 250; // The SDK's default
+
+    private static final int INITIAL_LINE_CAPACITY = 32;
+    private static final int MAX_VALUES = 4; // Most numbers a line takes without boxing
+
+    // How a line's value is held
+    private static final int NUMBERS = 0; // Format and up to MAX_VALUES primitives
+    private static final int ARGUMENTS = 1; // Format and the caller's boxed arguments
+    private static final int VALUE = 2; // A single value, shown with String.valueOf
+
+    private final TelemetrySink output;
+    private final long transmissionIntervalNanos;
+
+    // Every line ever added, in the order their captions first appeared
+    private Line[] lines = new Line[INITIAL_LINE_CAPACITY];
+    private int lineCount = 0;
+    private int nextLine = 0; // Lines are usually added in the same order every loop, so check this one first
+
+    // Lines added since the last update, in order
+    private Line[] addedLines = new Line[INITIAL_LINE_CAPACITY];
+    private int addedCount = 0;
+    private int loopCount = 0;
+
+    private boolean transmitted = false;
+    private long lastTransmissionNanos = 0;
+    private long transmissionCount = 0;
+    private long formattedLineCount = 0;
+    private long reusedLineCount = 0;
+
+    public BatchedTelemetry(TelemetrySink output, int transmissionIntervalMillis) {
+        this.output = output;
+        transmissionIntervalNanos = transmissionIntervalMillis * 1_000_000L;
+    }
+
+    @Override
+    public void addData(String caption, String format, double value) {
+        Line line = addNumbers(caption, format, 1);
+        setValue(line, 0, value);
+    }
+
+    @Override
+    public void addData(String caption, String format, double value1, double value2) {
+        Line line = addNumbers(caption, format, 2);
+        setValue(line, 0, value1);
+        setValue(line, 1, value2);
+    }
+
+    @Override
+    public void addData(String caption, String format, double value1, double value2, double value3) {
+        Line line = addNumbers(caption, format, 3);
+        setValue(line, 0, value1);
+        setValue(line, 1, value2);
+        setValue(line, 2, value3);
+    }
+
+    @Override
+    public void addData(String caption, String format, double value1, double value2, double value3,
+                        double value4) {
+        Line line = addNumbers(caption, format, 4);
+        setValue(line, 0, value1);
+        setValue(line, 1, value2);
+        setValue(line, 2, value3);
+        setValue(line, 3, value4);
+    }
+
+    @Override
+    public void addData(String caption, String format, Object... args) {
+        Line line = add(caption);
+        if (line.mode != ARGUMENTS || !format.equals(line.format) || !isSameValues(line.arguments, args)) {
+            line.mode = ARGUMENTS;
+            line.format = format;
+            line.changed = true;
+        }
+        line.arguments = args;
+    }
+
+    @Override
+    public void addData(String caption, Object value) {
+        Line line = add(caption);
+        if (line.mode != VALUE || !isSameValue(line.value, value)) {
+            line.mode = VALUE;
+            line.format = null;
+            line.changed = true;
+        }
+        line.value = value;
+    }
+
+    /**
+     * End of a loop: send the lines added since the last update if the transmission interval has passed
+     */
+    @Override
+    public void update() {
+        update(System.nanoTime());
+    }
+
+    /**
+     * End of a loop at nowNanos; returns true if the lines were sent
+     */
+    public boolean update(long nowNanos) {
+        boolean transmit = !transmitted || nowNanos - lastTransmissionNanos >= transmissionIntervalNanos;
+        if (transmit) {
+            for (int i = 0; i < addedCount; i++) {
+                Line line = addedLines[i];
+                if (line.changed) {
+                    line.text = format(line);
+                    line.changed = false;
+                    formattedLineCount++;
+                } else {
+                    reusedLineCount++;
+                }
+                output.addData(line.caption, line.text);
+            }
+            output.update();
+            transmitted = true;
+            lastTransmissionNanos = nowNanos;
+            transmissionCount++;
+        }
+
+        addedCount = 0;
+        nextLine = 0;
+        loopCount++;
+        return transmit;
+    }
+
+    private Line addNumbers(String caption, String format, int count) {
+        Line line = add(caption);
+        if (line.mode != NUMBERS || line.valueCount != count || !format.equals(line.format)) {
+            line.mode = NUMBERS;
+            line.format = format;
+            line.valueCount = count;
+            Arrays.fill(line.isInteger, false);
+            TelemetryFormat.parse(format, line.isInteger);
+            line.changed = true;
+        }
+        return line;
+    }
+
+    private static void setValue(Line line, int index, double value) {
+        if (Double.compare(line.values[index], value) != 0) {
+            line.values[index] = value;
+            line.changed = true;
+        }
+    }
+
+    /**
+     * Find the slot for a caption not yet added this loop, registering it the first time
+     */
+    private Line add(String caption) {
+        Line line = nextLine < lineCount ? lines[nextLine] : null;
+        if (line == null || line.addedLoop == loopCount || !caption.equals(line.caption)) {
+            // Out of the usual order, e.g. a line shown only some of the time
+            line = null;
+            for (int i = 0; i < lineCount; i++) {
+                if (lines[i].addedLoop != loopCount && caption.equals(lines[i].caption)) {
+                    line = lines[i];
+                    break;
+                }
+            }
+            if (line == null) {
+                line = new Line(caption, lineCount);
+                if (lineCount == lines.length) {
+                    lines = Arrays.copyOf(lines, lineCount * 2);
+                }
+                lines[lineCount++] = line;
+            }
+        }
+
+        line.addedLoop = loopCount;
+        nextLine = line.index + 1;
+        if (addedCount == addedLines.length) {
+            addedLines = Arrays.copyOf(addedLines, addedCount * 2);
+        }
+        addedLines[addedCount++] = line;
+        return line;
+    }
+
+    private static String format(Line line) {
+        switch (line.mode) {
+            case NUMBERS:
+                Object[] args = new Object[line.valueCount];
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = TelemetryFormat.box(line.values[i], line.isInteger[i]);
+                }
+                return String.format(Locale.US, line.format, args);
+            case ARGUMENTS:
+                return String.format(Locale.US, line.format, line.arguments);
+            default:
+                return String.valueOf(line.value);
+        }
+    }
+
+    private static boolean isSameValues(Object[] previous, Object[] args) {
+        if (previous == null || previous.length != args.length) {
+            return false;
+        }
+        for (int i = 0; i < args.length; i++) {
+            if (!isSameValue(previous[i], args[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True only for equal immutable values; anything else may have changed in place, like a reused result
+     */
+    private static boolean isSameValue(Object previous, Object value) {
+        if (previous == null || value == null) {
+            return previous == value;
+        }
+        if (value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Enum) {
+            return value.equals(previous);
+        }
+        return false;
+    }
+
+    public long getTransmissionCount() { return transmissionCount; }
+    public long getFormattedLineCount() { return formattedLineCount; }
+    public long getReusedLineCount() { return reusedLineCount; }
+    public int getLineCount() { return lineCount; }
+
+    private static final class Line {
+        final String caption;
+        final int index;
+        int addedLoop = -1;
+
+        int mode = VALUE;
+        String format = null;
+        final double[] values = new double[MAX_VALUES];
+        final boolean[] isInteger = new boolean[MAX_VALUES];
+        int valueCount = 0;
+        Object[] arguments = null;
+        Object value = null;
+
+        boolean changed = true; // Since text was last formatted
+        String text = null;
+
+        Line(String caption, int index) {
+            this.caption = caption;
+            this.index = index;
+        }
+    }
+}
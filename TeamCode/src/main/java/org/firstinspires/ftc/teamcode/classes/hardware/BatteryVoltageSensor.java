@@ -0,0 +1,14 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+/**
+ * Thin interface over the battery voltage reading
+ * Implemented by the hubs' voltage sensors on the robot and by the simulated chassis off-robot
+ */
+public interface BatteryVoltageSensor {
+
+    /**
+     * Battery voltage in volts, or 0 if it could not be read
+     * On the robot this is a hub transaction that bulk reads do not cover, so poll it through VoltageMonitor
+     */
+    double getVoltage();
+}
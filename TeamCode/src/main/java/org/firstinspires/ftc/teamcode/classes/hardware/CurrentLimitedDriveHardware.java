@@ -0,0 +1,270 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * DriveHardware decorator that keeps the four drive motors inside a total current budget, so a pushing match
+ * can't brown out the hub
+ * Each motor's current is estimated from a DC motor model: I = stall current * |applied voltage fraction -
+ * speed fraction|, with the speed taken from the bulk-read encoders once per cycle. When the total would
+ * exceed the budget all four powers are scaled by the same factor, which keeps the direction of the wheel
+ * vector. Register it on the HardwareCycle so it samples the encoders at the start of every cycle.
+ */
+public class CurrentLimitedDriveHardware implements DriveHardware, HardwareCycle.Listener {
+
+    // Shared by the Control Hub's 20 A fuse with everything else on the robot
+    public static final double DEFAULT_CURRENT_BUDGET = 20.0; // amps, all four drive motors together
+
+    // goBILDA 5203 312 RPM motor at 12 V
+    private static final double STALL_CURRENT = 9.2; // amps
+    private static final double FREE_SPEED = 312.0 / 60.0 * 537.7; // ticks/second
+    private static final double NOMINAL_VOLTAGE = 12.0;
+
+    // Bisection steps when solving for the scale; 2^-16 is far below the motor power resolution
+    private static final int SOLVER_ITERATIONS = 16;
+
+    // Encoder samples further apart than this don't give a usable speed
+    private static final double MAX_SAMPLE_DT = 0.25; // seconds
+
+    private static final int SCALE_BUCKETS = 10;
+
+    private final DriveHardware delegate;
+    private final VoltageMonitor voltageMonitor;
+    private final double currentBudget;
+
+    // Per-motor speed as a fraction of free speed, from the encoders
+    private final int[] lastPositions = new int[MOTOR_COUNT];
+    private final double[] speedFractions = new double[MOTOR_COUNT];
+    private long lastSampleNanos = 0;
+    private boolean hasLastSample = false;
+
+    // Scratch for the solver: applied voltage fraction per motor at scale 1
+    private final double[] voltageFractions = new double[MOTOR_COUNT];
+
+    // Statistics
+    private long writes = 0;
+    private long limitedWrites = 0;
+    private long limitEvents = 0;
+    private boolean lastWriteLimited = false;
+    private double lastScale = 1.0;
+    private double minScale = 1.0;
+    private double scaleReductionSum = 0.0;
+    private double lastRequestedCurrent = 0.0;
+    private double lastLimitedCurrent = 0.0;
+    private double peakRequestedCurrent = 0.0;
+    private final long[] scaleHistogram = new long[SCALE_BUCKETS];
+
+    public CurrentLimitedDriveHardware(DriveHardware delegate, VoltageMonitor voltageMonitor) {
+        this(delegate, voltageMonitor, DEFAULT_CURRENT_BUDGET);
+    }
+
+    /**
+     * voltageMonitor may be null, in which case the battery is assumed to be at 12 V
+     */
+    public CurrentLimitedDriveHardware(DriveHardware delegate, VoltageMonitor voltageMonitor,
+                                       double currentBudget) {
+        if (currentBudget <= 0.0) {
+            throw new IllegalArgumentException("currentBudget must be positive, got " + currentBudget);
+        }
+        this.delegate = delegate;
+        this.voltageMonitor = voltageMonitor;
+        this.currentBudget = currentBudget;
+    }
+
+    /**
+     * Sample the encoders (served from this cycle's bulk read) and update each wheel's speed
+     */
+    @Override
+    public void onCycleStart(long cycle, long cycleStartNanos) {
+        double dt = (cycleStartNanos - lastSampleNanos) / 1e9;
+        boolean usable = hasLastSample && dt > 0.0 && dt <= MAX_SAMPLE_DT;
+        for (int motor = 0; motor < MOTOR_COUNT; motor++) {
+            int position = delegate.getCurrentPosition(motor);
+            speedFractions[motor] = usable ? (position - lastPositions[motor]) / dt / FREE_SPEED : 0.0;
+            lastPositions[motor] = position;
+        }
+        lastSampleNanos = cycleStartNanos;
+        hasLastSample = true;
+    }
+
+    @Override
+    public void setPowers(double frontLeftPower, double frontRightPower,
+                          double backLeftPower, double backRightPower) {
+        double voltage = voltageMonitor != null && voltageMonitor.hasVoltage()
+                ? voltageMonitor.getVoltage() : NOMINAL_VOLTAGE;
+        double voltageRatio = voltage / NOMINAL_VOLTAGE;
+        voltageFractions[FRONT_LEFT] = frontLeftPower * voltageRatio;
+        voltageFractions[FRONT_RIGHT] = frontRightPower * voltageRatio;
+        voltageFractions[BACK_LEFT] = backLeftPower * voltageRatio;
+        voltageFractions[BACK_RIGHT] = backRightPower * voltageRatio;
+
+        double requested = totalCurrent(1.0);
+        double scale = 1.0;
+        if (requested > currentBudget) {
+            scale = solveScale();
+        }
+        lastRequestedCurrent = requested;
+        lastLimitedCurrent = scale < 1.0 ? totalCurrent(scale) : requested;
+        recordScale(scale, requested);
+
+        delegate.setPowers(frontLeftPower * scale, frontRightPower * scale,
+                backLeftPower * scale, backRightPower * scale);
+    }
+
+    /**
+     * Estimated total current (amps) if the powers were multiplied by scale
+     */
+    private double totalCurrent(double scale) {
+        double total = 0.0;
+        for (int motor = 0; motor < MOTOR_COUNT; motor++) {
+            total += Math.abs(voltageFractions[motor] * scale - speedFractions[motor]);
+        }
+        return total * STALL_CURRENT;
+    }
+
+    /**
+     * Largest scale in [0, 1) that keeps the total current inside the budget
+     * The total current is convex in the scale, so while the budget is met at 0 the scales that meet it
+     * form an interval starting at 0 and bisection finds its end. A robot being back-driven hard can draw
+     * more than the budget even at 0; then the scale with the least current is used instead.
+     */
+    private double solveScale() {
+        double low = 0.0;
+        double high = 1.0;
+        if (totalCurrent(0.0) <= currentBudget) {
+            for (int i = 0; i < SOLVER_ITERATIONS; i++) {
+                double middle = 0.5 * (low + high);
+                if (totalCurrent(middle) <= currentBudget) {
+                    low = middle;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        // Ternary search for the minimum of the convex total
+        for (int i = 0; i < SOLVER_ITERATIONS; i++) {
+            double third = (high - low) / 3.0;
+            if (totalCurrent(low + third) <= totalCurrent(high - third)) {
+                high = high - third;
+            } else {
+                low = low + third;
+            }
+        }
+        return 0.5 * (low + high);
+    }
+
+    private void recordScale(double scale, double requested) {
+        boolean limited = scale < 1.0;
+        writes++;
+        if (limited) {
+            limitedWrites++;
+            if (!lastWriteLimited) {
+                limitEvents++;
+            }
+            scaleReductionSum += 1.0 - scale;
+            minScale = Math.min(minScale, scale);
+            scaleHistogram[Math.min((int) (scale * SCALE_BUCKETS), SCALE_BUCKETS - 1)]++;
+        }
+        lastWriteLimited = limited;
+        lastScale = scale;
+        peakRequestedCurrent = Math.max(peakRequestedCurrent, requested);
+    }
+
+    @Override
+    public double getPower(int motor) {
+        return delegate.getPower(motor);
+    }
+
+    @Override
+    public int getCurrentPosition(int motor) {
+        return delegate.getCurrentPosition(motor);
+    }
+
+    public double getCurrentBudget() { return currentBudget; }
+    public double getLastScale() { return lastScale; }
+    public double getMinScale() { return minScale; }
+    public double getLastRequestedCurrent() { return lastRequestedCurrent; }
+    public double getLastLimitedCurrent() { return lastLimitedCurrent; }
+    public double getPeakRequestedCurrent() { return peakRequestedCurrent; }
+    public long getWrites() { return writes; }
+    public long getLimitedWrites() { return limitedWrites; }
+
+    /**
+     * Number of separate stretches of limiting (consecutive limited writes count once)
+     */
+    public long getLimitEvents() { return limitEvents; }
+
+    /**
+     * Average power reduction over the limited writes, 0 if none were limited
+     */
+    public double getMeanReduction() {
+        return limitedWrites == 0 ? 0.0 : scaleReductionSum / limitedWrites;
+    }
+
+    /**
+     * Display current limiting telemetry
+     */
+    public void displayTelemetry(TelemetrySink telemetry) {
+        telemetry.addData("Drive Current", "%.1f A of %.1f A (power x%.2f)",
+                lastLimitedCurrent, currentBudget, lastScale);
+        telemetry.addData("Current Limiting", "%d of %d writes, %d events, mean -%.0f%%, worst x%.2f",
+                limitedWrites, writes, limitEvents, getMeanReduction() * 100.0, minScale);
+    }
+
+    /**
+     * Write how often and how much the powers were limited as CSV
+     */
+    public void writeReport(File file) throws IOException {
+        File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        try {
+            writer.println("budget_a,writes,limited_writes,limit_events,mean_reduction,min_scale,peak_requested_a");
+            writer.println(String.format(Locale.US, "%.1f,%d,%d,%d,%.4f,%.4f,%.1f",
+                    currentBudget, writes, limitedWrites, limitEvents, getMeanReduction(), minScale,
+                    peakRequestedCurrent));
+            writer.println();
+            writer.println("scale_low,scale_high,limited_writes");
+            for (int bucket = 0; bucket < SCALE_BUCKETS; bucket++) {
+                writer.println(String.format(Locale.US, "%.1f,%.1f,%d", (double) bucket / SCALE_BUCKETS,
+                        (double) (bucket + 1) / SCALE_BUCKETS, scaleHistogram[bucket]));
+            }
+        } finally {
+            writer.close();
+        }
+        if (writer.checkError()) {
+            throw new IOException("Error writing " + file);
+        }
+    }
+
+    /**
+     * Write the report, returning false instead of throwing so it can be called from OpMode.stop()
+     */
+    public boolean tryWriteReport(File file) {
+        try {
+            writeReport(file);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Timestamped report file for an OpMode run, e.g. CurrentLimits/ManualDrive-20251009-153000.csv
+     */
+    public static File reportFile(File rootDirectory, String opModeName) {
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        return new File(new File(rootDirectory, "CurrentLimits"), opModeName + "-" + timestamp + ".csv");
+    }
+}
@@ -0,0 +1,31 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+/**
+ * Thin interface over the four mecanum drive motors
+ * Implemented by the real motors on the robot and by the simulated chassis off-robot
+ */
+public interface DriveHardware {
+
+    // Motor indices used by getPower and getCurrentPosition
+    int FRONT_LEFT = 0;
+    int FRONT_RIGHT = 1;
+    int BACK_LEFT = 2;
+    int BACK_RIGHT = 3;
+    int MOTOR_COUNT = 4;
+
+    /**
+     * Command power fractions (-1 to 1) to all four drive motors
+     */
+    void setPowers(double frontLeftPower, double frontRightPower,
+                   double backLeftPower, double backRightPower);
+
+    /**
+     * Power currently applied to the given motor
+     */
+    double getPower(int motor);
+
+    /**
+     * Encoder position of the given motor in ticks, positive when the wheel drives the robot forward
+     */
+    int getCurrentPosition(int motor);
+}
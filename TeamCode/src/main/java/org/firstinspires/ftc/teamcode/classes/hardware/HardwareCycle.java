@@ -0,0 +1,71 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+/**
+ * Marks the start of each control loop cycle for everything that caches hardware state per cycle
+ * OpModes call startCycle() exactly once at the top of every loop, before reading any hardware
+ */
+public class HardwareCycle {
+
+    /**
+     * Something that has to run once at the start of every cycle, e.g. clearing bulk read caches
+     */
+    public interface Listener {
+        void onCycleStart(long cycle, long cycleStartNanos);
+    }
+
+    private Listener[] listeners = new Listener[0];
+    private long cycleCount = 0;
+    private long cycleStartNanos = 0;
+    private long previousCycleStartNanos = 0;
+
+    /**
+     * Register a listener, called in registration order
+     * Meant for init time; registering copies the listener array
+     */
+    public void addListener(Listener listener) {
+        Listener[] grown = new Listener[listeners.length + 1];
+        System.arraycopy(listeners, 0, grown, 0, listeners.length);
+        grown[listeners.length] = listener;
+        listeners = grown;
+    }
+
+    /**
+     * Start a new cycle now
+     */
+    public void startCycle() {
+        startCycle(System.nanoTime());
+    }
+
+    /**
+     * Start a new cycle at the given time, used by the simulator to run on simulated time
+     */
+    public void startCycle(long nowNanos) {
+        previousCycleStartNanos = cycleCount == 0 ? nowNanos : cycleStartNanos;
+        cycleStartNanos = nowNanos;
+        cycleCount++;
+        for (Listener listener : listeners) {
+            listener.onCycleStart(cycleCount, nowNanos);
+        }
+    }
+
+    /**
+     * Number of cycles started so far
+     */
+    public long getCycleCount() {
+        return cycleCount;
+    }
+
+    /**
+     * System.nanoTime() (or simulated time) at which the current cycle started
+     */
+    public long getCycleStartNanos() {
+        return cycleStartNanos;
+    }
+
+    /**
+     * Time between the start of the previous cycle and this one, 0 for the first cycle
+     */
+    public double getLastCycleSeconds() {
+        return (cycleStartNanos - previousCycleStartNanos) / 1e9;
+    }
+}
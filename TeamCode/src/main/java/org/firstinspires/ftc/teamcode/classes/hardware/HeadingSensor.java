@@ -0,0 +1,14 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+/**
+ * Thin interface over an absolute heading source (the hub IMU)
+ * Implemented by the real IMU on the robot and by the simulated chassis off-robot
+ */
+public interface HeadingSensor {
+
+    /**
+     * Robot heading in radians, counter-clockwise positive
+     * On the robot this is an I2C transaction, so callers should rate-limit it (see HeadingTracker)
+     */
+    double getHeading();
+}
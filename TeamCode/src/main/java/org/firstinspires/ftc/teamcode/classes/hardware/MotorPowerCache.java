@@ -0,0 +1,96 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+/**
+ * Tracks the last power written to each motor and decides whether a new command needs a bus write
+ * Writes that change the power by less than epsilon are skipped, except that stopping (exactly 0)
+ * and full power (exactly +/-1) are always written so the motor ends up exactly where it was asked
+ */
+public class MotorPowerCache {
+
+    public static final double DEFAULT_EPSILON = 0.005;
+
+    private final double epsilon;
+    private final double[] commandedPowers;
+    private final double[] writtenPowers;
+    private long issuedWrites = 0;
+    private long skippedWrites = 0;
+
+    public MotorPowerCache(int motorCount) {
+        this(motorCount, DEFAULT_EPSILON);
+    }
+
+    public MotorPowerCache(int motorCount, double epsilon) {
+        if (epsilon < 0.0) {
+            throw new IllegalArgumentException("epsilon must not be negative, got " + epsilon);
+        }
+        this.epsilon = epsilon;
+        this.commandedPowers = new double[motorCount];
+        this.writtenPowers = new double[motorCount];
+        invalidate();
+    }
+
+    /**
+     * Record a new command for the motor and return true if it has to be written to the hardware
+     */
+    public boolean update(int motor, double power) {
+        commandedPowers[motor] = power;
+
+        double written = writtenPowers[motor];
+        boolean mustWrite = Double.isNaN(written)
+                || Math.abs(power - written) >= epsilon
+                || (isExact(power) && power != written);
+        if (mustWrite) {
+            writtenPowers[motor] = power;
+            issuedWrites++;
+        } else {
+            skippedWrites++;
+        }
+        return mustWrite;
+    }
+
+    /**
+     * Forget what was written so the next update for every motor is issued
+     * Use after anything else may have changed the motor powers behind the cache's back
+     */
+    public void invalidate() {
+        for (int i = 0; i < writtenPowers.length; i++) {
+            writtenPowers[i] = Double.NaN;
+        }
+    }
+
+    /**
+     * Last power requested for the motor, whether or not it was written
+     */
+    public double getCommandedPower(int motor) {
+        return commandedPowers[motor];
+    }
+
+    /**
+     * Power the hardware was last actually set to
+     */
+    public double getWrittenPower(int motor) {
+        double written = writtenPowers[motor];
+        return Double.isNaN(written) ? 0.0 : written;
+    }
+
+    public double getEpsilon() { return epsilon; }
+    public long getIssuedWrites() { return issuedWrites; }
+    public long getSkippedWrites() { return skippedWrites; }
+
+    /**
+     * Fraction of updates that did not need a bus write
+     */
+    public double getSkipRatio() {
+        long total = issuedWrites + skippedWrites;
+        return total == 0 ? 0.0 : (double) skippedWrites / total;
+    }
+
+    public void resetCounters() {
+        issuedWrites = 0;
+        skippedWrites = 0;
+    }
+
+    private static boolean isExact(double power) {
+        return power == 0.0 || power == 1.0 || power == -1.0;
+    }
+}
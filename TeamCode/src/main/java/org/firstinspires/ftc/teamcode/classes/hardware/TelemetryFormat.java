@@ -0,0 +1,69 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+/**
+ * Boxes primitive telemetry values the way a format string's conversions expect
+ * Integer conversions (%d, %o, %x) get the value rounded to a Long, everything else a Double.
+ * Explicit argument indices (%1$s, %<s) are not supported.
+ */
+public final class TelemetryFormat {
+
+    private TelemetryFormat() {
+    }
+
+    /**
+     * Mark which of the format's arguments are integer conversions, as far as isInteger reaches
+     * Returns the number of arguments the format takes.
+     */
+    public static int parse(String format, boolean[] isInteger) {
+        int count = 0;
+        int length = format.length();
+        for (int i = 0; i < length; i++) {
+            if (format.charAt(i) != '%') {
+                continue;
+            }
+            // Skip flags, width and precision to the conversion character
+            i++;
+            while (i < length && "-#+ 0,(.123456789".indexOf(format.charAt(i)) >= 0) {
+                i++;
+            }
+            if (i >= length) {
+                break;
+            }
+            char conversion = format.charAt(i);
+            if (conversion == '%' || conversion == 'n') {
+                continue;
+            }
+            if (conversion == 't' || conversion == 'T') {
+                i++; // Date/time conversions have a suffix character
+            }
+            if (count < isInteger.length) {
+                isInteger[count] = conversion == 'd' || conversion == 'o' || conversion == 'x' || conversion == 'X';
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Box one value for an integer or a floating point conversion
+     */
+    public static Object box(double value, boolean isInteger) {
+        if (isInteger) {
+            return Long.valueOf(Math.round(value));
+        }
+        return Double.valueOf(value);
+    }
+
+    /**
+     * Box values for String.format in one go, for sinks that format straight away
+     */
+    public static Object[] box(String format, double... values) {
+        boolean[] isInteger = new boolean[values.length];
+        parse(format, isInteger);
+        Object[] args = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            args[i] = box(values[i], isInteger[i]);
+        }
+        return args;
+    }
+}
@@ -0,0 +1,45 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+/**
+ * Minimal telemetry output used by Robot and Vision
+ * Mirrors the addData calls of the FTC Telemetry interface so the classes can run off-robot. Lines of up to
+ * four numbers take them as primitives, so a sink that formats later (BatchedTelemetry) doesn't box them
+ * on every loop; the defaults box them and format straight away.
+ */
+public interface TelemetrySink {
+
+    /**
+     * Add a formatted line
+     */
+    void addData(String caption, String format, Object... args);
+
+    /**
+     * Add a line with a single value
+     */
+    void addData(String caption, Object value);
+
+    /**
+     * Add a formatted line of numbers; integer conversions (%d) get the value rounded to a long
+     */
+    default void addData(String caption, String format, double value) {
+        addData(caption, format, TelemetryFormat.box(format, value));
+    }
+
+    default void addData(String caption, String format, double value1, double value2) {
+        addData(caption, format, TelemetryFormat.box(format, value1, value2));
+    }
+
+    default void addData(String caption, String format, double value1, double value2, double value3) {
+        addData(caption, format, TelemetryFormat.box(format, value1, value2, value3));
+    }
+
+    default void addData(String caption, String format, double value1, double value2, double value3,
+                         double value4) {
+        addData(caption, format, TelemetryFormat.box(format, value1, value2, value3, value4));
+    }
+
+    /**
+     * Send the lines added since the last update
+     */
+    void update();
+}
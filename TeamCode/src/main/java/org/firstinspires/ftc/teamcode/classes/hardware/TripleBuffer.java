@@ -0,0 +1,62 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free single-writer/single-reader handoff of the latest value
+ * The writer fills writeBuffer() and calls publish(); the reader calls update() and then reads
+ * readBuffer(). Neither side ever blocks or allocates, and the reader always sees a complete value.
+ */
+public class TripleBuffer<T> {
+
+    private static final int INDEX_MASK = 0x3;
+    private static final int FRESH = 0x4;
+
+    private final Object[] buffers;
+    // Index of the buffer in the middle, plus FRESH when the writer has published since the reader last swapped
+    private final AtomicInteger shared = new AtomicInteger(1);
+    private int writeIndex = 0; // Only touched by the writer
+    private int readIndex = 2;  // Only touched by the reader
+
+    /**
+     * Create from three distinct, pre-allocated buffers
+     */
+    public TripleBuffer(T first, T second, T third) {
+        buffers = new Object[]{first, second, third};
+    }
+
+    /**
+     * Buffer the writer may fill; only call from the writer thread
+     */
+    @SuppressWarnings("unchecked")
+    public T writeBuffer() {
+        return (T) buffers[writeIndex];
+    }
+
+    /**
+     * Make the filled write buffer the latest value; only call from the writer thread
+     */
+    public void publish() {
+        writeIndex = shared.getAndSet(writeIndex | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Swap in the latest published value if there is one; only call from the reader thread
+     * Returns true if readBuffer() changed
+     */
+    public boolean update() {
+        if ((shared.get() & FRESH) == 0) {
+            return false;
+        }
+        readIndex = shared.getAndSet(readIndex) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * Latest value the reader has swapped in; only call from the reader thread
+     */
+    @SuppressWarnings("unchecked")
+    public T readBuffer() {
+        return (T) buffers[readIndex];
+    }
+}
@@ -0,0 +1,75 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+/**
+ * Hardware-independent copy of a single Limelight (or webcam AprilTag) result
+ * Positions are in meters and angles in degrees, matching LLResult botpose
+ */
+public class VisionFrame {
+    // Most single-tag detections kept from one result
+    public static final int MAX_DETECTIONS = 8;
+
+    // Increases with every new result when the source can tell results apart, 0 when unknown
+    public long sequence = 0;
+    public int pipelineIndex = 0;
+
+    // When the image was captured, in System.nanoTime() (or simulated) time, 0 when unknown
+    public long captureTimeNanos = 0;
+    // Capture, targeting and parse latency of the result
+    public double latencyMillis = 0.0;
+
+    // Crosshair offsets and target area
+    public double tx = 0.0;
+    public double ty = 0.0;
+    public double ta = 0.0;
+
+    // Robot pose in field space, only meaningful when hasBotPose is set
+    public boolean hasBotPose = false;
+    public double botPoseX = 0.0;
+    public double botPoseY = 0.0;
+    public double botPoseZ = 0.0;
+    public double botPoseRoll = 0.0;
+    public double botPosePitch = 0.0;
+    public double botPoseYaw = 0.0;
+    // Tags the botpose was solved from and their average distance from the camera, 0 when unknown
+    public int botPoseTagCount = 0;
+    public double botPoseTagDistance = 0.0;
+
+    // Robot pose from each tag on its own, for sources without a combined botpose; the first
+    // detectionCount entries are valid. Quality runs from 0 (barely decoded) to 1.
+    public int detectionCount = 0;
+    public final int[] detectionIds = new int[MAX_DETECTIONS];
+    public final double[] detectionX = new double[MAX_DETECTIONS];
+    public final double[] detectionY = new double[MAX_DETECTIONS];
+    public final double[] detectionYaw = new double[MAX_DETECTIONS];
+    public final double[] detectionRange = new double[MAX_DETECTIONS];
+    public final double[] detectionQuality = new double[MAX_DETECTIONS];
+
+    /**
+     * Copy every field from another frame
+     */
+    public void copyFrom(VisionFrame other) {
+        sequence = other.sequence;
+        pipelineIndex = other.pipelineIndex;
+        captureTimeNanos = other.captureTimeNanos;
+        latencyMillis = other.latencyMillis;
+        tx = other.tx;
+        ty = other.ty;
+        ta = other.ta;
+        hasBotPose = other.hasBotPose;
+        botPoseX = other.botPoseX;
+        botPoseY = other.botPoseY;
+        botPoseZ = other.botPoseZ;
+        botPoseRoll = other.botPoseRoll;
+        botPosePitch = other.botPosePitch;
+        botPoseYaw = other.botPoseYaw;
+        botPoseTagCount = other.botPoseTagCount;
+        botPoseTagDistance = other.botPoseTagDistance;
+        detectionCount = other.detectionCount;
+        System.arraycopy(other.detectionIds, 0, detectionIds, 0, detectionCount);
+        System.arraycopy(other.detectionX, 0, detectionX, 0, detectionCount);
+        System.arraycopy(other.detectionY, 0, detectionY, 0, detectionCount);
+        System.arraycopy(other.detectionYaw, 0, detectionYaw, 0, detectionCount);
+        System.arraycopy(other.detectionRange, 0, detectionRange, 0, detectionCount);
+        System.arraycopy(other.detectionQuality, 0, detectionQuality, 0, detectionCount);
+    }
+}
@@ -0,0 +1,29 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+/**
+ * Thin interface over the Limelight camera
+ * Implemented by the real Limelight3A on the robot and by the simulated Limelight off-robot
+ */
+public interface VisionHardware {
+
+    /**
+     * Start producing results
+     */
+    void start();
+
+    /**
+     * Stop producing results
+     */
+    void stop();
+
+    /**
+     * Switch the camera to the pipeline with the given index
+     */
+    void pipelineSwitch(int index);
+
+    /**
+     * Copy the latest valid result into the given frame
+     * Returns false (leaving the frame untouched) when no valid result is available
+     */
+    boolean readLatest(VisionFrame frame);
+}
@@ -0,0 +1,75 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+/**
+ * DriveHardware decorator that scales motor powers so a command gives the same wheel speed at any battery voltage
+ * Powers mean "fraction of full power at the nominal voltage": at 13.8 V a 0.5 command becomes 0.43, at 11.5 V
+ * it becomes 0.52. If that pushes any wheel past full power, all four are scaled back together so the chassis
+ * still moves in the commanded direction.
+ */
+public class VoltageCompensatedDriveHardware implements DriveHardware {
+
+    // Battery voltage the gains and chassis speeds are tuned at
+    public static final double DEFAULT_NOMINAL_VOLTAGE = 12.0;
+
+    // Never boost by more than this, whatever the battery reads
+    private static final double MAX_COMPENSATION = 1.3;
+
+    private final DriveHardware delegate;
+    private final VoltageMonitor voltageMonitor;
+    private final double nominalVoltage;
+
+    private double lastScale = 1.0;
+
+    public VoltageCompensatedDriveHardware(DriveHardware delegate, VoltageMonitor voltageMonitor) {
+        this(delegate, voltageMonitor, DEFAULT_NOMINAL_VOLTAGE);
+    }
+
+    public VoltageCompensatedDriveHardware(DriveHardware delegate, VoltageMonitor voltageMonitor,
+                                           double nominalVoltage) {
+        this.delegate = delegate;
+        this.voltageMonitor = voltageMonitor;
+        this.nominalVoltage = nominalVoltage;
+    }
+
+    @Override
+    public void setPowers(double frontLeftPower, double frontRightPower,
+                          double backLeftPower, double backRightPower) {
+        // Without a reading yet, pass the powers through unchanged
+        double scale = voltageMonitor.hasVoltage()
+                ? Math.min(nominalVoltage / voltageMonitor.getVoltage(), MAX_COMPENSATION) : 1.0;
+
+        double maxPower = Math.max(Math.abs(frontLeftPower), Math.abs(frontRightPower));
+        maxPower = Math.max(maxPower, Math.abs(backLeftPower));
+        maxPower = Math.max(maxPower, Math.abs(backRightPower));
+        if (maxPower * scale > 1.0) {
+            scale = 1.0 / maxPower;
+        }
+        lastScale = scale;
+
+        delegate.setPowers(frontLeftPower * scale, frontRightPower * scale,
+                backLeftPower * scale, backRightPower * scale);
+    }
+
+    @Override
+    public double getPower(int motor) {
+        return delegate.getPower(motor);
+    }
+
+    @Override
+    public int getCurrentPosition(int motor) {
+        return delegate.getCurrentPosition(motor);
+    }
+
+    /**
+     * Factor applied to the last powers written
+     */
+    public double getLastScale() { return lastScale; }
+
+    /**
+     * Display battery telemetry
+     */
+    public void displayTelemetry(TelemetrySink telemetry) {
+        telemetry.addData("Battery", "%.2f V filtered, %.2f V raw (power x%.2f)",
+                voltageMonitor.getVoltage(), voltageMonitor.getRawVoltage(), lastScale);
+    }
+}
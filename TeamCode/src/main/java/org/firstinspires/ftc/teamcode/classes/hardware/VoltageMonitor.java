@@ -0,0 +1,129 @@
+package org.firstinspires.ftc.teamcode.classes.hardware;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps a low-pass filtered battery voltage up to date without reading the sensor in the control loop
+ * A background thread polls the sensor at a low fixed rate; the loop only reads a volatile double.
+ * The filter rides out the short sags from motor current spikes, so compensating for the voltage does
+ * not chase the load it is compensating.
+ */
+public class VoltageMonitor {
+
+    public static final double DEFAULT_POLL_RATE_HZ = 10.0;
+    public static final double DEFAULT_TIME_CONSTANT = 0.5; // seconds
+
+    // Anything below this is a failed read, not a battery (the hubs brown out around 7 V)
+    private static final double MIN_VALID_VOLTAGE = 6.0;
+
+    private final BatteryVoltageSensor sensor;
+    private final long pollPeriodNanos;
+    private final double timeConstant;
+
+    private volatile boolean running = false;
+    private Thread pollThread = null;
+
+    // Written by whoever polls (the background thread once started)
+    private volatile double filteredVoltage = 0.0;
+    private volatile double rawVoltage = 0.0;
+    private volatile long sampleCount = 0;
+    private long lastSampleNanos = 0;
+
+    public VoltageMonitor(BatteryVoltageSensor sensor) {
+        this(sensor, DEFAULT_POLL_RATE_HZ, DEFAULT_TIME_CONSTANT);
+    }
+
+    public VoltageMonitor(BatteryVoltageSensor sensor, double pollRateHz, double timeConstant) {
+        this.sensor = sensor;
+        this.pollPeriodNanos = (long) (1e9 / pollRateHz);
+        this.timeConstant = timeConstant;
+    }
+
+    /**
+     * Take a first reading now, then keep polling on a background thread
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        poll(System.nanoTime());
+        running = true;
+        pollThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                pollLoop();
+            }
+        }, "VoltageMonitor");
+        pollThread.setDaemon(true);
+        pollThread.start();
+    }
+
+    /**
+     * Stop the poll thread, waiting briefly for it to exit
+     */
+    public synchronized void stop() {
+        running = false;
+        if (pollThread != null) {
+            LockSupport.unpark(pollThread);
+            try {
+                pollThread.join(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            pollThread = null;
+        }
+    }
+
+    /**
+     * Read the sensor once and fold it into the filter
+     * Called by the poll thread; call it directly only when the monitor is not started (e.g. in the simulator)
+     */
+    public void poll(long nowNanos) {
+        double voltage = sensor.getVoltage();
+        rawVoltage = voltage;
+        if (voltage < MIN_VALID_VOLTAGE) {
+            return;
+        }
+
+        if (sampleCount == 0) {
+            filteredVoltage = voltage;
+        } else {
+            double dt = (nowNanos - lastSampleNanos) / 1e9;
+            double alpha = timeConstant <= 0.0 ? 1.0 : dt / (timeConstant + dt);
+            filteredVoltage += alpha * (voltage - filteredVoltage);
+        }
+        lastSampleNanos = nowNanos;
+        sampleCount++;
+    }
+
+    /**
+     * True once at least one valid reading has been taken
+     */
+    public boolean hasVoltage() { return sampleCount > 0; }
+
+    /**
+     * Filtered battery voltage, 0 until the first valid reading
+     */
+    public double getVoltage() { return filteredVoltage; }
+    public double getRawVoltage() { return rawVoltage; }
+    public long getSampleCount() { return sampleCount; }
+    public boolean isRunning() { return running; }
+
+    private void pollLoop() {
+        long nextPollNanos = System.nanoTime() + pollPeriodNanos;
+        while (running) {
+            long now = System.nanoTime();
+            if (nextPollNanos > now) {
+                LockSupport.parkNanos(nextPollNanos - now);
+                continue;
+            }
+            poll(now);
+
+            // Fixed-rate schedule; skip ahead instead of bursting if a poll overran
+            nextPollNanos += pollPeriodNanos;
+            if (nextPollNanos < now) {
+                nextPollNanos = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.firstinspires.ftc.teamcode.classes.hardware.ftc;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.robotcore.external.hardware.camera.WebcamName;
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.Position;
+import org.firstinspires.ftc.robotcore.external.navigation.YawPitchRollAngles;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionHardware;
+import org.firstinspires.ftc.vision.VisionPortal;
+import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
+import org.firstinspires.ftc.vision.apriltag.AprilTagProcessor;
+
+import java.util.List;
+
+/**
+ * VisionHardware backed by a webcam running the SDK's AprilTagProcessor in a VisionPortal
+ * Each tag with a known field position becomes one single-tag detection in the frame, with the
+ * processor's decision margin as its quality; there is no combined botpose, so VisionFusion weighs and
+ * combines the tags. The portal processes frames on its own thread, so reads never wait on the camera.
+ */
+public class AprilTagWebcamHardware implements VisionHardware {
+
+    // Decision margin of a cleanly decoded tag; lower margins get proportionally less weight
+    private static final double GOOD_DECISION_MARGIN = 50.0;
+    // A tag decoded with corrected bit errors is trusted half as much
+    private static final double BIT_ERROR_QUALITY = 0.5;
+
+    private final VisionPortal portal;
+    private final AprilTagProcessor aprilTag;
+
+    // The last result is handed out again until the processor has a fresh one, like a Limelight
+    private final VisionFrame currentFrame = new VisionFrame();
+    private boolean currentValid = false;
+    private long sequence = 0;
+    private int pipelineIndex = 0;
+
+    /**
+     * Look up the webcam and build an AprilTag portal on it; the camera starts streaming in start()
+     * The camera pose on the robot is as in ConceptAprilTagLocalization: a pitch of -90 degrees is a
+     * camera facing straight forward.
+     */
+    public AprilTagWebcamHardware(HardwareMap hardwareMap, String webcamName,
+                                  Position cameraPosition, YawPitchRollAngles cameraOrientation) {
+        WebcamName webcam = hardwareMap.get(WebcamName.class, webcamName);
+        assert webcam != null : "webcam is null - check robot config name '" + webcamName + "'";
+        aprilTag = new AprilTagProcessor.Builder()
+                .setOutputUnits(DistanceUnit.METER, AngleUnit.DEGREES)
+                .setCameraPose(cameraPosition, cameraOrientation)
+                .build();
+        portal = new VisionPortal.Builder()
+                .setCamera(webcam)
+                .addProcessor(aprilTag)
+                .setAutoStartStreamOnBuild(false)
+                .build();
+    }
+
+    @Override
+    public void start() {
+        portal.resumeStreaming();
+    }
+
+    @Override
+    public void stop() {
+        portal.stopStreaming();
+    }
+
+    /**
+     * The processor has no pipelines; the index is only echoed back in each frame
+     */
+    @Override
+    public void pipelineSwitch(int index) {
+        pipelineIndex = index;
+    }
+
+    @Override
+    public boolean readLatest(VisionFrame frame) {
+        // Null until the processor has finished another camera frame
+        List<AprilTagDetection> detections = aprilTag.getFreshDetections();
+        if (detections != null) {
+            currentValid = captureFrame(detections);
+        }
+        if (!currentValid) {
+            return false;
+        }
+        frame.copyFrom(currentFrame);
+        return true;
+    }
+
+    private boolean captureFrame(List<AprilTagDetection> detections) {
+        int count = 0;
+        long captureTimeNanos = 0;
+        double closestRange = Double.MAX_VALUE;
+        for (int i = 0; i < detections.size() && count < VisionFrame.MAX_DETECTIONS; i++) {
+            AprilTagDetection detection = detections.get(i);
+            // No robot pose without a field position for the tag
+            if (detection.metadata == null || detection.robotPose == null) {
+                continue;
+            }
+            Position position = detection.robotPose.getPosition();
+            double quality = Math.min(1.0, detection.decisionMargin / GOOD_DECISION_MARGIN);
+            if (detection.hamming > 0) {
+                quality *= BIT_ERROR_QUALITY;
+            }
+            currentFrame.detectionIds[count] = detection.id;
+            currentFrame.detectionX[count] = position.unit.toMeters(position.x);
+            currentFrame.detectionY[count] = position.unit.toMeters(position.y);
+            currentFrame.detectionYaw[count] = detection.robotPose.getOrientation().getYaw(AngleUnit.DEGREES);
+            currentFrame.detectionRange[count] = detection.ftcPose.range;
+            currentFrame.detectionQuality[count] = quality;
+            captureTimeNanos = detection.frameAcquisitionNanoTime;
+
+            // Aim at the closest tag; bearing is positive to the left, tx to the right
+            if (detection.ftcPose.range < closestRange) {
+                closestRange = detection.ftcPose.range;
+                currentFrame.tx = -detection.ftcPose.bearing;
+                currentFrame.ty = detection.ftcPose.elevation;
+            }
+            count++;
+        }
+        if (count == 0) {
+            return false;
+        }
+
+        currentFrame.sequence = ++sequence;
+        currentFrame.pipelineIndex = pipelineIndex;
+        currentFrame.captureTimeNanos = captureTimeNanos;
+        currentFrame.latencyMillis = (System.nanoTime() - captureTimeNanos) / 1e6;
+        currentFrame.ta = 0.0;
+        currentFrame.hasBotPose = false;
+        currentFrame.botPoseTagCount = 0;
+        currentFrame.botPoseTagDistance = 0.0;
+        currentFrame.detectionCount = count;
+        return true;
+    }
+}
@@ -0,0 +1,36 @@
+package org.firstinspires.ftc.teamcode.classes.hardware.ftc;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.BatteryVoltageSensor;
+
+import java.util.List;
+
+/**
+ * BatteryVoltageSensor backed by the hubs' VoltageSensors
+ * With a Control Hub and an Expansion Hub both report the same battery; the lowest reading is used
+ */
+public class FtcBatteryVoltageSensor implements BatteryVoltageSensor {
+
+    private final VoltageSensor[] sensors;
+
+    public FtcBatteryVoltageSensor(HardwareMap hardwareMap) {
+        List<VoltageSensor> allSensors = hardwareMap.getAll(VoltageSensor.class);
+        sensors = allSensors.toArray(new VoltageSensor[0]);
+        assert sensors.length > 0 : "no voltage sensors - check that a hub is configured";
+    }
+
+    @Override
+    public double getVoltage() {
+        double lowest = Double.POSITIVE_INFINITY;
+        for (VoltageSensor sensor : sensors) {
+            double voltage = sensor.getVoltage();
+            // A hub that is not responding reports 0
+            if (voltage > 0.0) {
+                lowest = Math.min(lowest, voltage);
+            }
+        }
+        return lowest == Double.POSITIVE_INFINITY ? 0.0 : lowest;
+    }
+}
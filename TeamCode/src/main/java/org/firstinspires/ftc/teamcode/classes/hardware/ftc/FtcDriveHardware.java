@@ -0,0 +1,106 @@
+package org.firstinspires.ftc.teamcode.classes.hardware.ftc;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.DriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.MotorPowerCache;
+
+/**
+ * DriveHardware backed by the four DcMotors in the robot configuration
+ * Every setPower is a transaction with the hub, so unchanged powers are filtered through a MotorPowerCache
+ */
+public class FtcDriveHardware implements DriveHardware {
+
+    private final DcMotor frontLeftDrive;
+    private final DcMotor backLeftDrive;
+    private final DcMotor frontRightDrive;
+    private final DcMotor backRightDrive;
+
+    private final MotorPowerCache powerCache;
+
+    /**
+     * Look up and configure the drive motors
+     */
+    public FtcDriveHardware(HardwareMap hardwareMap) {
+        this(hardwareMap, MotorPowerCache.DEFAULT_EPSILON);
+    }
+
+    /**
+     * Look up and configure the drive motors, skipping power writes smaller than powerEpsilon
+     * A powerEpsilon of 0 only skips writes of an identical power
+     */
+    public FtcDriveHardware(HardwareMap hardwareMap, double powerEpsilon) {
+        powerCache = new MotorPowerCache(MOTOR_COUNT, powerEpsilon);
+
+        frontLeftDrive = hardwareMap.get(DcMotor.class, "fL");
+        backLeftDrive = hardwareMap.get(DcMotor.class, "bL");
+        frontRightDrive = hardwareMap.get(DcMotor.class, "fR");
+        backRightDrive = hardwareMap.get(DcMotor.class, "bR");
+
+        // Validate motor configuration
+        validateMotors();
+
+        // Set motor directions
+        frontLeftDrive.setDirection(DcMotor.Direction.REVERSE);
+        backLeftDrive.setDirection(DcMotor.Direction.REVERSE);
+        frontRightDrive.setDirection(DcMotor.Direction.FORWARD);
+        backRightDrive.setDirection(DcMotor.Direction.FORWARD);
+    }
+
+    /**
+     * Validate that all motors are properly configured
+     */
+    private void validateMotors() {
+        assert frontLeftDrive != null : "frontLeftDrive is null - check robot config name 'fL'";
+        assert backLeftDrive != null : "backLeftDrive is null - check robot config name 'bL'";
+        assert frontRightDrive != null : "frontRightDrive is null - check robot config name 'fR'";
+        assert backRightDrive != null : "backRightDrive is null - check robot config name 'bR'";
+    }
+
+    @Override
+    public void setPowers(double frontLeftPower, double frontRightPower,
+                          double backLeftPower, double backRightPower) {
+        if (powerCache.update(FRONT_LEFT, frontLeftPower)) {
+            frontLeftDrive.setPower(frontLeftPower);
+        }
+        if (powerCache.update(FRONT_RIGHT, frontRightPower)) {
+            frontRightDrive.setPower(frontRightPower);
+        }
+        if (powerCache.update(BACK_LEFT, backLeftPower)) {
+            backLeftDrive.setPower(backLeftPower);
+        }
+        if (powerCache.update(BACK_RIGHT, backRightPower)) {
+            backRightDrive.setPower(backRightPower);
+        }
+    }
+
+    /**
+     * Power last written to the motor, tracked locally instead of read back over the bus
+     */
+    @Override
+    public double getPower(int motor) {
+        return powerCache.getWrittenPower(motor);
+    }
+
+    /**
+     * Encoder position, served from the hub's bulk read cache when MANUAL caching is enabled
+     */
+    @Override
+    public int getCurrentPosition(int motor) {
+        switch (motor) {
+            case FRONT_LEFT: return frontLeftDrive.getCurrentPosition();
+            case FRONT_RIGHT: return frontRightDrive.getCurrentPosition();
+            case BACK_LEFT: return backLeftDrive.getCurrentPosition();
+            case BACK_RIGHT: return backRightDrive.getCurrentPosition();
+            default: throw new IllegalArgumentException("unknown drive motor " + motor);
+        }
+    }
+
+    /**
+     * Issued/skipped write counters for telemetry
+     */
+    public MotorPowerCache getPowerCache() {
+        return powerCache;
+    }
+}
@@ -0,0 +1,43 @@
+package org.firstinspires.ftc.teamcode.classes.hardware.ftc;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.classes.hardware.BatchedTelemetry;
+import org.firstinspires.ftc.teamcode.classes.hardware.TelemetrySink;
+
+/**
+ * TelemetrySink that forwards to the OpMode's Telemetry
+ */
+public class FtcTelemetrySink implements TelemetrySink {
+
+    private final Telemetry telemetry;
+
+    public FtcTelemetrySink(Telemetry telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    /**
+     * A BatchedTelemetry that sends to the OpMode's Telemetry at the SDK's transmission interval
+     * The SDK's own interval is turned off, since the batch only updates when it is time to send anyway
+     * and would otherwise be dropped whenever the two clocks disagree.
+     */
+    public static BatchedTelemetry batched(Telemetry telemetry) {
+        int intervalMillis = telemetry.getMsTransmissionInterval();
+        telemetry.setMsTransmissionInterval(0);
+        return new BatchedTelemetry(new FtcTelemetrySink(telemetry), intervalMillis);
+    }
+
+    @Override
+    public void addData(String caption, String format, Object... args) {
+        telemetry.addData(caption, format, args);
+    }
+
+    @Override
+    public void addData(String caption, Object value) {
+        telemetry.addData(caption, value);
+    }
+
+    @Override
+    public void update() {
+        telemetry.update();
+    }
+}
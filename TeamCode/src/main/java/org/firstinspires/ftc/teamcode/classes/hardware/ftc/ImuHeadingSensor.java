@@ -0,0 +1,40 @@
+package org.firstinspires.ftc.teamcode.classes.hardware.ftc;
+
+import com.qualcomm.hardware.rev.RevHubOrientationOnRobot;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.IMU;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.teamcode.classes.hardware.HeadingSensor;
+
+/**
+ * HeadingSensor backed by the Control Hub IMU
+ */
+public class ImuHeadingSensor implements HeadingSensor {
+
+    // Hub mounting; change these to match the robot
+    private static final RevHubOrientationOnRobot.LogoFacingDirection LOGO_DIRECTION =
+            RevHubOrientationOnRobot.LogoFacingDirection.UP;
+    private static final RevHubOrientationOnRobot.UsbFacingDirection USB_DIRECTION =
+            RevHubOrientationOnRobot.UsbFacingDirection.FORWARD;
+
+    private final IMU imu;
+
+    /**
+     * Look up and initialize the IMU with the given configuration name
+     */
+    public ImuHeadingSensor(HardwareMap hardwareMap, String imuName) {
+        imu = hardwareMap.get(IMU.class, imuName);
+        assert imu != null : "imu is null - check robot config name '" + imuName + "'";
+        imu.initialize(new IMU.Parameters(new RevHubOrientationOnRobot(LOGO_DIRECTION, USB_DIRECTION)));
+        imu.resetYaw();
+    }
+
+    /**
+     * Yaw from the IMU (counter-clockwise positive), read over I2C on every call
+     */
+    @Override
+    public double getHeading() {
+        return imu.getRobotYawPitchRollAngles().getYaw(AngleUnit.RADIANS);
+    }
+}
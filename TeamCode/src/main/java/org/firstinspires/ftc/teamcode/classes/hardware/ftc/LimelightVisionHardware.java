@@ -0,0 +1,98 @@
+package org.firstinspires.ftc.teamcode.classes.hardware.ftc;
+
+import com.qualcomm.hardware.limelightvision.LLResult;
+import com.qualcomm.hardware.limelightvision.Limelight3A;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.robotcore.external.navigation.Pose3D;
+import org.firstinspires.ftc.robotcore.external.navigation.Position;
+import org.firstinspires.ftc.robotcore.external.navigation.YawPitchRollAngles;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionHardware;
+
+/**
+ * VisionHardware backed by a Limelight3A
+ */
+public class LimelightVisionHardware implements VisionHardware {
+
+    private final Limelight3A limelight;
+
+    // Limelight3A hands out the same LLResult instance until a new one arrives
+    private LLResult lastResult = null;
+    private long sequence = 0;
+
+    /**
+     * Look up the Limelight with the given configuration name
+     */
+    public LimelightVisionHardware(HardwareMap hardwareMap, String limelightName) {
+        limelight = hardwareMap.get(Limelight3A.class, limelightName);
+        assert limelight != null : "limelight is null - check robot config name '" + limelightName + "'";
+    }
+
+    @Override
+    public void start() {
+        limelight.start();
+    }
+
+    @Override
+    public void stop() {
+        limelight.stop();
+    }
+
+    @Override
+    public void pipelineSwitch(int index) {
+        limelight.pipelineSwitch(index);
+    }
+
+    @Override
+    public boolean readLatest(VisionFrame frame) {
+        LLResult result = limelight.getLatestResult();
+        if (result == null || !result.isValid()) {
+            return false;
+        }
+
+        if (result != lastResult) {
+            lastResult = result;
+            sequence++;
+        }
+
+        frame.sequence = sequence;
+        frame.pipelineIndex = result.getPipelineIndex();
+
+        // Staleness is how long ago the hub received the result; the latencies come before that
+        frame.latencyMillis = result.getCaptureLatency() + result.getTargetingLatency() + result.getParseLatency();
+        double ageMillis = result.getStaleness() + frame.latencyMillis;
+        frame.captureTimeNanos = System.nanoTime() - (long) (ageMillis * 1e6);
+        frame.tx = result.getTx();
+        frame.ty = result.getTy();
+        frame.ta = result.getTa();
+
+        Pose3D botPose = result.getBotpose();
+        frame.hasBotPose = botPose != null;
+        if (botPose != null) {
+            Position position = botPose.getPosition();
+            YawPitchRollAngles orientation = botPose.getOrientation();
+            frame.botPoseX = position.x;
+            frame.botPoseY = position.y;
+            frame.botPoseZ = position.z;
+            frame.botPoseRoll = orientation.getRoll();
+            frame.botPosePitch = orientation.getPitch();
+            frame.botPoseYaw = orientation.getYaw();
+            frame.botPoseTagCount = result.getBotposeTagCount();
+            frame.botPoseTagDistance = result.getBotposeAvgDist();
+        } else {
+            // The frame is reused, so clear the previous result's pose rather than let it reach the log
+            frame.botPoseX = 0.0;
+            frame.botPoseY = 0.0;
+            frame.botPoseZ = 0.0;
+            frame.botPoseRoll = 0.0;
+            frame.botPosePitch = 0.0;
+            frame.botPoseYaw = 0.0;
+            frame.botPoseTagCount = 0;
+            frame.botPoseTagDistance = 0.0;
+        }
+        // The botpose already combines every tag in view
+        frame.detectionCount = 0;
+        return true;
+    }
+}
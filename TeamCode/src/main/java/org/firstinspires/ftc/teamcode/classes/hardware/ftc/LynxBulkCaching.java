@@ -0,0 +1,49 @@
+package org.firstinspires.ftc.teamcode.classes.hardware.ftc;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.HardwareCycle;
+
+import java.util.List;
+
+/**
+ * Puts every Control/Expansion Hub in MANUAL bulk caching mode and clears the caches once per cycle
+ * All encoder, velocity and current reads in a cycle are then served by a single bulk read per hub
+ * (see ConceptMotorBulkRead for the cycle time difference)
+ */
+public class LynxBulkCaching implements HardwareCycle.Listener {
+
+    private final LynxModule[] hubs;
+
+    public LynxBulkCaching(HardwareMap hardwareMap) {
+        List<LynxModule> allHubs = hardwareMap.getAll(LynxModule.class);
+        hubs = allHubs.toArray(new LynxModule[0]);
+        for (LynxModule hub : hubs) {
+            hub.setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
+        }
+    }
+
+    @Override
+    public void onCycleStart(long cycle, long cycleStartNanos) {
+        for (LynxModule hub : hubs) {
+            hub.clearBulkCache();
+        }
+    }
+
+    /**
+     * Number of hubs being managed
+     */
+    public int getHubCount() {
+        return hubs.length;
+    }
+
+    /**
+     * Create a HardwareCycle that keeps all hubs' bulk caches fresh
+     */
+    public static HardwareCycle createCycle(HardwareMap hardwareMap) {
+        HardwareCycle cycle = new HardwareCycle();
+        cycle.addListener(new LynxBulkCaching(hardwareMap));
+        return cycle;
+    }
+}
@@ -0,0 +1,87 @@
+package org.firstinspires.ftc.teamcode.classes.hardware.ftc;
+
+import com.qualcomm.hardware.digitalchickenlabs.OctoQuad;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.teamcode.classes.localization.Localizer;
+import org.firstinspires.ftc.teamcode.classes.localization.LocalizerState;
+
+/**
+ * Localizer backed by an OctoQuad running its absolute localizer on two dead wheels and its IMU
+ * update() is one I2C read of the localizer data block into a block allocated once here. A packet that
+ * fails its CRC is dropped and the previous pose kept. The OctoQuad reports velocity in the field frame.
+ */
+public class OctoQuadLocalizer implements Localizer {
+
+    // Pod setup; change these to match the robot (see SensorOctoQuadLocalization)
+    private static final int X_POD_PORT = 0;
+    private static final int Y_POD_PORT = 1;
+    private static final OctoQuad.EncoderDirection X_POD_DIRECTION = OctoQuad.EncoderDirection.FORWARD;
+    private static final OctoQuad.EncoderDirection Y_POD_DIRECTION = OctoQuad.EncoderDirection.REVERSE;
+    private static final float IMU_HEADING_SCALAR = 1.0f;
+    private static final int VELOCITY_INTERVAL_MS = 25;
+
+    private final OctoQuad octoQuad;
+    private final OctoQuad.LocalizerDataBlock data = new OctoQuad.LocalizerDataBlock();
+    private final LocalizerState state = new LocalizerState();
+    private boolean ready = false;
+    private long badPackets = 0;
+
+    /**
+     * Look up and configure the OctoQuad, then reset its localizer and calibrate its IMU (keep the robot still)
+     * The tracking point offsets are in millimeters, as in the OctoQuad quick start guide
+     */
+    public OctoQuadLocalizer(HardwareMap hardwareMap, String octoQuadName, float ticksPerMm,
+                             float trackingOffsetX, float trackingOffsetY) {
+        octoQuad = hardwareMap.get(OctoQuad.class, octoQuadName);
+        assert octoQuad != null : "octoQuad is null - check robot config name '" + octoQuadName + "'";
+        octoQuad.setSingleEncoderDirection(X_POD_PORT, X_POD_DIRECTION);
+        octoQuad.setSingleEncoderDirection(Y_POD_PORT, Y_POD_DIRECTION);
+        octoQuad.setLocalizerPortX(X_POD_PORT);
+        octoQuad.setLocalizerPortY(Y_POD_PORT);
+        octoQuad.setLocalizerCountsPerMM_X(ticksPerMm);
+        octoQuad.setLocalizerCountsPerMM_Y(ticksPerMm);
+        octoQuad.setLocalizerTcpOffsetMM_X(trackingOffsetX);
+        octoQuad.setLocalizerTcpOffsetMM_Y(trackingOffsetY);
+        octoQuad.setLocalizerImuHeadingScalar(IMU_HEADING_SCALAR);
+        octoQuad.setLocalizerVelocityIntervalMS(VELOCITY_INTERVAL_MS);
+        octoQuad.setI2cRecoveryMode(OctoQuad.I2cRecoveryMode.MODE_1_PERIPH_RST_ON_FRAME_ERR);
+        // Applies the settings above
+        octoQuad.resetLocalizerAndCalibrateIMU();
+    }
+
+    @Override
+    public void update(long nowNanos) {
+        octoQuad.readLocalizerData(data);
+        if (!data.crcOk) {
+            badPackets++;
+            state.hold();
+            return;
+        }
+        ready = data.localizerStatus == OctoQuad.LocalizerStatus.RUNNING;
+        state.set(data.posX_mm / 1e3, data.posY_mm / 1e3, data.heading_rad,
+                data.velX_mmS / 1e3, data.velY_mmS / 1e3, data.velHeading_radS);
+    }
+
+    @Override
+    public void setPose(double x, double y, double heading) {
+        octoQuad.setLocalizerPose((int) Math.round(x * 1e3), (int) Math.round(y * 1e3), (float) heading);
+        state.reset(x, y, heading);
+    }
+
+    /**
+     * Packets dropped for a bad CRC
+     */
+    public long getBadPackets() { return badPackets; }
+
+    public boolean isReady() { return ready; }
+    public double getX() { return state.x; }
+    public double getY() { return state.y; }
+    public double getHeading() { return state.heading; }
+    public double getVelocityX() { return state.velocityX; }
+    public double getVelocityY() { return state.velocityY; }
+    public double getHeadingVelocity() { return state.headingVelocity; }
+    public double getDeltaForward() { return state.deltaForward; }
+    public double getDeltaLeft() { return state.deltaLeft; }
+    public double getDeltaHeading() { return state.deltaHeading; }
+}
@@ -0,0 +1,76 @@
+package org.firstinspires.ftc.teamcode.classes.hardware.ftc;
+
+import com.qualcomm.hardware.gobilda.GoBildaPinpointDriver;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.Pose2D;
+import org.firstinspires.ftc.robotcore.external.navigation.UnnormalizedAngleUnit;
+import org.firstinspires.ftc.teamcode.classes.localization.Localizer;
+import org.firstinspires.ftc.teamcode.classes.localization.LocalizerState;
+
+/**
+ * Localizer backed by a goBILDA Pinpoint odometry computer, which integrates two dead wheels and its own IMU
+ * update() is one I2C read of every Pinpoint register; the pose and velocity are then taken out through the
+ * unit getters rather than getPosition(), which would allocate a Pose2D every loop. The Pinpoint reports
+ * velocity in the field frame.
+ */
+public class PinpointLocalizer implements Localizer {
+
+    // Pod setup; change these to match the robot (see SensorGoBildaPinpoint)
+    private static final GoBildaPinpointDriver.GoBildaOdometryPods POD_TYPE =
+            GoBildaPinpointDriver.GoBildaOdometryPods.goBILDA_4_BAR_POD;
+    private static final GoBildaPinpointDriver.EncoderDirection X_POD_DIRECTION =
+            GoBildaPinpointDriver.EncoderDirection.FORWARD;
+    private static final GoBildaPinpointDriver.EncoderDirection Y_POD_DIRECTION =
+            GoBildaPinpointDriver.EncoderDirection.FORWARD;
+
+    private final GoBildaPinpointDriver pinpoint;
+    private final LocalizerState state = new LocalizerState();
+    private boolean ready = false;
+
+    /**
+     * Look up and configure the Pinpoint, then reset its pose and recalibrate its IMU (keep the robot still)
+     * xPodOffset is how far left of the tracking point the forward pod is, yPodOffset how far forward of it
+     * the strafe pod is, in millimeters
+     */
+    public PinpointLocalizer(HardwareMap hardwareMap, String pinpointName, double xPodOffset, double yPodOffset) {
+        pinpoint = hardwareMap.get(GoBildaPinpointDriver.class, pinpointName);
+        assert pinpoint != null : "pinpoint is null - check robot config name '" + pinpointName + "'";
+        pinpoint.setOffsets(xPodOffset, yPodOffset, DistanceUnit.MM);
+        pinpoint.setEncoderResolution(POD_TYPE);
+        pinpoint.setEncoderDirections(X_POD_DIRECTION, Y_POD_DIRECTION);
+        pinpoint.resetPosAndIMU();
+    }
+
+    @Override
+    public void update(long nowNanos) {
+        pinpoint.update();
+        ready = pinpoint.getDeviceStatus() == GoBildaPinpointDriver.DeviceStatus.READY;
+        state.set(pinpoint.getPosX(DistanceUnit.METER), pinpoint.getPosY(DistanceUnit.METER),
+                pinpoint.getHeading(AngleUnit.RADIANS),
+                pinpoint.getVelX(DistanceUnit.METER), pinpoint.getVelY(DistanceUnit.METER),
+                pinpoint.getHeadingVelocity(UnnormalizedAngleUnit.RADIANS));
+    }
+
+    /**
+     * Write a new pose to the Pinpoint; allocates, so only call it on a reset, not every loop
+     */
+    @Override
+    public void setPose(double x, double y, double heading) {
+        pinpoint.setPosition(new Pose2D(DistanceUnit.METER, x, y, AngleUnit.RADIANS, heading));
+        state.reset(x, y, heading);
+    }
+
+    public boolean isReady() { return ready; }
+    public double getX() { return state.x; }
+    public double getY() { return state.y; }
+    public double getHeading() { return state.heading; }
+    public double getVelocityX() { return state.velocityX; }
+    public double getVelocityY() { return state.velocityY; }
+    public double getHeadingVelocity() { return state.headingVelocity; }
+    public double getDeltaForward() { return state.deltaForward; }
+    public double getDeltaLeft() { return state.deltaLeft; }
+    public double getDeltaHeading() { return state.deltaHeading; }
+}
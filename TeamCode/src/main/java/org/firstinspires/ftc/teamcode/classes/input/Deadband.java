@@ -0,0 +1,28 @@
+package org.firstinspires.ftc.teamcode.classes.input;
+
+/**
+ * Zeroes small stick values and rescales the rest so the output still starts at 0 and reaches 1
+ */
+public class Deadband implements InputStage {
+
+    private final double threshold;
+
+    public Deadband(double threshold) {
+        if (threshold < 0.0 || threshold >= 1.0) {
+            throw new IllegalArgumentException("deadband must be in [0, 1), got " + threshold);
+        }
+        this.threshold = threshold;
+    }
+
+    @Override
+    public double apply(double value, double dtSeconds) {
+        double magnitude = Math.abs(value);
+        if (magnitude <= threshold) {
+            return 0.0;
+        }
+        return Math.signum(value) * Math.min(1.0, (magnitude - threshold) / (1.0 - threshold));
+    }
+
+    @Override
+    public void reset() {}
+}
@@ -0,0 +1,115 @@
+package org.firstinspires.ftc.teamcode.classes.input;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.TelemetrySink;
+
+/**
+ * Shapes the three drive stick axes before they reach Robot.driveWithGamepad
+ * Each axis runs deadband, expo, precision scaling and then slew-rate limiting, so switching precision
+ * mode on or off ramps smoothly instead of jumping.
+ */
+public class DriveInputShaper {
+
+    // Defaults
+    private static final double STICK_DEADBAND = 0.05;
+    private static final double TRANSLATION_EXPO = 0.3;
+    private static final double YAW_EXPO = 0.5;
+    private static final double TRANSLATION_INCREASE_RATE = 3.0; // full power in a third of a second
+    private static final double TRANSLATION_DECREASE_RATE = 6.0;
+    private static final double YAW_INCREASE_RATE = 4.0;
+    private static final double YAW_DECREASE_RATE = 8.0;
+    public static final double DEFAULT_PRECISION_SCALE = 0.5;
+
+    // Longer gaps (e.g. the first loop) don't count as time to ramp over
+    private static final double MAX_DT = 0.1; // seconds
+
+    private final Scale axialScale = new Scale(1.0);
+    private final Scale lateralScale = new Scale(1.0);
+    private final Scale yawScale = new Scale(1.0);
+    private final InputPipeline axialPipeline;
+    private final InputPipeline lateralPipeline;
+    private final InputPipeline yawPipeline;
+
+    private double precisionScale = DEFAULT_PRECISION_SCALE;
+    private boolean precisionMode = false;
+    private long lastUpdateNanos = 0;
+    private boolean hasLastUpdate = false;
+
+    // Shaped outputs of the last update
+    private double axial = 0.0;
+    private double lateral = 0.0;
+    private double yaw = 0.0;
+
+    /**
+     * Create a shaper with the default deadband, expo and slew rates
+     */
+    public DriveInputShaper() {
+        axialPipeline = new InputPipeline(new Deadband(STICK_DEADBAND), new ExpoCurve(TRANSLATION_EXPO),
+                axialScale, new SlewRateLimiter(TRANSLATION_INCREASE_RATE, TRANSLATION_DECREASE_RATE));
+        lateralPipeline = new InputPipeline(new Deadband(STICK_DEADBAND), new ExpoCurve(TRANSLATION_EXPO),
+                lateralScale, new SlewRateLimiter(TRANSLATION_INCREASE_RATE, TRANSLATION_DECREASE_RATE));
+        yawPipeline = new InputPipeline(new Deadband(STICK_DEADBAND), new ExpoCurve(YAW_EXPO),
+                yawScale, new SlewRateLimiter(YAW_INCREASE_RATE, YAW_DECREASE_RATE));
+    }
+
+    /**
+     * Shape the raw stick values read at nowNanos
+     */
+    public void update(double rawAxial, double rawLateral, double rawYaw, long nowNanos) {
+        double dt = hasLastUpdate ? Math.min((nowNanos - lastUpdateNanos) / 1e9, MAX_DT) : 0.0;
+        lastUpdateNanos = nowNanos;
+        hasLastUpdate = true;
+
+        axial = axialPipeline.apply(rawAxial, dt);
+        lateral = lateralPipeline.apply(rawLateral, dt);
+        yaw = yawPipeline.apply(rawYaw, dt);
+    }
+
+    /**
+     * Switch precision mode, which scales every axis by the precision scale
+     */
+    public void setPrecisionMode(boolean enabled) {
+        precisionMode = enabled;
+        double factor = enabled ? precisionScale : 1.0;
+        axialScale.setFactor(factor);
+        lateralScale.setFactor(factor);
+        yawScale.setFactor(factor);
+    }
+
+    public void togglePrecisionMode() {
+        setPrecisionMode(!precisionMode);
+    }
+
+    /**
+     * Scale applied in precision mode (DEFAULT_PRECISION_SCALE drives at half speed)
+     */
+    public void setPrecisionScale(double precisionScale) {
+        this.precisionScale = precisionScale;
+        setPrecisionMode(precisionMode);
+    }
+
+    /**
+     * Forget the ramps, so the robot starts from rest
+     */
+    public void reset() {
+        axialPipeline.reset();
+        lateralPipeline.reset();
+        yawPipeline.reset();
+        hasLastUpdate = false;
+        axial = 0.0;
+        lateral = 0.0;
+        yaw = 0.0;
+    }
+
+    public double getAxial() { return axial; }
+    public double getLateral() { return lateral; }
+    public double getYaw() { return yaw; }
+    public boolean isPrecisionMode() { return precisionMode; }
+
+    /**
+     * Display input shaping telemetry
+     */
+    public void displayTelemetry(TelemetrySink telemetry) {
+        telemetry.addData("Drive Mode", precisionMode ? "Precision (%.0f%%)" : "Full speed", precisionScale * 100.0);
+        telemetry.addData("Shaped Inputs", "Axial: %.2f, Lateral: %.2f, Yaw: %.2f", axial, lateral, yaw);
+    }
+}
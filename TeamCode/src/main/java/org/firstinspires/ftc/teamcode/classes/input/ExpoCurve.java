@@ -0,0 +1,25 @@
+package org.firstinspires.ftc.teamcode.classes.input;
+
+/**
+ * Blends a linear and a cubic response: finer control near center, full power at the ends
+ * An expo of 0 is linear and 1 is fully cubic
+ */
+public class ExpoCurve implements InputStage {
+
+    private final double expo;
+
+    public ExpoCurve(double expo) {
+        if (expo < 0.0 || expo > 1.0) {
+            throw new IllegalArgumentException("expo must be in [0, 1], got " + expo);
+        }
+        this.expo = expo;
+    }
+
+    @Override
+    public double apply(double value, double dtSeconds) {
+        return (1.0 - expo) * value + expo * value * value * value;
+    }
+
+    @Override
+    public void reset() {}
+}
@@ -0,0 +1,26 @@
+package org.firstinspires.ftc.teamcode.classes.input;
+
+/**
+ * Runs a value through a fixed sequence of InputStages
+ */
+public class InputPipeline {
+
+    private final InputStage[] stages;
+
+    public InputPipeline(InputStage... stages) {
+        this.stages = stages.clone();
+    }
+
+    public double apply(double value, double dtSeconds) {
+        for (InputStage stage : stages) {
+            value = stage.apply(value, dtSeconds);
+        }
+        return value;
+    }
+
+    public void reset() {
+        for (InputStage stage : stages) {
+            stage.reset();
+        }
+    }
+}
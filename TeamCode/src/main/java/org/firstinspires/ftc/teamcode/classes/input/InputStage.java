@@ -0,0 +1,18 @@
+package org.firstinspires.ftc.teamcode.classes.input;
+
+/**
+ * One step of an InputPipeline, e.g. a deadband or a slew-rate limit
+ * Stages may keep state between calls but must not allocate in apply
+ */
+public interface InputStage {
+
+    /**
+     * Shape one value; dtSeconds is the time since the previous call (0 on the first)
+     */
+    double apply(double value, double dtSeconds);
+
+    /**
+     * Forget any state, e.g. when the OpMode starts
+     */
+    void reset();
+}
@@ -0,0 +1,29 @@
+package org.firstinspires.ftc.teamcode.classes.input;
+
+/**
+ * Multiplies by a factor that can be changed at runtime, e.g. for a precision mode
+ */
+public class Scale implements InputStage {
+
+    private double factor;
+
+    public Scale(double factor) {
+        this.factor = factor;
+    }
+
+    @Override
+    public double apply(double value, double dtSeconds) {
+        return value * factor;
+    }
+
+    @Override
+    public void reset() {}
+
+    public void setFactor(double factor) {
+        this.factor = factor;
+    }
+
+    public double getFactor() {
+        return factor;
+    }
+}
@@ -0,0 +1,47 @@
+package org.firstinspires.ftc.teamcode.classes.input;
+
+/**
+ * Limits how fast the output may change, with separate rates for speeding up and slowing down
+ * Ramping up gradually keeps the drive motors from drawing a current spike when a stick is slammed,
+ * while a faster rate toward zero keeps stopping responsive
+ */
+public class SlewRateLimiter implements InputStage {
+
+    private final double increaseRate; // Units per second away from zero
+    private final double decreaseRate; // Units per second toward zero
+
+    private double output = 0.0;
+
+    public SlewRateLimiter(double increaseRate, double decreaseRate) {
+        if (increaseRate <= 0.0 || decreaseRate <= 0.0) {
+            throw new IllegalArgumentException("slew rates must be positive");
+        }
+        this.increaseRate = increaseRate;
+        this.decreaseRate = decreaseRate;
+    }
+
+    @Override
+    public double apply(double value, double dtSeconds) {
+        boolean towardZero = (output > 0.0 && value < output) || (output < 0.0 && value > output);
+        if (towardZero) {
+            // Stop at zero this step; reversing direction then ramps up at the increase rate
+            double target = value * output < 0.0 ? 0.0 : value;
+            output = approach(output, target, decreaseRate * dtSeconds);
+        } else {
+            output = approach(output, value, increaseRate * dtSeconds);
+        }
+        return output;
+    }
+
+    @Override
+    public void reset() {
+        output = 0.0;
+    }
+
+    private static double approach(double from, double to, double maxChange) {
+        if (to > from) {
+            return Math.min(to, from + maxChange);
+        }
+        return Math.max(to, from - maxChange);
+    }
+}
@@ -0,0 +1,50 @@
+package org.firstinspires.ftc.teamcode.classes.localization;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.DriveHardware;
+
+/**
+ * Localizer from the four mecanum drive encoders, for robots without dead wheels
+ * The encoders come with the hub's bulk read, so updating costs no extra hardware access, but wheel slip
+ * and scrub make the pose drift; correct it with PoseEstimator or setPose.
+ */
+public class DriveEncoderLocalizer implements Localizer {
+
+    private final DriveHardware driveHardware;
+    private final MecanumDriveOdometry odometry;
+    private final LocalizerState state = new LocalizerState();
+
+    public DriveEncoderLocalizer(DriveHardware driveHardware, double ticksPerMeter, double wheelLeverArm) {
+        this.driveHardware = driveHardware;
+        this.odometry = new MecanumDriveOdometry(ticksPerMeter, wheelLeverArm);
+    }
+
+    @Override
+    public void update(long nowNanos) {
+        odometry.update(driveHardware);
+        state.integrate(odometry.getDeltaForward(), odometry.getDeltaLeft(), odometry.getDeltaHeading(), nowNanos);
+    }
+
+    @Override
+    public void setPose(double x, double y, double heading) {
+        state.reset(x, y, heading);
+    }
+
+    /**
+     * Forget the last encoder positions, e.g. after the encoders were reset, keeping the pose
+     */
+    public void resetEncoders() {
+        odometry.reset();
+        state.reset(state.x, state.y, state.heading);
+    }
+
+    public boolean isReady() { return true; }
+    public double getX() { return state.x; }
+    public double getY() { return state.y; }
+    public double getHeading() { return state.heading; }
+    public double getVelocityX() { return state.velocityX; }
+    public double getVelocityY() { return state.velocityY; }
+    public double getHeadingVelocity() { return state.headingVelocity; }
+    public double getDeltaForward() { return state.deltaForward; }
+    public double getDeltaLeft() { return state.deltaLeft; }
+    public double getDeltaHeading() { return state.deltaHeading; }
+}
@@ -0,0 +1,94 @@
+package org.firstinspires.ftc.teamcode.classes.localization;
+
+import org.firstinspires.ftc.teamcode.classes.Angles;
+import org.firstinspires.ftc.teamcode.classes.hardware.HeadingSensor;
+import org.firstinspires.ftc.teamcode.classes.hardware.TelemetrySink;
+
+/**
+ * Robot heading for field-centric driving without reading the IMU every loop
+ * Between IMU reads the heading follows the drive encoders' yaw (MecanumDriveOdometry.getDeltaHeading),
+ * which comes free with the bulk read. Every IMU period the heading is re-anchored to the IMU, so encoder
+ * drift (wheel slip, scrub) never builds up for longer than one period.
+ */
+public class HeadingTracker {
+
+    public static final long DEFAULT_IMU_PERIOD_NANOS = 100_000_000L; // 10 Hz
+
+    private final HeadingSensor headingSensor;
+    private final long imuPeriodNanos;
+
+    // heading = IMU heading + offset, so resetHeading doesn't need to touch the IMU itself
+    private double offset = 0.0;
+    private double heading = 0.0;
+    private long lastImuReadNanos = 0;
+    private boolean hasImuRead = false;
+
+    // Diagnostics
+    private long imuReads = 0;
+    private long encoderUpdates = 0;
+    private double lastCorrection = 0.0; // radians the encoder heading was off at the last IMU read
+
+    public HeadingTracker(HeadingSensor headingSensor) {
+        this(headingSensor, DEFAULT_IMU_PERIOD_NANOS);
+    }
+
+    /**
+     * Read the IMU at most once every imuPeriodNanos
+     */
+    public HeadingTracker(HeadingSensor headingSensor, long imuPeriodNanos) {
+        if (imuPeriodNanos < 0) {
+            throw new IllegalArgumentException("imuPeriodNanos must not be negative");
+        }
+        this.headingSensor = headingSensor;
+        this.imuPeriodNanos = imuPeriodNanos;
+    }
+
+    /**
+     * Advance the heading by the encoder yaw since the last loop, reading the IMU instead when it is due
+     * encoderDeltaHeading is in radians, counter-clockwise positive
+     */
+    public void update(double encoderDeltaHeading, long nowNanos) {
+        if (!hasImuRead || nowNanos - lastImuReadNanos >= imuPeriodNanos) {
+            double predicted = Angles.normalizeRadians(heading + encoderDeltaHeading);
+            readImu(nowNanos);
+            lastCorrection = Angles.normalizeRadians(heading - predicted);
+        } else {
+            heading = Angles.normalizeRadians(heading + encoderDeltaHeading);
+            encoderUpdates++;
+        }
+    }
+
+    /**
+     * Declare the current heading (e.g. 0 when the driver lines the robot up with the field)
+     * Reads the IMU immediately
+     */
+    public void resetHeading(double heading, long nowNanos) {
+        offset = 0.0;
+        readImu(nowNanos);
+        offset = Angles.normalizeRadians(heading - this.heading);
+        this.heading = Angles.normalizeRadians(heading);
+        lastCorrection = 0.0;
+    }
+
+    private void readImu(long nowNanos) {
+        heading = Angles.normalizeRadians(headingSensor.getHeading() + offset);
+        lastImuReadNanos = nowNanos;
+        hasImuRead = true;
+        imuReads++;
+    }
+
+    public double getHeading() { return heading; }
+    public double getHeadingDegrees() { return Math.toDegrees(heading); }
+    public long getImuReads() { return imuReads; }
+    public long getEncoderUpdates() { return encoderUpdates; }
+    public double getLastCorrectionDegrees() { return Math.toDegrees(lastCorrection); }
+
+    /**
+     * Display heading telemetry
+     */
+    public void displayTelemetry(TelemetrySink telemetry) {
+        telemetry.addData("Heading", "%.1f deg (encoder drift %.2f deg)",
+                getHeadingDegrees(), getLastCorrectionDegrees());
+        telemetry.addData("Heading Updates", "%d IMU, %d encoder", imuReads, encoderUpdates);
+    }
+}
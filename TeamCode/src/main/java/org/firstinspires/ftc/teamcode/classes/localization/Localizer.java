@@ -0,0 +1,39 @@
+package org.firstinspires.ftc.teamcode.classes.localization;
+
+/**
+ * Field pose and velocity from an odometry source, read once per loop cycle
+ * Implementations keep their results in primitive fields that update() overwrites, so reading the pose
+ * never allocates.
+ * Field frame: X forward, Y left, heading counter-clockwise positive (meters and radians)
+ */
+public interface Localizer {
+
+    /**
+     * Read the source once for this cycle; call after HardwareCycle.startCycle()
+     */
+    void update(long nowNanos);
+
+    /**
+     * Move the pose to a known position, e.g. the starting position or a vision fix
+     */
+    void setPose(double x, double y, double heading);
+
+    /**
+     * Whether the source is calibrated and reporting
+     */
+    boolean isReady();
+
+    double getX();
+    double getY();
+    double getHeading();
+
+    // Field-frame velocity (meters/second) and turn rate (radians/second)
+    double getVelocityX();
+    double getVelocityY();
+    double getHeadingVelocity();
+
+    // Robot-frame motion since the previous update (forward, left, counter-clockwise), as PoseEstimator takes it
+    double getDeltaForward();
+    double getDeltaLeft();
+    double getDeltaHeading();
+}
@@ -0,0 +1,133 @@
+package org.firstinspires.ftc.teamcode.classes.localization;
+
+import org.firstinspires.ftc.teamcode.classes.Angles;
+
+/**
+ * Pose, velocity and per-update motion behind the Localizer implementations
+ * Sources that report an absolute pose (Pinpoint, OctoQuad) call set() and get the robot-frame motion worked
+ * out here; sources that report motion (drive encoders) call integrate() and get the pose and velocity.
+ * Everything is overwritten in place.
+ */
+public class LocalizerState {
+
+    // A reported pose this far from the previous one is a pose reset taking effect, not motion
+    private static final double MAX_STEP_DISTANCE = 0.25; // meters
+    private static final double MAX_STEP_HEADING = Math.toRadians(45);
+
+    // Smoothing for velocities differentiated from motion, to hide encoder tick quantization
+    private static final double VELOCITY_TIME_CONSTANT = 0.025; // seconds
+
+    public double x = 0.0;
+    public double y = 0.0;
+    public double heading = 0.0;
+    public double velocityX = 0.0;
+    public double velocityY = 0.0;
+    public double headingVelocity = 0.0;
+    public double deltaForward = 0.0;
+    public double deltaLeft = 0.0;
+    public double deltaHeading = 0.0;
+
+    private boolean hasPose = false;
+    private long lastUpdateNanos = 0;
+    private boolean hasLastUpdate = false;
+
+    /**
+     * Take a reported pose and velocity, working out the robot-frame motion since the last report
+     */
+    public void set(double x, double y, double heading,
+                    double velocityX, double velocityY, double headingVelocity) {
+        double stepX = x - this.x;
+        double stepY = y - this.y;
+        double stepHeading = Angles.normalizeRadians(heading - this.heading);
+        if (hasPose && stepX * stepX + stepY * stepY <= MAX_STEP_DISTANCE * MAX_STEP_DISTANCE
+                && Math.abs(stepHeading) <= MAX_STEP_HEADING) {
+            // Rotate the field-frame step into the robot frame at the midpoint heading
+            double midHeading = this.heading + stepHeading / 2.0;
+            double cos = Math.cos(midHeading);
+            double sin = Math.sin(midHeading);
+            deltaForward = stepX * cos + stepY * sin;
+            deltaLeft = -stepX * sin + stepY * cos;
+            deltaHeading = stepHeading;
+        } else {
+            clearDeltas();
+        }
+
+        this.x = x;
+        this.y = y;
+        this.heading = Angles.normalizeRadians(heading);
+        this.velocityX = velocityX;
+        this.velocityY = velocityY;
+        this.headingVelocity = headingVelocity;
+        hasPose = true;
+    }
+
+    /**
+     * Move the pose by robot-frame motion, estimating the velocity from it
+     */
+    public void integrate(double deltaForward, double deltaLeft, double deltaHeading, long nowNanos) {
+        // Integrate along the arc with the midpoint heading
+        double midHeading = heading + deltaHeading / 2.0;
+        double cos = Math.cos(midHeading);
+        double sin = Math.sin(midHeading);
+        double stepX = deltaForward * cos - deltaLeft * sin;
+        double stepY = deltaForward * sin + deltaLeft * cos;
+        x += stepX;
+        y += stepY;
+        heading = Angles.normalizeRadians(heading + deltaHeading);
+        this.deltaForward = deltaForward;
+        this.deltaLeft = deltaLeft;
+        this.deltaHeading = deltaHeading;
+
+        double dt = (nowNanos - lastUpdateNanos) / 1e9;
+        if (hasLastUpdate && dt > 0.0) {
+            double alpha = dt / (VELOCITY_TIME_CONSTANT + dt);
+            velocityX += alpha * (stepX / dt - velocityX);
+            velocityY += alpha * (stepY / dt - velocityY);
+            headingVelocity += alpha * (deltaHeading / dt - headingVelocity);
+        }
+        lastUpdateNanos = nowNanos;
+        hasLastUpdate = true;
+        hasPose = true;
+    }
+
+    /**
+     * Jump to a pose without counting it as motion
+     */
+    public void reset(double x, double y, double heading) {
+        this.x = x;
+        this.y = y;
+        this.heading = Angles.normalizeRadians(heading);
+        velocityX = 0.0;
+        velocityY = 0.0;
+        headingVelocity = 0.0;
+        clearDeltas();
+        hasLastUpdate = false;
+    }
+
+    /**
+     * No new reading this cycle: keep the pose and report no motion
+     */
+    public void hold() {
+        clearDeltas();
+    }
+
+    /**
+     * Velocity along the robot's forward axis (meters/second)
+     */
+    public double getForwardVelocity() {
+        return velocityX * Math.cos(heading) + velocityY * Math.sin(heading);
+    }
+
+    /**
+     * Velocity along the robot's left axis (meters/second)
+     */
+    public double getLeftVelocity() {
+        return -velocityX * Math.sin(heading) + velocityY * Math.cos(heading);
+    }
+
+    private void clearDeltas() {
+        deltaForward = 0.0;
+        deltaLeft = 0.0;
+        deltaHeading = 0.0;
+    }
+}
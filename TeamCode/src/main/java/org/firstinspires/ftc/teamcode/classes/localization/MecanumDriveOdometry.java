@@ -0,0 +1,76 @@
+package org.firstinspires.ftc.teamcode.classes.localization;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.DriveHardware;
+
+/**
+ * Turns the four mecanum drive encoders into per-loop robot-frame motion
+ * Robot frame: forward, left, counter-clockwise positive (meters and radians)
+ */
+public class MecanumDriveOdometry {
+
+    private final double ticksPerMeter;
+    private final double wheelLeverArm; // (track width + wheel base) / 2, meters
+
+    private final int[] lastPositions = new int[DriveHardware.MOTOR_COUNT];
+    private boolean hasLastPositions = false;
+
+    // Motion since the previous update
+    private double deltaForward = 0.0;
+    private double deltaLeft = 0.0;
+    private double deltaHeading = 0.0;
+
+    public MecanumDriveOdometry(double ticksPerMeter, double wheelLeverArm) {
+        if (ticksPerMeter <= 0.0 || wheelLeverArm <= 0.0) {
+            throw new IllegalArgumentException("ticksPerMeter and wheelLeverArm must be positive");
+        }
+        this.ticksPerMeter = ticksPerMeter;
+        this.wheelLeverArm = wheelLeverArm;
+    }
+
+    /**
+     * Read the encoders and compute the motion since the previous update
+     * The first update after construction or reset only records the starting positions
+     */
+    public void update(DriveHardware driveHardware) {
+        int frontLeft = driveHardware.getCurrentPosition(DriveHardware.FRONT_LEFT);
+        int frontRight = driveHardware.getCurrentPosition(DriveHardware.FRONT_RIGHT);
+        int backLeft = driveHardware.getCurrentPosition(DriveHardware.BACK_LEFT);
+        int backRight = driveHardware.getCurrentPosition(DriveHardware.BACK_RIGHT);
+
+        if (hasLastPositions) {
+            double dFrontLeft = (frontLeft - lastPositions[DriveHardware.FRONT_LEFT]) / ticksPerMeter;
+            double dFrontRight = (frontRight - lastPositions[DriveHardware.FRONT_RIGHT]) / ticksPerMeter;
+            double dBackLeft = (backLeft - lastPositions[DriveHardware.BACK_LEFT]) / ticksPerMeter;
+            double dBackRight = (backRight - lastPositions[DriveHardware.BACK_RIGHT]) / ticksPerMeter;
+
+            // Invert the mixing in Robot.drive (lateral right positive, yaw clockwise positive)
+            deltaForward = (dFrontLeft + dFrontRight + dBackLeft + dBackRight) / 4.0;
+            deltaLeft = -(dFrontLeft - dFrontRight - dBackLeft + dBackRight) / 4.0;
+            deltaHeading = -(dFrontLeft - dFrontRight + dBackLeft - dBackRight) / (4.0 * wheelLeverArm);
+        } else {
+            deltaForward = 0.0;
+            deltaLeft = 0.0;
+            deltaHeading = 0.0;
+            hasLastPositions = true;
+        }
+
+        lastPositions[DriveHardware.FRONT_LEFT] = frontLeft;
+        lastPositions[DriveHardware.FRONT_RIGHT] = frontRight;
+        lastPositions[DriveHardware.BACK_LEFT] = backLeft;
+        lastPositions[DriveHardware.BACK_RIGHT] = backRight;
+    }
+
+    /**
+     * Forget the last encoder positions, e.g. after the encoders were reset
+     */
+    public void reset() {
+        hasLastPositions = false;
+        deltaForward = 0.0;
+        deltaLeft = 0.0;
+        deltaHeading = 0.0;
+    }
+
+    public double getDeltaForward() { return deltaForward; }
+    public double getDeltaLeft() { return deltaLeft; }
+    public double getDeltaHeading() { return deltaHeading; }
+}
@@ -0,0 +1,378 @@
+package org.firstinspires.ftc.teamcode.classes.localization;
+
+import org.firstinspires.ftc.teamcode.classes.Angles;
+import org.firstinspires.ftc.teamcode.classes.hardware.TelemetrySink;
+
+/**
+ * Extended Kalman filter over the field pose (x, y, heading)
+ * Predicts every loop from odometry deltas and corrects with Limelight botpose (and optionally IMU yaw)
+ * whenever a measurement arrives, so the pose keeps moving smoothly through vision dropouts.
+ * The 3x3 covariance is kept in six scalar fields and every update is a fixed amount of arithmetic;
+ * nothing here allocates after construction.
+ * Field frame: X forward, Y left, heading counter-clockwise positive (radians)
+ */
+public class PoseEstimator {
+
+    // Odometry noise, added as the robot moves (variance grows linearly with distance)
+    private static final double TRANSLATION_VARIANCE_PER_METER = 0.01; // m^2 per meter driven
+    private static final double HEADING_VARIANCE_PER_RADIAN = 0.0025; // rad^2 per radian turned
+    private static final double HEADING_VARIANCE_PER_METER = 0.0004; // rad^2 per meter driven
+
+    // Default measurement noise
+    private static final double DEFAULT_VISION_POSITION_STD = 0.05; // meters
+    private static final double DEFAULT_VISION_HEADING_STD = Math.toRadians(3.0);
+
+    // Measurements further than this from the estimate (squared Mahalanobis distance) are rejected
+    private static final double GATE_THRESHOLD = 16.27; // chi-squared, 3 degrees of freedom, 99.9%
+    // After this many rejections in a row the estimate is assumed wrong and reset to the measurement
+    private static final int MAX_CONSECUTIVE_REJECTIONS = 10;
+
+    // Past estimates, so a measurement can be compared with the pose at its capture time
+    private static final int HISTORY_SIZE = 64;
+
+    public static final long DEFAULT_MAX_DEAD_RECKON_NANOS = 2_000_000_000L;
+
+    // State
+    private boolean initialized = false;
+    private double x = 0.0;
+    private double y = 0.0;
+    private double heading = 0.0;
+
+    // Symmetric covariance, upper triangle
+    private double p00 = 0.0;
+    private double p01 = 0.0;
+    private double p02 = 0.0;
+    private double p11 = 0.0;
+    private double p12 = 0.0;
+    private double p22 = 0.0;
+
+    private final long[] historyTimes = new long[HISTORY_SIZE];
+    private final double[] historyX = new double[HISTORY_SIZE];
+    private final double[] historyY = new double[HISTORY_SIZE];
+    private final double[] historyHeading = new double[HISTORY_SIZE];
+    private int historyHead = 0;
+    private int historySize = 0;
+
+    private double visionPositionVariance = DEFAULT_VISION_POSITION_STD * DEFAULT_VISION_POSITION_STD;
+    private double visionHeadingVariance = DEFAULT_VISION_HEADING_STD * DEFAULT_VISION_HEADING_STD;
+
+    private long lastCorrectionNanos = 0;
+    private int consecutiveRejections = 0;
+    private int acceptedCount = 0;
+    private int rejectedCount = 0;
+
+    /**
+     * Move the estimate by one loop of odometry, given in the robot frame
+     * (meters forward and left, radians counter-clockwise)
+     */
+    public void predict(double deltaForward, double deltaLeft, double deltaHeading, long nowNanos) {
+        if (!initialized) {
+            return;
+        }
+
+        // Integrate along the arc with the midpoint heading
+        double midHeading = heading + deltaHeading / 2.0;
+        double cos = Math.cos(midHeading);
+        double sin = Math.sin(midHeading);
+        double dx = deltaForward * cos - deltaLeft * sin;
+        double dy = deltaForward * sin + deltaLeft * cos;
+        x += dx;
+        y += dy;
+        heading = Angles.normalizeRadians(heading + deltaHeading);
+
+        // P = F P F^T + Q with F = [[1, 0, -dy], [0, 1, dx], [0, 0, 1]]
+        double a = -dy;
+        double b = dx;
+        double n00 = p00 + 2.0 * a * p02 + a * a * p22;
+        double n01 = p01 + a * p12 + b * p02 + a * b * p22;
+        double n02 = p02 + a * p22;
+        double n11 = p11 + 2.0 * b * p12 + b * b * p22;
+        double n12 = p12 + b * p22;
+
+        double distance = Math.hypot(deltaForward, deltaLeft);
+        double translationNoise = TRANSLATION_VARIANCE_PER_METER * distance;
+        p00 = n00 + translationNoise;
+        p01 = n01;
+        p02 = n02;
+        p11 = n11 + translationNoise;
+        p12 = n12;
+        p22 += HEADING_VARIANCE_PER_RADIAN * Math.abs(deltaHeading) + HEADING_VARIANCE_PER_METER * distance;
+
+        recordHistory(nowNanos);
+    }
+
+    /**
+     * Correct the estimate with a botpose captured at captureTimeNanos
+     * The measurement is compared with the estimate at its capture time and the resulting correction is
+     * applied to the current estimate. Returns false if the measurement was rejected as an outlier.
+     */
+    public boolean addVisionMeasurement(double measuredX, double measuredY, double measuredHeading,
+                                        long captureTimeNanos) {
+        return correct(measuredX, measuredY, measuredHeading, captureTimeNanos,
+                visionPositionVariance, visionHeadingVariance);
+    }
+
+    /**
+     * Correct the estimate with a pose that carries its own noise (standard deviations in meters and radians),
+     * e.g. from VisionFusion, which trusts many close tags more than one distant tag
+     */
+    public boolean addVisionMeasurement(double measuredX, double measuredY, double measuredHeading,
+                                        long captureTimeNanos, double positionStd, double headingStd) {
+        return correct(measuredX, measuredY, measuredHeading, captureTimeNanos,
+                positionStd * positionStd, headingStd * headingStd);
+    }
+
+    private boolean correct(double measuredX, double measuredY, double measuredHeading,
+                            long captureTimeNanos, double positionVariance, double headingVariance) {
+        if (!initialized) {
+            resetTo(measuredX, measuredY, measuredHeading, captureTimeNanos, positionVariance, headingVariance);
+            return true;
+        }
+
+        int past = historyIndexAtOrBefore(captureTimeNanos);
+        double innovationX = measuredX - historyX[past];
+        double innovationY = measuredY - historyY[past];
+        double innovationHeading = Angles.normalizeRadians(measuredHeading - historyHeading[past]);
+
+        // S = P + R
+        double s00 = p00 + positionVariance;
+        double s01 = p01;
+        double s02 = p02;
+        double s11 = p11 + positionVariance;
+        double s12 = p12;
+        double s22 = p22 + headingVariance;
+
+        // S^-1 of a symmetric 3x3 through its adjugate
+        double c00 = s11 * s22 - s12 * s12;
+        double c01 = s02 * s12 - s01 * s22;
+        double c02 = s01 * s12 - s02 * s11;
+        double determinant = s00 * c00 + s01 * c01 + s02 * c02;
+        if (determinant <= 0.0) {
+            return false;
+        }
+        double inverseDeterminant = 1.0 / determinant;
+        double i00 = c00 * inverseDeterminant;
+        double i01 = c01 * inverseDeterminant;
+        double i02 = c02 * inverseDeterminant;
+        double i11 = (s00 * s22 - s02 * s02) * inverseDeterminant;
+        double i12 = (s01 * s02 - s00 * s12) * inverseDeterminant;
+        double i22 = (s00 * s11 - s01 * s01) * inverseDeterminant;
+
+        // Gate on the squared Mahalanobis distance
+        double w0 = i00 * innovationX + i01 * innovationY + i02 * innovationHeading;
+        double w1 = i01 * innovationX + i11 * innovationY + i12 * innovationHeading;
+        double w2 = i02 * innovationX + i12 * innovationY + i22 * innovationHeading;
+        double distanceSquared = innovationX * w0 + innovationY * w1 + innovationHeading * w2;
+        if (distanceSquared > GATE_THRESHOLD) {
+            rejectedCount++;
+            consecutiveRejections++;
+            if (consecutiveRejections >= MAX_CONSECUTIVE_REJECTIONS) {
+                resetTo(measuredX, measuredY, measuredHeading, captureTimeNanos, positionVariance, headingVariance);
+                return true;
+            }
+            return false;
+        }
+
+        // K = P S^-1
+        double k00 = p00 * i00 + p01 * i01 + p02 * i02;
+        double k01 = p00 * i01 + p01 * i11 + p02 * i12;
+        double k02 = p00 * i02 + p01 * i12 + p02 * i22;
+        double k10 = p01 * i00 + p11 * i01 + p12 * i02;
+        double k11 = p01 * i01 + p11 * i11 + p12 * i12;
+        double k12 = p01 * i02 + p11 * i12 + p12 * i22;
+        double k20 = p02 * i00 + p12 * i01 + p22 * i02;
+        double k21 = p02 * i01 + p12 * i11 + p22 * i12;
+        double k22 = p02 * i02 + p12 * i12 + p22 * i22;
+
+        // K times the innovation is exactly P w
+        double correctionX = p00 * w0 + p01 * w1 + p02 * w2;
+        double correctionY = p01 * w0 + p11 * w1 + p12 * w2;
+        double correctionHeading = p02 * w0 + p12 * w1 + p22 * w2;
+
+        // P = (I - K) P
+        double n00 = p00 - (k00 * p00 + k01 * p01 + k02 * p02);
+        double n01 = p01 - (k00 * p01 + k01 * p11 + k02 * p12);
+        double n02 = p02 - (k00 * p02 + k01 * p12 + k02 * p22);
+        double n11 = p11 - (k10 * p01 + k11 * p11 + k12 * p12);
+        double n12 = p12 - (k10 * p02 + k11 * p12 + k12 * p22);
+        double n22 = p22 - (k20 * p02 + k21 * p12 + k22 * p22);
+        p00 = n00;
+        p01 = n01;
+        p02 = n02;
+        p11 = n11;
+        p12 = n12;
+        p22 = n22;
+
+        applyCorrection(correctionX, correctionY, correctionHeading);
+        lastCorrectionNanos = Math.max(lastCorrectionNanos, captureTimeNanos);
+        consecutiveRejections = 0;
+        acceptedCount++;
+        return true;
+    }
+
+    /**
+     * Correct only the heading, e.g. with an IMU yaw reading already in the field frame
+     */
+    public void addHeadingMeasurement(double measuredHeading, double headingStd) {
+        if (!initialized) {
+            return;
+        }
+        double innovation = Angles.normalizeRadians(measuredHeading - heading);
+        double s = p22 + headingStd * headingStd;
+        double k0 = p02 / s;
+        double k1 = p12 / s;
+        double k2 = p22 / s;
+
+        double n00 = p00 - k0 * p02;
+        double n01 = p01 - k0 * p12;
+        double n02 = p02 - k0 * p22;
+        double n11 = p11 - k1 * p12;
+        double n12 = p12 - k1 * p22;
+        double n22 = p22 - k2 * p22;
+        p00 = n00;
+        p01 = n01;
+        p02 = n02;
+        p11 = n11;
+        p12 = n12;
+        p22 = n22;
+
+        applyCorrection(k0 * innovation, k1 * innovation, k2 * innovation);
+    }
+
+    /**
+     * Jump straight to a measured pose with the vision measurement noise as the uncertainty
+     */
+    public void resetTo(double x, double y, double heading, long timeNanos) {
+        resetTo(x, y, heading, timeNanos, visionPositionVariance, visionHeadingVariance);
+    }
+
+    private void resetTo(double x, double y, double heading, long timeNanos,
+                         double positionVariance, double headingVariance) {
+        this.x = x;
+        this.y = y;
+        this.heading = Angles.normalizeRadians(heading);
+        p00 = positionVariance;
+        p01 = 0.0;
+        p02 = 0.0;
+        p11 = positionVariance;
+        p12 = 0.0;
+        p22 = headingVariance;
+        initialized = true;
+        consecutiveRejections = 0;
+        lastCorrectionNanos = timeNanos;
+        historySize = 0;
+        recordHistory(timeNanos);
+    }
+
+    /**
+     * Forget the estimate; the next vision measurement initializes it again
+     */
+    public void clear() {
+        initialized = false;
+        historySize = 0;
+        consecutiveRejections = 0;
+    }
+
+    /**
+     * Set the botpose measurement noise (standard deviations in meters and degrees)
+     */
+    public void setVisionNoise(double positionStd, double headingStdDegrees) {
+        visionPositionVariance = positionStd * positionStd;
+        double headingStd = Math.toRadians(headingStdDegrees);
+        visionHeadingVariance = headingStd * headingStd;
+    }
+
+    /**
+     * True once vision has initialized the estimate and it was corrected within maxDeadReckonNanos
+     */
+    public boolean isTracking(long nowNanos, long maxDeadReckonNanos) {
+        return initialized && nowNanos - lastCorrectionNanos <= maxDeadReckonNanos;
+    }
+
+    public boolean isTracking(long nowNanos) {
+        return isTracking(nowNanos, DEFAULT_MAX_DEAD_RECKON_NANOS);
+    }
+
+    /**
+     * The estimate as it was at timeNanos, from the history (the oldest entry if older), into {x, y, heading}
+     * Returns false before the estimate is initialized
+     */
+    public boolean getPoseAt(long timeNanos, double[] pose) {
+        if (!initialized) {
+            return false;
+        }
+        int index = historyIndexAtOrBefore(timeNanos);
+        pose[0] = historyX[index];
+        pose[1] = historyY[index];
+        pose[2] = historyHeading[index];
+        return true;
+    }
+
+    public boolean isInitialized() { return initialized; }
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public double getHeading() { return heading; }
+    public double getHeadingDegrees() { return Math.toDegrees(heading); }
+    public double getPositionStd() { return Math.sqrt(Math.max(0.0, p00 + p11)); }
+    public double getHeadingStdDegrees() { return Math.toDegrees(Math.sqrt(Math.max(0.0, p22))); }
+    public long getLastCorrectionNanos() { return lastCorrectionNanos; }
+    public int getAcceptedCount() { return acceptedCount; }
+    public int getRejectedCount() { return rejectedCount; }
+
+    /**
+     * Display pose estimate telemetry
+     */
+    public void displayTelemetry(TelemetrySink telemetry) {
+        if (!initialized) {
+            telemetry.addData("Pose Estimate", "Waiting for vision");
+            return;
+        }
+        telemetry.addData("Pose Estimate", "X: %.2f, Y: %.2f, Heading: %.1f",
+                x, y, getHeadingDegrees());
+        telemetry.addData("Pose Uncertainty", "%.3f m, %.1f deg", getPositionStd(), getHeadingStdDegrees());
+        telemetry.addData("Vision Corrections", "%d accepted, %d rejected", acceptedCount, rejectedCount);
+    }
+
+    /**
+     * Shift the current estimate and its history by the same correction
+     * The history has to move too, or the next delayed measurement would apply the correction again
+     */
+    private void applyCorrection(double dx, double dy, double dHeading) {
+        x += dx;
+        y += dy;
+        heading = Angles.normalizeRadians(heading + dHeading);
+        for (int i = 0; i < historySize; i++) {
+            historyX[i] += dx;
+            historyY[i] += dy;
+            historyHeading[i] += dHeading;
+        }
+    }
+
+    private void recordHistory(long timeNanos) {
+        historyHead = historySize == 0 ? 0 : (historyHead + 1) % HISTORY_SIZE;
+        if (historySize < HISTORY_SIZE) {
+            historySize++;
+        }
+        historyTimes[historyHead] = timeNanos;
+        historyX[historyHead] = x;
+        historyY[historyHead] = y;
+        historyHeading[historyHead] = heading;
+    }
+
+    /**
+     * Newest history entry at or before the given time, or the oldest entry if the time is older
+     */
+    private int historyIndexAtOrBefore(long timeNanos) {
+        int index = historyHead;
+        for (int age = 0; age < historySize; age++) {
+            index = historyHead - age;
+            if (index < 0) {
+                index += HISTORY_SIZE;
+            }
+            if (historyTimes[index] <= timeNanos) {
+                break;
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,276 @@
+package org.firstinspires.ftc.teamcode.classes.localization;
+
+import org.firstinspires.ftc.teamcode.classes.Angles;
+import org.firstinspires.ftc.teamcode.classes.hardware.TelemetrySink;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+
+/**
+ * Combines every vision pose seen in one loop - Limelight botposes and webcam AprilTag detections - into a
+ * single pose for PoseEstimator
+ * Each measurement gets a standard deviation from how many tags it was solved from, how far away they
+ * were and how cleanly they were decoded: std = base * max(1, (range / REFERENCE_RANGE)^2) / sqrt(tags) / quality.
+ * Measurements are moved to the newest capture time with the estimator's history, measurements far from
+ * the others are dropped, and the rest are averaged with inverse-variance weights.
+ * Everything is kept in primitive arrays, so nothing allocates after construction.
+ */
+public class VisionFusion {
+
+    public static final int MAX_MEASUREMENTS = 16;
+
+    // A single tag this close, decoded cleanly, has the base noise
+    private static final double REFERENCE_RANGE = 1.0; // meters
+    private static final double MIN_QUALITY = 0.1;
+    // A measurement this many of its standard deviations from the median of the others is an outlier
+    private static final double OUTLIER_SIGMAS = 4.0;
+
+    // Noise of one tag at REFERENCE_RANGE, the same default as PoseEstimator
+    private double basePositionStd = 0.05; // meters
+    private double baseHeadingStd = Math.toRadians(3.0);
+
+    // This loop's measurements; heading in radians
+    private int count = 0;
+    private final long[] captureTimes = new long[MAX_MEASUREMENTS];
+    private final double[] xs = new double[MAX_MEASUREMENTS];
+    private final double[] ys = new double[MAX_MEASUREMENTS];
+    private final double[] headings = new double[MAX_MEASUREMENTS];
+    private final double[] positionStds = new double[MAX_MEASUREMENTS];
+    private final double[] headingStds = new double[MAX_MEASUREMENTS];
+    private final int[] tagCounts = new int[MAX_MEASUREMENTS];
+    private final boolean[] rejected = new boolean[MAX_MEASUREMENTS];
+
+    // Scratch space for medians and history lookups
+    private final double[] sorted = new double[MAX_MEASUREMENTS];
+    private final double[] pastPose = new double[3];
+    private final double[] newestPose = new double[3];
+
+    // Last fused pose
+    private double fusedX = 0.0;
+    private double fusedY = 0.0;
+    private double fusedHeading = 0.0;
+    private long fusedCaptureTimeNanos = 0;
+    private double fusedPositionStd = 0.0;
+    private double fusedHeadingStd = 0.0;
+    private int fusedMeasurementCount = 0;
+    private int fusedTagCount = 0;
+
+    private long fusedCount = 0;
+    private long rejectedCount = 0;
+    private long droppedCount = 0;
+
+    /**
+     * Set the noise of one cleanly decoded tag at REFERENCE_RANGE (standard deviations in meters and degrees)
+     */
+    public void setBaseNoise(double positionStd, double headingStdDegrees) {
+        basePositionStd = positionStd;
+        baseHeadingStd = Math.toRadians(headingStdDegrees);
+    }
+
+    /**
+     * Forget the previous loop's measurements; call once at the start of every loop
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Add a new, non-stale camera result
+     * A botpose is one measurement (a Limelight already combines the tags it sees); a result without one
+     * adds each single-tag detection separately.
+     */
+    public void addFrame(VisionFrame frame) {
+        if (frame.hasBotPose) {
+            addMeasurement(frame.botPoseX, frame.botPoseY, Math.toRadians(frame.botPoseYaw), frame.captureTimeNanos,
+                    frame.botPoseTagCount, frame.botPoseTagDistance, 1.0);
+            return;
+        }
+        for (int i = 0; i < frame.detectionCount; i++) {
+            addMeasurement(frame.detectionX[i], frame.detectionY[i], Math.toRadians(frame.detectionYaw[i]),
+                    frame.captureTimeNanos, 1, frame.detectionRange[i], frame.detectionQuality[i]);
+        }
+    }
+
+    /**
+     * Add one field pose (meters, heading in radians) solved from tagCount tags an average range away
+     * A tag count or range of 0 means unknown and is treated as one tag at REFERENCE_RANGE.
+     * Returns false if the measurement was dropped because this loop is already full.
+     */
+    public boolean addMeasurement(double x, double y, double heading, long captureTimeNanos,
+                                  int tagCount, double range, double quality) {
+        if (count >= MAX_MEASUREMENTS) {
+            droppedCount++;
+            return false;
+        }
+        int tags = Math.max(1, tagCount);
+        double rangeRatio = range / REFERENCE_RANGE;
+        double scale = Math.max(1.0, rangeRatio * rangeRatio) / Math.sqrt(tags)
+                / Math.max(MIN_QUALITY, Math.min(1.0, quality));
+
+        captureTimes[count] = captureTimeNanos;
+        xs[count] = x;
+        ys[count] = y;
+        headings[count] = heading;
+        positionStds[count] = basePositionStd * scale;
+        headingStds[count] = baseHeadingStd * scale;
+        tagCounts[count] = tags;
+        rejected[count] = false;
+        count++;
+        return true;
+    }
+
+    /**
+     * Fuse this loop's measurements into one pose, read through the getters
+     * The estimator (may be null) supplies its history to line up measurements captured at different
+     * times. Returns false if there was nothing to fuse.
+     */
+    public boolean fuse(PoseEstimator estimator) {
+        if (count == 0) {
+            return false;
+        }
+        if (count == 1) {
+            // The pose passes through untouched; its noise still follows its tag count and range
+            setFused(xs[0], ys[0], headings[0], captureTimes[0], positionStds[0], headingStds[0], 1, tagCounts[0]);
+            return true;
+        }
+
+        // Move every measurement to the newest capture time by the motion the estimator saw in between
+        long newest = captureTimes[0];
+        for (int i = 1; i < count; i++) {
+            newest = Math.max(newest, captureTimes[i]);
+        }
+        if (estimator != null && estimator.getPoseAt(newest, newestPose)) {
+            for (int i = 0; i < count; i++) {
+                if (captureTimes[i] != newest && estimator.getPoseAt(captureTimes[i], pastPose)) {
+                    xs[i] += newestPose[0] - pastPose[0];
+                    ys[i] += newestPose[1] - pastPose[1];
+                    headings[i] += Angles.normalizeRadians(newestPose[2] - pastPose[2]);
+                }
+            }
+        }
+
+        // Unwrap headings around the most trusted measurement so they can be averaged
+        int best = 0;
+        for (int i = 1; i < count; i++) {
+            if (positionStds[i] < positionStds[best]) {
+                best = i;
+            }
+        }
+        double referenceHeading = headings[best];
+        for (int i = 0; i < count; i++) {
+            headings[i] = referenceHeading + Angles.normalizeRadians(headings[i] - referenceHeading);
+        }
+
+        rejectOutliers(best);
+
+        double weightSumPosition = 0.0;
+        double weightSumHeading = 0.0;
+        double sumX = 0.0;
+        double sumY = 0.0;
+        double sumHeading = 0.0;
+        int used = 0;
+        int tags = 0;
+        for (int i = 0; i < count; i++) {
+            if (rejected[i]) {
+                rejectedCount++;
+                continue;
+            }
+            double positionWeight = 1.0 / (positionStds[i] * positionStds[i]);
+            double headingWeight = 1.0 / (headingStds[i] * headingStds[i]);
+            weightSumPosition += positionWeight;
+            weightSumHeading += headingWeight;
+            sumX += positionWeight * xs[i];
+            sumY += positionWeight * ys[i];
+            sumHeading += headingWeight * headings[i];
+            used++;
+            tags += tagCounts[i];
+        }
+        setFused(sumX / weightSumPosition, sumY / weightSumPosition,
+                Angles.normalizeRadians(sumHeading / weightSumHeading), newest,
+                Math.sqrt(1.0 / weightSumPosition), Math.sqrt(1.0 / weightSumHeading), used, tags);
+        return true;
+    }
+
+    /**
+     * Mark measurements that disagree with the rest
+     * With three or more, anything too far from the median is rejected; with two that disagree there is
+     * no telling which is wrong, so only the more trusted one is kept.
+     */
+    private void rejectOutliers(int best) {
+        if (count == 2) {
+            int other = 1 - best;
+            double positionLimit = OUTLIER_SIGMAS * Math.hypot(positionStds[0], positionStds[1]);
+            double headingLimit = OUTLIER_SIGMAS * Math.hypot(headingStds[0], headingStds[1]);
+            if (Math.hypot(xs[0] - xs[1], ys[0] - ys[1]) > positionLimit
+                    || Math.abs(headings[0] - headings[1]) > headingLimit) {
+                rejected[other] = true;
+            }
+            return;
+        }
+
+        double medianX = median(xs);
+        double medianY = median(ys);
+        double medianHeading = median(headings);
+        for (int i = 0; i < count; i++) {
+            rejected[i] = Math.hypot(xs[i] - medianX, ys[i] - medianY) > OUTLIER_SIGMAS * positionStds[i]
+                    || Math.abs(headings[i] - medianHeading) > OUTLIER_SIGMAS * headingStds[i];
+        }
+        // Never reject everything; fall back to the most trusted measurement
+        boolean anyKept = false;
+        for (int i = 0; i < count; i++) {
+            anyKept |= !rejected[i];
+        }
+        if (!anyKept) {
+            rejected[best] = false;
+        }
+    }
+
+    /**
+     * Median of the first count values, by insertion sort into the scratch array (count is small)
+     */
+    private double median(double[] values) {
+        for (int i = 0; i < count; i++) {
+            double value = values[i];
+            int j = i - 1;
+            while (j >= 0 && sorted[j] > value) {
+                sorted[j + 1] = sorted[j];
+                j--;
+            }
+            sorted[j + 1] = value;
+        }
+        int middle = count / 2;
+        return count % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2.0;
+    }
+
+    private void setFused(double x, double y, double heading, long captureTimeNanos,
+                          double positionStd, double headingStd, int measurements, int tags) {
+        fusedX = x;
+        fusedY = y;
+        fusedHeading = heading;
+        fusedCaptureTimeNanos = captureTimeNanos;
+        fusedPositionStd = positionStd;
+        fusedHeadingStd = headingStd;
+        fusedMeasurementCount = measurements;
+        fusedTagCount = tags;
+        fusedCount++;
+    }
+
+    public int getMeasurementCount() { return count; }
+    public double getX() { return fusedX; }
+    public double getY() { return fusedY; }
+    public double getHeading() { return fusedHeading; }
+    public long getCaptureTimeNanos() { return fusedCaptureTimeNanos; }
+    public double getPositionStd() { return fusedPositionStd; }
+    public double getHeadingStd() { return fusedHeadingStd; }
+    public int getFusedMeasurementCount() { return fusedMeasurementCount; }
+    public int getFusedTagCount() { return fusedTagCount; }
+    public long getFusedCount() { return fusedCount; }
+    public long getRejectedCount() { return rejectedCount; }
+    public long getDroppedCount() { return droppedCount; }
+
+    /**
+     * Display the last fused pose's makeup and the running outlier count
+     */
+    public void displayTelemetry(TelemetrySink telemetry) {
+        telemetry.addData("Vision Fusion", "%d poses (%d tags), %.3f m, %d outliers",
+                fusedMeasurementCount, fusedTagCount, fusedPositionStd, rejectedCount);
+    }
+}
@@ -0,0 +1,131 @@
+package org.firstinspires.ftc.teamcode.classes.recording;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a MatchRecorder file back, oldest record first
+ * The file is memory-mapped and each record decoded into a caller-owned MatchRecord, so reading a log
+ * streams through it without loading it into the heap. If the webcam detection ring wrapped further back than
+ * the record ring, the oldest records whose detections were overwritten are skipped.
+ */
+public class MatchLogReader implements Closeable {
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int detectionCapacity;
+    private final int detectionsOffset;
+    private final long startTimeMillis;
+    private final long firstRecord;
+    private final long endRecord;
+    private long nextRecord;
+
+    /**
+     * Open a recording, throwing if it is not a valid MatchRecorder file
+     */
+    public MatchLogReader(File recordingFile) throws IOException {
+        file = new RandomAccessFile(recordingFile, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            long size = channel.size();
+            if (size < MatchRecorder.HEADER_BYTES) {
+                throw new IOException(recordingFile + " is too short to be a match log");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt(0) != MatchRecorder.MAGIC) {
+                throw new IOException(recordingFile + " is not a match log");
+            }
+            int version = buffer.getInt(4);
+            if (version != MatchRecorder.FORMAT_VERSION
+                    || buffer.getInt(MatchRecorder.RECORD_BYTES_OFFSET) != MatchRecord.BYTES) {
+                throw new IOException(recordingFile + " has unsupported format version " + version);
+            }
+            capacity = buffer.getInt(MatchRecorder.CAPACITY_OFFSET);
+            detectionCapacity = buffer.getInt(MatchRecorder.DETECTION_CAPACITY_OFFSET);
+            long recordsEnd = MatchRecorder.HEADER_BYTES + (long) capacity * MatchRecord.BYTES;
+            if (capacity <= 0 || detectionCapacity <= 0
+                    || size < recordsEnd + (long) detectionCapacity * MatchRecord.DETECTION_BYTES) {
+                throw new IOException(recordingFile + " is truncated");
+            }
+            detectionsOffset = (int) recordsEnd;
+            startTimeMillis = buffer.getLong(MatchRecorder.START_TIME_OFFSET);
+            endRecord = buffer.getLong(MatchRecorder.WRITE_COUNT_OFFSET);
+            long detectionFloor = Math.max(0, buffer.getLong(MatchRecorder.DETECTION_WRITE_COUNT_OFFSET)
+                    - detectionCapacity);
+            firstRecord = firstRecordFrom(Math.max(0, endRecord - capacity), detectionFloor);
+            nextRecord = firstRecord;
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Decode the next record into record, returning false at the end of the log
+     */
+    public boolean next(MatchRecord record) {
+        if (nextRecord >= endRecord) {
+            return false;
+        }
+        int slot = (int) (nextRecord % capacity);
+        record.readFrom(buffer, MatchRecorder.HEADER_BYTES + slot * MatchRecord.BYTES);
+        for (int i = 0; i < record.webcamDetectionCount; i++) {
+            int detectionSlot = (int) ((record.webcamDetectionIndex + i) % detectionCapacity);
+            record.readWebcamDetection(i, buffer, detectionsOffset + detectionSlot * MatchRecord.DETECTION_BYTES);
+        }
+        nextRecord++;
+        return true;
+    }
+
+    /**
+     * First record from oldest on whose detections are all still in the detection ring
+     * Detection indices only grow from record to record, so this is a binary search.
+     */
+    private long firstRecordFrom(long oldest, long detectionFloor) {
+        long low = oldest;
+        long high = endRecord;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            int slot = (int) (middle % capacity);
+            long detectionIndex = buffer.getLong(MatchRecorder.HEADER_BYTES + slot * MatchRecord.BYTES
+                    + MatchRecord.WEBCAM_DETECTION_INDEX_OFFSET);
+            if (detectionIndex < detectionFloor) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Start again from the oldest record
+     */
+    public void rewind() {
+        nextRecord = firstRecord;
+    }
+
+    /**
+     * Number of records available (older ones are lost once a ring wraps)
+     */
+    public long getRecordCount() { return endRecord - firstRecord; }
+
+    /**
+     * Number of records written over the whole run, including any overwritten
+     */
+    public long getWrittenCount() { return endRecord; }
+    public long getStartTimeMillis() { return startTimeMillis; }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
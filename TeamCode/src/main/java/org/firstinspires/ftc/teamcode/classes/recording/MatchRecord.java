@@ -0,0 +1,415 @@
+package org.firstinspires.ftc.teamcode.classes.recording;
+
+import org.firstinspires.ftc.teamcode.classes.Robot;
+import org.firstinspires.ftc.teamcode.classes.Vision;
+import org.firstinspires.ftc.teamcode.classes.hardware.DriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One control loop cycle as stored by MatchRecorder: a fixed-size, little-endian binary record
+ * Instances are mutable so the loop can fill the same one every cycle. The raw camera results (the
+ * Limelight's, and the webcam's when it had a new one) are kept at full precision so recorded matches can
+ * be replayed through Vision and VisionFusion exactly; the rest is stored as floats.
+ *
+ * Layout (232 bytes):
+ *   long cycle start nanos, long cycle, float loop time ms, int flags,
+ *   float gamepad axial, lateral, yaw, int gamepad buttons,
+ *   float commanded power x4, int encoder position x4,
+ *   long frame sequence, long frame capture nanos, int pipeline index, float frame latency ms,
+ *   double tx, ty, ta, double bot pose x, y, z, roll, pitch, yaw,
+ *   int bot pose tag count, double bot pose tag distance,
+ *   long webcam sequence, long webcam capture nanos, int webcam detection count, long webcam detection index,
+ *   float target x, y, yaw (Vision.TargetData), float pose estimate x, y, heading
+ * Most cycles have no webcam result, so its detections are not part of the record; MatchRecorder writes them
+ * to a ring of their own, DETECTION_BYTES each (int id, double x, y, yaw, range, quality), starting at the
+ * detection index.
+ */
+public class MatchRecord {
+
+    public static final int BYTES = 232;
+    public static final int DETECTION_BYTES = 44;
+
+    // Where the webcam detection index is in a record, so a reader can find it without decoding the rest
+    static final int WEBCAM_DETECTION_INDEX_OFFSET = 200;
+
+    // Flags
+    public static final int FLAG_FRAME_VALID = 1; // The camera returned a result this cycle
+    public static final int FLAG_BOT_POSE = 1 << 1;
+    public static final int FLAG_TARGET_ACQUIRED = 1 << 2; // Vision.TargetData.isAcquired
+    public static final int FLAG_NEW_FRAME = 1 << 3; // Vision.TargetData.isNewFrame
+    public static final int FLAG_TRACKING = 1 << 4; // The pose estimate was good enough to drive on
+    public static final int FLAG_AT_TARGET = 1 << 5; // Robot.MovementResult.atTarget
+    public static final int FLAG_WEBCAM_FRAME = 1 << 6; // A new webcam result went to VisionFusion
+
+    // Gamepad buttons
+    public static final int BUTTON_A = 1;
+    public static final int BUTTON_B = 1 << 1;
+    public static final int BUTTON_X = 1 << 2;
+    public static final int BUTTON_Y = 1 << 3;
+    public static final int BUTTON_LEFT_BUMPER = 1 << 4;
+    public static final int BUTTON_RIGHT_BUMPER = 1 << 5;
+    public static final int BUTTON_DPAD_UP = 1 << 6;
+    public static final int BUTTON_DPAD_DOWN = 1 << 7;
+
+    // Cycle
+    public long cycleStartNanos = 0;
+    public long cycle = 0;
+    public float loopTimeMillis = 0.0f; // Time since the previous cycle started
+    public int flags = 0;
+
+    // Driver inputs
+    public float gamepadAxial = 0.0f;
+    public float gamepadLateral = 0.0f;
+    public float gamepadYaw = 0.0f;
+    public int gamepadButtons = 0;
+
+    // Drive
+    public final float[] commandedPowers = new float[DriveHardware.MOTOR_COUNT];
+    public final int[] encoderPositions = new int[DriveHardware.MOTOR_COUNT];
+
+    // Raw camera result, only meaningful with FLAG_FRAME_VALID
+    public long frameSequence = 0;
+    public long frameCaptureNanos = 0;
+    public int pipelineIndex = 0;
+    public float frameLatencyMillis = 0.0f;
+    public double tx = 0.0;
+    public double ty = 0.0;
+    public double ta = 0.0;
+    public double botPoseX = 0.0;
+    public double botPoseY = 0.0;
+    public double botPoseZ = 0.0;
+    public double botPoseRoll = 0.0;
+    public double botPosePitch = 0.0;
+    public double botPoseYaw = 0.0;
+    public int botPoseTagCount = 0;
+    public double botPoseTagDistance = 0.0;
+
+    // New webcam result, only meaningful with FLAG_WEBCAM_FRAME
+    public long webcamSequence = 0;
+    public long webcamCaptureNanos = 0;
+    public int webcamDetectionCount = 0;
+    public final int[] webcamDetectionIds = new int[VisionFrame.MAX_DETECTIONS];
+    public final double[] webcamDetectionX = new double[VisionFrame.MAX_DETECTIONS];
+    public final double[] webcamDetectionY = new double[VisionFrame.MAX_DETECTIONS];
+    public final double[] webcamDetectionYaw = new double[VisionFrame.MAX_DETECTIONS];
+    public final double[] webcamDetectionRange = new double[VisionFrame.MAX_DETECTIONS];
+    public final double[] webcamDetectionQuality = new double[VisionFrame.MAX_DETECTIONS];
+    public long webcamDetectionIndex = 0; // Set by MatchRecorder: the first detection's number in its ring
+
+    // Processed target and pose estimate
+    public float targetX = 0.0f;
+    public float targetY = 0.0f;
+    public float targetYaw = 0.0f;
+    public float poseX = 0.0f;
+    public float poseY = 0.0f;
+    public float poseHeading = 0.0f;
+
+    /**
+     * Start the record for a new cycle, clearing the inputs, camera results, target and pose
+     * The drive fields are overwritten by setDrive every cycle
+     */
+    public void begin(long cycle, long cycleStartNanos, double loopTimeSeconds) {
+        this.cycle = cycle;
+        this.cycleStartNanos = cycleStartNanos;
+        this.loopTimeMillis = (float) (loopTimeSeconds * 1e3);
+        flags = 0;
+        gamepadAxial = 0.0f;
+        gamepadLateral = 0.0f;
+        gamepadYaw = 0.0f;
+        gamepadButtons = 0;
+        setVisionFrame(null);
+        setWebcamFrame(null);
+        targetX = 0.0f;
+        targetY = 0.0f;
+        targetYaw = 0.0f;
+        poseX = 0.0f;
+        poseY = 0.0f;
+        poseHeading = 0.0f;
+    }
+
+    public void setGamepad(double axial, double lateral, double yaw, int buttons) {
+        gamepadAxial = (float) axial;
+        gamepadLateral = (float) lateral;
+        gamepadYaw = (float) yaw;
+        gamepadButtons = buttons;
+    }
+
+    /**
+     * Record the wheel powers the robot commanded and the encoder positions (from this cycle's bulk read)
+     */
+    public void setDrive(Robot robot, DriveHardware driveHardware) {
+        for (int motor = 0; motor < DriveHardware.MOTOR_COUNT; motor++) {
+            commandedPowers[motor] = (float) robot.getCommandedPower(motor);
+            encoderPositions[motor] = driveHardware.getCurrentPosition(motor);
+        }
+    }
+
+    /**
+     * Record the camera result read this cycle (see Vision.getLastFrame), or null if there was none
+     */
+    public void setVisionFrame(VisionFrame frame) {
+        flags &= ~(FLAG_FRAME_VALID | FLAG_BOT_POSE);
+        if (frame == null) {
+            frameSequence = 0;
+            frameCaptureNanos = 0;
+            pipelineIndex = 0;
+            frameLatencyMillis = 0.0f;
+            tx = 0.0;
+            ty = 0.0;
+            ta = 0.0;
+            botPoseX = 0.0;
+            botPoseY = 0.0;
+            botPoseZ = 0.0;
+            botPoseRoll = 0.0;
+            botPosePitch = 0.0;
+            botPoseYaw = 0.0;
+            botPoseTagCount = 0;
+            botPoseTagDistance = 0.0;
+            return;
+        }
+        flags |= FLAG_FRAME_VALID;
+        if (frame.hasBotPose) {
+            flags |= FLAG_BOT_POSE;
+        }
+        frameSequence = frame.sequence;
+        frameCaptureNanos = frame.captureTimeNanos;
+        pipelineIndex = frame.pipelineIndex;
+        frameLatencyMillis = (float) frame.latencyMillis;
+        tx = frame.tx;
+        ty = frame.ty;
+        ta = frame.ta;
+        botPoseX = frame.botPoseX;
+        botPoseY = frame.botPoseY;
+        botPoseZ = frame.botPoseZ;
+        botPoseRoll = frame.botPoseRoll;
+        botPosePitch = frame.botPosePitch;
+        botPoseYaw = frame.botPoseYaw;
+        botPoseTagCount = frame.botPoseTagCount;
+        botPoseTagDistance = frame.botPoseTagDistance;
+    }
+
+    /**
+     * Copy the recorded camera result back into a frame, returning false if there was none
+     */
+    public boolean copyVisionFrameTo(VisionFrame frame) {
+        if ((flags & FLAG_FRAME_VALID) == 0) {
+            return false;
+        }
+        frame.sequence = frameSequence;
+        frame.captureTimeNanos = frameCaptureNanos;
+        frame.pipelineIndex = pipelineIndex;
+        frame.latencyMillis = frameLatencyMillis;
+        frame.tx = tx;
+        frame.ty = ty;
+        frame.ta = ta;
+        frame.hasBotPose = (flags & FLAG_BOT_POSE) != 0;
+        frame.botPoseX = botPoseX;
+        frame.botPoseY = botPoseY;
+        frame.botPoseZ = botPoseZ;
+        frame.botPoseRoll = botPoseRoll;
+        frame.botPosePitch = botPosePitch;
+        frame.botPoseYaw = botPoseYaw;
+        frame.botPoseTagCount = botPoseTagCount;
+        frame.botPoseTagDistance = botPoseTagDistance;
+        frame.detectionCount = 0; // A Limelight result carries its tags in the botpose
+        return true;
+    }
+
+    /**
+     * Record the new webcam result passed to VisionFusion this cycle, or null if there was none
+     */
+    public void setWebcamFrame(VisionFrame frame) {
+        setFlag(FLAG_WEBCAM_FRAME, frame != null);
+        if (frame == null) {
+            webcamSequence = 0;
+            webcamCaptureNanos = 0;
+            webcamDetectionCount = 0;
+            return;
+        }
+        webcamSequence = frame.sequence;
+        webcamCaptureNanos = frame.captureTimeNanos;
+        webcamDetectionCount = frame.detectionCount;
+        System.arraycopy(frame.detectionIds, 0, webcamDetectionIds, 0, webcamDetectionCount);
+        System.arraycopy(frame.detectionX, 0, webcamDetectionX, 0, webcamDetectionCount);
+        System.arraycopy(frame.detectionY, 0, webcamDetectionY, 0, webcamDetectionCount);
+        System.arraycopy(frame.detectionYaw, 0, webcamDetectionYaw, 0, webcamDetectionCount);
+        System.arraycopy(frame.detectionRange, 0, webcamDetectionRange, 0, webcamDetectionCount);
+        System.arraycopy(frame.detectionQuality, 0, webcamDetectionQuality, 0, webcamDetectionCount);
+    }
+
+    /**
+     * Copy the recorded webcam result back into a frame, returning false if there was none
+     * Only what VisionFusion uses is recorded; the crosshair offsets and latency come back as zero.
+     */
+    public boolean copyWebcamFrameTo(VisionFrame frame) {
+        if ((flags & FLAG_WEBCAM_FRAME) == 0) {
+            return false;
+        }
+        frame.sequence = webcamSequence;
+        frame.captureTimeNanos = webcamCaptureNanos;
+        frame.pipelineIndex = 0;
+        frame.latencyMillis = 0.0;
+        frame.tx = 0.0;
+        frame.ty = 0.0;
+        frame.ta = 0.0;
+        frame.hasBotPose = false;
+        frame.botPoseTagCount = 0;
+        frame.botPoseTagDistance = 0.0;
+        frame.detectionCount = webcamDetectionCount;
+        System.arraycopy(webcamDetectionIds, 0, frame.detectionIds, 0, webcamDetectionCount);
+        System.arraycopy(webcamDetectionX, 0, frame.detectionX, 0, webcamDetectionCount);
+        System.arraycopy(webcamDetectionY, 0, frame.detectionY, 0, webcamDetectionCount);
+        System.arraycopy(webcamDetectionYaw, 0, frame.detectionYaw, 0, webcamDetectionCount);
+        System.arraycopy(webcamDetectionRange, 0, frame.detectionRange, 0, webcamDetectionCount);
+        System.arraycopy(webcamDetectionQuality, 0, frame.detectionQuality, 0, webcamDetectionCount);
+        return true;
+    }
+
+    public void setTarget(Vision.TargetData targetData) {
+        setFlag(FLAG_TARGET_ACQUIRED, targetData.isAcquired);
+        setFlag(FLAG_NEW_FRAME, targetData.isNewFrame);
+        targetX = (float) targetData.xPosition;
+        targetY = (float) targetData.yPosition;
+        targetYaw = (float) targetData.yaw;
+    }
+
+    /**
+     * Record the pose the robot drove on (meters, heading in radians) and whether it was tracking
+     */
+    public void setPose(double x, double y, double heading, boolean tracking) {
+        setFlag(FLAG_TRACKING, tracking);
+        poseX = (float) x;
+        poseY = (float) y;
+        poseHeading = (float) heading;
+    }
+
+    public void setAtTarget(boolean atTarget) {
+        setFlag(FLAG_AT_TARGET, atTarget);
+    }
+
+    public boolean hasFlag(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    private void setFlag(int flag, boolean value) {
+        flags = value ? flags | flag : flags & ~flag;
+    }
+
+    /**
+     * Write this record at the given byte offset; the buffer must be little-endian
+     */
+    public void writeTo(ByteBuffer buffer, int offset) {
+        int at = offset;
+        buffer.putLong(at, cycleStartNanos); at += 8;
+        buffer.putLong(at, cycle); at += 8;
+        buffer.putFloat(at, loopTimeMillis); at += 4;
+        buffer.putInt(at, flags); at += 4;
+        buffer.putFloat(at, gamepadAxial); at += 4;
+        buffer.putFloat(at, gamepadLateral); at += 4;
+        buffer.putFloat(at, gamepadYaw); at += 4;
+        buffer.putInt(at, gamepadButtons); at += 4;
+        for (int motor = 0; motor < DriveHardware.MOTOR_COUNT; motor++) {
+            buffer.putFloat(at, commandedPowers[motor]); at += 4;
+        }
+        for (int motor = 0; motor < DriveHardware.MOTOR_COUNT; motor++) {
+            buffer.putInt(at, encoderPositions[motor]); at += 4;
+        }
+        buffer.putLong(at, frameSequence); at += 8;
+        buffer.putLong(at, frameCaptureNanos); at += 8;
+        buffer.putInt(at, pipelineIndex); at += 4;
+        buffer.putFloat(at, frameLatencyMillis); at += 4;
+        buffer.putDouble(at, tx); at += 8;
+        buffer.putDouble(at, ty); at += 8;
+        buffer.putDouble(at, ta); at += 8;
+        buffer.putDouble(at, botPoseX); at += 8;
+        buffer.putDouble(at, botPoseY); at += 8;
+        buffer.putDouble(at, botPoseZ); at += 8;
+        buffer.putDouble(at, botPoseRoll); at += 8;
+        buffer.putDouble(at, botPosePitch); at += 8;
+        buffer.putDouble(at, botPoseYaw); at += 8;
+        buffer.putInt(at, botPoseTagCount); at += 4;
+        buffer.putDouble(at, botPoseTagDistance); at += 8;
+        buffer.putLong(at, webcamSequence); at += 8;
+        buffer.putLong(at, webcamCaptureNanos); at += 8;
+        buffer.putInt(at, webcamDetectionCount); at += 4;
+        buffer.putLong(at, webcamDetectionIndex); at += 8;
+        buffer.putFloat(at, targetX); at += 4;
+        buffer.putFloat(at, targetY); at += 4;
+        buffer.putFloat(at, targetYaw); at += 4;
+        buffer.putFloat(at, poseX); at += 4;
+        buffer.putFloat(at, poseY); at += 4;
+        buffer.putFloat(at, poseHeading);
+    }
+
+    /**
+     * Read a record written by writeTo from the given byte offset
+     */
+    public void readFrom(ByteBuffer buffer, int offset) {
+        int at = offset;
+        cycleStartNanos = buffer.getLong(at); at += 8;
+        cycle = buffer.getLong(at); at += 8;
+        loopTimeMillis = buffer.getFloat(at); at += 4;
+        flags = buffer.getInt(at); at += 4;
+        gamepadAxial = buffer.getFloat(at); at += 4;
+        gamepadLateral = buffer.getFloat(at); at += 4;
+        gamepadYaw = buffer.getFloat(at); at += 4;
+        gamepadButtons = buffer.getInt(at); at += 4;
+        for (int motor = 0; motor < DriveHardware.MOTOR_COUNT; motor++) {
+            commandedPowers[motor] = buffer.getFloat(at); at += 4;
+        }
+        for (int motor = 0; motor < DriveHardware.MOTOR_COUNT; motor++) {
+            encoderPositions[motor] = buffer.getInt(at); at += 4;
+        }
+        frameSequence = buffer.getLong(at); at += 8;
+        frameCaptureNanos = buffer.getLong(at); at += 8;
+        pipelineIndex = buffer.getInt(at); at += 4;
+        frameLatencyMillis = buffer.getFloat(at); at += 4;
+        tx = buffer.getDouble(at); at += 8;
+        ty = buffer.getDouble(at); at += 8;
+        ta = buffer.getDouble(at); at += 8;
+        botPoseX = buffer.getDouble(at); at += 8;
+        botPoseY = buffer.getDouble(at); at += 8;
+        botPoseZ = buffer.getDouble(at); at += 8;
+        botPoseRoll = buffer.getDouble(at); at += 8;
+        botPosePitch = buffer.getDouble(at); at += 8;
+        botPoseYaw = buffer.getDouble(at); at += 8;
+        botPoseTagCount = buffer.getInt(at); at += 4;
+        botPoseTagDistance = buffer.getDouble(at); at += 8;
+        webcamSequence = buffer.getLong(at); at += 8;
+        webcamCaptureNanos = buffer.getLong(at); at += 8;
+        webcamDetectionCount = Math.max(0, Math.min(VisionFrame.MAX_DETECTIONS, buffer.getInt(at))); at += 4;
+        webcamDetectionIndex = buffer.getLong(at); at += 8;
+        targetX = buffer.getFloat(at); at += 4;
+        targetY = buffer.getFloat(at); at += 4;
+        targetYaw = buffer.getFloat(at); at += 4;
+        poseX = buffer.getFloat(at); at += 4;
+        poseY = buffer.getFloat(at); at += 4;
+        poseHeading = buffer.getFloat(at);
+    }
+
+    /**
+     * Write webcam detection i at the given byte offset; the buffer must be little-endian
+     */
+    public void writeWebcamDetection(int i, ByteBuffer buffer, int offset) {
+        buffer.putInt(offset, webcamDetectionIds[i]);
+        buffer.putDouble(offset + 4, webcamDetectionX[i]);
+        buffer.putDouble(offset + 12, webcamDetectionY[i]);
+        buffer.putDouble(offset + 20, webcamDetectionYaw[i]);
+        buffer.putDouble(offset + 28, webcamDetectionRange[i]);
+        buffer.putDouble(offset + 36, webcamDetectionQuality[i]);
+    }
+
+    /**
+     * Read webcam detection i written by writeWebcamDetection from the given byte offset
+     */
+    public void readWebcamDetection(int i, ByteBuffer buffer, int offset) {
+        webcamDetectionIds[i] = buffer.getInt(offset);
+        webcamDetectionX[i] = buffer.getDouble(offset + 4);
+        webcamDetectionY[i] = buffer.getDouble(offset + 12);
+        webcamDetectionYaw[i] = buffer.getDouble(offset + 20);
+        webcamDetectionRange[i] = buffer.getDouble(offset + 28);
+        webcamDetectionQuality[i] = buffer.getDouble(offset + 36);
+    }
+}
@@ -0,0 +1,279 @@
+package org.firstinspires.ftc.teamcode.classes.recording;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.TelemetrySink;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Flight recorder: writes one MatchRecord per loop cycle into a memory-mapped ring file
+ * Recording is a handful of stores into mapped memory, with no system call and no allocation, so it never
+ * blocks the loop. The file is sized and its pages touched when it is opened, so its size is fixed and the
+ * loop does not take page faults. Once full, the oldest records are overwritten. A background thread
+ * flushes the mapping to storage once a second, so stop only has to flush the last second and a robot
+ * that loses power loses at most that much.
+ *
+ * File layout (little-endian):
+ *   int magic, int format version, int record bytes, int capacity, long start time (epoch millis),
+ *   long records written, int detection capacity, padding, long detections written, padding to HEADER_BYTES,
+ *   then capacity records of MatchRecord.BYTES each, then detection capacity webcam detections of
+ *   MatchRecord.DETECTION_BYTES each.
+ *   Record n is in slot n % capacity and detection n in slot n % detection capacity. A record's detections are
+ *   written before it, and each written count is updated after what it counts.
+ */
+public class MatchRecorder {
+
+    public static final int MAGIC = 0x4345524D; // "MREC"
+    public static final int FORMAT_VERSION = 3;
+    public static final int HEADER_BYTES = 64;
+    public static final String EXTENSION = ".mrec";
+
+    // Offsets in the header
+    static final int RECORD_BYTES_OFFSET = 8;
+    static final int CAPACITY_OFFSET = 12;
+    static final int START_TIME_OFFSET = 16;
+    static final int WRITE_COUNT_OFFSET = 24;
+    static final int DETECTION_CAPACITY_OFFSET = 32;
+    static final int DETECTION_WRITE_COUNT_OFFSET = 40;
+
+    // 65536 cycles is over 5 minutes at 200 Hz (18 MB), enough for a full match including init
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    // Older recordings in the directory are deleted so the logs can't fill the hub's storage
+    public static final int DEFAULT_MAX_RECORDINGS = 20;
+    public static final long DEFAULT_MAX_TOTAL_BYTES = 256L << 20; // Including the new recording
+
+    private static final long FLUSH_PERIOD_NANOS = 1_000_000_000L;
+    private static final int PAGE_BYTES = 4096;
+
+    private final int capacity;
+    private final int detectionCapacity;
+    private final int maxRecordings;
+    private final long maxTotalBytes;
+
+    private RandomAccessFile file = null;
+    private MappedByteBuffer buffer = null;
+    private long writeCount = 0;
+    private long detectionWriteCount = 0;
+
+    private volatile boolean flushing = false;
+    private Thread flushThread = null;
+    private double lastCloseFlushMillis = 0.0;
+
+    public MatchRecorder() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_RECORDINGS);
+    }
+
+    public MatchRecorder(int capacity, int maxRecordings) {
+        this(capacity, maxRecordings, DEFAULT_MAX_TOTAL_BYTES);
+    }
+
+    public MatchRecorder(int capacity, int maxRecordings, long maxTotalBytes) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive, got " + capacity);
+        }
+        this.capacity = capacity;
+        // The webcam gives a result every few cycles with a tag or two, so one detection per cycle covers the
+        // whole ring; if it runs out, a reader skips the oldest cycles rather than replay them without theirs
+        this.detectionCapacity = Math.max(capacity, VisionFrame.MAX_DETECTIONS);
+        this.maxRecordings = maxRecordings;
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    /**
+     * Create and map the recording file, deleting the oldest recordings beyond the count and size limits
+     * Returns false (and records nothing) if the file could not be created, so a full or missing
+     * storage never stops the OpMode
+     */
+    public boolean tryOpen(File recordingFile) {
+        close();
+        File directory = recordingFile.getParentFile();
+        try {
+            if (directory != null) {
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    return false;
+                }
+            }
+            long size = HEADER_BYTES + (long) capacity * MatchRecord.BYTES
+                    + (long) detectionCapacity * MatchRecord.DETECTION_BYTES;
+            if (directory != null) {
+                pruneRecordings(directory, maxRecordings - 1, maxTotalBytes - size);
+            }
+
+            file = new RandomAccessFile(recordingFile, "rw");
+            file.setLength(size);
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            close();
+            return false;
+        }
+
+        // Fault every page in now rather than on the loop thread later
+        for (int offset = 0; offset < buffer.capacity(); offset += PAGE_BYTES) {
+            buffer.put(offset, (byte) 0);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putInt(RECORD_BYTES_OFFSET, MatchRecord.BYTES);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putLong(START_TIME_OFFSET, System.currentTimeMillis());
+        buffer.putLong(WRITE_COUNT_OFFSET, 0);
+        buffer.putInt(DETECTION_CAPACITY_OFFSET, detectionCapacity);
+        buffer.putLong(DETECTION_WRITE_COUNT_OFFSET, 0);
+        writeCount = 0;
+        detectionWriteCount = 0;
+
+        startFlushThread();
+        return true;
+    }
+
+    /**
+     * Append a record, overwriting the oldest once the ring is full; does nothing if not open
+     */
+    public void record(MatchRecord record) {
+        MappedByteBuffer mapped = buffer;
+        if (mapped == null) {
+            return;
+        }
+        record.webcamDetectionIndex = detectionWriteCount;
+        if (record.webcamDetectionCount > 0) {
+            int detectionsOffset = HEADER_BYTES + capacity * MatchRecord.BYTES;
+            for (int i = 0; i < record.webcamDetectionCount; i++) {
+                int detectionSlot = (int) ((detectionWriteCount + i) % detectionCapacity);
+                record.writeWebcamDetection(i, mapped, detectionsOffset + detectionSlot * MatchRecord.DETECTION_BYTES);
+            }
+            detectionWriteCount += record.webcamDetectionCount;
+            mapped.putLong(DETECTION_WRITE_COUNT_OFFSET, detectionWriteCount);
+        }
+        int slot = (int) (writeCount % capacity);
+        record.writeTo(mapped, HEADER_BYTES + slot * MatchRecord.BYTES);
+        writeCount++;
+        // Published after the record, so a reader never counts a half-written one
+        mapped.putLong(WRITE_COUNT_OFFSET, writeCount);
+    }
+
+    /**
+     * Stop the flush thread, flush what is left and close the file
+     */
+    public void close() {
+        stopFlushThread();
+        if (buffer != null) {
+            long startNanos = System.nanoTime();
+            buffer.force();
+            lastCloseFlushMillis = (System.nanoTime() - startNanos) / 1e6;
+            buffer = null;
+        }
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // Nothing left to lose; the mapping has already been flushed
+            }
+            file = null;
+        }
+    }
+
+    public boolean isOpen() { return buffer != null; }
+    public long getWriteCount() { return writeCount; }
+    public int getCapacity() { return capacity; }
+    public int getDetectionCapacity() { return detectionCapacity; }
+
+    /**
+     * How long the final flush in close took
+     */
+    public double getLastCloseFlushMillis() { return lastCloseFlushMillis; }
+
+    /**
+     * Display recorder telemetry
+     */
+    public void displayTelemetry(TelemetrySink telemetry) {
+        if (buffer == null) {
+            telemetry.addData("Recording", "Off");
+        } else {
+            telemetry.addData("Recording", "%d cycles (%d kept)", writeCount, Math.min(writeCount, capacity));
+        }
+    }
+
+    /**
+     * Timestamped recording file for an OpMode run, e.g. MatchLogs/ManualDrive-20251009-153000.mrec
+     */
+    public static File recordingFile(File rootDirectory, String opModeName) {
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        return new File(new File(rootDirectory, "MatchLogs"), opModeName + "-" + timestamp + EXTENSION);
+    }
+
+    /**
+     * Delete the oldest recordings in directory so that at most keep remain, taking at most maxBytes together
+     */
+    private static void pruneRecordings(File directory, int keep, long maxBytes) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        File[] recordings = new File[files.length];
+        int count = 0;
+        long totalBytes = 0;
+        for (File candidate : files) {
+            if (candidate.getName().endsWith(EXTENSION)) {
+                recordings[count++] = candidate;
+                totalBytes += candidate.length();
+            }
+        }
+        if (count <= keep && totalBytes <= maxBytes) {
+            return;
+        }
+        Arrays.sort(recordings, 0, count, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for (int i = 0; i < count && (count - i > keep || totalBytes > maxBytes); i++) {
+            totalBytes -= recordings[i].length();
+            recordings[i].delete();
+        }
+    }
+
+    private void startFlushThread() {
+        final MappedByteBuffer mapped = buffer;
+        flushing = true;
+        flushThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (flushing) {
+                    LockSupport.parkNanos(FLUSH_PERIOD_NANOS);
+                    if (flushing) {
+                        mapped.force();
+                    }
+                }
+            }
+        }, "MatchRecorderFlush");
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
+    private void stopFlushThread() {
+        flushing = false;
+        if (flushThread != null) {
+            LockSupport.unpark(flushThread);
+            try {
+                flushThread.join(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flushThread = null;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package org.firstinspires.ftc.teamcode.classes.replay;
+
+import org.firstinspires.ftc.teamcode.classes.DriveGeometry;
+import org.firstinspires.ftc.teamcode.classes.Robot;
+import org.firstinspires.ftc.teamcode.classes.Vision;
+import org.firstinspires.ftc.teamcode.classes.hardware.DriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+import org.firstinspires.ftc.teamcode.classes.localization.DriveEncoderLocalizer;
+import org.firstinspires.ftc.teamcode.classes.localization.PoseEstimator;
+import org.firstinspires.ftc.teamcode.classes.localization.VisionFusion;
+import org.firstinspires.ftc.teamcode.classes.recording.MatchLogReader;
+import org.firstinspires.ftc.teamcode.classes.recording.MatchRecord;
+import org.firstinspires.ftc.teamcode.classes.recording.MatchRecorder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Re-runs the LimelightMoveToAprilTag loop against a recorded match and compares the wheel powers
+ * Each cycle feeds the recorded encoders, Limelight result and webcam detections through Vision.processFrame,
+ * VisionFusion, the pose estimator and Robot.moveToPose at the recorded cycle time, so the current build's
+ * controller sees exactly what the robot saw. Any cycle whose commanded powers differ from the recorded ones
+ * by more than the tolerance is counted (and written to the diff CSV), so controller and filter changes can
+ * be checked against real matches before they go on the robot.
+ *
+ * Usage: MatchReplay [--tolerance power] [--legacy] [--diff file.csv] log|directory...
+ * Exits with status 1 if any cycle differs.
+ */
+public class MatchReplay {
+
+    public static final double DEFAULT_TOLERANCE = 1e-4; // powers are recorded as floats
+
+    // Recordings this replays, by OpMode name
+    private static final String APPROACH_LOG_PREFIX = "LimelightMoveToAprilTag-";
+
+    /**
+     * Outcome of replaying one recording
+     */
+    public static class Result {
+        public String name = "";
+        public long cycles = 0;
+        public long differingCycles = 0;
+        public long firstDifferingCycle = -1;
+        public double maxDifference = 0.0;
+        public double recordedSeconds = 0.0;
+        public double wallSeconds = 0.0;
+        // The ring had wrapped, so the replay starts mid-match without the robot's earlier state
+        public boolean startsMidMatch = false;
+        private double sumSquaredDifference = 0.0;
+        private long comparedPowers = 0;
+
+        public double getRmsDifference() {
+            return comparedPowers == 0 ? 0.0 : Math.sqrt(sumSquaredDifference / comparedPowers);
+        }
+
+        public double getSpeedup() {
+            return wallSeconds <= 0.0 ? 0.0 : recordedSeconds / wallSeconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s: %d cycles, %d differ (max %.5f, rms %.5f)%s, %.1fs replayed in %.3fs (%.0fx real time)",
+                    name, cycles, differingCycles, maxDifference, getRmsDifference(),
+                    startsMidMatch ? ", starts mid-match" : "", recordedSeconds, wallSeconds, getSpeedup());
+        }
+    }
+
+    private final RecordedHardware hardware = new RecordedHardware();
+    private final Robot robot = new Robot();
+    private final Vision vision = new Vision();
+    private final DriveEncoderLocalizer localizer =
+            new DriveEncoderLocalizer(hardware, DriveGeometry.TICKS_PER_METER, DriveGeometry.WHEEL_LEVER_ARM);
+    private final PoseEstimator poseEstimator = new PoseEstimator();
+    private final VisionFusion visionFusion = new VisionFusion();
+    private final VisionFrame webcamFrame = new VisionFrame();
+    private final Vision.TargetData targetData = new Vision.TargetData();
+    private final Robot.MovementResult movementResult = new Robot.MovementResult();
+
+    /**
+     * Fresh robot state, as at LimelightMoveToAprilTag.start(); use one instance per recording
+     */
+    public MatchReplay() {
+        robot.init(hardware);
+        robot.setLocalizer(localizer);
+        vision.init(hardware, Vision.Pipeline.APRIL_TAG);
+        vision.start();
+    }
+
+    public void setApproachGains(boolean legacy) {
+        if (legacy) {
+            robot.setApproachGains(Robot.LEGACY_AXIAL_GAINS, Robot.LEGACY_LATERAL_GAINS, Robot.LEGACY_YAW_GAINS);
+        }
+    }
+
+    /**
+     * One LimelightMoveToAprilTag.loop() (without telemetry) on the recorded cycle
+     */
+    public void step(MatchRecord record) {
+        hardware.setRecord(record);
+        long now = record.cycleStartNanos;
+
+        vision.processFrame(targetData, now);
+
+        robot.updateLocalizer(now);
+        poseEstimator.predict(localizer.getDeltaForward(), localizer.getDeltaLeft(), localizer.getDeltaHeading(), now);
+        visionFusion.clear();
+        if (targetData.hasBotPose && targetData.isNewFrame) {
+            visionFusion.addFrame(vision.getLastFrame());
+        }
+        if (record.copyWebcamFrameTo(webcamFrame)) {
+            visionFusion.addFrame(webcamFrame);
+        }
+        if (visionFusion.fuse(poseEstimator)) {
+            poseEstimator.addVisionMeasurement(visionFusion.getX(), visionFusion.getY(), visionFusion.getHeading(),
+                    visionFusion.getCaptureTimeNanos(), visionFusion.getPositionStd(), visionFusion.getHeadingStd());
+        }
+
+        if (poseEstimator.isTracking(now)) {
+            robot.moveToPose(poseEstimator.getX(), poseEstimator.getY(), poseEstimator.getHeadingDegrees(),
+                    now, movementResult);
+        } else {
+            robot.stopMovement();
+        }
+        vision.recordCommandedMotion(now, robot.getCommandedForwardVelocity(),
+                robot.getCommandedLeftVelocity(), robot.getCommandedTurnRate());
+    }
+
+    /**
+     * Replay a whole recording, writing differing cycles to diffWriter if it is not null
+     */
+    public Result replay(File recordingFile, double tolerance, PrintWriter diffWriter) throws IOException {
+        Result result = new Result();
+        result.name = recordingFile.getName();
+        MatchRecord record = new MatchRecord();
+        long startNanos = System.nanoTime();
+        long firstCycleNanos = 0;
+        long lastCycleNanos = 0;
+
+        MatchLogReader reader = new MatchLogReader(recordingFile);
+        try {
+            result.startsMidMatch = reader.getWrittenCount() > reader.getRecordCount();
+            while (reader.next(record)) {
+                step(record);
+                if (result.cycles == 0) {
+                    firstCycleNanos = record.cycleStartNanos;
+                }
+                lastCycleNanos = record.cycleStartNanos;
+                result.cycles++;
+                compare(record, tolerance, result, diffWriter);
+            }
+        } finally {
+            reader.close();
+        }
+
+        result.recordedSeconds = (lastCycleNanos - firstCycleNanos) / 1e9;
+        result.wallSeconds = (System.nanoTime() - startNanos) / 1e9;
+        return result;
+    }
+
+    private void compare(MatchRecord record, double tolerance, Result result, PrintWriter diffWriter) {
+        double cycleDifference = 0.0;
+        for (int motor = 0; motor < DriveHardware.MOTOR_COUNT; motor++) {
+            double difference = Math.abs(robot.getCommandedPower(motor) - record.commandedPowers[motor]);
+            cycleDifference = Math.max(cycleDifference, difference);
+            result.sumSquaredDifference += difference * difference;
+            result.comparedPowers++;
+        }
+        result.maxDifference = Math.max(result.maxDifference, cycleDifference);
+        if (cycleDifference <= tolerance) {
+            return;
+        }
+
+        result.differingCycles++;
+        if (result.firstDifferingCycle < 0) {
+            result.firstDifferingCycle = record.cycle;
+        }
+        if (diffWriter != null) {
+            diffWriter.println(String.format(Locale.US, "%s,%d,%d,%.5f,%.5f,%.5f,%.5f,%.5f,%.5f,%.5f,%.5f",
+                    result.name, record.cycle, record.cycleStartNanos,
+                    record.commandedPowers[DriveHardware.FRONT_LEFT],
+                    record.commandedPowers[DriveHardware.FRONT_RIGHT],
+                    record.commandedPowers[DriveHardware.BACK_LEFT],
+                    record.commandedPowers[DriveHardware.BACK_RIGHT],
+                    robot.getCommandedPower(DriveHardware.FRONT_LEFT),
+                    robot.getCommandedPower(DriveHardware.FRONT_RIGHT),
+                    robot.getCommandedPower(DriveHardware.BACK_LEFT),
+                    robot.getCommandedPower(DriveHardware.BACK_RIGHT)));
+        }
+    }
+
+    /**
+     * Recordings named on the command line, expanding directories to the approach logs inside them
+     */
+    private static List<File> collectRecordings(List<String> paths) {
+        List<File> recordings = new ArrayList<>();
+        for (String path : paths) {
+            File file = new File(path);
+            if (file.isDirectory()) {
+                File[] children = file.listFiles();
+                if (children == null) {
+                    continue;
+                }
+                Arrays.sort(children);
+                for (File child : children) {
+                    if (child.getName().startsWith(APPROACH_LOG_PREFIX)
+                            && child.getName().endsWith(MatchRecorder.EXTENSION)) {
+                        recordings.add(child);
+                    }
+                }
+            } else {
+                recordings.add(file);
+            }
+        }
+        return recordings;
+    }
+
+    public static void main(String[] args) throws IOException {
+        double tolerance = DEFAULT_TOLERANCE;
+        boolean legacyGains = false;
+        String diffPath = null;
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--tolerance")) {
+                tolerance = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--legacy")) {
+                legacyGains = true;
+            } else if (args[i].equals("--diff")) {
+                diffPath = args[++i];
+            } else {
+                paths.add(args[i]);
+            }
+        }
+
+        List<File> recordings = collectRecordings(paths);
+        if (recordings.isEmpty()) {
+            System.err.println("Usage: MatchReplay [--tolerance power] [--legacy] [--diff file.csv] log|directory...");
+            System.exit(2);
+        }
+
+        PrintWriter diffWriter = null;
+        if (diffPath != null) {
+            diffWriter = new PrintWriter(new FileWriter(diffPath));
+            diffWriter.println("log,cycle,cycle_start_ns,recorded_fl,recorded_fr,recorded_bl,recorded_br,"
+                    + "replayed_fl,replayed_fr,replayed_bl,replayed_br");
+        }
+
+        long differingCycles = 0;
+        try {
+            for (File recording : recordings) {
+                if (!recording.getName().startsWith(APPROACH_LOG_PREFIX)) {
+                    System.out.println(recording.getName() + ": skipped, not a LimelightMoveToAprilTag recording");
+                    continue;
+                }
+                MatchReplay replay = new MatchReplay();
+                replay.setApproachGains(legacyGains);
+                try {
+                    Result result = replay.replay(recording, tolerance, diffWriter);
+                    differingCycles += result.differingCycles;
+                    System.out.println(result);
+                } catch (IOException e) {
+                    System.out.println(recording.getName() + ": " + e.getMessage());
+                }
+            }
+        } finally {
+            if (diffWriter != null) {
+                diffWriter.close();
+            }
+        }
+        System.exit(differingCycles == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,67 @@
+package org.firstinspires.ftc.teamcode.classes.replay;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.DriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionHardware;
+import org.firstinspires.ftc.teamcode.classes.recording.MatchRecord;
+
+/**
+ * Drive motors and Limelight that play back a recorded match, one MatchRecord per loop cycle
+ * Encoder positions and camera results come from the current record; powers written by Robot are kept so
+ * they can be compared against the recorded ones.
+ */
+public class RecordedHardware implements DriveHardware, VisionHardware {
+
+    private final double[] powers = new double[MOTOR_COUNT];
+    private MatchRecord record = null;
+    private int pipelineIndex = 0;
+
+    /**
+     * Make the given record the current cycle's hardware state
+     */
+    public void setRecord(MatchRecord record) {
+        this.record = record;
+    }
+
+    @Override
+    public void setPowers(double frontLeftPower, double frontRightPower,
+                          double backLeftPower, double backRightPower) {
+        powers[FRONT_LEFT] = frontLeftPower;
+        powers[FRONT_RIGHT] = frontRightPower;
+        powers[BACK_LEFT] = backLeftPower;
+        powers[BACK_RIGHT] = backRightPower;
+    }
+
+    @Override
+    public double getPower(int motor) {
+        return powers[motor];
+    }
+
+    @Override
+    public int getCurrentPosition(int motor) {
+        return record == null ? 0 : record.encoderPositions[motor];
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public void pipelineSwitch(int index) {
+        pipelineIndex = index;
+    }
+
+    @Override
+    public boolean readLatest(VisionFrame frame) {
+        return record != null && record.copyVisionFrameTo(frame);
+    }
+
+    /**
+     * Pipeline most recently requested by Vision
+     */
+    public int getPipelineIndex() { return pipelineIndex; }
+}
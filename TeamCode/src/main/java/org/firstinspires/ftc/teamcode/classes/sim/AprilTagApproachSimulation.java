@@ -0,0 +1,213 @@
+package org.firstinspires.ftc.teamcode.classes.sim;
+
+import org.firstinspires.ftc.teamcode.classes.DriveGeometry;
+import org.firstinspires.ftc.teamcode.classes.Robot;
+import org.firstinspires.ftc.teamcode.classes.Vision;
+import org.firstinspires.ftc.teamcode.classes.hardware.BatchedTelemetry;
+import org.firstinspires.ftc.teamcode.classes.hardware.HardwareCycle;
+import org.firstinspires.ftc.teamcode.classes.localization.DriveEncoderLocalizer;
+import org.firstinspires.ftc.teamcode.classes.localization.Localizer;
+import org.firstinspires.ftc.teamcode.classes.localization.PoseEstimator;
+import org.firstinspires.ftc.teamcode.classes.localization.VisionFusion;
+
+import java.util.Locale;
+
+/**
+ * Runs the LimelightMoveToAprilTag loop against the simulated chassis and Limelight
+ * Usage: AprilTagApproachSimulation [trials] [maxSteps] [dtSeconds] [dropoutProbability] [default|legacy]
+ *        [encoders|deadwheels]
+ */
+public class AprilTagApproachSimulation {
+
+    // A trial has settled once the robot stays at the target this long
+    private static final double SETTLE_SECONDS = 0.5;
+
+    private final SimulatedMecanumChassis chassis = new SimulatedMecanumChassis();
+    private final SimulatedLimelight limelight;
+    private final SimulatedTelemetry simulatedTelemetry = new SimulatedTelemetry(false);
+    private final BatchedTelemetry telemetry = new BatchedTelemetry(simulatedTelemetry,
+            BatchedTelemetry.DEFAULT_TRANSMISSION_INTERVAL_MILLIS);
+    private final Robot robot = new Robot();
+    private final Vision vision = new Vision();
+    private final HardwareCycle hardwareCycle = new HardwareCycle();
+    private Localizer localizer;
+    private final PoseEstimator poseEstimator = new PoseEstimator();
+    private final VisionFusion visionFusion = new VisionFusion();
+    private final Vision.TargetData targetData = new Vision.TargetData();
+    private final Robot.MovementResult movementResult = new Robot.MovementResult();
+    private final double dt;
+
+    private long steps = 0;
+    private boolean atTarget = false;
+
+    public AprilTagApproachSimulation(long seed, double dt) {
+        this.dt = dt;
+        limelight = new SimulatedLimelight(chassis, seed);
+        robot.init(chassis);
+        setLocalizer(new DriveEncoderLocalizer(chassis, DriveGeometry.TICKS_PER_METER,
+                chassis.getWheelLeverArm()));
+        vision.init(limelight, Vision.Pipeline.APRIL_TAG);
+    }
+
+    /**
+     * Replace the drive encoder localizer, e.g. with SimulatedDeadWheels; call before start
+     */
+    public void setLocalizer(Localizer localizer) {
+        this.localizer = localizer;
+        robot.setLocalizer(localizer);
+    }
+
+    /**
+     * Place the robot and start the camera, like OpMode.start()
+     */
+    public void start(double x, double y, double headingDegrees) {
+        chassis.setPose(x, y, Math.toRadians(headingDegrees));
+        vision.start();
+        vision.clearPositionHistory();
+        poseEstimator.clear();
+        steps = 0;
+        atTarget = false;
+    }
+
+    /**
+     * One OpMode loop() followed by dt seconds of physics
+     */
+    public void step() {
+        long now = chassis.getTimeNanos();
+        hardwareCycle.startCycle(now);
+        robot.updateLocalizer(now);
+        poseEstimator.predict(localizer.getDeltaForward(), localizer.getDeltaLeft(), localizer.getDeltaHeading(), now);
+
+        vision.processFrame(targetData, now);
+        visionFusion.clear();
+        if (targetData.hasBotPose && targetData.isNewFrame) {
+            visionFusion.addFrame(vision.getLastFrame());
+        }
+        if (visionFusion.fuse(poseEstimator)) {
+            poseEstimator.addVisionMeasurement(visionFusion.getX(), visionFusion.getY(), visionFusion.getHeading(),
+                    visionFusion.getCaptureTimeNanos(), visionFusion.getPositionStd(), visionFusion.getHeadingStd());
+        }
+        vision.displayTelemetry(telemetry, targetData);
+        poseEstimator.displayTelemetry(telemetry);
+
+        if (poseEstimator.isTracking(now)) {
+            robot.moveToPose(poseEstimator.getX(), poseEstimator.getY(), poseEstimator.getHeadingDegrees(),
+                    now, movementResult);
+            telemetry.addData("Action", movementResult);
+            atTarget = movementResult.atTarget;
+        } else {
+            robot.stopMovement();
+            telemetry.addData("Action", "Stopped - No target detected");
+            atTarget = false;
+        }
+        vision.recordCommandedMotion(now, robot.getCommandedForwardVelocity(),
+                robot.getCommandedLeftVelocity(), robot.getCommandedTurnRate());
+        robot.displayTelemetry(telemetry);
+        telemetry.update(now);
+
+        chassis.step(dt);
+        steps++;
+    }
+
+    public SimulatedMecanumChassis getChassis() { return chassis; }
+    public SimulatedLimelight getLimelight() { return limelight; }
+    public SimulatedTelemetry getTelemetry() { return simulatedTelemetry; }
+    public Robot getRobot() { return robot; }
+    public Vision getVision() { return vision; }
+    public HardwareCycle getHardwareCycle() { return hardwareCycle; }
+    public PoseEstimator getPoseEstimator() { return poseEstimator; }
+    public long getSteps() { return steps; }
+    public boolean isAtTarget() { return atTarget; }
+    public double getSimulatedSeconds() { return steps * dt; }
+
+    public static void main(String[] args) {
+        int trials = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int maxSteps = args.length > 1 ? Integer.parseInt(args[1]) : 3000;
+        double dt = args.length > 2 ? Double.parseDouble(args[2]) : 0.01;
+        double dropoutProbability = args.length > 3 ? Double.parseDouble(args[3]) : 0.0;
+        boolean legacyGains = args.length > 4 && args[4].equals("legacy");
+        boolean deadWheels = args.length > 5 && args[5].equals("deadwheels");
+
+        int settleSteps = (int) Math.ceil(SETTLE_SECONDS / dt);
+        int reached = 0;
+        int settled = 0;
+        long totalSteps = 0;
+        double totalTimeToTarget = 0.0;
+        double totalTimeToSettle = 0.0;
+        double totalFinalError = 0.0;
+        double totalOvershoot = 0.0;
+        double maxOvershoot = 0.0;
+        long startNanos = System.nanoTime();
+
+        for (int trial = 0; trial < trials; trial++) {
+            AprilTagApproachSimulation simulation = new AprilTagApproachSimulation(trial, dt);
+            simulation.getLimelight().setDropoutProbability(dropoutProbability);
+            if (deadWheels) {
+                simulation.setLocalizer(new SimulatedDeadWheels(simulation.getChassis()));
+            }
+            if (legacyGains) {
+                simulation.getRobot().setApproachGains(Robot.LEGACY_AXIAL_GAINS, Robot.LEGACY_LATERAL_GAINS,
+                        Robot.LEGACY_YAW_GAINS);
+            }
+            // Spread start poses deterministically over a box in front of the target
+            double startX = 0.5 + (trial % 5) * 0.2;
+            double startY = -0.4 + (trial % 7) * 0.13;
+            double startYaw = -20.0 + (trial % 9) * 5.0;
+            simulation.start(startX, startY, startYaw);
+
+            // Run until the robot has stayed at the target for SETTLE_SECONDS
+            long firstAtTargetStep = -1;
+            long streakStartStep = -1;
+            double overshoot = 0.0;
+            while (simulation.getSteps() < maxSteps) {
+                simulation.step();
+                // The target is at X = 0 and every start is in front of it, so negative X is overshoot
+                overshoot = Math.max(overshoot, -simulation.getChassis().getX());
+                if (simulation.isAtTarget()) {
+                    if (firstAtTargetStep < 0) {
+                        firstAtTargetStep = simulation.getSteps();
+                    }
+                    if (streakStartStep < 0) {
+                        streakStartStep = simulation.getSteps();
+                    }
+                    if (simulation.getSteps() - streakStartStep >= settleSteps) {
+                        break;
+                    }
+                } else {
+                    streakStartStep = -1;
+                }
+            }
+
+            totalSteps += simulation.getSteps();
+            totalOvershoot += overshoot;
+            maxOvershoot = Math.max(maxOvershoot, overshoot);
+            if (firstAtTargetStep >= 0) {
+                reached++;
+                totalTimeToTarget += firstAtTargetStep * dt;
+            }
+            if (streakStartStep >= 0 && simulation.getSteps() - streakStartStep >= settleSteps) {
+                settled++;
+                totalTimeToSettle += streakStartStep * dt;
+                totalFinalError += Math.hypot(simulation.getChassis().getX(), simulation.getChassis().getY());
+            }
+        }
+
+        double wallSeconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.println(String.format(Locale.US, "Gains: %s, odometry: %s", legacyGains ? "legacy" : "default",
+                deadWheels ? "dead wheels" : "drive encoders"));
+        System.out.println(String.format(Locale.US, "Trials: %d, reached target: %d, settled: %d",
+                trials, reached, settled));
+        if (reached > 0) {
+            System.out.println(String.format(Locale.US, "Mean simulated time to target: %.2fs",
+                    totalTimeToTarget / reached));
+        }
+        if (settled > 0) {
+            System.out.println(String.format(Locale.US, "Mean simulated time to settle: %.2fs, final error %.3fm",
+                    totalTimeToSettle / settled, totalFinalError / settled));
+        }
+        System.out.println(String.format(Locale.US, "Overshoot: mean %.3fm, max %.3fm",
+                totalOvershoot / trials, maxOvershoot));
+        System.out.println(String.format(Locale.US, "Loop iterations: %d in %.2fs wall (%.0f iterations/s)",
+                totalSteps, wallSeconds, totalSteps / wallSeconds));
+    }
+}
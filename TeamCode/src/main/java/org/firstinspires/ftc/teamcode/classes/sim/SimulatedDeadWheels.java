@@ -0,0 +1,60 @@
+package org.firstinspires.ftc.teamcode.classes.sim;
+
+import org.firstinspires.ftc.teamcode.classes.localization.Localizer;
+import org.firstinspires.ftc.teamcode.classes.localization.LocalizerState;
+
+/**
+ * Stand-in for a Pinpoint or OctoQuad: dead-wheel odometry that follows the simulated chassis's true motion
+ * Unlike the drive encoders, dead wheels don't slip, so the only errors are a pod distance calibration error
+ * and a slow IMU heading drift, both configurable.
+ */
+public class SimulatedDeadWheels implements Localizer {
+
+    private final SimulatedMecanumChassis chassis;
+    private final double distanceScaleError; // fraction, e.g. 0.01 reads 1% long
+    private final double headingDriftRate; // radians/second
+
+    // The chassis's true pose, whose motion each update is what the pods see
+    private final LocalizerState truth = new LocalizerState();
+    private final LocalizerState state = new LocalizerState();
+    private long lastUpdateNanos = 0;
+    private boolean hasLastUpdate = false;
+
+    public SimulatedDeadWheels(SimulatedMecanumChassis chassis) {
+        this(chassis, 0.0, 0.0);
+    }
+
+    public SimulatedDeadWheels(SimulatedMecanumChassis chassis, double distanceScaleError, double headingDriftRate) {
+        this.chassis = chassis;
+        this.distanceScaleError = distanceScaleError;
+        this.headingDriftRate = headingDriftRate;
+    }
+
+    @Override
+    public void update(long nowNanos) {
+        truth.set(chassis.getX(), chassis.getY(), chassis.getHeading(), 0.0, 0.0, 0.0);
+        double dt = hasLastUpdate ? (nowNanos - lastUpdateNanos) / 1e9 : 0.0;
+        lastUpdateNanos = nowNanos;
+        hasLastUpdate = true;
+
+        double scale = 1.0 + distanceScaleError;
+        state.integrate(truth.deltaForward * scale, truth.deltaLeft * scale,
+                truth.deltaHeading + headingDriftRate * dt, nowNanos);
+    }
+
+    @Override
+    public void setPose(double x, double y, double heading) {
+        state.reset(x, y, heading);
+    }
+
+    public boolean isReady() { return true; }
+    public double getX() { return state.x; }
+    public double getY() { return state.y; }
+    public double getHeading() { return state.heading; }
+    public double getVelocityX() { return state.velocityX; }
+    public double getVelocityY() { return state.velocityY; }
+    public double getHeadingVelocity() { return state.headingVelocity; }
+    public double getDeltaForward() { return state.deltaForward; }
+    public double getDeltaLeft() { return state.deltaLeft; }
+    public double getDeltaHeading() { return state.deltaHeading; }
+}
@@ -0,0 +1,192 @@
+package org.firstinspires.ftc.teamcode.classes.sim;
+
+import org.firstinspires.ftc.teamcode.classes.Angles;
+import org.firstinspires.ftc.teamcode.classes.Vision;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionFrame;
+import org.firstinspires.ftc.teamcode.classes.hardware.VisionHardware;
+
+import java.util.Random;
+
+/**
+ * Simulated Limelight that reports the botpose of a SimulatedMecanumChassis with Gaussian noise
+ * Results are only produced while an AprilTag is inside the camera's range and field of view.
+ * Like the real camera it produces a new result once per frame period, describing where the robot
+ * was one latency ago; reads in between return the same result again. A pipeline switch can be given
+ * a delay, during which results still come from the old pipeline.
+ */
+public class SimulatedLimelight implements VisionHardware {
+
+    // Limelight 3A horizontal field of view
+    private static final double HALF_FOV_DEGREES = 54.5 / 2.0;
+    // Target area (percent of image) of a tag seen from one meter away
+    private static final double AREA_AT_ONE_METER = 1.2;
+
+    private final SimulatedMecanumChassis chassis;
+    private final Random random;
+    private final VisionFrame currentFrame = new VisionFrame();
+    private final double[] capturedPose = new double[3];
+
+    private boolean running = false;
+    private boolean currentValid = false;
+    private long nextFrameNanos = 0;
+    private long sequence = 0;
+    private int pipelineIndex = 0; // Pipeline results come from
+    private int requestedPipelineIndex = 0;
+    private long pipelineSwitchNanos = 0; // When the requested pipeline takes over
+    private int aprilTagPipelineIndex = Vision.Pipeline.APRIL_TAG.getIndex();
+
+    // Field position of the tag the camera is looking at
+    private double tagX = 2.0;
+    private double tagY = 0.0;
+    private double maxRange = 4.0; // meters
+
+    // Measurement noise and dropouts
+    private double positionNoise = 0.01; // meters, standard deviation
+    private double yawNoise = 0.5; // degrees, standard deviation
+    private double dropoutProbability = 0.0;
+
+    // Timing
+    private long latencyNanos = 25_000_000L; // capture + targeting + parse
+    private long framePeriodNanos = 11_000_000L; // ~90 frames per second
+    private long pipelineSwitchDelayNanos = 0;
+
+    public SimulatedLimelight(SimulatedMecanumChassis chassis, long seed) {
+        this.chassis = chassis;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void pipelineSwitch(int index) {
+        requestedPipelineIndex = index;
+        pipelineSwitchNanos = chassis.getTimeNanos() + pipelineSwitchDelayNanos;
+        if (pipelineSwitchDelayNanos == 0) {
+            pipelineIndex = index;
+        }
+    }
+
+    @Override
+    public boolean readLatest(VisionFrame frame) {
+        long now = chassis.getTimeNanos();
+        if (now >= pipelineSwitchNanos) {
+            pipelineIndex = requestedPipelineIndex;
+        }
+        if (!running || pipelineIndex != aprilTagPipelineIndex) {
+            return false;
+        }
+
+        if (now >= nextFrameNanos) {
+            nextFrameNanos = now + framePeriodNanos;
+            currentValid = captureFrame(now);
+        }
+        if (!currentValid) {
+            return false;
+        }
+        frame.copyFrom(currentFrame);
+        return true;
+    }
+
+    /**
+     * Produce the result for a frame captured one latency before now
+     */
+    private boolean captureFrame(long now) {
+        long captureTime = now - latencyNanos;
+        chassis.getPoseAt(captureTime, capturedPose);
+        double robotX = capturedPose[0];
+        double robotY = capturedPose[1];
+        double robotHeading = capturedPose[2];
+
+        double dx = tagX - robotX;
+        double dy = tagY - robotY;
+        double range = Math.hypot(dx, dy);
+        double bearing = Math.toDegrees(Angles.normalizeRadians(
+                Math.atan2(dy, dx) - robotHeading));
+        if (range > maxRange || Math.abs(bearing) > HALF_FOV_DEGREES) {
+            return false;
+        }
+        if (dropoutProbability > 0.0 && random.nextDouble() < dropoutProbability) {
+            return false;
+        }
+
+        currentFrame.sequence = ++sequence;
+        currentFrame.pipelineIndex = pipelineIndex;
+        currentFrame.captureTimeNanos = captureTime;
+        currentFrame.latencyMillis = latencyNanos / 1e6;
+        currentFrame.tx = -bearing; // tx is positive when the target is to the right
+        currentFrame.ty = 0.0;
+        currentFrame.ta = AREA_AT_ONE_METER / Math.max(range * range, 1e-3);
+
+        currentFrame.hasBotPose = true;
+        currentFrame.botPoseX = robotX + random.nextGaussian() * positionNoise;
+        currentFrame.botPoseY = robotY + random.nextGaussian() * positionNoise;
+        currentFrame.botPoseZ = 0.0;
+        currentFrame.botPoseRoll = 0.0;
+        currentFrame.botPosePitch = 0.0;
+        currentFrame.botPoseYaw = Math.toDegrees(robotHeading) + random.nextGaussian() * yawNoise;
+        return true;
+    }
+
+    /**
+     * Place the tag the camera tracks
+     */
+    public void setTag(double tagX, double tagY, double maxRange) {
+        this.tagX = tagX;
+        this.tagY = tagY;
+        this.maxRange = maxRange;
+    }
+
+    /**
+     * Configure measurement noise and the chance that a frame is dropped
+     */
+    public void setNoise(double positionNoise, double yawNoise, double dropoutProbability) {
+        this.positionNoise = positionNoise;
+        this.yawNoise = yawNoise;
+        this.dropoutProbability = dropoutProbability;
+    }
+
+    /**
+     * Chance that a frame is dropped, keeping the current noise
+     */
+    public void setDropoutProbability(double dropoutProbability) {
+        this.dropoutProbability = dropoutProbability;
+    }
+
+    /**
+     * Configure the camera latency and the time between frames
+     */
+    public void setTiming(double latencyMillis, double framePeriodMillis) {
+        latencyNanos = Math.round(latencyMillis * 1e6);
+        framePeriodNanos = Math.round(framePeriodMillis * 1e6);
+    }
+
+    /**
+     * How long a pipeline switch takes to land; results keep coming from the old pipeline until then
+     */
+    public void setPipelineSwitchDelay(double delayMillis) {
+        pipelineSwitchDelayNanos = Math.round(delayMillis * 1e6);
+    }
+
+    /**
+     * Pipeline index that produces AprilTag results
+     */
+    public void setAprilTagPipelineIndex(int index) {
+        aprilTagPipelineIndex = index;
+    }
+
+    public int getPipelineIndex() {
+        return pipelineIndex;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+}
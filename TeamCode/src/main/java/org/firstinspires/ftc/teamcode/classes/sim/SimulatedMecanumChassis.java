@@ -0,0 +1,197 @@
+package org.firstinspires.ftc.teamcode.classes.sim;
+
+import org.firstinspires.ftc.teamcode.classes.Angles;
+import org.firstinspires.ftc.teamcode.classes.DriveGeometry;
+import org.firstinspires.ftc.teamcode.classes.hardware.BatteryVoltageSensor;
+import org.firstinspires.ftc.teamcode.classes.hardware.DriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.HeadingSensor;
+
+/**
+ * Pure-Java mecanum chassis used in place of the real drive motors, IMU and battery off-robot
+ * Field frame: X forward, Y left, heading counter-clockwise positive (radians)
+ */
+public class SimulatedMecanumChassis implements DriveHardware, HeadingSensor, BatteryVoltageSensor {
+
+    // Defaults roughly match a 312 RPM goBILDA mecanum chassis
+    public static final double DEFAULT_MAX_SPEED = 1.5; // meters/second at full power
+    public static final double DEFAULT_MAX_TURN_RATE = Math.toRadians(300); // radians/second at full power
+    public static final double DEFAULT_RESPONSE_TIME = 0.1; // seconds - first order motor/inertia lag
+    public static final double NOMINAL_VOLTAGE = 12.0; // volts - maxSpeed and maxTurnRate are at this voltage
+
+    // Past poses kept so the simulated camera can report where the robot was when it captured a frame
+    private static final int POSE_HISTORY_SIZE = 256;
+
+    private final double maxSpeed;
+    private final double maxTurnRate;
+    private final double responseTime;
+    private final double wheelLeverArm; // (track width + wheel base) / 2, meters
+
+    private final double[] powers = new double[MOTOR_COUNT];
+    private final double[] wheelDistances = new double[MOTOR_COUNT]; // meters travelled by each wheel
+
+    // Pose in field frame
+    private double x = 0.0;
+    private double y = 0.0;
+    private double heading = 0.0;
+
+    // Velocities in robot frame (forward, left, counter-clockwise)
+    private double forwardVelocity = 0.0;
+    private double leftVelocity = 0.0;
+    private double turnRate = 0.0;
+
+    private long setPowersCount = 0;
+    private double batteryVoltage = NOMINAL_VOLTAGE;
+
+    // Simulated time and pose history
+    private long timeNanos = 0;
+    private final long[] historyTimes = new long[POSE_HISTORY_SIZE];
+    private final double[] historyX = new double[POSE_HISTORY_SIZE];
+    private final double[] historyY = new double[POSE_HISTORY_SIZE];
+    private final double[] historyHeading = new double[POSE_HISTORY_SIZE];
+    private int historyHead = 0;
+    private int historySize = 0;
+
+    public SimulatedMecanumChassis() {
+        this(DEFAULT_MAX_SPEED, DEFAULT_MAX_TURN_RATE, DEFAULT_RESPONSE_TIME);
+    }
+
+    public SimulatedMecanumChassis(double maxSpeed, double maxTurnRate, double responseTime) {
+        this.maxSpeed = maxSpeed;
+        this.maxTurnRate = maxTurnRate;
+        this.responseTime = responseTime;
+        // Full yaw power spins the wheels at full speed
+        this.wheelLeverArm = maxSpeed / maxTurnRate;
+        recordPose();
+    }
+
+    @Override
+    public void setPowers(double frontLeftPower, double frontRightPower,
+                          double backLeftPower, double backRightPower) {
+        powers[FRONT_LEFT] = clip(frontLeftPower);
+        powers[FRONT_RIGHT] = clip(frontRightPower);
+        powers[BACK_LEFT] = clip(backLeftPower);
+        powers[BACK_RIGHT] = clip(backRightPower);
+        setPowersCount++;
+    }
+
+    @Override
+    public double getPower(int motor) {
+        return powers[motor];
+    }
+
+    @Override
+    public int getCurrentPosition(int motor) {
+        return (int) Math.round(wheelDistances[motor] * DriveGeometry.TICKS_PER_METER);
+    }
+
+    /**
+     * Advance the simulation by dt seconds using the currently applied powers
+     */
+    public void step(double dt) {
+        double frontLeft = powers[FRONT_LEFT];
+        double frontRight = powers[FRONT_RIGHT];
+        double backLeft = powers[BACK_LEFT];
+        double backRight = powers[BACK_RIGHT];
+
+        // Invert the mixing done in Robot.drive
+        double axial = (frontLeft + frontRight + backLeft + backRight) / 4.0;
+        double lateral = (frontLeft - frontRight - backLeft + backRight) / 4.0;
+        double yaw = (frontLeft - frontRight + backLeft - backRight) / 4.0;
+
+        // Positive lateral strafes right and positive yaw turns clockwise
+        // Motor speed scales with the battery voltage
+        double voltageRatio = batteryVoltage / NOMINAL_VOLTAGE;
+        double targetForward = axial * maxSpeed * voltageRatio;
+        double targetLeft = -lateral * maxSpeed * voltageRatio;
+        double targetTurn = -yaw * maxTurnRate * voltageRatio;
+
+        double alpha = responseTime <= 0.0 ? 1.0 : dt / (responseTime + dt);
+        forwardVelocity += alpha * (targetForward - forwardVelocity);
+        leftVelocity += alpha * (targetLeft - leftVelocity);
+        turnRate += alpha * (targetTurn - turnRate);
+
+        // Forward kinematics, the inverse of the mixing above
+        double turnSpeed = turnRate * wheelLeverArm;
+        wheelDistances[FRONT_LEFT] += (forwardVelocity - leftVelocity - turnSpeed) * dt;
+        wheelDistances[FRONT_RIGHT] += (forwardVelocity + leftVelocity + turnSpeed) * dt;
+        wheelDistances[BACK_LEFT] += (forwardVelocity + leftVelocity - turnSpeed) * dt;
+        wheelDistances[BACK_RIGHT] += (forwardVelocity - leftVelocity + turnSpeed) * dt;
+
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        x += (forwardVelocity * cos - leftVelocity * sin) * dt;
+        y += (forwardVelocity * sin + leftVelocity * cos) * dt;
+        heading = Angles.normalizeRadians(heading + turnRate * dt);
+
+        timeNanos += Math.round(dt * 1e9);
+        recordPose();
+    }
+
+    /**
+     * Copy the pose (x, y, heading) at or just before the given time into pose
+     * Times older than the history return the oldest pose kept
+     */
+    public void getPoseAt(long atNanos, double[] pose) {
+        int index = historyHead;
+        for (int age = 0; age < historySize; age++) {
+            index = historyHead - age;
+            if (index < 0) {
+                index += POSE_HISTORY_SIZE;
+            }
+            if (historyTimes[index] <= atNanos) {
+                break;
+            }
+        }
+        pose[0] = historyX[index];
+        pose[1] = historyY[index];
+        pose[2] = historyHeading[index];
+    }
+
+    private void recordPose() {
+        historyHead = historySize == 0 ? 0 : (historyHead + 1) % POSE_HISTORY_SIZE;
+        if (historySize < POSE_HISTORY_SIZE) {
+            historySize++;
+        }
+        historyTimes[historyHead] = timeNanos;
+        historyX[historyHead] = x;
+        historyY[historyHead] = y;
+        historyHeading[historyHead] = heading;
+    }
+
+    /**
+     * Teleport the chassis and zero its velocity
+     */
+    public void setPose(double x, double y, double heading) {
+        this.x = x;
+        this.y = y;
+        this.heading = Angles.normalizeRadians(heading);
+        forwardVelocity = 0.0;
+        leftVelocity = 0.0;
+        turnRate = 0.0;
+        historySize = 0;
+        recordPose();
+    }
+
+    /**
+     * Set the simulated battery voltage; full power reaches maxSpeed at NOMINAL_VOLTAGE
+     */
+    public void setBatteryVoltage(double batteryVoltage) {
+        this.batteryVoltage = batteryVoltage;
+    }
+
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public double getHeading() { return heading; }
+    public double getHeadingDegrees() { return Math.toDegrees(heading); }
+    public double getVoltage() { return batteryVoltage; }
+    public double getForwardVelocity() { return forwardVelocity; }
+    public double getLeftVelocity() { return leftVelocity; }
+    public double getTurnRate() { return turnRate; }
+    public long getSetPowersCount() { return setPowersCount; }
+    public long getTimeNanos() { return timeNanos; }
+    public double getWheelLeverArm() { return wheelLeverArm; }
+
+    private static double clip(double power) {
+        return Math.max(-1.0, Math.min(1.0, power));
+    }
+}
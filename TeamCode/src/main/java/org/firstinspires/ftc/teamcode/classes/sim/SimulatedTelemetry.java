@@ -0,0 +1,56 @@
+package org.firstinspires.ftc.teamcode.classes.sim;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.TelemetrySink;
+
+import java.util.Locale;
+
+/**
+ * TelemetrySink for off-robot runs
+ * Formats every line like the Driver Station would, optionally echoing it to stdout
+ */
+public class SimulatedTelemetry implements TelemetrySink {
+
+    private final boolean echo;
+    private long lineCount = 0;
+    private long updateCount = 0;
+    private String lastLine = "";
+
+    public SimulatedTelemetry(boolean echo) {
+        this.echo = echo;
+    }
+
+    @Override
+    public void addData(String caption, String format, Object... args) {
+        record(caption, String.format(Locale.US, format, args));
+    }
+
+    @Override
+    public void addData(String caption, Object value) {
+        record(caption, String.valueOf(value));
+    }
+
+    private void record(String caption, String value) {
+        lastLine = caption + " : " + value;
+        lineCount++;
+        if (echo) {
+            System.out.println(lastLine);
+        }
+    }
+
+    @Override
+    public void update() {
+        updateCount++;
+    }
+
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    public String getLastLine() {
+        return lastLine;
+    }
+
+    public long getUpdateCount() {
+        return updateCount;
+    }
+}
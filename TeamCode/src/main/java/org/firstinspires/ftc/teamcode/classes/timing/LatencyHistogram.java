@@ -0,0 +1,159 @@
+package org.firstinspires.ftc.teamcode.classes.timing;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket latency histogram in the style of HdrHistogram
+ * Values are recorded in microseconds into log-linear buckets (32 sub-buckets per power of two,
+ * so any reported value is within ~3% of the recorded one). Recording is O(1) and never allocates.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // Largest trackable value is 2^MAX_VALUE_BITS microseconds (~67 seconds); larger values are clamped
+    private static final int MAX_VALUE_BITS = 26;
+    private static final long MAX_VALUE_MICROS = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final String name;
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount = 0;
+    private long minMicros = Long.MAX_VALUE;
+    private long maxMicros = 0;
+    private double sumMicros = 0.0;
+    private double sumSquaresMicros = 0.0;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Record a duration in nanoseconds
+     */
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+
+    /**
+     * Record a duration in microseconds
+     */
+    public void recordMicros(long micros) {
+        if (micros < 0) {
+            micros = 0;
+        } else if (micros > MAX_VALUE_MICROS) {
+            micros = MAX_VALUE_MICROS;
+        }
+        counts[bucketIndex(micros)]++;
+        totalCount++;
+        if (micros < minMicros) minMicros = micros;
+        if (micros > maxMicros) maxMicros = micros;
+        sumMicros += micros;
+        sumSquaresMicros += (double) micros * micros;
+    }
+
+    /**
+     * Value at the given percentile (0 to 100) in microseconds
+     * Reports the highest value that falls in the same bucket, capped at the recorded maximum
+     */
+    public long percentileMicros(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(totalCount * Math.max(0.0, Math.min(100.0, percentile)) / 100.0);
+        threshold = Math.max(1, threshold);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= threshold) {
+                return Math.min(bucketUpperMicros(i), maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+    public long getCount() { return totalCount; }
+    public long getMinMicros() { return totalCount == 0 ? 0 : minMicros; }
+    public long getMaxMicros() { return maxMicros; }
+    public String getName() { return name; }
+
+    public double getMeanMicros() {
+        return totalCount == 0 ? 0.0 : sumMicros / totalCount;
+    }
+
+    /**
+     * Standard deviation in microseconds; for cycle periods this is the loop jitter
+     */
+    public double getStdDevMicros() {
+        if (totalCount == 0) {
+            return 0.0;
+        }
+        double mean = sumMicros / totalCount;
+        return Math.sqrt(Math.max(0.0, sumSquaresMicros / totalCount - mean * mean));
+    }
+
+    /**
+     * Add another histogram's values to this one, e.g. to combine histograms from several runs
+     */
+    public void add(LatencyHistogram other) {
+        if (other.totalCount == 0) {
+            return;
+        }
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        minMicros = Math.min(minMicros, other.minMicros);
+        maxMicros = Math.max(maxMicros, other.maxMicros);
+        sumMicros += other.sumMicros;
+        sumSquaresMicros += other.sumSquaresMicros;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        minMicros = Long.MAX_VALUE;
+        maxMicros = 0;
+        sumMicros = 0.0;
+        sumSquaresMicros = 0.0;
+    }
+
+    /**
+     * Write the non-empty buckets as CSV rows: name,bucket_low_us,bucket_high_us,count
+     */
+    public void writeBuckets(PrintWriter writer) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts[i] != 0) {
+                writer.println(name + "," + bucketLowerMicros(i) + "," + bucketUpperMicros(i) + "," + counts[i]);
+            }
+        }
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_COUNT + (int) ((micros >> shift) - SUB_BUCKET_COUNT);
+    }
+
+    static long bucketLowerMicros(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return subBucket << shift;
+    }
+
+    static long bucketUpperMicros(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,214 @@
+package org.firstinspires.ftc.teamcode.classes.timing;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.HardwareCycle;
+import org.firstinspires.ftc.teamcode.classes.hardware.TelemetrySink;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Per-stage loop timing backed by LatencyHistograms
+ * Register it on the HardwareCycle to record the cycle period, then wrap each stage of the loop in
+ * begin(stage)/end(stage). Stages may nest; a stage's time excludes any stage nested inside it, so
+ * CONTROL does not double count the MOTOR_WRITE done inside Robot.drive.
+ */
+public class LoopTimer implements HardwareCycle.Listener {
+
+    /**
+     * Parts of a control loop that get their own histogram
+     */
+    public enum Stage {
+        VISION("Vision Poll"),
+        CONTROL("Control"),
+        MOTOR_WRITE("Motor Write"),
+        TELEMETRY("Telemetry"),
+        RECORDING("Recording");
+
+        private final String description;
+
+        Stage(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    // How often the telemetry summary is rebuilt
+    private static final long DEFAULT_REPORT_INTERVAL_NANOS = 1_000_000_000L;
+    private static final int MAX_NESTING = 8;
+
+    private final LatencyHistogram cycleHistogram = new LatencyHistogram("Cycle");
+    private final LatencyHistogram[] stageHistograms = new LatencyHistogram[Stage.values().length];
+    private final long reportIntervalNanos;
+
+    // Open stages, innermost last
+    private final int[] openStages = new int[MAX_NESTING];
+    private final long[] openStartNanos = new long[MAX_NESTING];
+    private final long[] openChildNanos = new long[MAX_NESTING];
+    private int depth = 0;
+
+    private long previousCycleStartNanos = -1;
+
+    // Telemetry summary, rebuilt at most once per report interval
+    private final String[] summaryLines = new String[Stage.values().length + 1];
+    private long lastReportNanos = Long.MIN_VALUE;
+
+    public LoopTimer() {
+        this(DEFAULT_REPORT_INTERVAL_NANOS);
+    }
+
+    public LoopTimer(long reportIntervalNanos) {
+        this.reportIntervalNanos = reportIntervalNanos;
+        for (Stage stage : Stage.values()) {
+            stageHistograms[stage.ordinal()] = new LatencyHistogram(stage.getDescription());
+        }
+    }
+
+    @Override
+    public void onCycleStart(long cycle, long cycleStartNanos) {
+        if (previousCycleStartNanos >= 0) {
+            cycleHistogram.recordNanos(cycleStartNanos - previousCycleStartNanos);
+        }
+        previousCycleStartNanos = cycleStartNanos;
+        // A stage left open by an exception must not leak into the next cycle
+        depth = 0;
+    }
+
+    /**
+     * Start timing a stage
+     */
+    public void begin(Stage stage) {
+        if (depth == MAX_NESTING) {
+            return;
+        }
+        openStages[depth] = stage.ordinal();
+        openStartNanos[depth] = System.nanoTime();
+        openChildNanos[depth] = 0;
+        depth++;
+    }
+
+    /**
+     * Stop timing the innermost open stage, which must be the given one
+     */
+    public void end(Stage stage) {
+        if (depth == 0 || openStages[depth - 1] != stage.ordinal()) {
+            return;
+        }
+        depth--;
+        long elapsed = System.nanoTime() - openStartNanos[depth];
+        stageHistograms[stage.ordinal()].recordNanos(elapsed - openChildNanos[depth]);
+        if (depth > 0) {
+            openChildNanos[depth - 1] += elapsed;
+        }
+    }
+
+    public LatencyHistogram getCycleHistogram() {
+        return cycleHistogram;
+    }
+
+    public LatencyHistogram getStageHistogram(Stage stage) {
+        return stageHistograms[stage.ordinal()];
+    }
+
+    /**
+     * Add the timing summary to telemetry
+     * The text is only rebuilt once per report interval; in between the cached lines are re-sent
+     */
+    public void displayTelemetry(TelemetrySink telemetry) {
+        long now = System.nanoTime();
+        if (lastReportNanos == Long.MIN_VALUE || now - lastReportNanos >= reportIntervalNanos) {
+            lastReportNanos = now;
+            summaryLines[0] = String.format(Locale.US, "p50 %.1f, p99 %.1f, max %.1f, jitter %.1f ms",
+                    cycleHistogram.percentileMicros(50) / 1000.0,
+                    cycleHistogram.percentileMicros(99) / 1000.0,
+                    cycleHistogram.getMaxMicros() / 1000.0,
+                    cycleHistogram.getStdDevMicros() / 1000.0);
+            for (Stage stage : Stage.values()) {
+                LatencyHistogram histogram = stageHistograms[stage.ordinal()];
+                summaryLines[stage.ordinal() + 1] = String.format(Locale.US, "p50 %.2f, p99 %.2f, max %.2f ms",
+                        histogram.percentileMicros(50) / 1000.0,
+                        histogram.percentileMicros(99) / 1000.0,
+                        histogram.getMaxMicros() / 1000.0);
+            }
+        }
+
+        telemetry.addData("Loop Time", summaryLines[0]);
+        for (Stage stage : Stage.values()) {
+            telemetry.addData(stage.getDescription(), summaryLines[stage.ordinal() + 1]);
+        }
+    }
+
+    /**
+     * Write a summary and the raw histogram buckets as CSV
+     */
+    public void writeReport(File file) throws IOException {
+        File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        try {
+            writer.println("histogram,count,min_us,p50_us,p90_us,p99_us,max_us,mean_us,stddev_us");
+            writeSummaryRow(writer, cycleHistogram);
+            for (LatencyHistogram histogram : stageHistograms) {
+                writeSummaryRow(writer, histogram);
+            }
+            writer.println();
+            writer.println("histogram,bucket_low_us,bucket_high_us,count");
+            cycleHistogram.writeBuckets(writer);
+            for (LatencyHistogram histogram : stageHistograms) {
+                histogram.writeBuckets(writer);
+            }
+        } finally {
+            writer.close();
+        }
+        if (writer.checkError()) {
+            throw new IOException("Error writing " + file);
+        }
+    }
+
+    /**
+     * Write the report, returning false instead of throwing so it can be called from OpMode.stop()
+     */
+    public boolean tryWriteReport(File file) {
+        try {
+            writeReport(file);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Timestamped report file for an OpMode run, e.g. LoopTiming/ManualDrive-20251009-153000.csv
+     */
+    public static File reportFile(File rootDirectory, String opModeName) {
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        return new File(new File(rootDirectory, "LoopTiming"), opModeName + "-" + timestamp + ".csv");
+    }
+
+    public void reset() {
+        cycleHistogram.reset();
+        for (LatencyHistogram histogram : stageHistograms) {
+            histogram.reset();
+        }
+        previousCycleStartNanos = -1;
+        depth = 0;
+        lastReportNanos = Long.MIN_VALUE;
+    }
+
+    private static void writeSummaryRow(PrintWriter writer, LatencyHistogram histogram) {
+        writer.println(String.format(Locale.US, "%s,%d,%d,%d,%d,%d,%d,%.1f,%.1f",
+                histogram.getName(), histogram.getCount(), histogram.getMinMicros(),
+                histogram.percentileMicros(50), histogram.percentileMicros(90), histogram.percentileMicros(99),
+                histogram.getMaxMicros(), histogram.getMeanMicros(), histogram.getStdDevMicros()));
+    }
+}
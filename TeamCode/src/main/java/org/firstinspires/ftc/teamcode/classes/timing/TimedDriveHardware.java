@@ -0,0 +1,35 @@
+package org.firstinspires.ftc.teamcode.classes.timing;
+
+import org.firstinspires.ftc.teamcode.classes.hardware.DriveHardware;
+
+/**
+ * DriveHardware decorator that records every setPowers call as the MOTOR_WRITE stage
+ */
+public class TimedDriveHardware implements DriveHardware {
+
+    private final DriveHardware delegate;
+    private final LoopTimer loopTimer;
+
+    public TimedDriveHardware(DriveHardware delegate, LoopTimer loopTimer) {
+        this.delegate = delegate;
+        this.loopTimer = loopTimer;
+    }
+
+    @Override
+    public void setPowers(double frontLeftPower, double frontRightPower,
+                          double backLeftPower, double backRightPower) {
+        loopTimer.begin(LoopTimer.Stage.MOTOR_WRITE);
+        delegate.setPowers(frontLeftPower, frontRightPower, backLeftPower, backRightPower);
+        loopTimer.end(LoopTimer.Stage.MOTOR_WRITE);
+    }
+
+    @Override
+    public double getPower(int motor) {
+        return delegate.getPower(motor);
+    }
+
+    @Override
+    public int getCurrentPosition(int motor) {
+        return delegate.getCurrentPosition(motor);
+    }
+}
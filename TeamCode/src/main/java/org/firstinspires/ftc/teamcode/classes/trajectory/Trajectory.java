@@ -0,0 +1,111 @@
+package org.firstinspires.ftc.teamcode.classes.trajectory;
+
+import org.firstinspires.ftc.teamcode.classes.Angles;
+
+/**
+ * Time-parameterized holonomic path, precomputed into primitive arrays at a fixed time step
+ * Built once by TrajectoryBuilder at init time; sampling during loop() is an O(1) index and
+ * interpolation and never allocates.
+ * Field frame: X forward, Y left, heading counter-clockwise positive (radians)
+ */
+public class Trajectory {
+
+    /**
+     * Reference pose and velocity at one instant, reused by the caller
+     */
+    public static class State {
+        public double x = 0.0;
+        public double y = 0.0;
+        public double heading = 0.0; // radians, normalized to (-pi, pi]
+        public double velocityX = 0.0; // meters/second, field frame
+        public double velocityY = 0.0;
+        public double angularVelocity = 0.0; // radians/second, counter-clockwise
+        public boolean isFinished = false; // True once the requested time is past the end
+    }
+
+    private final double timeStep;
+    private final double length;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] headings; // Unwrapped so neighbouring samples interpolate correctly
+    private final double[] velocityXs;
+    private final double[] velocityYs;
+    private final double[] angularVelocities;
+
+    Trajectory(double timeStep, double length, double[] xs, double[] ys, double[] headings,
+               double[] velocityXs, double[] velocityYs, double[] angularVelocities) {
+        this.timeStep = timeStep;
+        this.length = length;
+        this.xs = xs;
+        this.ys = ys;
+        this.headings = headings;
+        this.velocityXs = velocityXs;
+        this.velocityYs = velocityYs;
+        this.angularVelocities = angularVelocities;
+    }
+
+    /**
+     * Write the reference state at timeSeconds after the start into state
+     * Times before the start clamp to the first sample and times after the end to the last
+     */
+    public State sample(double timeSeconds, State state) {
+        int last = xs.length - 1;
+        double position = timeSeconds / timeStep;
+        int index;
+        double fraction;
+        if (position <= 0.0) {
+            index = 0;
+            fraction = 0.0;
+        } else if (position >= last) {
+            index = last;
+            fraction = 0.0;
+        } else {
+            index = (int) position;
+            fraction = position - index;
+        }
+        int next = index < last ? index + 1 : last;
+
+        state.x = lerp(xs[index], xs[next], fraction);
+        state.y = lerp(ys[index], ys[next], fraction);
+        state.heading = Angles.normalizeRadians(lerp(headings[index], headings[next], fraction));
+        state.velocityX = lerp(velocityXs[index], velocityXs[next], fraction);
+        state.velocityY = lerp(velocityYs[index], velocityYs[next], fraction);
+        state.angularVelocity = lerp(angularVelocities[index], angularVelocities[next], fraction);
+        state.isFinished = position >= last;
+        return state;
+    }
+
+    /**
+     * Total time to drive the trajectory, seconds
+     */
+    public double getDuration() {
+        return (xs.length - 1) * timeStep;
+    }
+
+    /**
+     * Path length, meters
+     */
+    public double getLength() {
+        return length;
+    }
+
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    public int getSampleCount() {
+        return xs.length;
+    }
+
+    // Raw sample access, e.g. to inspect or plot a trajectory off-robot
+    public double getX(int index) { return xs[index]; }
+    public double getY(int index) { return ys[index]; }
+    public double getHeading(int index) { return headings[index]; }
+    public double getVelocityX(int index) { return velocityXs[index]; }
+    public double getVelocityY(int index) { return velocityYs[index]; }
+    public double getAngularVelocity(int index) { return angularVelocities[index]; }
+
+    private static double lerp(double from, double to, double fraction) {
+        return from + (to - from) * fraction;
+    }
+}
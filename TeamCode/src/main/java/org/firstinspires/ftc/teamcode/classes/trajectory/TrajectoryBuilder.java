@@ -0,0 +1,400 @@
+package org.firstinspires.ftc.teamcode.classes.trajectory;
+
+import org.firstinspires.ftc.teamcode.classes.Angles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds a Trajectory through a list of waypoints
+ * The translation follows a Catmull-Rom spline through the waypoint positions and the heading blends
+ * smoothly between waypoint headings, independently of the direction of travel (mecanum is holonomic).
+ * The speed along the path is a trapezoidal profile limited by velocity, acceleration, centripetal
+ * acceleration and turn rate; with a jerk limit the velocity is additionally smoothed into an S-curve.
+ * Those four limits always hold (to the path sampling). The jerk limit holds wherever smoothing alone keeps
+ * within them; where it would not, e.g. entering a bend, the profile is cut back to them and may jerk more.
+ * All of this allocates and is meant to run at init time, never inside loop().
+ */
+public class TrajectoryBuilder {
+
+    public static final double DEFAULT_TIME_STEP = 0.01; // seconds between precomputed samples
+
+    // Bump whenever generation changes so TrajectoryCache rebuilds stored trajectories
+    public static final int VERSION = 2;
+
+    // Path sampling resolution
+    private static final int SPLINE_SAMPLES_PER_SEGMENT = 200;
+    private static final double ARC_LENGTH_STEP = 0.005; // meters
+    // Relative slack when checking the smoothed profile against the limits, for its integration error
+    private static final double LIMIT_TOLERANCE = 1e-3;
+
+    /**
+     * Limits the profile respects
+     */
+    public static final class Constraints {
+        public final double maxVelocity; // meters/second
+        public final double maxAcceleration; // meters/second^2
+        public final double maxJerk; // meters/second^3, 0 for a plain trapezoidal profile
+        public final double maxAngularVelocity; // radians/second
+        public final double maxCentripetalAcceleration; // meters/second^2
+
+        public Constraints(double maxVelocity, double maxAcceleration, double maxJerk,
+                           double maxAngularVelocity, double maxCentripetalAcceleration) {
+            if (maxVelocity <= 0.0 || maxAcceleration <= 0.0 || maxAngularVelocity <= 0.0
+                    || maxCentripetalAcceleration <= 0.0 || maxJerk < 0.0) {
+                throw new IllegalArgumentException("trajectory constraints must be positive");
+            }
+            this.maxVelocity = maxVelocity;
+            this.maxAcceleration = maxAcceleration;
+            this.maxJerk = maxJerk;
+            this.maxAngularVelocity = maxAngularVelocity;
+            this.maxCentripetalAcceleration = maxCentripetalAcceleration;
+        }
+    }
+
+    private final Constraints constraints;
+    private final double timeStep;
+    private final List<double[]> waypoints = new ArrayList<>();
+
+    public TrajectoryBuilder(Constraints constraints) {
+        this(constraints, DEFAULT_TIME_STEP);
+    }
+
+    public TrajectoryBuilder(Constraints constraints, double timeStep) {
+        if (timeStep <= 0.0) {
+            throw new IllegalArgumentException("timeStep must be positive, got " + timeStep);
+        }
+        this.constraints = constraints;
+        this.timeStep = timeStep;
+    }
+
+    /**
+     * Add a waypoint the path passes through (meters, heading in radians)
+     */
+    public TrajectoryBuilder addWaypoint(double x, double y, double heading) {
+        waypoints.add(new double[] {x, y, heading});
+        return this;
+    }
+
+    public Constraints getConstraints() {
+        return constraints;
+    }
+
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    /**
+     * Waypoints added so far, as {x, y, heading}
+     */
+    public List<double[]> getWaypoints() {
+        return waypoints;
+    }
+
+    /**
+     * Generate the trajectory
+     */
+    public Trajectory build() {
+        if (waypoints.size() < 2) {
+            throw new IllegalStateException("a trajectory needs at least two waypoints");
+        }
+
+        // 1. Sample the path uniformly in arc length
+        Path path = samplePath();
+        int pathCount = path.xs.length;
+
+        // 2. Speed limit at every path sample
+        double[] speedLimits = new double[pathCount];
+        for (int k = 0; k < pathCount; k++) {
+            double limit = constraints.maxVelocity;
+            double curvature = Math.abs(path.curvatures[k]);
+            if (curvature > 1e-9) {
+                limit = Math.min(limit, Math.sqrt(constraints.maxCentripetalAcceleration / curvature));
+            }
+            double headingRate = Math.abs(path.headingRates[k]);
+            if (headingRate > 1e-9) {
+                limit = Math.min(limit, constraints.maxAngularVelocity / headingRate);
+            }
+            speedLimits[k] = limit;
+        }
+
+        // 3. Forward (acceleration) and backward (deceleration) passes, starting and ending at rest
+        double ds = path.step;
+        double[] speeds = limitAcceleration(speedLimits, ds);
+
+        // 4. Speed against time, sampled every timeStep
+        double[] timedSpeeds = resample(speeds, ds);
+
+        // 5. S-curve: a moving average limits the jerk and keeps the distance. The average lags behind the
+        // path and can carry the speed of a straight into the next bend; where it does, the smoothed speed at
+        // every path sample becomes one more limit and the passes run again, which only lower it there
+        if (constraints.maxJerk > 0.0) {
+            // Going from full acceleration to full deceleration changes the acceleration by twice the limit
+            int window = Math.max(1,
+                    (int) Math.ceil(2.0 * constraints.maxAcceleration / constraints.maxJerk / timeStep));
+            double[] smoothedSpeeds = movingAverage(timedSpeeds, window);
+            double[] smoothedLimits = speedAtPathSamples(smoothedSpeeds, pathCount, ds);
+            boolean withinLimits = true;
+            for (int k = 0; k < pathCount; k++) {
+                if (smoothedLimits[k] > speedLimits[k] * (1.0 + LIMIT_TOLERANCE)) {
+                    smoothedLimits[k] = speedLimits[k];
+                    withinLimits = false;
+                }
+            }
+            if (withinLimits) {
+                timedSpeeds = smoothedSpeeds;
+            } else {
+                speeds = limitAcceleration(smoothedLimits, ds);
+                timedSpeeds = resample(speeds, ds);
+            }
+        }
+
+        // 6. Integrate the distance travelled and look up the path at every time sample
+        int count = timedSpeeds.length;
+        double[] distances = new double[count];
+        for (int i = 1; i < count; i++) {
+            distances[i] = distances[i - 1] + (timedSpeeds[i - 1] + timedSpeeds[i]) / 2.0 * timeStep;
+        }
+        // Remove the small integration error so the trajectory ends exactly on the last waypoint
+        double scale = distances[count - 1] > 1e-12 ? path.length / distances[count - 1] : 0.0;
+
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        double[] headings = new double[count];
+        double[] velocityXs = new double[count];
+        double[] velocityYs = new double[count];
+        double[] angularVelocities = new double[count];
+        for (int i = 0; i < count; i++) {
+            double s = distances[i] * scale;
+            double position = Math.min(s / ds, pathCount - 1);
+            int k = Math.min((int) position, pathCount - 2);
+            double fraction = position - k;
+            double speed = timedSpeeds[i] * scale;
+
+            xs[i] = lerp(path.xs[k], path.xs[k + 1], fraction);
+            ys[i] = lerp(path.ys[k], path.ys[k + 1], fraction);
+            headings[i] = lerp(path.headings[k], path.headings[k + 1], fraction);
+            velocityXs[i] = speed * lerp(path.tangentXs[k], path.tangentXs[k + 1], fraction);
+            velocityYs[i] = speed * lerp(path.tangentYs[k], path.tangentYs[k + 1], fraction);
+            angularVelocities[i] = speed * lerp(path.headingRates[k], path.headingRates[k + 1], fraction);
+        }
+
+        return new Trajectory(timeStep, path.length, xs, ys, headings, velocityXs, velocityYs, angularVelocities);
+    }
+
+    /**
+     * Path geometry sampled every `step` meters of arc length
+     */
+    private static final class Path {
+        double length;
+        double step;
+        double[] xs;
+        double[] ys;
+        double[] headings; // Unwrapped
+        double[] tangentXs; // Unit direction of travel
+        double[] tangentYs;
+        double[] curvatures; // 1/meters
+        double[] headingRates; // Radians of heading change per meter travelled
+    }
+
+    private Path samplePath() {
+        int segments = waypoints.size() - 1;
+        int denseCount = segments * SPLINE_SAMPLES_PER_SEGMENT + 1;
+
+        // Dense sampling of the spline with cumulative chord length
+        double[] denseX = new double[denseCount];
+        double[] denseY = new double[denseCount];
+        double[] denseS = new double[denseCount];
+        double[] waypointS = new double[waypoints.size()];
+        for (int segment = 0; segment < segments; segment++) {
+            double[] p0 = waypoints.get(segment);
+            double[] p1 = waypoints.get(segment + 1);
+            double[] before = waypoints.get(Math.max(segment - 1, 0));
+            double[] after = waypoints.get(Math.min(segment + 2, waypoints.size() - 1));
+            // Catmull-Rom tangents (one-sided at the ends)
+            double t0x = (p1[0] - before[0]) / (segment == 0 ? 1.0 : 2.0);
+            double t0y = (p1[1] - before[1]) / (segment == 0 ? 1.0 : 2.0);
+            double t1x = (after[0] - p0[0]) / (segment == segments - 1 ? 1.0 : 2.0);
+            double t1y = (after[1] - p0[1]) / (segment == segments - 1 ? 1.0 : 2.0);
+
+            for (int j = segment == 0 ? 0 : 1; j <= SPLINE_SAMPLES_PER_SEGMENT; j++) {
+                double u = (double) j / SPLINE_SAMPLES_PER_SEGMENT;
+                double u2 = u * u;
+                double u3 = u2 * u;
+                double h00 = 2.0 * u3 - 3.0 * u2 + 1.0;
+                double h10 = u3 - 2.0 * u2 + u;
+                double h01 = -2.0 * u3 + 3.0 * u2;
+                double h11 = u3 - u2;
+                int index = segment * SPLINE_SAMPLES_PER_SEGMENT + j;
+                denseX[index] = h00 * p0[0] + h10 * t0x + h01 * p1[0] + h11 * t1x;
+                denseY[index] = h00 * p0[1] + h10 * t0y + h01 * p1[1] + h11 * t1y;
+                if (index > 0) {
+                    denseS[index] = denseS[index - 1]
+                            + Math.hypot(denseX[index] - denseX[index - 1], denseY[index] - denseY[index - 1]);
+                }
+            }
+            waypointS[segment + 1] = denseS[(segment + 1) * SPLINE_SAMPLES_PER_SEGMENT];
+        }
+
+        double length = denseS[denseCount - 1];
+        if (length < ARC_LENGTH_STEP) {
+            throw new IllegalStateException("trajectory waypoints must not all be in the same place");
+        }
+        int count = Math.max(2, (int) Math.ceil(length / ARC_LENGTH_STEP) + 1);
+        double step = length / (count - 1);
+
+        Path path = new Path();
+        path.length = length;
+        path.step = step;
+        path.xs = new double[count];
+        path.ys = new double[count];
+        path.headings = new double[count];
+        path.tangentXs = new double[count];
+        path.tangentYs = new double[count];
+        path.curvatures = new double[count];
+        path.headingRates = new double[count];
+
+        // Resample uniformly in arc length
+        int dense = 0;
+        int waypoint = 0;
+        double headingOffset = waypoints.get(0)[2];
+        for (int k = 0; k < count; k++) {
+            double s = k * step;
+            while (dense < denseCount - 2 && denseS[dense + 1] < s) {
+                dense++;
+            }
+            double span = denseS[dense + 1] - denseS[dense];
+            double fraction = span > 1e-12 ? (s - denseS[dense]) / span : 0.0;
+            path.xs[k] = lerp(denseX[dense], denseX[dense + 1], fraction);
+            path.ys[k] = lerp(denseY[dense], denseY[dense + 1], fraction);
+
+            // Heading eases between waypoint headings along the shorter way round
+            while (waypoint < waypoints.size() - 2 && waypointS[waypoint + 1] <= s) {
+                headingOffset += Angles.normalizeRadians(
+                        waypoints.get(waypoint + 1)[2] - waypoints.get(waypoint)[2]);
+                waypoint++;
+            }
+            double headingChange = Angles.normalizeRadians(
+                    waypoints.get(waypoint + 1)[2] - waypoints.get(waypoint)[2]);
+            double waypointSpan = waypointS[waypoint + 1] - waypointS[waypoint];
+            double u = waypointSpan > 1e-12 ? Math.min(1.0, (s - waypointS[waypoint]) / waypointSpan) : 1.0;
+            path.headings[k] = headingOffset + headingChange * (3.0 * u * u - 2.0 * u * u * u);
+        }
+
+        // Derivatives by finite differences over the uniform samples
+        for (int k = 0; k < count; k++) {
+            int previous = Math.max(k - 1, 0);
+            int next = Math.min(k + 1, count - 1);
+            double span = (next - previous) * step;
+            double dx = (path.xs[next] - path.xs[previous]) / span;
+            double dy = (path.ys[next] - path.ys[previous]) / span;
+            double norm = Math.hypot(dx, dy);
+            path.tangentXs[k] = norm > 1e-12 ? dx / norm : 0.0;
+            path.tangentYs[k] = norm > 1e-12 ? dy / norm : 0.0;
+            path.headingRates[k] = (path.headings[next] - path.headings[previous]) / span;
+        }
+        for (int k = 0; k < count; k++) {
+            int previous = Math.max(k - 1, 0);
+            int next = Math.min(k + 1, count - 1);
+            double span = (next - previous) * step;
+            double ddx = (path.tangentXs[next] - path.tangentXs[previous]) / span;
+            double ddy = (path.tangentYs[next] - path.tangentYs[previous]) / span;
+            path.curvatures[k] = path.tangentXs[k] * ddy - path.tangentYs[k] * ddx;
+        }
+        return path;
+    }
+
+    /**
+     * Forward (acceleration) and backward (deceleration) passes under per-sample speed limits, from rest to rest
+     */
+    private double[] limitAcceleration(double[] speedLimits, double ds) {
+        int count = speedLimits.length;
+        double[] speeds = new double[count];
+        for (int k = 1; k < count; k++) {
+            speeds[k] = Math.min(speedLimits[k],
+                    Math.sqrt(speeds[k - 1] * speeds[k - 1] + 2.0 * constraints.maxAcceleration * ds));
+        }
+        speeds[count - 1] = 0.0;
+        for (int k = count - 2; k >= 0; k--) {
+            speeds[k] = Math.min(speeds[k],
+                    Math.sqrt(speeds[k + 1] * speeds[k + 1] + 2.0 * constraints.maxAcceleration * ds));
+        }
+        speeds[0] = 0.0;
+        return speeds;
+    }
+
+    /**
+     * Speeds given every ds meters resampled every timeStep seconds (constant acceleration between samples)
+     */
+    private double[] resample(double[] speeds, double ds) {
+        int count = speeds.length;
+        double[] times = new double[count];
+        for (int k = 1; k < count; k++) {
+            double averageSpeed = (speeds[k - 1] + speeds[k]) / 2.0;
+            times[k] = times[k - 1] + (averageSpeed > 1e-9 ? ds / averageSpeed : 0.0);
+        }
+
+        int timeCount = (int) Math.ceil(times[count - 1] / timeStep) + 1;
+        double[] timedSpeeds = new double[timeCount];
+        int segment = 0;
+        for (int i = 0; i < timeCount; i++) {
+            double t = Math.min(i * timeStep, times[count - 1]);
+            while (segment < count - 2 && times[segment + 1] < t) {
+                segment++;
+            }
+            double segmentTime = times[segment + 1] - times[segment];
+            double fraction = segmentTime > 1e-12 ? (t - times[segment]) / segmentTime : 1.0;
+            timedSpeeds[i] = speeds[segment] + (speeds[segment + 1] - speeds[segment]) * fraction;
+        }
+        timedSpeeds[timeCount - 1] = 0.0;
+        return timedSpeeds;
+    }
+
+    /**
+     * Speeds given every timeStep seconds looked up every ds meters along the path, the inverse of resample
+     */
+    private double[] speedAtPathSamples(double[] timedSpeeds, int pathCount, double ds) {
+        int count = timedSpeeds.length;
+        double[] distances = new double[count];
+        for (int i = 1; i < count; i++) {
+            distances[i] = distances[i - 1] + (timedSpeeds[i - 1] + timedSpeeds[i]) / 2.0 * timeStep;
+        }
+        // Stretch the small integration error out so the profile covers exactly the path
+        double scale = distances[count - 1] > 1e-12 ? (pathCount - 1) * ds / distances[count - 1] : 0.0;
+
+        double[] speeds = new double[pathCount];
+        int i = 0;
+        for (int k = 0; k < pathCount; k++) {
+            double s = k * ds;
+            while (i < count - 2 && distances[i + 1] * scale < s) {
+                i++;
+            }
+            double span = (distances[i + 1] - distances[i]) * scale;
+            double fraction = span > 1e-12 ? Math.min(1.0, (s - distances[i] * scale) / span) : 1.0;
+            speeds[k] = lerp(timedSpeeds[i], timedSpeeds[i + 1], fraction) * scale;
+        }
+        return speeds;
+    }
+
+    /**
+     * Causal moving average, extended by window - 1 samples so the profile still ends at rest
+     */
+    private static double[] movingAverage(double[] values, int window) {
+        double[] filtered = new double[values.length + window - 1];
+        double sum = 0.0;
+        for (int i = 0; i < filtered.length; i++) {
+            if (i < values.length) {
+                sum += values[i];
+            }
+            if (i - window >= 0 && i - window < values.length) {
+                sum -= values[i - window];
+            }
+            filtered[i] = sum / window;
+        }
+        return filtered;
+    }
+
+    private static double lerp(double from, double to, double fraction) {
+        return from + (to - from) * fraction;
+    }
+}
@@ -0,0 +1,258 @@
+package org.firstinspires.ftc.teamcode.classes.trajectory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk cache of generated trajectories, so OpMode init does not have to rebuild them on the Control Hub
+ * Each trajectory is stored in its own file named after a 64-bit hash of everything that affects its
+ * generation (waypoints, constraints, time step and TrajectoryBuilder.VERSION), so changing a path simply
+ * misses the cache and writes a new entry.
+ *
+ * File layout (little-endian):
+ *   int magic, int format version, long key, int sample count, double time step, double length,
+ *   int CRC32 of the sample data, then six float arrays (x, y, heading, velocity x, velocity y,
+ *   angular velocity) of sample count entries each
+ */
+public class TrajectoryCache {
+
+    private static final int MAGIC = 0x4A415254; // "TRAJ"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 8 + 8 + 4;
+    private static final int ARRAY_COUNT = 6;
+    private static final String EXTENSION = ".traj";
+
+    private final File directory;
+
+    private int hits = 0;
+    private int misses = 0;
+    private double lastLoadMillis = 0.0;
+    private boolean lastLoadWasHit = false;
+
+    public TrajectoryCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Load the trajectory the builder describes from the cache, or build and store it on a miss
+     * Any problem with the cache falls back to building, so a corrupt or unwritable cache never
+     * stops the OpMode
+     */
+    public Trajectory load(TrajectoryBuilder builder) {
+        long startNanos = System.nanoTime();
+        long key = key(builder);
+        File file = fileFor(key);
+
+        Trajectory trajectory = null;
+        if (file.isFile()) {
+            try {
+                trajectory = read(file, key);
+            } catch (IOException e) {
+                trajectory = null;
+            }
+        }
+
+        lastLoadWasHit = trajectory != null;
+        if (trajectory != null) {
+            hits++;
+        } else {
+            misses++;
+            trajectory = builder.build();
+            tryWrite(file, key, trajectory);
+        }
+        lastLoadMillis = (System.nanoTime() - startNanos) / 1e6;
+        return trajectory;
+    }
+
+    /**
+     * Hash of everything that determines the generated trajectory (64-bit FNV-1a)
+     */
+    public static long key(TrajectoryBuilder builder) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, FORMAT_VERSION);
+        hash = mix(hash, TrajectoryBuilder.VERSION);
+        hash = mix(hash, builder.getTimeStep());
+        TrajectoryBuilder.Constraints constraints = builder.getConstraints();
+        hash = mix(hash, constraints.maxVelocity);
+        hash = mix(hash, constraints.maxAcceleration);
+        hash = mix(hash, constraints.maxJerk);
+        hash = mix(hash, constraints.maxAngularVelocity);
+        hash = mix(hash, constraints.maxCentripetalAcceleration);
+        List<double[]> waypoints = builder.getWaypoints();
+        hash = mix(hash, waypoints.size());
+        for (double[] waypoint : waypoints) {
+            for (double value : waypoint) {
+                hash = mix(hash, value);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Write a trajectory under the given key, replacing the file atomically
+     * Returns false (and leaves the cache unchanged) if the file could not be written
+     */
+    private boolean tryWrite(File file, long key, Trajectory trajectory) {
+        File temporary = new File(file.getPath() + ".tmp");
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                return false;
+            }
+            write(temporary, key, trajectory);
+            // Written aside and renamed into place, so a crash mid-write never leaves a truncated entry
+            if (file.exists() && !file.delete()) {
+                return false;
+            }
+            return temporary.renameTo(file);
+        } catch (IOException e) {
+            temporary.delete();
+            return false;
+        }
+    }
+
+    /**
+     * Delete every cached trajectory
+     */
+    public void clear() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.getName().endsWith(EXTENSION)) {
+                file.delete();
+            }
+        }
+    }
+
+    public File fileFor(long key) {
+        return new File(directory, String.format(Locale.US, "%016x%s", key, EXTENSION));
+    }
+
+    public int getHits() { return hits; }
+    public int getMisses() { return misses; }
+    public double getLastLoadMillis() { return lastLoadMillis; }
+    public boolean wasLastLoadHit() { return lastLoadWasHit; }
+
+    private static void write(File file, long key, Trajectory trajectory) throws IOException {
+        int count = trajectory.getSampleCount();
+        ByteBuffer data = ByteBuffer.allocate(ARRAY_COUNT * count * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < count; i++) data.putFloat((float) trajectory.getX(i));
+        for (int i = 0; i < count; i++) data.putFloat((float) trajectory.getY(i));
+        for (int i = 0; i < count; i++) data.putFloat((float) trajectory.getHeading(i));
+        for (int i = 0; i < count; i++) data.putFloat((float) trajectory.getVelocityX(i));
+        for (int i = 0; i < count; i++) data.putFloat((float) trajectory.getVelocityY(i));
+        for (int i = 0; i < count; i++) data.putFloat((float) trajectory.getAngularVelocity(i));
+        data.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(data.array(), 0, data.limit());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putInt(FORMAT_VERSION);
+        header.putLong(key);
+        header.putInt(count);
+        header.putDouble(trajectory.getTimeStep());
+        header.putDouble(trajectory.getLength());
+        header.putInt((int) crc.getValue());
+        header.flip();
+
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = output.getChannel();
+            channel.truncate(0);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(false);
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Map the file and copy its samples out, or return null if it is not a valid entry for key
+     */
+    private static Trajectory read(File file, long key) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = input.getChannel();
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                return null;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (mapped.getInt() != MAGIC || mapped.getInt() != FORMAT_VERSION || mapped.getLong() != key) {
+                return null;
+            }
+            int count = mapped.getInt();
+            double timeStep = mapped.getDouble();
+            double length = mapped.getDouble();
+            int expectedCrc = mapped.getInt();
+            if (count < 2 || size != HEADER_BYTES + (long) ARRAY_COUNT * count * 4) {
+                return null;
+            }
+
+            CRC32 crc = new CRC32();
+            byte[] chunk = new byte[8192];
+            ByteBuffer data = mapped.slice();
+            while (data.hasRemaining()) {
+                int chunkLength = Math.min(chunk.length, data.remaining());
+                data.get(chunk, 0, chunkLength);
+                crc.update(chunk, 0, chunkLength);
+            }
+            if ((int) crc.getValue() != expectedCrc) {
+                return null;
+            }
+
+            mapped.position(HEADER_BYTES);
+            FloatBuffer floats = mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            float[] buffer = new float[count];
+            double[] xs = readArray(floats, buffer);
+            double[] ys = readArray(floats, buffer);
+            double[] headings = readArray(floats, buffer);
+            double[] velocityXs = readArray(floats, buffer);
+            double[] velocityYs = readArray(floats, buffer);
+            double[] angularVelocities = readArray(floats, buffer);
+            return new Trajectory(timeStep, length, xs, ys, headings, velocityXs, velocityYs, angularVelocities);
+        } finally {
+            input.close();
+        }
+    }
+
+    private static double[] readArray(FloatBuffer floats, float[] buffer) {
+        floats.get(buffer);
+        double[] values = new double[buffer.length];
+        for (int i = 0; i < buffer.length; i++) {
+            values[i] = buffer[i];
+        }
+        return values;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, double value) {
+        return mix(hash, Double.doubleToLongBits(value));
+    }
+}
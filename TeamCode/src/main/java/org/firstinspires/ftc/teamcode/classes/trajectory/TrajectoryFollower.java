@@ -0,0 +1,134 @@
+package org.firstinspires.ftc.teamcode.classes.trajectory;
+
+import org.firstinspires.ftc.teamcode.classes.Angles;
+import org.firstinspires.ftc.teamcode.classes.control.PidfController;
+import org.firstinspires.ftc.teamcode.classes.hardware.TelemetrySink;
+
+/**
+ * Follows a Trajectory by time: the reference velocity is the feedforward and PID on the field-frame
+ * pose error pulls the robot back onto the path
+ * The output is a robot-frame velocity command for Robot.driveVelocity. Nothing here allocates.
+ */
+public class TrajectoryFollower {
+
+    // Correction gains; errors in meters and radians, outputs in meters/second and radians/second
+    public static final PidfController.Gains TRANSLATION_GAINS = PidfController.Gains.pid(4.0, 0.0, 0.1)
+            .withFeedforward(0.0, 1.0).withOutputLimits(0.0, 2.0).withDerivativeFilter(0.03);
+    public static final PidfController.Gains HEADING_GAINS = PidfController.Gains.pid(4.0, 0.0, 0.1)
+            .withFeedforward(0.0, 1.0).withOutputLimits(0.0, 6.0).withDerivativeFilter(0.03);
+
+    // The trajectory counts as finished once its time is up and the robot is this close to the end
+    private static final double FINISH_POSITION_TOLERANCE = 0.03; // meters
+    private static final double FINISH_HEADING_TOLERANCE = Math.toRadians(3.0);
+    // Give up on reaching the tolerance this long after the trajectory's time is up
+    private static final double FINISH_TIMEOUT = 1.0; // seconds
+
+    private final PidfController xController = new PidfController(TRANSLATION_GAINS);
+    private final PidfController yController = new PidfController(TRANSLATION_GAINS);
+    private final PidfController headingController = new PidfController(HEADING_GAINS);
+    private final Trajectory.State reference = new Trajectory.State();
+
+    private Trajectory trajectory = null;
+    private long startNanos = 0;
+    private long lastUpdateNanos = 0;
+    private boolean finished = true;
+
+    // Last command, robot frame
+    private double forwardVelocity = 0.0;
+    private double leftVelocity = 0.0;
+    private double turnRate = 0.0;
+
+    // Last tracking error, field frame
+    private double errorX = 0.0;
+    private double errorY = 0.0;
+    private double errorHeading = 0.0;
+
+    /**
+     * Start following a trajectory from nowNanos
+     */
+    public void start(Trajectory trajectory, long nowNanos) {
+        this.trajectory = trajectory;
+        startNanos = nowNanos;
+        lastUpdateNanos = nowNanos;
+        finished = false;
+        xController.reset();
+        yController.reset();
+        headingController.reset();
+    }
+
+    /**
+     * Compute the velocity command for the current pose estimate (field frame, heading in radians)
+     * Returns true while the trajectory is still being followed
+     */
+    public boolean update(double x, double y, double heading, long nowNanos) {
+        if (trajectory == null || finished) {
+            forwardVelocity = 0.0;
+            leftVelocity = 0.0;
+            turnRate = 0.0;
+            return false;
+        }
+
+        double elapsed = (nowNanos - startNanos) / 1e9;
+        double dt = (nowNanos - lastUpdateNanos) / 1e9;
+        lastUpdateNanos = nowNanos;
+        trajectory.sample(elapsed, reference);
+
+        errorX = reference.x - x;
+        errorY = reference.y - y;
+        errorHeading = Angles.normalizeRadians(reference.heading - heading);
+
+        if (reference.isFinished) {
+            boolean inTolerance = Math.hypot(errorX, errorY) <= FINISH_POSITION_TOLERANCE
+                    && Math.abs(errorHeading) <= FINISH_HEADING_TOLERANCE;
+            if (inTolerance || elapsed - trajectory.getDuration() > FINISH_TIMEOUT) {
+                finished = true;
+                forwardVelocity = 0.0;
+                leftVelocity = 0.0;
+                turnRate = 0.0;
+                return false;
+            }
+        }
+
+        double velocityX = xController.update(errorX, reference.velocityX, dt);
+        double velocityY = yController.update(errorY, reference.velocityY, dt);
+        turnRate = headingController.update(errorHeading, reference.angularVelocity, dt);
+
+        // Field frame to robot frame
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        forwardVelocity = velocityX * cos + velocityY * sin;
+        leftVelocity = -velocityX * sin + velocityY * cos;
+        return true;
+    }
+
+    /**
+     * Stop following; update returns false until the next start
+     */
+    public void cancel() {
+        finished = true;
+        forwardVelocity = 0.0;
+        leftVelocity = 0.0;
+        turnRate = 0.0;
+    }
+
+    public boolean isFinished() { return finished; }
+    public Trajectory.State getReference() { return reference; }
+    public double getForwardVelocity() { return forwardVelocity; }
+    public double getLeftVelocity() { return leftVelocity; }
+    public double getTurnRate() { return turnRate; }
+    public double getPositionError() { return Math.hypot(errorX, errorY); }
+    public double getHeadingErrorDegrees() { return Math.toDegrees(errorHeading); }
+
+    /**
+     * Display trajectory tracking telemetry
+     */
+    public void displayTelemetry(TelemetrySink telemetry) {
+        if (finished) {
+            telemetry.addData("Trajectory", "Finished");
+            return;
+        }
+        telemetry.addData("Trajectory", "X: %.2f, Y: %.2f, Heading: %.1f",
+                reference.x, reference.y, Math.toDegrees(reference.heading));
+        telemetry.addData("Tracking Error", "%.3f m, %.1f deg", getPositionError(), getHeadingErrorDegrees());
+    }
+}
@@ -4,34 +4,153 @@ import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.classes.DriveGeometry;
 import org.firstinspires.ftc.teamcode.classes.Robot;
+import org.firstinspires.ftc.teamcode.classes.hardware.BatchedTelemetry;
+import org.firstinspires.ftc.teamcode.classes.hardware.CurrentLimitedDriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.HardwareCycle;
+import org.firstinspires.ftc.teamcode.classes.hardware.VoltageMonitor;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.FtcBatteryVoltageSensor;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.FtcDriveHardware;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.FtcTelemetrySink;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.ImuHeadingSensor;
+import org.firstinspires.ftc.teamcode.classes.hardware.ftc.LynxBulkCaching;
+import org.firstinspires.ftc.teamcode.classes.input.DriveInputShaper;
+import org.firstinspires.ftc.teamcode.classes.localization.HeadingTracker;
+import org.firstinspires.ftc.teamcode.classes.localization.DriveEncoderLocalizer;
+import org.firstinspires.ftc.teamcode.classes.recording.MatchRecord;
+import org.firstinspires.ftc.teamcode.classes.recording.MatchRecorder;
+import org.firstinspires.ftc.teamcode.classes.timing.LoopTimer;
+import org.firstinspires.ftc.teamcode.classes.timing.TimedDriveHardware;
 
 @TeleOp(name="Manual Drive", group="Linear OpMode")
 public class ManualDrive extends LinearOpMode {
+
     private final ElapsedTime runtime = new ElapsedTime();
     private final Robot robot = new Robot();
+    private final LoopTimer loopTimer = new LoopTimer();
+    private final DriveInputShaper inputShaper = new DriveInputShaper();
+    private HeadingTracker headingTracker;
+    private final MatchRecorder matchRecorder = new MatchRecorder();
+    private final MatchRecord matchRecord = new MatchRecord();
+    private FtcDriveHardware driveHardware;
+    private DriveEncoderLocalizer localizer;
+    private VoltageMonitor voltageMonitor;
+    private CurrentLimitedDriveHardware currentLimiter;
+    private HardwareCycle hardwareCycle;
 
     @Override
     public void runOpMode() {
-        robot.init(hardwareMap);
+        hardwareCycle = LynxBulkCaching.createCycle(hardwareMap);
+        hardwareCycle.addListener(loopTimer);
+        driveHardware = new FtcDriveHardware(hardwareMap);
+        localizer = new DriveEncoderLocalizer(driveHardware, DriveGeometry.TICKS_PER_METER,
+                DriveGeometry.WHEEL_LEVER_ARM);
+        robot.setLocalizer(localizer);
+        // Keep the drive inside its current budget so pushing can't brown out the hub
+        voltageMonitor = new VoltageMonitor(new FtcBatteryVoltageSensor(hardwareMap));
+        voltageMonitor.start();
+        currentLimiter = new CurrentLimitedDriveHardware(driveHardware, voltageMonitor);
+        hardwareCycle.addListener(currentLimiter);
+        robot.init(new TimedDriveHardware(currentLimiter, loopTimer));
+        headingTracker = new HeadingTracker(new ImuHeadingSensor(hardwareMap, "imu"));
+        // Lines are formatted only when the Driver Station is actually sent an update
+        BatchedTelemetry telemetrySink = FtcTelemetrySink.batched(telemetry);
+        matchRecorder.tryOpen(MatchRecorder.recordingFile(AppUtil.ROOT_FOLDER, getClass().getSimpleName()));
 
         // Wait for the game to start (driver presses START)
         telemetry.addData("Status", "Initialized");
         telemetry.update();
         waitForStart();
         runtime.reset();
+        inputShaper.reset();
+        localizer.resetEncoders();
+        headingTracker.resetHeading(0.0, System.nanoTime());
+        boolean precisionButtonWasPressed = false;
+        boolean fieldCentric = false;
+        boolean fieldCentricButtonWasPressed = false;
         while (opModeIsActive()) {
+            hardwareCycle.startCycle();
+
             double axial   = -gamepad1.left_stick_y;
             double lateral =  gamepad1.left_stick_x;
             double yaw     =  gamepad1.right_stick_x;
-            robot.driveWithGamepad(axial, lateral, yaw);
-            telemetry.addData("Status", "Run Time: " + runtime.toString());
-            telemetry.addData("Axial", "%4.2f", axial);
-            telemetry.addData("Lateral", "%4.2f", lateral);
-            telemetry.addData("Yaw", "%4.2f", yaw);
-            telemetry.addData("Front left/Right", "%4.2f, %4.2f", robot.getFrontLeftPower(), robot.getFrontRightPower());
-            telemetry.addData("Back  left/Right", "%4.2f, %4.2f", robot.getBackLeftPower(), robot.getBackRightPower());
-            telemetry.update();
+
+            // Right bumper toggles precision (half speed) mode
+            boolean precisionButtonPressed = gamepad1.right_bumper;
+            if (precisionButtonPressed && !precisionButtonWasPressed) {
+                inputShaper.togglePrecisionMode();
+            }
+            precisionButtonWasPressed = precisionButtonPressed;
+
+            // Left bumper toggles field-centric driving, A makes the robot's current heading "forward"
+            boolean fieldCentricButtonPressed = gamepad1.left_bumper;
+            if (fieldCentricButtonPressed && !fieldCentricButtonWasPressed) {
+                fieldCentric = !fieldCentric;
+            }
+            fieldCentricButtonWasPressed = fieldCentricButtonPressed;
+            if (gamepad1.a) {
+                headingTracker.resetHeading(0.0, hardwareCycle.getCycleStartNanos());
+            }
+
+            loopTimer.begin(LoopTimer.Stage.CONTROL);
+            robot.updateLocalizer(hardwareCycle.getCycleStartNanos());
+            headingTracker.update(localizer.getDeltaHeading(), hardwareCycle.getCycleStartNanos());
+            inputShaper.update(axial, lateral, yaw, hardwareCycle.getCycleStartNanos());
+            if (fieldCentric) {
+                robot.driveFieldCentric(inputShaper.getAxial(), inputShaper.getLateral(), inputShaper.getYaw(),
+                        headingTracker.getHeading());
+            } else {
+                robot.driveWithGamepad(inputShaper.getAxial(), inputShaper.getLateral(), inputShaper.getYaw());
+            }
+            loopTimer.end(LoopTimer.Stage.CONTROL);
+
+            loopTimer.begin(LoopTimer.Stage.RECORDING);
+            matchRecord.begin(hardwareCycle.getCycleCount(), hardwareCycle.getCycleStartNanos(),
+                    hardwareCycle.getLastCycleSeconds());
+            matchRecord.setGamepad(axial, lateral, yaw, gamepadButtons());
+            matchRecord.setPose(0.0, 0.0, headingTracker.getHeading(), false);
+            matchRecord.setDrive(robot, driveHardware);
+            matchRecorder.record(matchRecord);
+            loopTimer.end(LoopTimer.Stage.RECORDING);
+
+            loopTimer.begin(LoopTimer.Stage.TELEMETRY);
+            telemetrySink.addData("Status", "Run Time: %.4f seconds", runtime.seconds());
+            telemetrySink.addData("Axial", "%4.2f", axial);
+            telemetrySink.addData("Lateral", "%4.2f", lateral);
+            telemetrySink.addData("Yaw", "%4.2f", yaw);
+            inputShaper.displayTelemetry(telemetrySink);
+            telemetrySink.addData("Steering", fieldCentric ? "Field-centric" : "Robot-centric");
+            headingTracker.displayTelemetry(telemetrySink);
+            telemetrySink.addData("Front left/Right", "%4.2f, %4.2f",
+                    robot.getFrontLeftPower(), robot.getFrontRightPower());
+            telemetrySink.addData("Back  left/Right", "%4.2f, %4.2f",
+                    robot.getBackLeftPower(), robot.getBackRightPower());
+            telemetrySink.addData("Motor Writes", "%d issued, %d skipped",
+                    driveHardware.getPowerCache().getIssuedWrites(), driveHardware.getPowerCache().getSkippedWrites());
+            currentLimiter.displayTelemetry(telemetrySink);
+            matchRecorder.displayTelemetry(telemetrySink);
+            loopTimer.displayTelemetry(telemetrySink);
+            telemetrySink.update(hardwareCycle.getCycleStartNanos());
+            loopTimer.end(LoopTimer.Stage.TELEMETRY);
         }
+
+        voltageMonitor.stop();
+        matchRecorder.close();
+        String opModeName = getClass().getSimpleName();
+        loopTimer.tryWriteReport(LoopTimer.reportFile(AppUtil.ROOT_FOLDER, opModeName));
+        currentLimiter.tryWriteReport(CurrentLimitedDriveHardware.reportFile(AppUtil.ROOT_FOLDER, opModeName));
+    }
+
+    /**
+     * Pack the gamepad1 buttons this OpMode uses into MatchRecord button bits
+     */
+    private int gamepadButtons() {
+        int buttons = 0;
+        if (gamepad1.a) buttons |= MatchRecord.BUTTON_A;
+        if (gamepad1.left_bumper) buttons |= MatchRecord.BUTTON_LEFT_BUMPER;
+        if (gamepad1.right_bumper) buttons |= MatchRecord.BUTTON_RIGHT_BUMPER;
+        return buttons;
     }
 }